@@ -0,0 +1,149 @@
+package com.pixsee.imageanalysis.admission;
+
+import com.pixsee.imageanalysis.exception.TooManyRequestsException;
+import com.pixsee.imageanalysis.metrics.ImageMetrics;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limits the concurrent requests of an endpoint and the rate of each user's requests, rejecting requests over either
+ * limit with 429 before any query runs.
+ */
+@Component
+public class AdmissionControl {
+
+    private static final Permit NO_PERMIT = () -> {
+    };
+
+    private final boolean enabled;
+    private final ImageMetrics imageMetrics;
+    private final Map<AdmissionEndpoint, EndpointLimits> limits = new EnumMap<>(AdmissionEndpoint.class);
+
+    public AdmissionControl(@Value("${image.admission.enabled:true}") boolean enabled,
+                            @Value("${image.admission.upload.rate:20}") double uploadRate,
+                            @Value("${image.admission.upload.burst:40}") int uploadBurst,
+                            @Value("${image.admission.upload.max-concurrent:16}") int uploadMaxConcurrent,
+                            @Value("${image.admission.list.rate:10}") double listRate,
+                            @Value("${image.admission.list.burst:20}") int listBurst,
+                            @Value("${image.admission.list.max-concurrent:16}") int listMaxConcurrent,
+                            ImageMetrics imageMetrics,
+                            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.imageMetrics = imageMetrics;
+        limits.put(AdmissionEndpoint.UPLOAD, new EndpointLimits(
+                new TokenBucketLimiter(uploadRate, uploadBurst, System::nanoTime), uploadMaxConcurrent, new AtomicInteger()));
+        limits.put(AdmissionEndpoint.LIST, new EndpointLimits(
+                new TokenBucketLimiter(listRate, listBurst, System::nanoTime), listMaxConcurrent, new AtomicInteger()));
+        limits.forEach((endpoint, endpointLimits) -> {
+            Gauge.builder("image.admission.in_flight", endpointLimits.inFlight(), AtomicInteger::get)
+                    .description("Admitted requests in progress")
+                    .tag("endpoint", endpoint.getTag())
+                    .register(meterRegistry);
+            Gauge.builder("image.admission.buckets", endpointLimits.buckets(), TokenBucketLimiter::size)
+                    .description("Users with a token bucket")
+                    .tag("endpoint", endpoint.getTag())
+                    .register(meterRegistry);
+        });
+    }
+
+    /**
+     * Admits a request of the user to the endpoint, or throws {@link TooManyRequestsException}. The permit must be
+     * closed once the response is done.
+     */
+    public Permit admit(AdmissionEndpoint endpoint, long userId) {
+        if (!enabled) {
+            return NO_PERMIT;
+        }
+        EndpointLimits endpointLimits = limits.get(endpoint);
+        AtomicInteger inFlight = acquireSlot(endpoint, endpointLimits);
+        acquireTokens(endpoint, endpointLimits, inFlight, userId, 1);
+        return new SlotPermit(inFlight);
+    }
+
+    /**
+     * Admits a request that stands for several, such as a batch, with one slot, charging each user {@code tokens}. If
+     * one user is over its rate, the other users get their tokens back.
+     */
+    public Permit admit(AdmissionEndpoint endpoint, Map<Long, Integer> tokensByUser) {
+        if (!enabled) {
+            return NO_PERMIT;
+        }
+        EndpointLimits endpointLimits = limits.get(endpoint);
+        AtomicInteger inFlight = acquireSlot(endpoint, endpointLimits);
+        Map<Long, Integer> charged = new HashMap<>();
+        try {
+            tokensByUser.forEach((userId, tokens) -> {
+                acquireTokens(endpoint, endpointLimits, inFlight, userId, tokens);
+                charged.put(userId, tokens);
+            });
+        } catch (TooManyRequestsException e) {
+            charged.forEach(endpointLimits.buckets()::release);
+            throw e;
+        }
+        return new SlotPermit(inFlight);
+    }
+
+    private AtomicInteger acquireSlot(AdmissionEndpoint endpoint, EndpointLimits endpointLimits) {
+        AtomicInteger inFlight = endpointLimits.inFlight();
+        if (inFlight.incrementAndGet() > endpointLimits.maxConcurrent()) {
+            inFlight.decrementAndGet();
+            imageMetrics.recordAdmissionRejected(endpoint.getTag(), "concurrency");
+            throw new TooManyRequestsException("Too many concurrent requests, retry later", 1);
+        }
+        return inFlight;
+    }
+
+    // Gives the slot back if the user is over its rate
+    private void acquireTokens(AdmissionEndpoint endpoint, EndpointLimits endpointLimits, AtomicInteger inFlight,
+                               long userId, int tokens) {
+        long waitNanos = endpointLimits.buckets().tryAcquire(userId, tokens);
+        if (waitNanos > 0) {
+            inFlight.decrementAndGet();
+            imageMetrics.recordAdmissionRejected(endpoint.getTag(), "rate");
+            throw new TooManyRequestsException("Request rate limit exceeded for user " + userId,
+                    Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1)));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${image.admission.eviction-interval:PT1M}",
+            initialDelayString = "${image.admission.eviction-interval:PT1M}")
+    public void evictIdleBuckets() {
+        limits.values().forEach(endpointLimits -> endpointLimits.buckets().evictIdle());
+    }
+
+    public interface Permit extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+
+    // Releases its slot once however often it is closed; the flag is the object itself to save an allocation
+    private static final class SlotPermit extends AtomicBoolean implements Permit {
+
+        private final AtomicInteger inFlight;
+
+        private SlotPermit(AtomicInteger inFlight) {
+            this.inFlight = inFlight;
+        }
+
+        @Override
+        public void close() {
+            if (compareAndSet(false, true)) {
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+
+    private record EndpointLimits(TokenBucketLimiter buckets, int maxConcurrent, AtomicInteger inFlight) {
+    }
+}
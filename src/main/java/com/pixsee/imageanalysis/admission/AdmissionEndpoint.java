@@ -0,0 +1,21 @@
+package com.pixsee.imageanalysis.admission;
+
+/**
+ * Endpoints with their own admission limits, configured under {@code image.admission.<name>}.
+ */
+public enum AdmissionEndpoint {
+    // POST /images, /images/upload and /images/batch
+    UPLOAD("upload"),
+    // GET /images?userId=, in all of its representations
+    LIST("list");
+
+    private final String tag;
+
+    AdmissionEndpoint(String tag) {
+        this.tag = tag;
+    }
+
+    public String getTag() {
+        return tag;
+    }
+}
@@ -0,0 +1,104 @@
+package com.pixsee.imageanalysis.admission;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-free per-user token buckets that refill at {@code rate} tokens per second up to {@code burst} tokens.
+ */
+public class TokenBucketLimiter {
+
+    private static final long EVICTED = Long.MIN_VALUE;
+
+    private final ConcurrentHashMap<Long, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final long refillIntervalNanos;
+    // How far the full time may be ahead of now while a token is still left
+    private final long burstToleranceNanos;
+    private final LongSupplier nanoClock;
+
+    public TokenBucketLimiter(double rate, int burst, LongSupplier nanoClock) {
+        if (rate <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Rate must be positive and burst at least 1");
+        }
+        this.refillIntervalNanos = Math.max(1L, Math.round(1e9 / rate));
+        this.burstToleranceNanos = (burst - 1) * refillIntervalNanos;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Takes a token from the user's bucket. Returns 0 if there was one, otherwise the nanoseconds until there will be
+     * one.
+     */
+    public long tryAcquire(long userId) {
+        return tryAcquire(userId, 1);
+    }
+
+    /**
+     * Takes {@code tokens} tokens from the user's bucket if it has at least one, borrowing the rest from its next
+     * refills. Returns 0 if the tokens were taken, otherwise the nanoseconds until the bucket has a token.
+     */
+    public long tryAcquire(long userId, int tokens) {
+        if (tokens < 1) {
+            throw new IllegalArgumentException("Tokens must be at least 1");
+        }
+        while (true) {
+            AtomicLong bucket = buckets.get(userId);
+            if (bucket == null) {
+                bucket = buckets.computeIfAbsent(userId, id -> new AtomicLong(nanoClock.getAsLong()));
+            }
+            long now = nanoClock.getAsLong();
+            long fullAt = bucket.get();
+            if (fullAt == EVICTED) {
+                buckets.remove(userId, bucket);
+                continue;
+            }
+            // Compared as differences, which stay correct when nanoTime wraps around
+            long ahead = fullAt - now;
+            if (ahead > burstToleranceNanos) {
+                return ahead - burstToleranceNanos;
+            }
+            if (bucket.compareAndSet(fullAt, (ahead < 0 ? now : fullAt) + tokens * refillIntervalNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Gives back tokens taken by {@link #tryAcquire(long, int)} for a request that was not admitted after all.
+     */
+    public void release(long userId, int tokens) {
+        AtomicLong bucket = buckets.get(userId);
+        if (bucket == null) {
+            return;
+        }
+        long fullAt;
+        do {
+            fullAt = bucket.get();
+            // An evicted bucket was full, so there is nothing to give back
+            if (fullAt == EVICTED) {
+                return;
+            }
+        } while (!bucket.compareAndSet(fullAt, fullAt - tokens * refillIntervalNanos));
+    }
+
+    /**
+     * Drops the buckets that are full, and returns how many were dropped.
+     */
+    public int evictIdle() {
+        int evicted = 0;
+        for (var entry : buckets.entrySet()) {
+            AtomicLong bucket = entry.getValue();
+            long fullAt = bucket.get();
+            if (fullAt != EVICTED && fullAt - nanoClock.getAsLong() <= 0 && bucket.compareAndSet(fullAt, EVICTED)) {
+                buckets.remove(entry.getKey(), bucket);
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+}
@@ -0,0 +1,7 @@
+package com.pixsee.imageanalysis.analysis;
+
+/**
+ * What is learned from reading an upload. The perceptual hash is null when the format cannot be decoded.
+ */
+public record ImageAnalysis(ImageHeader header, String contentHash, Long perceptualHash) {
+}
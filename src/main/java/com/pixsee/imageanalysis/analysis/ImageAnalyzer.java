@@ -0,0 +1,89 @@
+package com.pixsee.imageanalysis.analysis;
+
+import com.pixsee.imageanalysis.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Analyzes uploads on a fixed pool of workers with a bounded queue. Once the queue is full, new uploads are rejected
+ * with 429.
+ */
+@Component
+public class ImageAnalyzer {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageAnalyzer.class);
+
+    private final ExecutorService executor;
+
+    public ImageAnalyzer(MeterRegistry meterRegistry,
+                         @Value("${image.analysis.threads:0}") int threads,
+                         @Value("${image.analysis.queue-capacity:256}") int queueCapacity) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> Thread.ofPlatform().daemon().name("image-analysis-" + threadCount.incrementAndGet()).unstarted(runnable));
+        this.executor = ExecutorServiceMetrics.monitor(meterRegistry, pool, "imageAnalysis");
+    }
+
+    /**
+     * Parses the header, hashes the file and computes its perceptual hash.
+     */
+    public CompletableFuture<ImageAnalysis> analyze(InputStreamSource source) {
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try (DigestInputStream in = new DigestInputStream(source.getInputStream(), MessageDigest.getInstance("SHA-256"))) {
+                    ImageHeader header = ImageHeaderParser.parse(in);
+                    in.transferTo(OutputStream.nullOutputStream());
+                    return new ImageAnalysis(header, HexFormat.of().formatHex(in.getMessageDigest().digest()), perceptualHash(source));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } catch (NoSuchAlgorithmException e) {
+                    throw new IllegalStateException(e);
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            throw new TooManyRequestsException("Image analysis queue is full", 1);
+        }
+    }
+
+    // A valid header does not guarantee decodable pixels; such images are stored without a perceptual hash
+    private static Long perceptualHash(InputStreamSource source) {
+        try (InputStream in = source.getInputStream()) {
+            return PerceptualHash.compute(in);
+        } catch (IOException | RuntimeException e) {
+            log.debug("Could not compute the perceptual hash of an upload", e);
+            return null;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+            executor.shutdownNow();
+        }
+    }
+}
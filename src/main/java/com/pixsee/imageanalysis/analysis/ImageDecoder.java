@@ -0,0 +1,50 @@
+package com.pixsee.imageanalysis.analysis;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.function.IntBinaryOperator;
+
+/**
+ * Decodes images at reduced resolution for perceptual hashing and thumbnails.
+ */
+public final class ImageDecoder {
+
+    private ImageDecoder() {
+    }
+
+    /**
+     * Decodes every n-th pixel in each direction, where n is {@code subsampling} of the width and height. Returns null
+     * if the format cannot be decoded.
+     */
+    public static BufferedImage decode(InputStream in, IntBinaryOperator subsampling) throws IOException {
+        try (ImageInputStream imageInput = ImageIO.createImageInputStream(in)) {
+            Iterator<ImageReader> readers = imageInput == null ? null : ImageIO.getImageReaders(imageInput);
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(imageInput, true, true);
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, subsampling.applyAsInt(reader.getWidth(0), reader.getHeight(0)));
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Whether an installed decoder reads images of the given file type.
+     */
+    public static boolean canDecode(String fileType) {
+        return ImageIO.getImageReadersBySuffix(fileType).hasNext();
+    }
+}
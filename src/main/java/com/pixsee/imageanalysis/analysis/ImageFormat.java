@@ -0,0 +1,36 @@
+package com.pixsee.imageanalysis.analysis;
+
+import org.springframework.http.MediaType;
+
+public enum ImageFormat {
+    JPEG("jpg", MediaType.IMAGE_JPEG),
+    PNG("png", MediaType.IMAGE_PNG),
+    GIF("gif", MediaType.IMAGE_GIF),
+    WEBP("webp", MediaType.parseMediaType("image/webp")),
+    BMP("bmp", MediaType.parseMediaType("image/bmp"));
+
+    private final String fileType;
+    private final MediaType mediaType;
+
+    ImageFormat(String fileType, MediaType mediaType) {
+        this.fileType = fileType;
+        this.mediaType = mediaType;
+    }
+
+    public String getFileType() {
+        return fileType;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    public static MediaType mediaTypeOf(String fileType) {
+        for (ImageFormat format : values()) {
+            if (format.fileType.equals(fileType)) {
+                return format.mediaType;
+            }
+        }
+        return MediaType.APPLICATION_OCTET_STREAM;
+    }
+}
@@ -0,0 +1,4 @@
+package com.pixsee.imageanalysis.analysis;
+
+public record ImageHeader(ImageFormat format, int width, int height) {
+}
@@ -0,0 +1,181 @@
+package com.pixsee.imageanalysis.analysis;
+
+import com.pixsee.imageanalysis.exception.UnsupportedImageException;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads the format and dimensions of JPEG, PNG, GIF, WebP and BMP images from their headers, without decoding any
+ * pixels.
+ */
+public final class ImageHeaderParser {
+
+    private ImageHeaderParser() {
+    }
+
+    public static ImageHeader parse(InputStream inputStream) throws IOException {
+        InputStream in = inputStream instanceof BufferedInputStream ? inputStream : new BufferedInputStream(inputStream, 512);
+        try {
+            int first = readUnsignedByte(in);
+            int second = readUnsignedByte(in);
+            if (first == 0xFF && second == 0xD8) {
+                return parseJpeg(in);
+            }
+            if (first == 0x89 && second == 'P') {
+                return parsePng(in);
+            }
+            if (first == 'G' && second == 'I') {
+                return parseGif(in);
+            }
+            if (first == 'R' && second == 'I') {
+                return parseWebp(in);
+            }
+            if (first == 'B' && second == 'M') {
+                return parseBmp(in);
+            }
+        } catch (EOFException e) {
+            throw new UnsupportedImageException("Image header is truncated");
+        }
+        throw new UnsupportedImageException("Unsupported image format");
+    }
+
+    private static ImageHeader parseJpeg(InputStream in) throws IOException {
+        while (true) {
+            if (readUnsignedByte(in) != 0xFF) {
+                throw new UnsupportedImageException("Corrupt JPEG header");
+            }
+            int marker = readUnsignedByte(in);
+            while (marker == 0xFF) {
+                marker = readUnsignedByte(in);
+            }
+            // Standalone markers carry no length
+            if (marker == 0x01 || (marker >= 0xD0 && marker <= 0xD7)) {
+                continue;
+            }
+            if (marker == 0xD9 || marker == 0xDA) {
+                throw new UnsupportedImageException("JPEG has no frame header");
+            }
+            int length = readUnsignedShortBigEndian(in);
+            // SOF0-SOF15, except DHT (C4), JPG (C8) and DAC (CC) which share the range
+            if (marker >= 0xC0 && marker <= 0xCF && marker != 0xC4 && marker != 0xC8 && marker != 0xCC) {
+                readUnsignedByte(in);
+                int height = readUnsignedShortBigEndian(in);
+                int width = readUnsignedShortBigEndian(in);
+                return header(ImageFormat.JPEG, width, height);
+            }
+            in.skipNBytes(length - 2);
+        }
+    }
+
+    private static ImageHeader parsePng(InputStream in) throws IOException {
+        expect(in, new byte[]{'N', 'G', '\r', '\n', 0x1A, '\n'}, "PNG");
+        in.skipNBytes(4);
+        expect(in, new byte[]{'I', 'H', 'D', 'R'}, "PNG");
+        int width = readIntBigEndian(in);
+        int height = readIntBigEndian(in);
+        return header(ImageFormat.PNG, width, height);
+    }
+
+    private static ImageHeader parseGif(InputStream in) throws IOException {
+        expect(in, new byte[]{'F', '8'}, "GIF");
+        int version = readUnsignedByte(in);
+        if ((version != '7' && version != '9') || readUnsignedByte(in) != 'a') {
+            throw new UnsupportedImageException("Corrupt GIF header");
+        }
+        int width = readUnsignedShortLittleEndian(in);
+        int height = readUnsignedShortLittleEndian(in);
+        return header(ImageFormat.GIF, width, height);
+    }
+
+    private static ImageHeader parseWebp(InputStream in) throws IOException {
+        expect(in, new byte[]{'F', 'F'}, "WebP");
+        in.skipNBytes(4);
+        expect(in, new byte[]{'W', 'E', 'B', 'P', 'V', 'P', '8'}, "WebP");
+        int variant = readUnsignedByte(in);
+        in.skipNBytes(4);
+        switch (variant) {
+            case ' ' -> {
+                // Lossy: 3-byte frame tag, start code, then 14-bit dimensions with 2 scaling bits
+                in.skipNBytes(3);
+                expect(in, new byte[]{(byte) 0x9D, 0x01, 0x2A}, "WebP");
+                int width = readUnsignedShortLittleEndian(in) & 0x3FFF;
+                int height = readUnsignedShortLittleEndian(in) & 0x3FFF;
+                return header(ImageFormat.WEBP, width, height);
+            }
+            case 'L' -> {
+                // Lossless: signature byte, then width - 1 and height - 1 packed as 14 bits each
+                if (readUnsignedByte(in) != 0x2F) {
+                    throw new UnsupportedImageException("Corrupt WebP header");
+                }
+                int bits = readIntLittleEndian(in);
+                return header(ImageFormat.WEBP, (bits & 0x3FFF) + 1, ((bits >>> 14) & 0x3FFF) + 1);
+            }
+            case 'X' -> {
+                // Extended: flags and reserved bytes, then canvas width - 1 and height - 1 as 24-bit values
+                in.skipNBytes(4);
+                int width = readUnsigned24LittleEndian(in) + 1;
+                int height = readUnsigned24LittleEndian(in) + 1;
+                return header(ImageFormat.WEBP, width, height);
+            }
+            default -> throw new UnsupportedImageException("Unsupported WebP variant");
+        }
+    }
+
+    private static ImageHeader parseBmp(InputStream in) throws IOException {
+        in.skipNBytes(12);
+        int dibHeaderSize = readIntLittleEndian(in);
+        if (dibHeaderSize == 12) {
+            return header(ImageFormat.BMP, readUnsignedShortLittleEndian(in), readUnsignedShortLittleEndian(in));
+        }
+        int width = readIntLittleEndian(in);
+        // A negative height marks a top-down bitmap
+        int height = Math.abs(readIntLittleEndian(in));
+        return header(ImageFormat.BMP, width, height);
+    }
+
+    private static ImageHeader header(ImageFormat format, int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new UnsupportedImageException("Image has invalid dimensions");
+        }
+        return new ImageHeader(format, width, height);
+    }
+
+    private static void expect(InputStream in, byte[] expected, String format) throws IOException {
+        for (byte b : expected) {
+            if (readUnsignedByte(in) != (b & 0xFF)) {
+                throw new UnsupportedImageException("Corrupt " + format + " header");
+            }
+        }
+    }
+
+    private static int readUnsignedByte(InputStream in) throws IOException {
+        int b = in.read();
+        if (b < 0) {
+            throw new EOFException();
+        }
+        return b;
+    }
+
+    private static int readUnsignedShortBigEndian(InputStream in) throws IOException {
+        return (readUnsignedByte(in) << 8) | readUnsignedByte(in);
+    }
+
+    private static int readUnsignedShortLittleEndian(InputStream in) throws IOException {
+        return readUnsignedByte(in) | (readUnsignedByte(in) << 8);
+    }
+
+    private static int readUnsigned24LittleEndian(InputStream in) throws IOException {
+        return readUnsignedByte(in) | (readUnsignedByte(in) << 8) | (readUnsignedByte(in) << 16);
+    }
+
+    private static int readIntBigEndian(InputStream in) throws IOException {
+        return (readUnsignedShortBigEndian(in) << 16) | readUnsignedShortBigEndian(in);
+    }
+
+    private static int readIntLittleEndian(InputStream in) throws IOException {
+        return readUnsignedShortLittleEndian(in) | (readUnsignedShortLittleEndian(in) << 16);
+    }
+}
@@ -0,0 +1,58 @@
+package com.pixsee.imageanalysis.analysis;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Computes a 64-bit difference hash (dHash) of an image. Visually similar images have hashes a small Hamming distance
+ * apart.
+ */
+public final class PerceptualHash {
+
+    private static final int COLUMNS = 9;
+    private static final int ROWS = 8;
+    private static final int PIXELS_PER_CELL = 8;
+
+    private PerceptualHash() {
+    }
+
+    /**
+     * Decodes the image at a reduced resolution and hashes it, or returns null if the format cannot be decoded.
+     */
+    public static Long compute(InputStream in) throws IOException {
+        // Cells keep enough decoded pixels to average out noise
+        BufferedImage image = ImageDecoder.decode(in, (width, height) ->
+                Math.min(width / (COLUMNS * PIXELS_PER_CELL), height / (ROWS * PIXELS_PER_CELL)));
+        return image == null ? null : compute(image);
+    }
+
+    public static long compute(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        double[] cells = new double[ROWS * COLUMNS];
+        for (int row = 0; row < ROWS; row++) {
+            int y0 = Math.min(row * height / ROWS, height - 1);
+            int y1 = Math.max(y0 + 1, (row + 1) * height / ROWS);
+            for (int column = 0; column < COLUMNS; column++) {
+                int x0 = Math.min(column * width / COLUMNS, width - 1);
+                int x1 = Math.max(x0 + 1, (column + 1) * width / COLUMNS);
+                double sum = 0;
+                for (int y = y0; y < y1; y++) {
+                    for (int x = x0; x < x1; x++) {
+                        int rgb = image.getRGB(x, y);
+                        sum += 0.299 * ((rgb >> 16) & 0xFF) + 0.587 * ((rgb >> 8) & 0xFF) + 0.114 * (rgb & 0xFF);
+                    }
+                }
+                cells[row * COLUMNS + column] = sum / ((y1 - y0) * (x1 - x0));
+            }
+        }
+        long hash = 0;
+        for (int row = 0; row < ROWS; row++) {
+            for (int column = 0; column < COLUMNS - 1; column++) {
+                hash = (hash << 1) | (cells[row * COLUMNS + column] > cells[row * COLUMNS + column + 1] ? 1 : 0);
+            }
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,92 @@
+package com.pixsee.imageanalysis.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.pixsee.imageanalysis.dto.ImageMetadataResponseDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * Bounded read-through cache of single-image lookups by id. Ids that do not exist are cached too, for a shorter time.
+ */
+@Component
+public class ImageMetadataCache {
+
+    private final boolean enabled;
+    private final AsyncCache<Long, Optional<ImageMetadataResponseDTO>> cache;
+
+    public ImageMetadataCache(@Value("${image.cache.enabled:true}") boolean enabled,
+                              @Value("${image.cache.maximum-size:10000}") long maximumSize,
+                              @Value("${image.cache.ttl:10m}") Duration ttl,
+                              @Value("${image.cache.negative-ttl:30s}") Duration negativeTtl,
+                              MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new Expiry<Long, Optional<ImageMetadataResponseDTO>>() {
+                    @Override
+                    public long expireAfterCreate(Long id, Optional<ImageMetadataResponseDTO> image, long currentTime) {
+                        return image.isPresent() ? ttl.toNanos() : negativeTtl.toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(Long id, Optional<ImageMetadataResponseDTO> image, long currentTime,
+                                                  long currentDuration) {
+                        return expireAfterCreate(id, image, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(Long id, Optional<ImageMetadataResponseDTO> image, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), "imageMetadata");
+    }
+
+    public Optional<ImageMetadataResponseDTO> get(Long id, Function<Long, Optional<ImageMetadataResponseDTO>> loader) {
+        if (!enabled) {
+            return loader.apply(id);
+        }
+        // Loading inside the cache's map lock would pin a virtual thread's carrier for the whole query
+        CompletableFuture<Optional<ImageMetadataResponseDTO>> pending = new CompletableFuture<>();
+        CompletableFuture<Optional<ImageMetadataResponseDTO>> future = cache.get(id, (key, executor) -> pending);
+        if (future == pending) {
+            try {
+                pending.complete(loader.apply(id));
+            } catch (RuntimeException e) {
+                // Failed futures are dropped by the cache, so the next lookup retries the load
+                pending.completeExceptionally(e);
+                throw e;
+            }
+        }
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    public void put(ImageMetadataResponseDTO image) {
+        if (enabled) {
+            cache.put(image.getId(), CompletableFuture.completedFuture(Optional.of(image)));
+        }
+    }
+
+    public void invalidate(Long id) {
+        if (enabled) {
+            cache.synchronous().invalidate(id);
+        }
+    }
+}
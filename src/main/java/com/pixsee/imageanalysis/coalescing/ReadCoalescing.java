@@ -0,0 +1,96 @@
+package com.pixsee.imageanalysis.coalescing;
+
+import com.pixsee.imageanalysis.dto.ImageMetadataResponseDTO;
+import com.pixsee.imageanalysis.metrics.ImageMetrics;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Joins concurrent identical reads of {@code ImageService} into one query. Reads of images written through this
+ * instance are never joined to a query that started before the write committed.
+ */
+@Component
+public class ReadCoalescing {
+
+    private final boolean enabled;
+    private final SingleFlight<Long, List<ImageMetadataResponseDTO>> imageLists;
+    private final SingleFlight<Long, VersionedImageList> versionedImageLists;
+    private final SingleFlight<Long, Optional<ImageMetadataResponseDTO>> images;
+
+    public ReadCoalescing(@Value("${image.coalescing.enabled:true}") boolean enabled,
+                          @Value("${image.coalescing.wait-timeout:10s}") Duration waitTimeout,
+                          ImageMetrics imageMetrics,
+                          MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.imageLists = register(new SingleFlight<>("list", waitTimeout, imageMetrics), meterRegistry);
+        this.versionedImageLists = register(new SingleFlight<>("versioned-list", waitTimeout, imageMetrics), meterRegistry);
+        this.images = register(new SingleFlight<>("image", waitTimeout, imageMetrics), meterRegistry);
+    }
+
+    public List<ImageMetadataResponseDTO> readImages(Long userId, Supplier<List<ImageMetadataResponseDTO>> reader) {
+        return execute(imageLists, userId, reader);
+    }
+
+    public VersionedImageList readVersionedImages(Long userId, Supplier<VersionedImageList> reader) {
+        return execute(versionedImageLists, userId, reader);
+    }
+
+    public Optional<ImageMetadataResponseDTO> readImage(Long imageId, Supplier<Optional<ImageMetadataResponseDTO>> reader) {
+        return execute(images, imageId, reader);
+    }
+
+    /**
+     * Stops joining in-flight reads of the user's lists and of the images once the current transaction commits.
+     */
+    public void recordWrite(Long userId, Collection<Long> imageIds) {
+        if (!enabled) {
+            return;
+        }
+        Runnable record = () -> {
+            if (userId != null) {
+                imageLists.forget(userId);
+                versionedImageLists.forget(userId);
+            } else {
+                imageLists.forgetAll();
+                versionedImageLists.forgetAll();
+            }
+            imageIds.forEach(images::forget);
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            record.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                record.run();
+            }
+        });
+    }
+
+    private <V> V execute(SingleFlight<Long, V> flights, Long key, Supplier<V> reader) {
+        if (!enabled || (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly())) {
+            return reader.get();
+        }
+        return flights.execute(key, reader);
+    }
+
+    private static <V> SingleFlight<Long, V> register(SingleFlight<Long, V> flights, MeterRegistry meterRegistry) {
+        Gauge.builder("image.coalescing.waiting", flights, SingleFlight::waiting)
+                .description("Callers waiting for a concurrent read of the same data")
+                .tag("read", flights.getRead())
+                .register(meterRegistry);
+        return flights;
+    }
+}
@@ -0,0 +1,113 @@
+package com.pixsee.imageanalysis.coalescing;
+
+import com.pixsee.imageanalysis.exception.ServiceUnavailableException;
+import com.pixsee.imageanalysis.metrics.ImageMetrics;
+
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs at most one read per key at a time; callers that arrive while it is in flight wait for its result. A waiter
+ * gives up with {@link ServiceUnavailableException} after the wait timeout.
+ */
+final class SingleFlight<K, V> {
+
+    private final String read;
+    private final long waitTimeoutNanos;
+    private final ImageMetrics imageMetrics;
+    private final ConcurrentMap<K, CompletableFuture<V>> flights = new ConcurrentHashMap<>();
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    SingleFlight(String read, Duration waitTimeout, ImageMetrics imageMetrics) {
+        this.read = read;
+        this.waitTimeoutNanos = waitTimeout.toNanos();
+        this.imageMetrics = imageMetrics;
+    }
+
+    V execute(K key, Supplier<V> reader) {
+        while (true) {
+            CompletableFuture<V> flight = new CompletableFuture<>();
+            CompletableFuture<V> current = flights.putIfAbsent(key, flight);
+            if (current == null) {
+                imageMetrics.recordCoalescedRead(read, "executed");
+                return lead(key, flight, reader);
+            }
+            imageMetrics.recordCoalescedRead(read, "joined");
+            try {
+                return join(current);
+            } catch (CancellationException e) {
+                // The caller running the read was interrupted, so the read is started again
+            }
+        }
+    }
+
+    /**
+     * Lets callers that arrive from now on start a new read of the key.
+     */
+    void forget(K key) {
+        flights.remove(key);
+    }
+
+    void forgetAll() {
+        flights.clear();
+    }
+
+    String getRead() {
+        return read;
+    }
+
+    // Callers waiting for a read right now
+    int waiting() {
+        return waiting.get();
+    }
+
+    private V lead(K key, CompletableFuture<V> flight, Supplier<V> reader) {
+        V result;
+        try {
+            result = reader.get();
+        } catch (RuntimeException | Error e) {
+            flights.remove(key, flight);
+            if (Thread.currentThread().isInterrupted()) {
+                flight.cancel(false);
+            } else {
+                flight.completeExceptionally(e);
+            }
+            throw e;
+        }
+        // Only this flight is removed; a write may already have replaced it with a newer one
+        flights.remove(key, flight);
+        flight.complete(result);
+        return result;
+    }
+
+    private V join(CompletableFuture<V> flight) {
+        waiting.incrementAndGet();
+        try {
+            return flight.get(waitTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            imageMetrics.recordCoalescedRead(read, "timed-out");
+            throw new ServiceUnavailableException("Timed out waiting for a concurrent read of the same data", 1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a concurrent read", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.pixsee.imageanalysis.coalescing;
+
+import com.pixsee.imageanalysis.dto.ImageMetadataResponseDTO;
+
+import java.util.List;
+
+/**
+ * A user's list version tag and the images read in the same transaction, which are null when the list was not read.
+ */
+public record VersionedImageList(String version, List<ImageMetadataResponseDTO> images) {
+}
@@ -1,45 +1,385 @@
 package com.pixsee.imageanalysis.controller;
 
+import com.pixsee.imageanalysis.admission.AdmissionControl;
+import com.pixsee.imageanalysis.admission.AdmissionEndpoint;
+import com.pixsee.imageanalysis.analysis.ImageAnalyzer;
+import com.pixsee.imageanalysis.analysis.ImageFormat;
+import com.pixsee.imageanalysis.dto.ImageBatchResponseDTO;
+import com.pixsee.imageanalysis.dto.ImageBulkResponseDTO;
+import com.pixsee.imageanalysis.dto.ImageBulkUpdateRequestDTO;
+import com.pixsee.imageanalysis.dto.ImageChangeBatchDTO;
+import com.pixsee.imageanalysis.dto.ImageDuplicateGroupDTO;
+import com.pixsee.imageanalysis.dto.ImageIngestStatusDTO;
 import com.pixsee.imageanalysis.dto.ImageMetadataRequestDTO;
 import com.pixsee.imageanalysis.dto.ImageMetadataResponseDTO;
+import com.pixsee.imageanalysis.dto.ImagePageResponseDTO;
+import com.pixsee.imageanalysis.dto.ImageSearchCriteria;
+import com.pixsee.imageanalysis.dto.ImageSearchResponseDTO;
+import com.pixsee.imageanalysis.dto.ImageSimilarityMatchDTO;
+import com.pixsee.imageanalysis.dto.ImageStatsConsistencyDTO;
+import com.pixsee.imageanalysis.dto.ImageStatsResponseDTO;
+import com.pixsee.imageanalysis.exception.InvalidRequestException;
+import com.pixsee.imageanalysis.export.ImageExporter;
+import com.pixsee.imageanalysis.feed.ImageChangeFeed;
+import com.pixsee.imageanalysis.ingest.ImageWriteBehindQueue;
+import com.pixsee.imageanalysis.mapper.ImageMetadataMapper;
+import com.pixsee.imageanalysis.service.ImageSaveResult;
 import com.pixsee.imageanalysis.service.ImageService;
+import com.pixsee.imageanalysis.service.ImageStatsService;
+import com.pixsee.imageanalysis.storage.ImageContent;
+import com.pixsee.imageanalysis.thumbnail.ThumbnailSizes;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.core.io.Resource;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.ETag;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/images")
 public class ImageController {
 
+    private static final Pattern VERSION_TAG = Pattern.compile("[0-9]{1,18}");
+
     @Autowired
     private ImageService imageService;
 
+    @Autowired
+    private ImageStatsService imageStatsService;
+
+    @Autowired
+    private ImageWriteBehindQueue imageWriteBehindQueue;
+
+    @Autowired
+    private ImageAnalyzer imageAnalyzer;
+
+    @Autowired
+    private AdmissionControl admissionControl;
+
+    @Autowired
+    private ImageChangeFeed imageChangeFeed;
+
+    @Autowired
+    private ImageExporter imageExporter;
+
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private Executor applicationTaskExecutor;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${image.batch.max-items:1000}")
+    private int maxBatchItems;
+
+    @Value("${image.page.max-limit:1000}")
+    private int maxPageLimit;
+
+    @Value("${image.similarity.max-distance:16}")
+    private int maxSimilarityDistance;
+
+    @Value("${image.changes.max-wait:20s}")
+    private Duration maxChangesWait;
+
     @PostMapping
-    public ResponseEntity<ImageMetadataResponseDTO> uploadImage(@RequestBody @Valid ImageMetadataRequestDTO imageMetadataRequestDTO) {
-        ImageMetadataResponseDTO createdImage = imageService.saveImageMetadata(imageMetadataRequestDTO);
-        return ResponseEntity.status(HttpStatus.CREATED).body(createdImage);
+    public ResponseEntity<ImageMetadataResponseDTO> uploadImage(@RequestBody @Valid ImageMetadataRequestDTO imageMetadataRequestDTO,
+                                                                @RequestHeader(value = "Prefer", required = false) String prefer) {
+        AdmissionControl.Permit permit = admissionControl.admit(AdmissionEndpoint.UPLOAD, imageMetadataRequestDTO.getUserId());
+        try {
+            if (imageWriteBehindQueue.isEnabled() && prefer != null && prefer.contains("respond-async")) {
+                ImageMetadataResponseDTO acceptedImage = imageWriteBehindQueue.enqueue(imageMetadataRequestDTO);
+                return ResponseEntity.accepted()
+                        .location(URI.create("/images/" + acceptedImage.getId() + "/status"))
+                        .body(acceptedImage);
+            }
+            ImageSaveResult result = imageService.saveImageMetadata(imageMetadataRequestDTO, null);
+            return toResponse(result);
+        } finally {
+            permit.close();
+        }
+    }
+
+    // Width, height and type come from the file's header; the request thread is released while it is read
+    @PostMapping(value = "/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public CompletableFuture<ResponseEntity<ImageMetadataResponseDTO>> uploadImageFile(@RequestParam Long userId,
+                                                                                       @RequestParam MultipartFile file) {
+        String originalFilename = file.getOriginalFilename();
+        if (file.isEmpty() || originalFilename == null || originalFilename.isBlank() || originalFilename.length() > 255) {
+            throw new InvalidRequestException("File must not be empty and its name must be between 1 and 255 characters");
+        }
+        // Held until the image is saved, after the request thread has been released
+        AdmissionControl.Permit permit = admissionControl.admit(AdmissionEndpoint.UPLOAD, userId);
+        try {
+            return imageAnalyzer.analyze(file)
+                    .thenApplyAsync(analysis -> imageService.saveImageMetadata(
+                            ImageMetadataMapper.toRequestDTO(userId, originalFilename, file.getSize(), analysis), file), applicationTaskExecutor)
+                    .thenApply(this::toResponse)
+                    .whenComplete((response, error) -> permit.close());
+        } catch (RuntimeException e) {
+            permit.close();
+            throw e;
+        }
+    }
+
+    // A save linked to an existing duplicate did not create anything
+    private ResponseEntity<ImageMetadataResponseDTO> toResponse(ImageSaveResult result) {
+        return ResponseEntity.status(result.created() ? HttpStatus.CREATED : HttpStatus.OK).body(result.image());
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<ImageBatchResponseDTO> uploadImages(@RequestBody List<ImageMetadataRequestDTO> imageMetadataRequestDTOs) {
+        if (imageMetadataRequestDTOs.isEmpty() || imageMetadataRequestDTOs.size() > maxBatchItems) {
+            throw new InvalidRequestException("Batch must contain between 1 and " + maxBatchItems + " images");
+        }
+        // Each item counts as an upload of its user; items without a user fail validation and are not charged
+        Map<Long, Integer> itemsByUser = imageMetadataRequestDTOs.stream()
+                .filter(Objects::nonNull)
+                .filter(requestDTO -> requestDTO.getUserId() != null)
+                .collect(Collectors.toMap(ImageMetadataRequestDTO::getUserId, requestDTO -> 1, Integer::sum));
+        AdmissionControl.Permit permit = admissionControl.admit(AdmissionEndpoint.UPLOAD, itemsByUser);
+        try {
+            ImageBatchResponseDTO batchResponse = imageService.saveImageMetadataBatch(imageMetadataRequestDTOs);
+            HttpStatus status = batchResponse.getFailed() == 0 ? HttpStatus.CREATED
+                    : batchResponse.getCreated() == 0 ? HttpStatus.BAD_REQUEST : HttpStatus.MULTI_STATUS;
+            return ResponseEntity.status(status).body(batchResponse);
+        } finally {
+            permit.close();
+        }
     }
 
     @GetMapping
-    public ResponseEntity<List<ImageMetadataResponseDTO>> listImages(@RequestParam Long userId) {
-        List<ImageMetadataResponseDTO> images = imageService.getImagesByUserId(userId);
-        return ResponseEntity.ok(images);
+    public ResponseEntity<List<ImageMetadataResponseDTO>> listImages(@RequestParam Long userId, WebRequest webRequest) {
+        AdmissionControl.Permit permit = admissionControl.admit(AdmissionEndpoint.LIST, userId);
+        try {
+            // The tag is read before the list, so a list that changes in between is at worst newer than its tag
+            // and is sent again on the next poll. checkNotModified also sets the ETag header.
+            List<ImageMetadataResponseDTO> images = imageService.getImagesByUserId(userId, webRequest::checkNotModified);
+            if (images == null) {
+                return null;
+            }
+            return ResponseEntity.ok(images);
+        } finally {
+            permit.close();
+        }
+    }
+
+    @GetMapping(params = "limit")
+    public ResponseEntity<ImagePageResponseDTO> listImagesPage(@RequestParam Long userId, @RequestParam int limit,
+                                                               @RequestParam(required = false) String cursor) {
+        if (limit < 1 || limit > maxPageLimit) {
+            throw new InvalidRequestException("Limit must be between 1 and " + maxPageLimit);
+        }
+        AdmissionControl.Permit permit = admissionControl.admit(AdmissionEndpoint.LIST, userId);
+        try {
+            ImagePageResponseDTO page = imageService.getImagesPageByUserId(userId, cursor, limit);
+            return ResponseEntity.ok(page);
+        } finally {
+            permit.close();
+        }
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamImages(@RequestParam Long userId) {
+        // Held until the stream is written, which is when its connection is released
+        AdmissionControl.Permit permit = admissionControl.admit(AdmissionEndpoint.LIST, userId);
+        StreamingResponseBody body = outputStream -> {
+            try (permit; SequenceWriter writer = objectMapper.writer().withRootValueSeparator("\n").writeValues(outputStream)) {
+                imageService.streamImagesByUserId(userId, image -> {
+                    try {
+                        writer.write(image);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<ImageSearchResponseDTO> searchImages(
+            @Valid ImageSearchCriteria criteria,
+            @PageableDefault(size = 100, sort = "uploadDate", direction = Sort.Direction.DESC) Pageable pageable) {
+        if (pageable.getPageSize() > maxPageLimit) {
+            throw new InvalidRequestException("Page size must be at most " + maxPageLimit);
+        }
+        ImageSearchResponseDTO results = imageService.searchImages(criteria, pageable);
+        return ResponseEntity.ok(results);
+    }
+
+    @GetMapping("/duplicates")
+    public ResponseEntity<List<ImageDuplicateGroupDTO>> listDuplicateImages(@RequestParam Long userId) {
+        List<ImageDuplicateGroupDTO> duplicates = imageService.getDuplicateImages(userId);
+        return ResponseEntity.ok(duplicates);
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<ImageStatsResponseDTO> getImageStats(@RequestParam Long userId) {
+        ImageStatsResponseDTO stats = imageStatsService.getStats(userId);
+        return ResponseEntity.ok(stats);
+    }
+
+    @GetMapping("/stats/consistency")
+    public ResponseEntity<ImageStatsConsistencyDTO> checkImageStatsConsistency(@RequestParam Long userId) {
+        ImageStatsConsistencyDTO consistency = imageStatsService.checkConsistency(userId);
+        return ResponseEntity.ok(consistency);
+    }
+
+    // All images, or those uploaded in [uploadedFrom, uploadedTo] (epoch seconds), in the columnar export format
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportImages(@RequestParam(required = false) Long uploadedFrom,
+                                                              @RequestParam(required = false) Long uploadedTo) {
+        if (uploadedFrom != null && uploadedTo != null && uploadedFrom > uploadedTo) {
+            throw new InvalidRequestException("uploadedFrom must not be after uploadedTo");
+        }
+        StreamingResponseBody body = outputStream -> imageExporter.export(uploadedFrom, uploadedTo, outputStream);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename("images.pxic").build().toString())
+                .body(body);
+    }
+
+    // Long poll: without new events the request waits up to wait seconds for one, holding no thread
+    @GetMapping("/changes")
+    public CompletableFuture<ResponseEntity<ImageChangeBatchDTO>> getImageChanges(@RequestParam(required = false) Long since,
+                                                                                 @RequestParam(defaultValue = "100") int limit,
+                                                                                 @RequestParam(defaultValue = "0") long wait) {
+        if (limit < 1 || limit > maxPageLimit) {
+            throw new InvalidRequestException("Limit must be between 1 and " + maxPageLimit);
+        }
+        if (wait < 0 || wait > maxChangesWait.toSeconds()) {
+            throw new InvalidRequestException("Wait must be between 0 and " + maxChangesWait.toSeconds() + " seconds");
+        }
+        if (since != null && since < 0) {
+            throw new InvalidRequestException("Since must not be negative");
+        }
+        return imageChangeFeed.getChanges(since, limit, Duration.ofSeconds(wait)).thenApply(ResponseEntity::ok);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<ImageMetadataResponseDTO> getImageDetails(@PathVariable Long id) {
+    public ResponseEntity<ImageMetadataResponseDTO> getImageDetails(@PathVariable Long id, WebRequest webRequest) {
         ImageMetadataResponseDTO image = imageService.getImageById(id);
+        // Usually answered from the cache, so a 304 costs neither a query nor serializing the body
+        if (webRequest.checkNotModified(String.valueOf(image.getVersion()))) {
+            return null;
+        }
         return ResponseEntity.ok(image);
     }
 
+    // Range requests are answered with 206 by Spring MVC, which only reads the requested part of the content
+    @GetMapping("/{id}/content")
+    public ResponseEntity<Resource> getImageContent(@PathVariable Long id) {
+        ImageContent content = imageService.getImageContent(id);
+        return ResponseEntity.ok()
+                .contentType(ImageFormat.mediaTypeOf(content.fileType()))
+                .body(content.resource());
+    }
+
+    // Content never changes once stored, so neither does a thumbnail
+    @GetMapping("/{id}/thumbnails/{size}")
+    public CompletableFuture<ResponseEntity<byte[]>> getImageThumbnail(@PathVariable Long id, @PathVariable int size) {
+        if (!ThumbnailSizes.get().contains(size)) {
+            throw new InvalidRequestException("Thumbnail size must be one of " + ThumbnailSizes.get());
+        }
+        return imageService.getThumbnail(id, size)
+                .thenApply(thumbnail -> ResponseEntity.ok()
+                        .contentType(MediaType.IMAGE_JPEG)
+                        .cacheControl(CacheControl.maxAge(Duration.ofDays(30)))
+                        .body(thumbnail));
+    }
+
+    @GetMapping("/{id}/similar")
+    public ResponseEntity<List<ImageSimilarityMatchDTO>> listSimilarImages(@PathVariable Long id,
+                                                                           @RequestParam(defaultValue = "10") int maxDistance,
+                                                                           @RequestParam(defaultValue = "100") int limit) {
+        if (maxDistance < 0 || maxDistance > maxSimilarityDistance) {
+            throw new InvalidRequestException("Max distance must be between 0 and " + maxSimilarityDistance);
+        }
+        if (limit < 1 || limit > maxPageLimit) {
+            throw new InvalidRequestException("Limit must be between 1 and " + maxPageLimit);
+        }
+        List<ImageSimilarityMatchDTO> similarImages = imageService.getSimilarImages(id, maxDistance, limit);
+        return ResponseEntity.ok(similarImages);
+    }
+
+    @GetMapping("/{id}/status")
+    public ResponseEntity<ImageIngestStatusDTO> getImageIngestStatus(@PathVariable Long id) {
+        ImageIngestStatusDTO status = imageWriteBehindQueue.getStatus(id);
+        return ResponseEntity.ok(status);
+    }
+
     @PutMapping("/{id}")
-    public ResponseEntity<ImageMetadataResponseDTO> updateImageMetadata(@PathVariable Long id, @RequestBody @Valid ImageMetadataRequestDTO imageMetadataRequestDTO) {
-        ImageMetadataResponseDTO updatedImage = imageService.updateImageMetadata(id, imageMetadataRequestDTO);
-        return ResponseEntity.ok(updatedImage);
+    public ResponseEntity<ImageMetadataResponseDTO> updateImageMetadata(@PathVariable Long id,
+                                                                        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                                        @RequestBody @Valid ImageMetadataRequestDTO imageMetadataRequestDTO) {
+        ImageMetadataResponseDTO updatedImage = imageService.updateImageMetadata(id, imageMetadataRequestDTO, expectedVersions(ifMatch));
+        return ResponseEntity.ok().eTag(String.valueOf(updatedImage.getVersion())).body(updatedImage);
+    }
+
+    // Null when the update is unconditional. If-Match uses strong comparison, so weak tags never match.
+    private static Set<Long> expectedVersions(String ifMatch) {
+        if (ifMatch == null) {
+            return null;
+        }
+        List<ETag> tags = ETag.parse(ifMatch);
+        if (tags.stream().anyMatch(ETag::isWildcard)) {
+            return null;
+        }
+        return tags.stream()
+                .filter(tag -> !tag.weak() && VERSION_TAG.matcher(tag.tag()).matches())
+                .map(tag -> Long.valueOf(tag.tag()))
+                .collect(Collectors.toSet());
+    }
+
+    // Without ids, every image of the user is updated
+    @PatchMapping
+    public ResponseEntity<ImageBulkResponseDTO> updateImages(@RequestBody @Valid ImageBulkUpdateRequestDTO imageBulkUpdateRequestDTO) {
+        checkBulkIds(imageBulkUpdateRequestDTO.getIds());
+        ImageBulkResponseDTO result = imageService.updateImagesFileType(imageBulkUpdateRequestDTO);
+        return ResponseEntity.ok(result);
+    }
+
+    // Without ids, every image of the user is deleted
+    @DeleteMapping
+    public ResponseEntity<ImageBulkResponseDTO> deleteImages(@RequestParam Long userId,
+                                                             @RequestParam(required = false) List<Long> ids) {
+        checkBulkIds(ids);
+        ImageBulkResponseDTO result = imageService.deleteImages(userId, ids);
+        return ResponseEntity.ok(result);
+    }
+
+    private void checkBulkIds(List<Long> ids) {
+        if (ids != null && (ids.isEmpty() || ids.size() > maxBatchItems)) {
+            throw new InvalidRequestException("Ids must contain between 1 and " + maxBatchItems + " images");
+        }
     }
 
     @DeleteMapping("/{id}")
@@ -0,0 +1,23 @@
+package com.pixsee.imageanalysis.controller;
+
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reads and writes bodies as Smile ({@code application/x-jackson-smile}) for clients that ask for it, with the same
+ * settings as the JSON converter plus shared string values.
+ */
+@Component
+public class SmileMessageConverter extends MappingJackson2SmileHttpMessageConverter {
+
+    public SmileMessageConverter(Jackson2ObjectMapperBuilder jackson2ObjectMapperBuilder) {
+        super(jackson2ObjectMapperBuilder
+                .factory(SmileFactory.builder()
+                        .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+                        .build())
+                .build());
+    }
+}
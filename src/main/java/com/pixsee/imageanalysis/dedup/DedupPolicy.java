@@ -0,0 +1,14 @@
+package com.pixsee.imageanalysis.dedup;
+
+/**
+ * What {@code ImageService.saveImageMetadata} does with an image whose content hash matches one of
+ * the user's existing images.
+ */
+public enum DedupPolicy {
+    /** Refuse the image with 409 Conflict. */
+    REJECT,
+    /** Return the existing image instead of creating a new one. */
+    LINK,
+    /** Store the image anyway; uploaded bytes are shared with the existing image. */
+    KEEP
+}
@@ -0,0 +1,102 @@
+package com.pixsee.imageanalysis.dedup;
+
+import com.pixsee.imageanalysis.repository.ImageRepository;
+import com.pixsee.imageanalysis.shard.ShardRouting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory prefilter that tells whether a user might already have an image with a given content hash. A negative
+ * answer is definite.
+ */
+@Component
+public class ImageDedupIndex implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageDedupIndex.class);
+
+    // Spreads user ids across the filter so the same content uploaded by different users sets different bits
+    private static final long USER_MIX = 0x9E3779B97F4A7C15L;
+
+    private final ImageRepository imageRepository;
+    private final ShardRouting shardRouting;
+    private final DedupPolicy policy;
+    private final long expectedImages;
+    private final double falsePositiveProbability;
+    private volatile BloomFilter filter;
+    private volatile boolean running;
+
+    public ImageDedupIndex(ImageRepository imageRepository,
+                           ShardRouting shardRouting,
+                           @Value("${image.dedup.policy:link}") DedupPolicy policy,
+                           @Value("${image.dedup.expected-images:1000000}") long expectedImages,
+                           @Value("${image.dedup.false-positive-probability:0.01}") double falsePositiveProbability) {
+        this.imageRepository = imageRepository;
+        this.shardRouting = shardRouting;
+        this.policy = policy;
+        this.expectedImages = expectedImages;
+        this.falsePositiveProbability = falsePositiveProbability;
+        this.filter = BloomFilter.create(expectedImages, falsePositiveProbability);
+    }
+
+    @Override
+    public void start() {
+        rebuild();
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Once the shard directory is loaded, and before the web server takes requests
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 6144;
+    }
+
+    public void rebuild() {
+        long existing = shardRouting.scatterGather(imageRepository::countByContentHashIsNotNull).stream()
+                .mapToLong(Long::longValue)
+                .sum();
+        // Leave room to grow, so the false positive rate holds until the next restart
+        BloomFilter rebuilt = BloomFilter.create(Math.max(expectedImages, existing * 2), falsePositiveProbability);
+        shardRouting.forEachShard(() -> imageRepository.forEachContentHash((contentHash, userId) -> put(rebuilt, userId, contentHash)));
+        filter = rebuilt;
+        log.info("Dedup index rebuilt from {} images ({} bits, {} hash functions)", existing, rebuilt.bitCount(), rebuilt.hashCount());
+    }
+
+    public DedupPolicy getPolicy() {
+        return policy;
+    }
+
+    public boolean mightContain(Long userId, String contentHash) {
+        return filter.mightContain(high(userId, contentHash), low(contentHash));
+    }
+
+    public void add(Long userId, String contentHash) {
+        put(filter, userId, contentHash);
+    }
+
+    private static void put(BloomFilter filter, long userId, String contentHash) {
+        filter.put(high(userId, contentHash), low(contentHash));
+    }
+
+    // The content hash is a hex SHA-256 digest, so its first 128 bits are already uniformly distributed
+    private static long high(long userId, String contentHash) {
+        return Long.parseUnsignedLong(contentHash, 0, 16, 16) ^ (userId * USER_MIX);
+    }
+
+    private static long low(String contentHash) {
+        // Odd, so that the probe sequence never collapses onto a single bit
+        return Long.parseUnsignedLong(contentHash, 16, 32, 16) | 1L;
+    }
+}
@@ -0,0 +1,13 @@
+package com.pixsee.imageanalysis.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class ImageBatchItemResultDTO {
+
+    private int index;
+    private ImageMetadataResponseDTO image;
+    private List<String> errors;
+}
@@ -0,0 +1,13 @@
+package com.pixsee.imageanalysis.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class ImageBatchResponseDTO {
+
+    private int created;
+    private int failed;
+    private List<ImageBatchItemResultDTO> results;
+}
@@ -0,0 +1,10 @@
+package com.pixsee.imageanalysis.dto;
+
+import lombok.Data;
+
+@Data
+public class ImageBulkResponseDTO {
+
+    private long affected;
+    private int chunks;
+}
@@ -0,0 +1,23 @@
+package com.pixsee.imageanalysis.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class ImageBulkUpdateRequestDTO {
+
+    @NotNull(message = "User Id cannot be null")
+    private Long userId;
+
+    // Limits the update to these images of the user; all of the user's images when null
+    private List<Long> ids;
+
+    // Limits the update to images that currently have this file type
+    private String currentFileType;
+
+    @NotBlank(message = "File Type cannot be empty/null")
+    private String fileType;
+}
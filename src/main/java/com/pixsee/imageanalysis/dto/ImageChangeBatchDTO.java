@@ -0,0 +1,13 @@
+package com.pixsee.imageanalysis.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class ImageChangeBatchDTO {
+
+    private List<ImageChangeEventDTO> events;
+    // Position to pass as since on the next request
+    private Long nextSince;
+}
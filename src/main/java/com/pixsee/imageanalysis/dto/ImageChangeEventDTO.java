@@ -0,0 +1,17 @@
+package com.pixsee.imageanalysis.dto;
+
+import com.pixsee.imageanalysis.entity.ImageChangeType;
+import lombok.Data;
+
+@Data
+public class ImageChangeEventDTO {
+
+    private Long position;
+    private ImageChangeType type;
+    private Long imageId;
+    private Long userId;
+    private Long version;
+    private Long timestamp;
+    // The image as it is now, which may be newer than this event; null once it has been deleted
+    private ImageMetadataResponseDTO image;
+}
@@ -0,0 +1,13 @@
+package com.pixsee.imageanalysis.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class ImageDuplicateGroupDTO {
+
+    private String contentHash;
+    private Long fileSize;
+    private List<Long> imageIds;
+}
@@ -0,0 +1,15 @@
+package com.pixsee.imageanalysis.dto;
+
+import com.pixsee.imageanalysis.ingest.IngestStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImageIngestStatusDTO {
+
+    private Long id;
+    private IngestStatus status;
+}
@@ -2,6 +2,7 @@ package com.pixsee.imageanalysis.dto;
 
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
 import lombok.Data;
 
@@ -26,4 +27,9 @@ public class ImageMetadataRequestDTO {
 
     @NotBlank(message = "File Type cannot be empty/null")
     private String fileType;
+
+    @Pattern(regexp = "[0-9a-f]{64}", message = "Content Hash must be a lowercase hex SHA-256 digest")
+    private String contentHash;
+
+    private Long perceptualHash;
 }
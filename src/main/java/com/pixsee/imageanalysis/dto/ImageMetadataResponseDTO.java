@@ -2,6 +2,8 @@ package com.pixsee.imageanalysis.dto;
 
 import lombok.Data;
 
+import java.util.Map;
+
 @Data
 public class ImageMetadataResponseDTO {
 
@@ -13,4 +15,9 @@ public class ImageMetadataResponseDTO {
     private Integer height;
     private Long fileSize;
     private String fileType;
+    private String contentHash;
+    private Long perceptualHash;
+    // Thumbnail URL by size; null when the image has no content that can be decoded
+    private Map<Integer, String> thumbnails;
+    private Long version;
 }
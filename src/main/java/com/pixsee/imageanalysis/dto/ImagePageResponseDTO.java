@@ -0,0 +1,12 @@
+package com.pixsee.imageanalysis.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class ImagePageResponseDTO {
+
+    private List<ImageMetadataResponseDTO> items;
+    private String nextCursor;
+}
@@ -0,0 +1,21 @@
+package com.pixsee.imageanalysis.dto;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+@Data
+public class ImageSearchCriteria {
+
+    @NotNull(message = "User Id cannot be null")
+    private Long userId;
+
+    private String fileType;
+    private Long minFileSize;
+    private Long maxFileSize;
+    private Integer minWidth;
+    private Integer maxWidth;
+    private Integer minHeight;
+    private Integer maxHeight;
+    private Long uploadedFrom;
+    private Long uploadedTo;
+}
@@ -0,0 +1,15 @@
+package com.pixsee.imageanalysis.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class ImageSearchResponseDTO {
+
+    private List<ImageMetadataResponseDTO> items;
+    private int page;
+    private int size;
+    private long totalElements;
+    private int totalPages;
+}
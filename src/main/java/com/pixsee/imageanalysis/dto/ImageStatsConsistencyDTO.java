@@ -0,0 +1,11 @@
+package com.pixsee.imageanalysis.dto;
+
+import lombok.Data;
+
+@Data
+public class ImageStatsConsistencyDTO {
+
+    private boolean consistent;
+    private ImageStatsResponseDTO stored;
+    private ImageStatsResponseDTO recomputed;
+}
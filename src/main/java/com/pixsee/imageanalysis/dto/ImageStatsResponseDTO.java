@@ -0,0 +1,20 @@
+package com.pixsee.imageanalysis.dto;
+
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+public class ImageStatsResponseDTO {
+
+    private Long userId;
+    private long imageCount;
+    private long totalBytes;
+    private Map<String, Long> fileTypeCounts;
+    private Integer minWidth;
+    private Integer maxWidth;
+    private Double avgWidth;
+    private Integer minHeight;
+    private Integer maxHeight;
+    private Double avgHeight;
+}
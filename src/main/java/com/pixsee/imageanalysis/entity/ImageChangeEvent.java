@@ -0,0 +1,58 @@
+package com.pixsee.imageanalysis.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * Outbox row written in the same transaction as the image change it describes. Image id, version and type identify the
+ * event.
+ */
+@Entity
+@Table(name = "image_change_event", indexes = {
+        // Serves the feed reads, and the sequencer's lookup of pending events (position null)
+        @Index(name = "feed_position_idx", columnList = "feed_position", unique = true),
+        // Lets pruning find the last position older than the retention without a scan
+        @Index(name = "created_at_idx", columnList = "created_at")
+})
+@IdClass(ImageChangeEvent.Key.class)
+@Data
+public class ImageChangeEvent {
+
+    @Id
+    private Long imageId;
+
+    // The image's version after the change, or its last version for a delete
+    @Id
+    private Long imageVersion;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(length = 10)
+    private ImageChangeType changeType;
+
+    @Column(name = "feed_position")
+    private Long feedPosition;
+
+    @Column(nullable = false)
+    private Long userId;
+
+    // Epoch milliseconds
+    @Column(name = "created_at", nullable = false)
+    private Long createdAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private Long imageId;
+        private Long imageVersion;
+        private ImageChangeType changeType;
+    }
+}
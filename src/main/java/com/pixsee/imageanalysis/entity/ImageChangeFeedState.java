@@ -0,0 +1,22 @@
+package com.pixsee.imageanalysis.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+/**
+ * Single row holding the last feed position handed out. Sequencers lock it, so positions are assigned by
+ * one transaction at a time even with several instances.
+ */
+@Entity
+@Table(name = "image_change_feed_state")
+@Data
+public class ImageChangeFeedState {
+
+    public static final int ID = 1;
+
+    @Id
+    private Integer id;
+
+    @Column(nullable = false)
+    private Long lastPosition;
+}
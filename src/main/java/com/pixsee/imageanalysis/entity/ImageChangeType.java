@@ -0,0 +1,7 @@
+package com.pixsee.imageanalysis.entity;
+
+public enum ImageChangeType {
+    CREATED,
+    UPDATED,
+    DELETED
+}
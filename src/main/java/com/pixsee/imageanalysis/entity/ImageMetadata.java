@@ -1,15 +1,32 @@
 package com.pixsee.imageanalysis.entity;
 
+import com.pixsee.imageanalysis.shard.ShardedSequence;
 import jakarta.persistence.*;
 import lombok.Data;
 
 @Entity
-@Table(name = "image_metadata")
+@Table(name = "image_metadata", indexes = {
+        // Serves both the per-user lookups and the keyset pagination on (user_id, id)
+        @Index(name = "user_id_idx", columnList = "user_id, id"),
+        // Let the per-user stats re-read MIN/MAX of a dimension with one index seek after a delete
+        @Index(name = "user_id_width_idx", columnList = "user_id, width"),
+        @Index(name = "user_id_height_idx", columnList = "user_id, height"),
+        // Serve GET /images/search: upload date windows, and file type filters sorted by upload date
+        @Index(name = "user_id_upload_date_idx", columnList = "user_id, upload_date"),
+        @Index(name = "user_id_file_type_idx", columnList = "user_id, file_type, upload_date"),
+        // Dedup lookups and the duplicates report look up a user's images by content hash
+        @Index(name = "user_id_content_hash_idx", columnList = "user_id, content_hash"),
+        // Lets the content compactor list the images stored in a segment in file order
+        @Index(name = "content_segment_idx", columnList = "content_segment, content_offset")
+})
 @Data
 public class ImageMetadata {
 
+    // A pooled sequence (emulated with a table on MySQL) hands out ids in blocks, which lets
+    // Hibernate group INSERTs into JDBC batches; IDENTITY forces one round trip per row.
+    // With sharding, the id also carries the owner's bucket, which routes lookups by id.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @ShardedSequence(sequenceName = "image_metadata_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -32,4 +49,29 @@ public class ImageMetadata {
 
     @Column(nullable = false)
     private String fileType;
+
+    // Hex SHA-256 of the image's bytes; describes the content, so metadata updates leave it alone
+    @Column(length = 64, updatable = false)
+    private String contentHash;
+
+    // 64-bit difference hash of the decoded pixels, compared by Hamming distance to find similar images
+    @Column(updatable = false)
+    private Long perceptualHash;
+
+    // Where the uploaded bytes live in the content store; null when only metadata was posted.
+    // Not updatable through the entity so that a concurrent update cannot undo a compaction move.
+    @Column(updatable = false)
+    private Integer contentSegment;
+
+    @Column(updatable = false)
+    private Long contentOffset;
+
+    @Column(updatable = false)
+    private Long contentLength;
+
+    // Incremented by every metadata update, which only succeeds if the row still has the version it was
+    // read with; served as the image's ETag
+    @Version
+    @Column(nullable = false)
+    private Long version;
 }
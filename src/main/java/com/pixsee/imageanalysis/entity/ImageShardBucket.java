@@ -0,0 +1,22 @@
+package com.pixsee.imageanalysis.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+/**
+ * Directory entry saying which shard holds the users of a bucket, and whether the bucket is being moved.
+ */
+@Entity
+@Table(name = "image_shard_bucket")
+@Data
+public class ImageShardBucket {
+
+    @Id
+    private Integer bucket;
+
+    @Column(nullable = false)
+    private Integer shard;
+
+    @Column(nullable = false)
+    private Boolean moving;
+}
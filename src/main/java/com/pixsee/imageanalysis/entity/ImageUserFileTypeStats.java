@@ -0,0 +1,35 @@
+package com.pixsee.imageanalysis.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Entity
+@Table(name = "image_user_file_type_stats")
+@IdClass(ImageUserFileTypeStats.Key.class)
+@Data
+public class ImageUserFileTypeStats {
+
+    @Id
+    private Long userId;
+
+    @Id
+    private String fileType;
+
+    @Column(nullable = false)
+    private Long imageCount;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private Long userId;
+        private String fileType;
+    }
+}
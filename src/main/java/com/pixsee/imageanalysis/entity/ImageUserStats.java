@@ -0,0 +1,33 @@
+package com.pixsee.imageanalysis.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+@Entity
+@Table(name = "image_user_stats")
+@Data
+public class ImageUserStats {
+
+    @Id
+    private Long userId;
+
+    @Column(nullable = false)
+    private Long imageCount;
+
+    @Column(nullable = false)
+    private Long totalBytes;
+
+    @Column(nullable = false)
+    private Long widthSum;
+
+    @Column(nullable = false)
+    private Long heightSum;
+
+    private Integer widthMin;
+
+    private Integer widthMax;
+
+    private Integer heightMin;
+
+    private Integer heightMax;
+}
@@ -0,0 +1,21 @@
+package com.pixsee.imageanalysis.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.CONFLICT)
+public class DuplicateImageException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Long existingImageId;
+
+    public DuplicateImageException(Long existingImageId) {
+        super("Image is a duplicate of image " + existingImageId);
+        this.existingImageId = existingImageId;
+    }
+
+    public Long getExistingImageId() {
+        return existingImageId;
+    }
+}
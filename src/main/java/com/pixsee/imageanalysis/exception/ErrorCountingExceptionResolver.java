@@ -0,0 +1,31 @@
+package com.pixsee.imageanalysis.exception;
+
+import com.pixsee.imageanalysis.metrics.ImageMetrics;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import org.springframework.web.servlet.ModelAndView;
+
+/**
+ * Counts every exception raised by a handler without resolving it, so responses are unchanged.
+ */
+@Component
+public class ErrorCountingExceptionResolver implements HandlerExceptionResolver, Ordered {
+
+    @Autowired
+    private ImageMetrics imageMetrics;
+
+    @Override
+    public ModelAndView resolveException(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        imageMetrics.recordError(ex);
+        return null;
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+}
@@ -1,5 +1,6 @@
 package com.pixsee.imageanalysis.exception;
 
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -8,6 +9,7 @@ import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
+import java.net.URI;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -23,6 +25,49 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(getErrorsMap(errors), new HttpHeaders(), HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(InvalidRequestException.class)
+    public ResponseEntity<Map<String, List<String>>> handleInvalidRequest(InvalidRequestException ex) {
+        return new ResponseEntity<>(getErrorsMap(List.of(ex.getMessage())), new HttpHeaders(), HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<Map<String, List<String>>> handleTooManyRequests(TooManyRequestsException ex) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()));
+        return new ResponseEntity<>(getErrorsMap(List.of(ex.getMessage())), headers, HttpStatus.TOO_MANY_REQUESTS);
+    }
+
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<Map<String, List<String>>> handleServiceUnavailable(ServiceUnavailableException ex) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()));
+        return new ResponseEntity<>(getErrorsMap(List.of(ex.getMessage())), headers, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    @ExceptionHandler(DuplicateImageException.class)
+    public ResponseEntity<Map<String, List<String>>> handleDuplicateImage(DuplicateImageException ex) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setLocation(URI.create("/images/" + ex.getExistingImageId()));
+        return new ResponseEntity<>(getErrorsMap(List.of(ex.getMessage())), headers, HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<Map<String, List<String>>> handlePreconditionFailed(PreconditionFailedException ex) {
+        return new ResponseEntity<>(getErrorsMap(List.of(ex.getMessage())), new HttpHeaders(), HttpStatus.PRECONDITION_FAILED);
+    }
+
+    // An unconditional update that lost the race against a concurrent one
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Map<String, List<String>>> handleOptimisticLockingFailure(OptimisticLockingFailureException ex) {
+        return new ResponseEntity<>(getErrorsMap(List.of("Image was modified concurrently, retry the request")),
+                new HttpHeaders(), HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(ImageChangesPrunedException.class)
+    public ResponseEntity<Map<String, List<String>>> handleImageChangesPruned(ImageChangesPrunedException ex) {
+        return new ResponseEntity<>(getErrorsMap(List.of(ex.getMessage())), new HttpHeaders(), HttpStatus.GONE);
+    }
+
     private Map<String, List<String>> getErrorsMap(List<String> errors) {
         Map<String, List<String>> errorResponse = new HashMap<>();
         errorResponse.put("errors", errors);
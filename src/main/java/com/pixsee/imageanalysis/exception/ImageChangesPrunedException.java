@@ -0,0 +1,14 @@
+package com.pixsee.imageanalysis.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.GONE)
+public class ImageChangesPrunedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ImageChangesPrunedException(long prunedThrough) {
+        super("Changes up to position " + prunedThrough + " have been pruned, resynchronize and resume from the current position");
+    }
+}
@@ -0,0 +1,14 @@
+package com.pixsee.imageanalysis.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.UNSUPPORTED_MEDIA_TYPE)
+public class UnsupportedImageException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public UnsupportedImageException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,68 @@
+package com.pixsee.imageanalysis.export;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+
+// The values of one column of a row group, before compression
+class ColumnBuffer extends ByteArrayOutputStream {
+
+    ColumnBuffer(int size) {
+        super(size);
+    }
+
+    // Unsigned LEB128: 7 bits per byte, low bits first
+    void writeVarLong(long value) {
+        while ((value & ~0x7FL) != 0) {
+            write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        write((int) value);
+    }
+
+    // Zigzag keeps small negative deltas small
+    void writeSignedVarLong(long value) {
+        writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    // Length plus one, so that 0 stands for null
+    void writeString(String value) {
+        if (value == null) {
+            writeVarLong(0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(bytes.length + 1L);
+        write(bytes, 0, bytes.length);
+    }
+
+    void writeNullableLong(Long value) {
+        if (value == null) {
+            write(0);
+            return;
+        }
+        write(1);
+        long bits = value;
+        for (int shift = 0; shift < 64; shift += 8) {
+            write((int) (bits >>> shift));
+        }
+    }
+
+    void writeBuffer(ColumnBuffer other) {
+        write(other.buf, 0, other.count);
+    }
+
+    // Appends the raw and the compressed length of this column, then its compressed bytes
+    void deflateTo(ColumnBuffer target, ColumnBuffer scratch, Deflater deflater, byte[] chunk) {
+        scratch.reset();
+        deflater.reset();
+        deflater.setInput(buf, 0, count);
+        deflater.finish();
+        while (!deflater.finished()) {
+            scratch.write(chunk, 0, deflater.deflate(chunk));
+        }
+        target.writeVarLong(count);
+        target.writeVarLong(scratch.count);
+        target.writeBuffer(scratch);
+    }
+}
@@ -0,0 +1,68 @@
+package com.pixsee.imageanalysis.export;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+// Reads back what ColumnBuffer wrote, from a decompressed column
+class ColumnInput {
+
+    private final byte[] bytes;
+    private int position;
+
+    ColumnInput(byte[] bytes) {
+        this.bytes = bytes;
+    }
+
+    long readVarLong() {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = bytes[position++];
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    long readSignedVarLong() {
+        long value = readVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    String readString() {
+        int length = (int) readVarLong() - 1;
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+
+    Long readNullableLong() {
+        if (bytes[position++] == 0) {
+            return null;
+        }
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 8) {
+            value |= (bytes[position++] & 0xFFL) << shift;
+        }
+        return value;
+    }
+
+    static long readVarLong(InputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException("Truncated image export");
+            }
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+}
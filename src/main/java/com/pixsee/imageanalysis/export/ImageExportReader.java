@@ -0,0 +1,95 @@
+package com.pixsee.imageanalysis.export;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads an export written by {@link ImageExportWriter} one row group at a time.
+ */
+public class ImageExportReader {
+
+    private final DataInputStream in;
+    private boolean finished;
+
+    public ImageExportReader(InputStream in) throws IOException {
+        this.in = new DataInputStream(in);
+        byte[] magic = this.in.readNBytes(ImageExportWriter.MAGIC.length);
+        if (!Arrays.equals(magic, ImageExportWriter.MAGIC)) {
+            throw new IOException("Not an image export");
+        }
+        int version = this.in.read();
+        if (version != ImageExportWriter.VERSION) {
+            throw new IOException("Unsupported image export version " + version);
+        }
+    }
+
+    /**
+     * Returns the rows of the next group in file order, or null once all groups have been read.
+     */
+    public List<ImageExportRow> nextRowGroup() throws IOException {
+        if (finished) {
+            return null;
+        }
+        int size = (int) ColumnInput.readVarLong(in);
+        if (size == 0) {
+            finished = true;
+            return null;
+        }
+        ColumnInput[] columns = new ColumnInput[ImageExportWriter.COLUMNS];
+        Inflater inflater = new Inflater();
+        try {
+            for (int column = 0; column < columns.length; column++) {
+                columns[column] = new ColumnInput(inflate(inflater));
+            }
+        } finally {
+            inflater.end();
+        }
+
+        ColumnInput fileTypes = columns[7];
+        String[] dictionary = new String[(int) fileTypes.readVarLong()];
+        for (int i = 0; i < dictionary.length; i++) {
+            dictionary[i] = fileTypes.readString();
+        }
+        List<ImageExportRow> rows = new ArrayList<>(size);
+        long id = 0;
+        long uploadDate = 0;
+        for (int row = 0; row < size; row++) {
+            id += columns[0].readSignedVarLong();
+            long userId = columns[1].readVarLong();
+            String originalFilename = columns[2].readString();
+            uploadDate += columns[3].readSignedVarLong();
+            rows.add(new ImageExportRow(id, userId, originalFilename, uploadDate,
+                    (int) columns[4].readVarLong(),
+                    (int) columns[5].readVarLong(),
+                    columns[6].readVarLong(),
+                    dictionary[(int) fileTypes.readVarLong()],
+                    columns[8].readString(),
+                    columns[9].readNullableLong(),
+                    columns[10].readVarLong()));
+        }
+        return rows;
+    }
+
+    private byte[] inflate(Inflater inflater) throws IOException {
+        byte[] raw = new byte[(int) ColumnInput.readVarLong(in)];
+        byte[] compressed = new byte[(int) ColumnInput.readVarLong(in)];
+        in.readFully(compressed);
+        inflater.reset();
+        inflater.setInput(compressed);
+        try {
+            if (inflater.inflate(raw) != raw.length || !inflater.finished()) {
+                throw new EOFException("Truncated image export column");
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt image export column", e);
+        }
+        return raw;
+    }
+}
@@ -0,0 +1,8 @@
+package com.pixsee.imageanalysis.export;
+
+/**
+ * One image in an export. The hashes are null for images posted without content.
+ */
+public record ImageExportRow(long id, long userId, String originalFilename, long uploadDate, int width, int height,
+                             long fileSize, String fileType, String contentHash, Long perceptualHash, long version) {
+}
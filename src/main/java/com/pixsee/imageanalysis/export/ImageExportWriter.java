@@ -0,0 +1,198 @@
+package com.pixsee.imageanalysis.export;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+/**
+ * Writes image exports in a compressed columnar format. Columns follow the order of {@link ImageExportRow}, and
+ * row groups may come in any id order.
+ *
+ * <pre>
+ * file   := "PXIC" version:u8 group* 0:varint footer
+ * group  := rows:varint column{11}
+ * column := rawLength:varint length:varint deflate(values)
+ * footer := groups:varint (offset rows minId maxId minUploadDate maxUploadDate):varint* footerLength:i32 "PXIC"
+ * </pre>
+ */
+public class ImageExportWriter {
+
+    static final byte[] MAGIC = "PXIC".getBytes(StandardCharsets.US_ASCII);
+    static final int VERSION = 1;
+    static final int COLUMNS = 11;
+
+    private final OutputStream out;
+    private final List<long[]> groups = new ArrayList<>();
+    private long position;
+    private long rows;
+
+    public ImageExportWriter(OutputStream out) throws IOException {
+        this.out = out;
+        out.write(MAGIC);
+        out.write(VERSION);
+        position = MAGIC.length + 1;
+    }
+
+    /**
+     * Appends the group, if it holds any rows, and clears it for reuse.
+     */
+    public void write(RowGroup group) throws IOException {
+        if (group.size() == 0) {
+            return;
+        }
+        byte[] bytes = group.encode();
+        synchronized (this) {
+            groups.add(new long[]{position, group.size(), group.minId, group.maxId, group.minUploadDate, group.maxUploadDate});
+            out.write(bytes);
+            position += bytes.length;
+            rows += group.size();
+        }
+        group.clear();
+    }
+
+    /**
+     * Writes the footer and flushes; the stream is left open.
+     */
+    public synchronized void finish() throws IOException {
+        ColumnBuffer footer = new ColumnBuffer(16 + groups.size() * 24);
+        footer.writeVarLong(groups.size());
+        for (long[] group : groups) {
+            for (long value : group) {
+                footer.writeVarLong(value);
+            }
+        }
+        DataOutputStream data = new DataOutputStream(out);
+        data.write(0);
+        footer.writeTo(data);
+        data.writeInt(footer.size());
+        data.write(MAGIC);
+        data.flush();
+        position += 1 + footer.size() + 4 + MAGIC.length;
+    }
+
+    public synchronized long getRowCount() {
+        return rows;
+    }
+
+    public synchronized long getBytesWritten() {
+        return position;
+    }
+
+    /**
+     * The rows of one group, buffered column by column. Not thread-safe: each exporting thread fills its own.
+     */
+    public static final class RowGroup {
+
+        private final ColumnBuffer ids;
+        private final ColumnBuffer userIds;
+        private final ColumnBuffer originalFilenames;
+        private final ColumnBuffer uploadDates;
+        private final ColumnBuffer widths;
+        private final ColumnBuffer heights;
+        private final ColumnBuffer fileSizes;
+        private final ColumnBuffer fileTypes;
+        private final ColumnBuffer contentHashes;
+        private final ColumnBuffer perceptualHashes;
+        private final ColumnBuffer versions;
+        private final Map<String, Integer> fileTypeDictionary = new HashMap<>();
+        private final List<String> fileTypeValues = new ArrayList<>();
+        private int size;
+        private long lastId;
+        private long lastUploadDate;
+        private long minId;
+        private long maxId;
+        private long minUploadDate;
+        private long maxUploadDate;
+
+        public RowGroup(int expectedRows) {
+            ids = new ColumnBuffer(expectedRows * 2);
+            userIds = new ColumnBuffer(expectedRows * 3);
+            originalFilenames = new ColumnBuffer(expectedRows * 24);
+            uploadDates = new ColumnBuffer(expectedRows);
+            widths = new ColumnBuffer(expectedRows * 2);
+            heights = new ColumnBuffer(expectedRows * 2);
+            fileSizes = new ColumnBuffer(expectedRows * 3);
+            fileTypes = new ColumnBuffer(expectedRows);
+            contentHashes = new ColumnBuffer(expectedRows * 65);
+            perceptualHashes = new ColumnBuffer(expectedRows * 9);
+            versions = new ColumnBuffer(expectedRows);
+            clear();
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public void add(ImageExportRow row) {
+            ids.writeSignedVarLong(row.id() - lastId);
+            userIds.writeVarLong(row.userId());
+            originalFilenames.writeString(row.originalFilename());
+            uploadDates.writeSignedVarLong(row.uploadDate() - lastUploadDate);
+            widths.writeVarLong(row.width());
+            heights.writeVarLong(row.height());
+            fileSizes.writeVarLong(row.fileSize());
+            Integer fileType = fileTypeDictionary.get(row.fileType());
+            if (fileType == null) {
+                fileType = fileTypeValues.size();
+                fileTypeDictionary.put(row.fileType(), fileType);
+                fileTypeValues.add(row.fileType());
+            }
+            fileTypes.writeVarLong(fileType);
+            contentHashes.writeString(row.contentHash());
+            perceptualHashes.writeNullableLong(row.perceptualHash());
+            versions.writeVarLong(row.version());
+
+            lastId = row.id();
+            lastUploadDate = row.uploadDate();
+            minId = Math.min(minId, row.id());
+            maxId = Math.max(maxId, row.id());
+            minUploadDate = Math.min(minUploadDate, row.uploadDate());
+            maxUploadDate = Math.max(maxUploadDate, row.uploadDate());
+            size++;
+        }
+
+        private byte[] encode() {
+            ColumnBuffer dictionary = new ColumnBuffer(64 + fileTypes.size());
+            dictionary.writeVarLong(fileTypeValues.size());
+            fileTypeValues.forEach(dictionary::writeString);
+            dictionary.writeBuffer(fileTypes);
+
+            ColumnBuffer group = new ColumnBuffer(Math.max(256, originalFilenames.size()));
+            ColumnBuffer scratch = new ColumnBuffer(Math.max(256, contentHashes.size()));
+            byte[] chunk = new byte[8192];
+            group.writeVarLong(size);
+            Deflater deflater = new Deflater();
+            try {
+                for (ColumnBuffer column : List.of(ids, userIds, originalFilenames, uploadDates, widths, heights,
+                        fileSizes, dictionary, contentHashes, perceptualHashes, versions)) {
+                    column.deflateTo(group, scratch, deflater, chunk);
+                }
+            } finally {
+                deflater.end();
+            }
+            return group.toByteArray();
+        }
+
+        private void clear() {
+            for (ColumnBuffer column : List.of(ids, userIds, originalFilenames, uploadDates, widths, heights,
+                    fileSizes, fileTypes, contentHashes, perceptualHashes, versions)) {
+                column.reset();
+            }
+            fileTypeDictionary.clear();
+            fileTypeValues.clear();
+            size = 0;
+            lastId = 0;
+            lastUploadDate = 0;
+            minId = Long.MAX_VALUE;
+            maxId = Long.MIN_VALUE;
+            minUploadDate = Long.MAX_VALUE;
+            maxUploadDate = Long.MIN_VALUE;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.pixsee.imageanalysis.export;
+
+import com.pixsee.imageanalysis.shard.ShardRouting;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Exports {@code image_metadata} for analytics in the format of {@link ImageExportWriter}, reading the table in
+ * parallel with memory bounded by one row group per thread.
+ */
+@Component
+public class ImageExporter {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageExporter.class);
+
+    private static final String ID_RANGE_SQL = "SELECT MIN(id), MAX(id) FROM image_metadata";
+
+    private static final String RANGE_SQL = "SELECT id, user_id, original_filename, upload_date, width, height, "
+            + "file_size, file_type, content_hash, perceptual_hash, version FROM image_metadata "
+            + "WHERE id >= ? AND id <= ? AND upload_date >= ? AND upload_date <= ? ORDER BY id";
+
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ShardRouting shardRouting;
+    private final int threads;
+    private final int rowGroupSize;
+    private final int fetchSize;
+    private final Path directory;
+    private final ExecutorService pool;
+
+    public ImageExporter(JdbcTemplate jdbcTemplate, ShardRouting shardRouting,
+                         @Value("${image.export.threads:0}") int threads,
+                         @Value("${image.export.row-group-size:65536}") int rowGroupSize,
+                         @Value("${image.export.fetch-size:1000}") int fetchSize,
+                         @Value("${image.export.directory:data/exports}") Path directory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.shardRouting = shardRouting;
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.rowGroupSize = rowGroupSize;
+        this.fetchSize = fetchSize;
+        this.directory = directory;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.pool = Executors.newFixedThreadPool(this.threads,
+                runnable -> Thread.ofPlatform().daemon().name("export-" + threadCount.incrementAndGet()).unstarted(runnable));
+    }
+
+    @Scheduled(cron = "${image.export.cron:-}")
+    public void scheduledExport() throws IOException {
+        exportToDirectory();
+    }
+
+    /**
+     * Exports every image into a new file in {@code image.export.directory}, renamed into place once complete, and
+     * returns its path.
+     */
+    public Path exportToDirectory() throws IOException {
+        Files.createDirectories(directory);
+        Path file = directory.resolve("images-" + FILE_TIMESTAMP.format(ZonedDateTime.now(ZoneOffset.UTC)) + ".pxic");
+        Path partial = directory.resolve(file.getFileName() + ".partial");
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(partial))) {
+            export(null, null, out);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(partial);
+            throw e;
+        }
+        Files.move(partial, file, StandardCopyOption.ATOMIC_MOVE);
+        return file;
+    }
+
+    /**
+     * Writes the images uploaded between {@code uploadedFrom} and {@code uploadedTo} (epoch seconds, inclusive, null
+     * for an open end) to {@code out} and returns the number of rows.
+     */
+    public long export(Long uploadedFrom, Long uploadedTo, OutputStream out) throws IOException {
+        long start = System.nanoTime();
+        long from = uploadedFrom == null ? Long.MIN_VALUE : uploadedFrom;
+        long to = uploadedTo == null ? Long.MAX_VALUE : uploadedTo;
+        ImageExportWriter writer = new ImageExportWriter(out);
+        List<Future<?>> ranges = new ArrayList<>();
+        try {
+            for (int shard = 0; shard < shardRouting.getShardCount(); shard++) {
+                int onShard = shard;
+                long[] ids = shardRouting.onShard(shard, () -> jdbcTemplate.queryForObject(ID_RANGE_SQL,
+                        (resultSet, row) -> resultSet.getObject(1) == null ? null
+                                : new long[]{resultSet.getLong(1), resultSet.getLong(2)}));
+                if (ids == null) {
+                    continue;
+                }
+                long step = Math.max(1, (ids[1] - ids[0]) / threads + 1);
+                for (long first = ids[0]; first <= ids[1]; first += step) {
+                    long last = Math.min(ids[1], first + step - 1);
+                    long rangeFirst = first;
+                    ranges.add(pool.submit(() -> shardRouting.onShard(onShard,
+                            () -> exportRange(onShard, rangeFirst, last, from, to, writer))));
+                }
+            }
+            for (Future<?> range : ranges) {
+                range.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while exporting images", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException io) {
+                throw io.getCause();
+            }
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : new IllegalStateException(e.getCause());
+        } finally {
+            ranges.forEach(range -> range.cancel(true));
+        }
+        writer.finish();
+        log.info("Exported {} images in {} bytes in {} ms", writer.getRowCount(), writer.getBytesWritten(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return writer.getRowCount();
+    }
+
+    private Void exportRange(int shard, long firstId, long lastId, long from, long to, ImageExportWriter writer) {
+        ImageExportWriter.RowGroup group = new ImageExportWriter.RowGroup(rowGroupSize);
+        RowCallbackHandler handler = resultSet -> {
+            long id = resultSet.getLong(1);
+            // While a bucket is moved its images are on two shards; only the one the directory names exports them
+            if (shardRouting.isEnabled() && shardRouting.shardOfImage(id) != shard) {
+                return;
+            }
+            long perceptualHash = resultSet.getLong(10);
+            Long nullablePerceptualHash = resultSet.wasNull() ? null : perceptualHash;
+            group.add(new ImageExportRow(id, resultSet.getLong(2), resultSet.getString(3), resultSet.getLong(4),
+                    resultSet.getInt(5), resultSet.getInt(6), resultSet.getLong(7), resultSet.getString(8),
+                    resultSet.getString(9), nullablePerceptualHash, resultSet.getLong(11)));
+            if (group.size() == rowGroupSize) {
+                write(writer, group);
+            }
+        };
+        // A fetch size makes Connector/J (with useCursorFetch) stream the rows through a server-side cursor
+        // instead of buffering the whole range
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(RANGE_SQL, ResultSet.TYPE_FORWARD_ONLY,
+                    ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize);
+            statement.setLong(1, firstId);
+            statement.setLong(2, lastId);
+            statement.setLong(3, from);
+            statement.setLong(4, to);
+            return statement;
+        }, handler);
+        write(writer, group);
+        return null;
+    }
+
+    private static void write(ImageExportWriter writer, ImageExportWriter.RowGroup group) {
+        try {
+            writer.write(group);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        pool.shutdown();
+        if (!pool.awaitTermination(10, TimeUnit.SECONDS)) {
+            pool.shutdownNow();
+        }
+    }
+}
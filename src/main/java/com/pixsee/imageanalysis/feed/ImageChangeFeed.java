@@ -0,0 +1,129 @@
+package com.pixsee.imageanalysis.feed;
+
+import com.pixsee.imageanalysis.dto.ImageChangeBatchDTO;
+import com.pixsee.imageanalysis.dto.ImageChangeEventDTO;
+import com.pixsee.imageanalysis.entity.ImageChangeEvent;
+import com.pixsee.imageanalysis.entity.ImageChangeType;
+import com.pixsee.imageanalysis.entity.ImageMetadata;
+import com.pixsee.imageanalysis.exception.ImageChangesPrunedException;
+import com.pixsee.imageanalysis.mapper.ImageChangeMapper;
+import com.pixsee.imageanalysis.repository.ImageChangeEventRepository;
+import com.pixsee.imageanalysis.repository.ImageRepository;
+import com.pixsee.imageanalysis.shard.ShardRouting;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Serves the change feed in position order. A request waiting for new events does not hold a thread.
+ */
+@Service
+public class ImageChangeFeed {
+
+    @Autowired
+    private ImageChangeEventRepository imageChangeEventRepository;
+
+    @Autowired
+    private ImageRepository imageRepository;
+
+    @Autowired
+    private ImageChangeSequencer imageChangeSequencer;
+
+    @Autowired
+    private ShardRouting shardRouting;
+
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private Executor applicationTaskExecutor;
+
+    private final Set<Waiter> waiters = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void listen() {
+        imageChangeSequencer.addListener(this::onSequenced);
+    }
+
+    /**
+     * Returns up to {@code limit} events after position {@code since}, waiting up to {@code wait} for the first one.
+     * Without {@code since}, returns only the current position.
+     */
+    public CompletableFuture<ImageChangeBatchDTO> getChanges(Long since, int limit, Duration wait) {
+        if (since == null) {
+            return CompletableFuture.completedFuture(toBatch(imageChangeSequencer.getLastPosition(), List.of()));
+        }
+        ImageChangeBatchDTO batch = read(since, limit);
+        if (!batch.getEvents().isEmpty() || wait.isZero()) {
+            return CompletableFuture.completedFuture(batch);
+        }
+        Waiter waiter = new Waiter(since, limit, new CompletableFuture<>());
+        waiters.add(waiter);
+        waiter.result()
+                .completeOnTimeout(batch, wait.toMillis(), TimeUnit.MILLISECONDS)
+                .whenComplete((result, e) -> waiters.remove(waiter));
+        // Events sequenced between the read and the registration did not notify this waiter
+        onSequenced(imageChangeSequencer.getLastPosition());
+        return waiter.result();
+    }
+
+    private void onSequenced(long lastPosition) {
+        for (Waiter waiter : waiters) {
+            if (waiter.since() < lastPosition && waiters.remove(waiter)) {
+                applicationTaskExecutor.execute(() -> {
+                    try {
+                        waiter.result().complete(read(waiter.since(), waiter.limit()));
+                    } catch (RuntimeException e) {
+                        waiter.result().completeExceptionally(e);
+                    }
+                });
+            }
+        }
+    }
+
+    private ImageChangeBatchDTO read(long since, int limit) {
+        List<ImageChangeEvent> events =
+                imageChangeEventRepository.findByFeedPositionGreaterThanOrderByFeedPositionAsc(since, Limit.of(limit));
+        // Positions are contiguous and pruning always keeps the newest event, so a gap means the events
+        // after since were pruned before this consumer read them
+        if (!events.isEmpty() && events.getFirst().getFeedPosition() != since + 1) {
+            throw new ImageChangesPrunedException(events.getFirst().getFeedPosition() - 1);
+        }
+        List<Long> imageIds = events.stream()
+                .filter(event -> event.getChangeType() != ImageChangeType.DELETED)
+                .map(ImageChangeEvent::getImageId)
+                .distinct()
+                .toList();
+        Map<Long, ImageMetadata> imagesById = imageIds.isEmpty() ? Map.of() : shardRouting.onImages(imageIds, imageRepository::findAllById).stream()
+                .collect(Collectors.toMap(ImageMetadata::getId, Function.identity()));
+
+        List<ImageChangeEventDTO> eventDTOs = new ArrayList<>(events.size());
+        for (ImageChangeEvent event : events) {
+            eventDTOs.add(ImageChangeMapper.toEventDTO(event,
+                    event.getChangeType() == ImageChangeType.DELETED ? null : imagesById.get(event.getImageId())));
+        }
+        return toBatch(events.isEmpty() ? since : events.getLast().getFeedPosition(), eventDTOs);
+    }
+
+    private static ImageChangeBatchDTO toBatch(long nextSince, List<ImageChangeEventDTO> events) {
+        ImageChangeBatchDTO batch = new ImageChangeBatchDTO();
+        batch.setEvents(events);
+        batch.setNextSince(nextSince);
+        return batch;
+    }
+
+    private record Waiter(long since, int limit, CompletableFuture<ImageChangeBatchDTO> result) {
+    }
+}
@@ -0,0 +1,57 @@
+package com.pixsee.imageanalysis.feed;
+
+import com.pixsee.imageanalysis.entity.ImageChangeType;
+import com.pixsee.imageanalysis.repository.ImageChangeEventRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+
+/**
+ * Writes the change events of the feed. The record methods must run in the transaction that writes {@code
+ * image_metadata}.
+ */
+@Component
+public class ImageChangeOutbox {
+
+    @Autowired
+    private ImageChangeEventRepository imageChangeEventRepository;
+
+    @Autowired
+    private ImageChangeSequencer imageChangeSequencer;
+
+    // After the images are inserted
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordCreated(Collection<Long> imageIds) {
+        record(imageIds, ImageChangeType.CREATED);
+    }
+
+    // After the images are updated, so the events carry the new versions
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordUpdated(Collection<Long> imageIds) {
+        record(imageIds, ImageChangeType.UPDATED);
+    }
+
+    // Before the images are deleted; images that do not exist get no event
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordDeleting(Collection<Long> imageIds) {
+        record(imageIds, ImageChangeType.DELETED);
+    }
+
+    private void record(Collection<Long> imageIds, ImageChangeType changeType) {
+        if (imageIds.isEmpty()) {
+            return;
+        }
+        imageChangeEventRepository.insertForImages(imageIds, changeType.name(), System.currentTimeMillis());
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                imageChangeSequencer.wakeUp();
+            }
+        });
+    }
+}
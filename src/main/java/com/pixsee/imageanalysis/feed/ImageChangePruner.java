@@ -0,0 +1,60 @@
+package com.pixsee.imageanalysis.feed;
+
+import com.pixsee.imageanalysis.repository.ImageChangeEventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+
+/**
+ * Deletes change events older than {@code image.changes.retention}. The newest event is always kept.
+ */
+@Component
+public class ImageChangePruner {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageChangePruner.class);
+
+    private static final long CHUNK_SIZE = 10_000;
+
+    private final ImageChangeEventRepository imageChangeEventRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration retention;
+
+    public ImageChangePruner(ImageChangeEventRepository imageChangeEventRepository, TransactionTemplate transactionTemplate,
+                             @Value("${image.changes.retention:7d}") Duration retention) {
+        this.imageChangeEventRepository = imageChangeEventRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.retention = retention;
+    }
+
+    @Scheduled(fixedDelayString = "${image.changes.prune-interval:PT1H}",
+            initialDelayString = "${image.changes.prune-interval:PT1H}")
+    public void scheduledPrune() {
+        prune();
+    }
+
+    /**
+     * Deletes the expired events and returns how many were deleted.
+     */
+    public int prune() {
+        Long first = imageChangeEventRepository.findFirstPosition();
+        Long expired = imageChangeEventRepository.findLastPositionCreatedBefore(System.currentTimeMillis() - retention.toMillis());
+        if (first == null || expired == null) {
+            return 0;
+        }
+        long through = Math.min(expired, imageChangeEventRepository.findLastPosition() - 1);
+        int deleted = 0;
+        for (long chunkEnd = first + CHUNK_SIZE - 1; first <= through; first = chunkEnd + 1, chunkEnd += CHUNK_SIZE) {
+            long end = Math.min(chunkEnd, through);
+            deleted += transactionTemplate.execute(status -> imageChangeEventRepository.deleteThroughPosition(end));
+        }
+        if (deleted > 0) {
+            log.info("Pruned {} image change events through position {}", deleted, through);
+        }
+        return deleted;
+    }
+}
@@ -0,0 +1,200 @@
+package com.pixsee.imageanalysis.feed;
+
+import com.pixsee.imageanalysis.entity.ImageChangeEvent;
+import com.pixsee.imageanalysis.entity.ImageChangeFeedState;
+import com.pixsee.imageanalysis.repository.ImageChangeEventRepository;
+import com.pixsee.imageanalysis.repository.ImageChangeFeedStateRepository;
+import com.pixsee.imageanalysis.shard.ShardRouting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+import java.util.stream.Collectors;
+
+/**
+ * Assigns contiguous feed positions to committed change events in commit order, so a reader never skips an event that
+ * commits late.
+ */
+@Component
+public class ImageChangeSequencer implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageChangeSequencer.class);
+
+    private final ImageChangeEventRepository imageChangeEventRepository;
+    private final ImageChangeFeedStateRepository imageChangeFeedStateRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ShardRouting shardRouting;
+    private final Duration pollInterval;
+    private final int batchSize;
+    private final Semaphore wakeUps = new Semaphore(0);
+    private final List<LongConsumer> listeners = new CopyOnWriteArrayList<>();
+    private volatile long lastPosition;
+    private volatile boolean running;
+    private Thread thread;
+
+    public ImageChangeSequencer(ImageChangeEventRepository imageChangeEventRepository,
+                                ImageChangeFeedStateRepository imageChangeFeedStateRepository,
+                                TransactionTemplate transactionTemplate,
+                                ShardRouting shardRouting,
+                                @Value("${image.changes.poll-interval:1s}") Duration pollInterval,
+                                @Value("${image.changes.sequence-batch-size:1000}") int batchSize) {
+        this.imageChangeEventRepository = imageChangeEventRepository;
+        this.imageChangeFeedStateRepository = imageChangeFeedStateRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.shardRouting = shardRouting;
+        this.pollInterval = pollInterval;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void start() {
+        createState();
+        running = true;
+        thread = Thread.ofPlatform().daemon().name("image-change-sequencer").start(this::run);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Once the shard directory is loaded, and stopped only after the write-behind queue has drained
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 6144;
+    }
+
+    private void createState() {
+        if (imageChangeFeedStateRepository.existsById(ImageChangeFeedState.ID)) {
+            return;
+        }
+        ImageChangeFeedState state = new ImageChangeFeedState();
+        state.setId(ImageChangeFeedState.ID);
+        state.setLastPosition(0L);
+        try {
+            imageChangeFeedStateRepository.save(state);
+        } catch (DataIntegrityViolationException e) {
+            // Created by another instance starting at the same time
+        }
+    }
+
+    /**
+     * Registers a callback run on the sequencer thread whenever the last position advances.
+     */
+    public void addListener(LongConsumer listener) {
+        listeners.add(listener);
+    }
+
+    public void wakeUp() {
+        wakeUps.release();
+    }
+
+    public long getLastPosition() {
+        return lastPosition;
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                sequence();
+            } catch (RuntimeException e) {
+                log.warn("Could not sequence image change events", e);
+            }
+            try {
+                wakeUps.tryAcquire(pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+                wakeUps.drainPermits();
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Sequences every committed pending event and returns the last assigned position.
+     */
+    public synchronized long sequence() {
+        for (int shard = ShardRouting.HOME_SHARD + 1; shard < shardRouting.getShardCount(); shard++) {
+            relay(shard);
+        }
+        long position;
+        int sequenced;
+        do {
+            long[] result = transactionTemplate.execute(status -> {
+                ImageChangeFeedState state = imageChangeFeedStateRepository.findForUpdateById(ImageChangeFeedState.ID)
+                        .orElseThrow();
+                List<ImageChangeEvent> pending = imageChangeEventRepository.findPending(Limit.of(batchSize));
+                long next = state.getLastPosition();
+                for (ImageChangeEvent event : pending) {
+                    event.setFeedPosition(++next);
+                }
+                state.setLastPosition(next);
+                return new long[] {next, pending.size()};
+            });
+            position = result[0];
+            sequenced = (int) result[1];
+        } while (sequenced == batchSize);
+
+        if (position > lastPosition) {
+            lastPosition = position;
+            for (LongConsumer listener : listeners) {
+                listener.accept(position);
+            }
+        }
+        return position;
+    }
+
+    // Copies the shard's pending events to the home shard, then deletes them on the shard. Events copied by
+    // a relay that failed before the delete are not copied twice.
+    private void relay(int shard) {
+        List<ImageChangeEvent> pending;
+        do {
+            pending = shardRouting.onShard(shard, () -> imageChangeEventRepository.findPending(Limit.of(batchSize)));
+            if (pending.isEmpty()) {
+                return;
+            }
+            List<ImageChangeEvent.Key> keys = pending.stream().map(ImageChangeSequencer::key).toList();
+            List<ImageChangeEvent> events = pending;
+            shardRouting.onShard(ShardRouting.HOME_SHARD, () -> transactionTemplate.execute(status -> {
+                Set<ImageChangeEvent.Key> relayed = imageChangeEventRepository.findAllById(keys).stream()
+                        .map(ImageChangeSequencer::key)
+                        .collect(Collectors.toSet());
+                return imageChangeEventRepository.saveAll(events.stream()
+                        .filter(event -> !relayed.contains(key(event)))
+                        .toList());
+            }));
+            shardRouting.onShard(shard, () -> transactionTemplate.execute(status -> {
+                imageChangeEventRepository.deleteAllById(keys);
+                return null;
+            }));
+        } while (pending.size() == batchSize);
+    }
+
+    private static ImageChangeEvent.Key key(ImageChangeEvent event) {
+        return new ImageChangeEvent.Key(event.getImageId(), event.getImageVersion(), event.getChangeType());
+    }
+}
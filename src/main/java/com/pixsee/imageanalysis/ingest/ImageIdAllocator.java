@@ -0,0 +1,37 @@
+package com.pixsee.imageanalysis.ingest;
+
+import com.pixsee.imageanalysis.entity.ImageMetadata;
+import com.pixsee.imageanalysis.shard.ShardRouting;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hands out image ids before a row is written, from the same sequence Hibernate uses for {@link ImageMetadata}.
+ */
+@Component
+public class ImageIdAllocator {
+
+    private final SessionFactoryImplementor sessionFactory;
+    private final BeforeExecutionGenerator generator;
+    private final ShardRouting shardRouting;
+
+    public ImageIdAllocator(EntityManagerFactory entityManagerFactory, ShardRouting shardRouting) {
+        this.shardRouting = shardRouting;
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        this.generator = (BeforeExecutionGenerator) sessionFactory.getMappingMetamodel()
+                .getEntityDescriptor(ImageMetadata.class).getGenerator();
+    }
+
+    public Long allocate(ImageMetadata imageMetadata) {
+        return shardRouting.writeUser(imageMetadata.getUserId(), () -> {
+            try (StatelessSession session = sessionFactory.openStatelessSession()) {
+                return (Long) generator.generate((SharedSessionContractImplementor) session, imageMetadata, null, EventType.INSERT);
+            }
+        });
+    }
+}
@@ -0,0 +1,196 @@
+package com.pixsee.imageanalysis.ingest;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.pixsee.imageanalysis.dto.ImageIngestStatusDTO;
+import com.pixsee.imageanalysis.dto.ImageMetadataRequestDTO;
+import com.pixsee.imageanalysis.dto.ImageMetadataResponseDTO;
+import com.pixsee.imageanalysis.entity.ImageMetadata;
+import com.pixsee.imageanalysis.exception.ResourceNotFoundException;
+import com.pixsee.imageanalysis.exception.TooManyRequestsException;
+import com.pixsee.imageanalysis.mapper.ImageMetadataMapper;
+import com.pixsee.imageanalysis.service.ImageService;
+import com.pixsee.imageanalysis.shard.ShardRouting;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Acknowledges uploads before they are written and commits them in batches from a bounded in-memory queue. Queued
+ * images are lost if the process crashes.
+ */
+@Component
+public class ImageWriteBehindQueue implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageWriteBehindQueue.class);
+
+    private final ImageService imageService;
+    private final ImageIdAllocator imageIdAllocator;
+    private final ShardRouting shardRouting;
+    private final boolean enabled;
+    private final int batchSize;
+    private final Duration linger;
+    private final Duration shutdownTimeout;
+    private final BlockingQueue<ImageMetadata> queue;
+    // Only QUEUED and FAILED are tracked here; once committed, an image is looked up in the database
+    private final Cache<Long, IngestStatus> statuses = Caffeine.newBuilder()
+            .expireAfterWrite(Duration.ofHours(1))
+            .build();
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public ImageWriteBehindQueue(ImageService imageService,
+                                 ImageIdAllocator imageIdAllocator,
+                                 ShardRouting shardRouting,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${image.write-behind.enabled:false}") boolean enabled,
+                                 @Value("${image.write-behind.queue-capacity:10000}") int queueCapacity,
+                                 @Value("${image.write-behind.batch-size:500}") int batchSize,
+                                 @Value("${image.write-behind.linger:20ms}") Duration linger,
+                                 @Value("${image.write-behind.shutdown-timeout:30s}") Duration shutdownTimeout) {
+        this.imageService = imageService;
+        this.imageIdAllocator = imageIdAllocator;
+        this.shardRouting = shardRouting;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.linger = linger;
+        this.shutdownTimeout = shutdownTimeout;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        meterRegistry.gauge("image.write_behind.queue.size", queue, BlockingQueue::size);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public ImageMetadataResponseDTO enqueue(ImageMetadataRequestDTO imageMetadataRequestDTO) {
+        if (!running || queue.remainingCapacity() == 0) {
+            throw new TooManyRequestsException("Ingest queue is full", 1);
+        }
+        ImageMetadata imageMetadata = ImageMetadataMapper.toEntity(imageMetadataRequestDTO);
+        imageMetadata.setId(imageIdAllocator.allocate(imageMetadata));
+        statuses.put(imageMetadata.getId(), IngestStatus.QUEUED);
+        if (!queue.offer(imageMetadata)) {
+            statuses.invalidate(imageMetadata.getId());
+            throw new TooManyRequestsException("Ingest queue is full", 1);
+        }
+        return ImageMetadataMapper.toResponseDTO(imageMetadata);
+    }
+
+    public ImageIngestStatusDTO getStatus(Long id) {
+        IngestStatus status = statuses.getIfPresent(id);
+        if (status == null) {
+            if (!imageService.imageExists(id)) {
+                throw new ResourceNotFoundException("Image not found");
+            }
+            status = IngestStatus.PERSISTED;
+        }
+        return new ImageIngestStatusDTO(id, status);
+    }
+
+    @Override
+    public void start() {
+        if (enabled) {
+            running = true;
+            writer = Thread.ofPlatform().name("image-write-behind").start(this::drain);
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.join(shutdownTimeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer.isAlive()) {
+            log.warn("Write-behind queue did not drain within {}; {} images were not persisted", shutdownTimeout, queue.size());
+            writer.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Stop only after the web server has stopped taking requests, so nothing is enqueued mid-drain
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void drain() {
+        List<ImageMetadata> batch = new ArrayList<>(batchSize);
+        try {
+            while (running || !queue.isEmpty()) {
+                ImageMetadata first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                fill(batch);
+                write(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void fill(List<ImageMetadata> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + linger.toNanos();
+        while (batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            // While shutting down there is no point in waiting for more uploads
+            if (batch.size() >= batchSize || remaining <= 0 || !running) {
+                return;
+            }
+            ImageMetadata next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void write(List<ImageMetadata> batch) {
+        for (List<ImageMetadata> shardBatch : shardRouting.groupByShard(batch, ImageMetadata::getUserId)) {
+            writeShardBatch(shardBatch);
+        }
+    }
+
+    private void writeShardBatch(List<ImageMetadata> batch) {
+        try {
+            imageService.saveImageMetadataWithAssignedIds(batch);
+            batch.forEach(image -> statuses.invalidate(image.getId()));
+        } catch (RuntimeException batchFailure) {
+            // Retry one by one so a single bad row does not fail every upload in its group commit
+            for (ImageMetadata image : batch) {
+                try {
+                    imageService.saveImageMetadataWithAssignedIds(List.of(image));
+                    statuses.invalidate(image.getId());
+                } catch (RuntimeException e) {
+                    log.error("Write-behind insert of image {} failed", image.getId(), e);
+                    statuses.put(image.getId(), IngestStatus.FAILED);
+                }
+            }
+        }
+    }
+}
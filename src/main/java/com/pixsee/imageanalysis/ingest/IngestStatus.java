@@ -0,0 +1,7 @@
+package com.pixsee.imageanalysis.ingest;
+
+public enum IngestStatus {
+    QUEUED,
+    PERSISTED,
+    FAILED
+}
@@ -0,0 +1,20 @@
+package com.pixsee.imageanalysis.mapper;
+
+import com.pixsee.imageanalysis.dto.ImageChangeEventDTO;
+import com.pixsee.imageanalysis.entity.ImageChangeEvent;
+import com.pixsee.imageanalysis.entity.ImageMetadata;
+
+public class ImageChangeMapper {
+
+    public static ImageChangeEventDTO toEventDTO(ImageChangeEvent event, ImageMetadata image) {
+        ImageChangeEventDTO dto = new ImageChangeEventDTO();
+        dto.setPosition(event.getFeedPosition());
+        dto.setType(event.getChangeType());
+        dto.setImageId(event.getImageId());
+        dto.setUserId(event.getUserId());
+        dto.setVersion(event.getImageVersion());
+        dto.setTimestamp(event.getCreatedAt());
+        dto.setImage(image == null ? null : ImageMetadataMapper.toResponseDTO(image));
+        return dto;
+    }
+}
@@ -1,10 +1,15 @@
 package com.pixsee.imageanalysis.mapper;
 
+import com.pixsee.imageanalysis.analysis.ImageAnalysis;
+import com.pixsee.imageanalysis.analysis.ImageHeader;
 import com.pixsee.imageanalysis.dto.ImageMetadataRequestDTO;
 import com.pixsee.imageanalysis.dto.ImageMetadataResponseDTO;
 import com.pixsee.imageanalysis.entity.ImageMetadata;
+import com.pixsee.imageanalysis.thumbnail.ThumbnailSizes;
 
 import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 public class ImageMetadataMapper {
 
@@ -16,10 +21,26 @@ public class ImageMetadataMapper {
         entity.setHeight(dto.getHeight());
         entity.setFileSize(dto.getFileSize());
         entity.setFileType(dto.getFileType());
+        entity.setContentHash(dto.getContentHash());
+        entity.setPerceptualHash(dto.getPerceptualHash());
         entity.setUploadDate(Instant.now().getEpochSecond()); // Set the upload date during creation
         return entity;
     }
 
+    public static ImageMetadataRequestDTO toRequestDTO(Long userId, String originalFilename, long fileSize, ImageAnalysis analysis) {
+        ImageHeader header = analysis.header();
+        ImageMetadataRequestDTO dto = new ImageMetadataRequestDTO();
+        dto.setUserId(userId);
+        dto.setOriginalFilename(originalFilename);
+        dto.setWidth(header.width());
+        dto.setHeight(header.height());
+        dto.setFileSize(fileSize);
+        dto.setFileType(header.format().getFileType());
+        dto.setContentHash(analysis.contentHash());
+        dto.setPerceptualHash(analysis.perceptualHash());
+        return dto;
+    }
+
     public static ImageMetadataResponseDTO toResponseDTO(ImageMetadata entity) {
         ImageMetadataResponseDTO dto = new ImageMetadataResponseDTO();
         dto.setId(entity.getId());
@@ -30,6 +51,10 @@ public class ImageMetadataMapper {
         dto.setHeight(entity.getHeight());
         dto.setFileSize(entity.getFileSize());
         dto.setFileType(entity.getFileType());
+        dto.setContentHash(entity.getContentHash());
+        dto.setPerceptualHash(entity.getPerceptualHash());
+        dto.setThumbnails(thumbnailUrls(entity));
+        dto.setVersion(entity.getVersion());
         return dto;
     }
 
@@ -40,4 +65,35 @@ public class ImageMetadataMapper {
         entity.setFileSize(dto.getFileSize());
         entity.setFileType(dto.getFileType());
     }
+
+    public static ImageMetadata copyOf(ImageMetadata entity) {
+        ImageMetadata copy = new ImageMetadata();
+        copy.setId(entity.getId());
+        copy.setUserId(entity.getUserId());
+        copy.setOriginalFilename(entity.getOriginalFilename());
+        copy.setUploadDate(entity.getUploadDate());
+        copy.setWidth(entity.getWidth());
+        copy.setHeight(entity.getHeight());
+        copy.setFileSize(entity.getFileSize());
+        copy.setFileType(entity.getFileType());
+        copy.setContentHash(entity.getContentHash());
+        copy.setPerceptualHash(entity.getPerceptualHash());
+        copy.setContentSegment(entity.getContentSegment());
+        copy.setContentOffset(entity.getContentOffset());
+        copy.setContentLength(entity.getContentLength());
+        copy.setVersion(entity.getVersion());
+        return copy;
+    }
+
+    // Only uploads that could be decoded have a perceptual hash, so the hash tells which images can have thumbnails
+    private static Map<Integer, String> thumbnailUrls(ImageMetadata entity) {
+        if (entity.getContentSegment() == null || entity.getPerceptualHash() == null) {
+            return null;
+        }
+        Map<Integer, String> urls = new LinkedHashMap<>();
+        for (int size : ThumbnailSizes.get()) {
+            urls.put(size, "/images/" + entity.getId() + "/thumbnails/" + size);
+        }
+        return urls;
+    }
 }
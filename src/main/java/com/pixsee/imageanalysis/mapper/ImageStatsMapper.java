@@ -0,0 +1,54 @@
+package com.pixsee.imageanalysis.mapper;
+
+import com.pixsee.imageanalysis.dto.ImageStatsResponseDTO;
+import com.pixsee.imageanalysis.entity.ImageUserFileTypeStats;
+import com.pixsee.imageanalysis.entity.ImageUserStats;
+import com.pixsee.imageanalysis.repository.FileTypeCountProjection;
+import com.pixsee.imageanalysis.repository.ImageStatsProjection;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class ImageStatsMapper {
+
+    public static ImageStatsResponseDTO toResponseDTO(Long userId, ImageUserStats stats, List<ImageUserFileTypeStats> fileTypeStats) {
+        ImageStatsResponseDTO dto = new ImageStatsResponseDTO();
+        dto.setUserId(userId);
+        if (stats != null) {
+            setTotals(dto, stats.getImageCount(), stats.getTotalBytes(), stats.getWidthSum(), stats.getHeightSum());
+            setExtremes(dto, stats.getWidthMin(), stats.getWidthMax(), stats.getHeightMin(), stats.getHeightMax());
+        }
+        Map<String, Long> fileTypeCounts = new TreeMap<>();
+        fileTypeStats.forEach(fileType -> fileTypeCounts.put(fileType.getFileType(), fileType.getImageCount()));
+        dto.setFileTypeCounts(fileTypeCounts);
+        return dto;
+    }
+
+    public static ImageStatsResponseDTO toResponseDTO(Long userId, ImageStatsProjection stats, List<FileTypeCountProjection> fileTypeCounts) {
+        ImageStatsResponseDTO dto = new ImageStatsResponseDTO();
+        dto.setUserId(userId);
+        setTotals(dto, stats.imageCount(), stats.totalBytes(), stats.widthSum(), stats.heightSum());
+        setExtremes(dto, stats.widthMin(), stats.widthMax(), stats.heightMin(), stats.heightMax());
+        Map<String, Long> counts = new TreeMap<>();
+        fileTypeCounts.forEach(fileType -> counts.put(fileType.fileType(), fileType.imageCount()));
+        dto.setFileTypeCounts(counts);
+        return dto;
+    }
+
+    private static void setTotals(ImageStatsResponseDTO dto, long imageCount, long totalBytes, long widthSum, long heightSum) {
+        dto.setImageCount(imageCount);
+        dto.setTotalBytes(totalBytes);
+        if (imageCount > 0) {
+            dto.setAvgWidth((double) widthSum / imageCount);
+            dto.setAvgHeight((double) heightSum / imageCount);
+        }
+    }
+
+    private static void setExtremes(ImageStatsResponseDTO dto, Integer widthMin, Integer widthMax, Integer heightMin, Integer heightMax) {
+        dto.setMinWidth(widthMin);
+        dto.setMaxWidth(widthMax);
+        dto.setMinHeight(heightMin);
+        dto.setMaxHeight(heightMax);
+    }
+}
@@ -0,0 +1,69 @@
+package com.pixsee.imageanalysis.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Application meters that the built-in request, repository and connection pool instrumentation does not cover.
+ */
+@Component
+public class ImageMetrics {
+
+    private final MeterRegistry meterRegistry;
+    private final DistributionSummary userImageRows;
+    private final Map<Class<?>, Counter> errorCounters = new ConcurrentHashMap<>();
+    private final Map<String, Counter> admissionRejectedCounters = new ConcurrentHashMap<>();
+    private final Map<String, Counter> primaryReadCounters = new ConcurrentHashMap<>();
+    private final Map<String, Counter> coalescedReadCounters = new ConcurrentHashMap<>();
+
+    public ImageMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.userImageRows = DistributionSummary.builder("image.find_by_user_id.rows")
+                .description("Rows returned per findByUserId query")
+                .baseUnit("rows")
+                .register(meterRegistry);
+    }
+
+    public void recordUserImageRows(int rows) {
+        userImageRows.record(rows);
+    }
+
+    public void recordError(Throwable error) {
+        errorCounters.computeIfAbsent(error.getClass(), type -> Counter.builder("image.errors")
+                        .description("Requests that ended in an error, by exception type")
+                        .tag("exception", type.getSimpleName())
+                        .register(meterRegistry))
+                .increment();
+    }
+
+    public void recordAdmissionRejected(String endpoint, String limit) {
+        admissionRejectedCounters.computeIfAbsent(endpoint + ":" + limit, key -> Counter.builder("image.admission.rejected")
+                        .description("Requests rejected by admission control, by endpoint and by the limit that was hit")
+                        .tag("endpoint", endpoint)
+                        .tag("limit", limit)
+                        .register(meterRegistry))
+                .increment();
+    }
+
+    public void recordPrimaryRead(String reason) {
+        primaryReadCounters.computeIfAbsent(reason, key -> Counter.builder("image.replica.primary_reads")
+                        .description("Reads that would have gone to a replica but were served by the primary, by reason")
+                        .tag("reason", reason)
+                        .register(meterRegistry))
+                .increment();
+    }
+
+    public void recordCoalescedRead(String read, String outcome) {
+        coalescedReadCounters.computeIfAbsent(read + ":" + outcome, key -> Counter.builder("image.coalescing.reads")
+                        .description("Reads that ran a query, joined a concurrent identical one or gave up waiting for it")
+                        .tag("read", read)
+                        .tag("outcome", outcome)
+                        .register(meterRegistry))
+                .increment();
+    }
+}
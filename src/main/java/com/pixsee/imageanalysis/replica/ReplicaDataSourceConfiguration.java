@@ -0,0 +1,69 @@
+package com.pixsee.imageanalysis.replica;
+
+import com.pixsee.imageanalysis.metrics.ImageMetrics;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replaces the auto-configured data source with a {@link ReplicaRoutingDataSource} when {@code image.replica.enabled}
+ * is set.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnExpression("${image.replica.enabled:false} and !${image.sharding.enabled:false}")
+public class ReplicaDataSourceConfiguration {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+        return dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @Primary
+    public ReplicaRoutingDataSource dataSource(HikariDataSource primaryDataSource,
+                                               @Value("${image.replica.urls}") List<String> urls,
+                                               @Value("${image.replica.username:${spring.datasource.username:}}") String username,
+                                               @Value("${image.replica.password:${spring.datasource.password:}}") String password,
+                                               @Value("${image.replica.selection:round-robin}") ReplicaSelection selection,
+                                               @Value("${image.replica.connection-timeout:250ms}") Duration connectionTimeout,
+                                               ImageMetrics imageMetrics,
+                                               MeterRegistry meterRegistry) {
+        if (urls.isEmpty()) {
+            throw new IllegalStateException("image.replica.urls must list at least one replica");
+        }
+        List<HikariDataSource> replicas = new ArrayList<>(urls.size());
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource replica = new HikariDataSource();
+            primaryDataSource.copyStateTo(replica);
+            replica.setPoolName("replica-" + (i + 1));
+            replica.setJdbcUrl(urls.get(i));
+            replica.setUsername(username);
+            replica.setPassword(password);
+            replica.setReadOnly(true);
+            // A busy replica is given up quickly for the next one or the primary
+            replica.setConnectionTimeout(connectionTimeout.toMillis());
+            // Started on first use, and an unreachable replica is taken out of rotation instead of failing startup
+            replica.setInitializationFailTimeout(-1);
+            replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            replicas.add(replica);
+        }
+        ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(primaryDataSource, replicas, selection, imageMetrics);
+        Gauge.builder("image.replica.healthy", dataSource, ReplicaRoutingDataSource::getHealthyReplicaCount)
+                .description("Replicas in rotation for reads")
+                .register(meterRegistry);
+        return dataSource;
+    }
+}
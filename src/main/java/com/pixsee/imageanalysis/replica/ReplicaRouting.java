@@ -0,0 +1,150 @@
+package com.pixsee.imageanalysis.replica;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.pixsee.imageanalysis.metrics.ImageMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Decides which reads of {@code ImageService} may be served by a replica. Reads of what this instance wrote within
+ * {@code image.replica.read-your-writes-window} go to the primary.
+ */
+@Component
+public class ReplicaRouting {
+
+    private static final ThreadLocal<Boolean> REPLICA_READ = new ThreadLocal<>();
+
+    private final boolean enabled;
+    private final Cache<Long, Boolean> recentlyWrittenUsers;
+    private final Cache<Long, Boolean> recentlyWrittenImages;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ImageMetrics imageMetrics;
+
+    public ReplicaRouting(@Value("${image.replica.enabled:false}") boolean enabled,
+                          @Value("${image.replica.read-your-writes-window:5s}") Duration readYourWritesWindow,
+                          PlatformTransactionManager transactionManager,
+                          ImageMetrics imageMetrics) {
+        this.enabled = enabled;
+        this.recentlyWrittenUsers = Caffeine.newBuilder().expireAfterWrite(readYourWritesWindow).maximumSize(100_000).build();
+        this.recentlyWrittenImages = Caffeine.newBuilder().expireAfterWrite(readYourWritesWindow).maximumSize(100_000).build();
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.imageMetrics = imageMetrics;
+    }
+
+    // Whether connections obtained by this thread right now should come from a replica
+    static boolean isReplicaRead() {
+        return REPLICA_READ.get() != null;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Runs a read of the user's images, on a replica unless the user wrote recently.
+     */
+    public <T> T read(Long userId, Supplier<T> reader) {
+        if (!enabled || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return reader.get();
+        }
+        return execute(!recentlyWritten(recentlyWrittenUsers, userId), reader);
+    }
+
+    /**
+     * Like {@link #read}, but always in a read-only transaction, which cursors need even without replicas.
+     */
+    public <T> T readInTransaction(Long userId, Supplier<T> reader) {
+        if (!enabled || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return readOnlyTransaction.execute(status -> reader.get());
+        }
+        return execute(!recentlyWritten(recentlyWrittenUsers, userId), reader);
+    }
+
+    /**
+     * Runs a lookup of a single image on a replica unless it was written recently, retrying on the primary if the
+     * replica does not have it.
+     */
+    public <T> Optional<T> readImage(Long imageId, Supplier<Optional<T>> reader) {
+        if (!enabled || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return reader.get();
+        }
+        if (recentlyWritten(recentlyWrittenImages, imageId)) {
+            return execute(false, reader);
+        }
+        Optional<T> result = execute(true, reader);
+        if (result.isEmpty()) {
+            imageMetrics.recordPrimaryRead("not-found");
+            return execute(false, reader);
+        }
+        return result;
+    }
+
+    /**
+     * Runs a read on the primary, for a read that must not be older than one made before it on any replica.
+     */
+    public <T> T readFromPrimary(String reason, Supplier<T> reader) {
+        if (!enabled || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return reader.get();
+        }
+        imageMetrics.recordPrimaryRead(reason);
+        return execute(false, reader);
+    }
+
+    /**
+     * Sends reads of the user's lists and of the images to the primary for the read-your-writes window, from the
+     * current transaction's commit on.
+     */
+    public void recordWrite(Long userId, Collection<Long> imageIds) {
+        if (!enabled) {
+            return;
+        }
+        Runnable record = () -> {
+            if (userId != null) {
+                recentlyWrittenUsers.put(userId, Boolean.TRUE);
+            }
+            imageIds.forEach(imageId -> recentlyWrittenImages.put(imageId, Boolean.TRUE));
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            record.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                record.run();
+            }
+        });
+    }
+
+    private boolean recentlyWritten(Cache<Long, Boolean> recentlyWritten, Long id) {
+        if (recentlyWritten.getIfPresent(id) == null) {
+            return false;
+        }
+        imageMetrics.recordPrimaryRead("read-your-writes");
+        return true;
+    }
+
+    // The transaction obtains its connection while the flag is set and keeps it until it ends
+    private <T> T execute(boolean onReplica, Supplier<T> reader) {
+        if (!onReplica) {
+            return readOnlyTransaction.execute(status -> reader.get());
+        }
+        REPLICA_READ.set(Boolean.TRUE);
+        try {
+            return readOnlyTransaction.execute(status -> reader.get());
+        } finally {
+            REPLICA_READ.remove();
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.pixsee.imageanalysis.replica;
+
+import com.pixsee.imageanalysis.metrics.ImageMetrics;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands out primary connections, except for reads that {@link ReplicaRouting} sends to a replica. Those go to a healthy
+ * replica, or to the primary when none is left.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 1;
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final ReplicaSelection selection;
+    private final ImageMetrics imageMetrics;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<HikariDataSource> replicas, ReplicaSelection selection,
+                                    ImageMetrics imageMetrics) {
+        this.primary = primary;
+        this.replicas = replicas.stream().map(dataSource -> new Replica(dataSource, new AtomicBoolean(true))).toList();
+        this.selection = selection;
+        this.imageMetrics = imageMetrics;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!ReplicaRouting.isReplicaRead()) {
+            return primary.getConnection();
+        }
+        boolean busy = false;
+        for (Replica replica : healthyReplicas()) {
+            try {
+                return replica.dataSource().getConnection();
+            } catch (SQLException e) {
+                if (isPoolBusy(e)) {
+                    busy = true;
+                } else {
+                    markUnhealthy(replica, e);
+                }
+            }
+        }
+        imageMetrics.recordPrimaryRead(busy ? "replica-busy" : "replica-unavailable");
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        // Replicas have their own credentials, so connections for other users are always from the primary
+        return primary.getConnection(username, password);
+    }
+
+    public int getHealthyReplicaCount() {
+        return (int) replicas.stream().filter(replica -> replica.healthy().get()).count();
+    }
+
+    /**
+     * Probes every replica and puts the ones that answer back into rotation.
+     */
+    @Scheduled(fixedDelayString = "${image.replica.health-check-interval:PT5S}",
+            initialDelayString = "${image.replica.health-check-interval:PT5S}")
+    public void checkHealth() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource().getConnection()) {
+                if (!connection.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+                    replica.dataSource().evictConnection(connection);
+                    markUnhealthy(replica, null);
+                } else if (replica.healthy().compareAndSet(false, true)) {
+                    log.info("Replica {} is back in rotation", replica.dataSource().getPoolName());
+                }
+            } catch (SQLException e) {
+                if (!isPoolBusy(e)) {
+                    markUnhealthy(replica, e);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        replicas.forEach(replica -> replica.dataSource().close());
+    }
+
+    private List<Replica> healthyReplicas() {
+        List<Replica> healthy = new ArrayList<>(replicas.size());
+        int start = Math.floorMod(nextReplica.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((start + i) % replicas.size());
+            if (replica.healthy().get()) {
+                healthy.add(replica);
+            }
+        }
+        if (selection == ReplicaSelection.LEAST_CONNECTIONS) {
+            // Stable, so replicas with equal load are still taken in turn
+            healthy.sort(Comparator.comparingInt(Replica::activeConnections));
+        }
+        return healthy;
+    }
+
+    // Hikari times out with the last failure to connect as the cause; without one, every connection was in use
+    private static boolean isPoolBusy(SQLException e) {
+        return e instanceof SQLTransientConnectionException && e.getCause() == null;
+    }
+
+    private void markUnhealthy(Replica replica, SQLException cause) {
+        if (replica.healthy().compareAndSet(true, false)) {
+            log.warn("Replica {} is out of rotation", replica.dataSource().getPoolName(), cause);
+            // Its connections are likely broken as well; new ones are opened once it answers again
+            HikariPoolMXBean pool = replica.dataSource().getHikariPoolMXBean();
+            if (pool != null) {
+                pool.softEvictConnections();
+            }
+        }
+    }
+
+    private record Replica(HikariDataSource dataSource, AtomicBoolean healthy) {
+
+        int activeConnections() {
+            HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+            return pool == null ? 0 : pool.getActiveConnections();
+        }
+    }
+}
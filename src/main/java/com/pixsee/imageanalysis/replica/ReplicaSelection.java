@@ -0,0 +1,11 @@
+package com.pixsee.imageanalysis.replica;
+
+/**
+ * How a routed read picks one of the healthy replicas, configured by {@code image.replica.selection}.
+ */
+public enum ReplicaSelection {
+    // Each replica in turn
+    ROUND_ROBIN,
+    // The replica whose pool has the fewest connections in use
+    LEAST_CONNECTIONS
+}
@@ -0,0 +1,4 @@
+package com.pixsee.imageanalysis.repository;
+
+public record ContentLocationProjection(Long id, Long offset, Long length) {
+}
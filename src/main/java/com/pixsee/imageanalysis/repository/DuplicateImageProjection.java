@@ -0,0 +1,4 @@
+package com.pixsee.imageanalysis.repository;
+
+public record DuplicateImageProjection(String contentHash, Long id, Long fileSize) {
+}
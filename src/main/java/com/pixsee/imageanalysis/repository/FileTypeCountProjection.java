@@ -0,0 +1,4 @@
+package com.pixsee.imageanalysis.repository;
+
+public record FileTypeCountProjection(String fileType, Long imageCount) {
+}
@@ -0,0 +1,45 @@
+package com.pixsee.imageanalysis.repository;
+
+import com.pixsee.imageanalysis.entity.ImageChangeEvent;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ImageChangeEventRepository extends JpaRepository<ImageChangeEvent, ImageChangeEvent.Key> {
+
+    // One statement per write, however many images it changed; the owner and version are read from the
+    // rows themselves. Runs after inserts and updates, and before deletes, whose version must not change
+    // before the row is gone: the rows are locked, in id order, until the transaction ends.
+    @Modifying(flushAutomatically = true)
+    @Query(value = "INSERT INTO image_change_event (image_id, user_id, change_type, image_version, created_at) "
+            + "SELECT i.id, i.user_id, :changeType, i.version, :createdAt FROM image_metadata i "
+            + "WHERE i.id IN (:imageIds) ORDER BY i.id FOR UPDATE",
+            nativeQuery = true)
+    int insertForImages(Collection<Long> imageIds, String changeType, long createdAt);
+
+    // Later changes of an image have a higher version, and its delete comes after the update with the same version
+    @Query("select e from ImageChangeEvent e where e.feedPosition is null order by e.imageVersion, "
+            + "case when e.changeType = com.pixsee.imageanalysis.entity.ImageChangeType.DELETED then 1 else 0 end")
+    List<ImageChangeEvent> findPending(Limit limit);
+
+    List<ImageChangeEvent> findByFeedPositionGreaterThanOrderByFeedPositionAsc(Long feedPosition, Limit limit);
+
+    @Query("select min(e.feedPosition) from ImageChangeEvent e")
+    Long findFirstPosition();
+
+    @Query("select max(e.feedPosition) from ImageChangeEvent e")
+    Long findLastPosition();
+
+    @Query("select max(e.feedPosition) from ImageChangeEvent e where e.createdAt < :createdBefore")
+    Long findLastPositionCreatedBefore(long createdBefore);
+
+    @Modifying
+    @Query("delete from ImageChangeEvent e where e.feedPosition <= :feedPosition")
+    int deleteThroughPosition(Long feedPosition);
+}
@@ -0,0 +1,16 @@
+package com.pixsee.imageanalysis.repository;
+
+import com.pixsee.imageanalysis.entity.ImageChangeFeedState;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ImageChangeFeedStateRepository extends JpaRepository<ImageChangeFeedState, Integer> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<ImageChangeFeedState> findForUpdateById(Integer id);
+}
@@ -0,0 +1,4 @@
+package com.pixsee.imageanalysis.repository;
+
+public record ImageContentProjection(String fileType, Integer contentSegment, Long contentOffset, Long contentLength) {
+}
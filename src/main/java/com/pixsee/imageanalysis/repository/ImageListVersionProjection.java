@@ -0,0 +1,4 @@
+package com.pixsee.imageanalysis.repository;
+
+public record ImageListVersionProjection(Long imageCount, Long maxId, Long versionSum) {
+}
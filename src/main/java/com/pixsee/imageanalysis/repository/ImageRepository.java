@@ -1,12 +1,115 @@
 package com.pixsee.imageanalysis.repository;
 
 import com.pixsee.imageanalysis.entity.ImageMetadata;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface ImageRepository extends JpaRepository<ImageMetadata, Long> {
+public interface ImageRepository extends JpaRepository<ImageMetadata, Long>, JpaSpecificationExecutor<ImageMetadata>,
+        ImageRepositoryCustom {
     List<ImageMetadata> findByUserId(Long userId);
-}
\ No newline at end of file
+
+    // Keyset page on (user_id, id): seeks past the last id of the previous page instead of using OFFSET
+    List<ImageMetadata> findByUserIdAndIdGreaterThanOrderByIdAsc(Long userId, Long id, Limit limit);
+
+    // Must be consumed inside a transaction; the fetch size keeps the driver from buffering the whole result
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<ImageMetadata> streamByUserIdOrderByIdAsc(Long userId);
+
+    // Unlike deleteById, which loads the entity first, this is a single DELETE statement
+    @Modifying
+    @Query("delete from ImageMetadata i where i.id = :id")
+    int deleteRowById(Long id);
+
+    // Chunks of the bulk operations: the rows are locked until the chunk's transaction commits, so the stats
+    // deltas computed from them cannot be applied twice by a concurrent delete or update of the same images
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<ImageMetadata> findForUpdateByUserIdAndIdGreaterThanOrderByIdAsc(Long userId, Long id, Limit limit);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<ImageMetadata> findForUpdateByUserIdAndFileTypeAndIdGreaterThanOrderByIdAsc(Long userId, String fileType, Long id,
+                                                                                     Limit limit);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<ImageMetadata> findForUpdateByUserIdAndIdInOrderByIdAsc(Long userId, Collection<Long> ids);
+
+    @Modifying
+    @Query("delete from ImageMetadata i where i.id in :ids")
+    int deleteRowsByIdIn(Collection<Long> ids);
+
+    // Takes a user's images off a shard after they were copied to another one, so no change events are written
+    @Modifying
+    @Query("delete from ImageMetadata i where i.userId = :userId")
+    int deleteRowsByUserId(Long userId);
+
+    // Served from the (user_id, id) index; used to find the users of a bucket that is being moved
+    @Query("select distinct i.userId from ImageMetadata i")
+    List<Long> findDistinctUserIds();
+
+    @Modifying
+    @Query("update ImageMetadata i set i.fileType = :fileType, i.version = i.version + 1 where i.id in :ids")
+    int updateFileTypeByIdIn(Collection<Long> ids, String fileType);
+
+    // Full recomputation of the per-user aggregates, only used to verify the maintained counters
+    @Query("select new com.pixsee.imageanalysis.repository.ImageStatsProjection(count(i), coalesce(sum(i.fileSize), 0), "
+            + "coalesce(sum(i.width), 0), coalesce(sum(i.height), 0), min(i.width), max(i.width), min(i.height), max(i.height)) "
+            + "from ImageMetadata i where i.userId = :userId")
+    ImageStatsProjection computeStatsByUserId(Long userId);
+
+    // Changes whenever an image of the user is added, deleted or updated: ids only grow, so a deleted image
+    // lowers the count unless a newer image replaced it, which raises the largest id, and updates raise the
+    // version sum. Served as the ETag of the user's list without reading the rows themselves.
+    @Query("select new com.pixsee.imageanalysis.repository.ImageListVersionProjection(count(i), coalesce(max(i.id), 0), "
+            + "coalesce(sum(i.version), 0)) from ImageMetadata i where i.userId = :userId")
+    ImageListVersionProjection computeListVersionByUserId(Long userId);
+
+    @Query("select new com.pixsee.imageanalysis.repository.FileTypeCountProjection(i.fileType, count(i)) "
+            + "from ImageMetadata i where i.userId = :userId group by i.fileType")
+    List<FileTypeCountProjection> countByFileTypeForUserId(Long userId);
+
+    Optional<ImageContentProjection> findContentById(Long id);
+
+    @Query("select i.userId from ImageMetadata i where i.id = :id")
+    Optional<Long> findUserIdById(Long id);
+
+    Optional<ImageMetadata> findFirstByUserIdAndContentHashOrderByIdAsc(Long userId, String contentHash);
+
+    long countByContentHashIsNotNull();
+
+    @Query("select new com.pixsee.imageanalysis.repository.DuplicateImageProjection(i.contentHash, i.id, i.fileSize) "
+            + "from ImageMetadata i where i.userId = :userId and i.contentHash in (select d.contentHash from ImageMetadata d "
+            + "where d.userId = :userId and d.contentHash is not null group by d.contentHash having count(d) > 1) "
+            + "order by i.contentHash, i.id")
+    List<DuplicateImageProjection> findDuplicatesByUserId(Long userId);
+
+    @Query("select new com.pixsee.imageanalysis.repository.SegmentUsageProjection(i.contentSegment, sum(i.contentLength)) "
+            + "from ImageMetadata i where i.contentSegment is not null group by i.contentSegment")
+    List<SegmentUsageProjection> sumContentLengthBySegment();
+
+    @Query("select new com.pixsee.imageanalysis.repository.ContentLocationProjection(i.id, i.contentOffset, i.contentLength) "
+            + "from ImageMetadata i where i.contentSegment = :segment order by i.contentOffset")
+    List<ContentLocationProjection> findContentBySegment(Integer segment);
+
+    // Only moves the pointer if it still points at the copied bytes, so an image deleted or
+    // re-pointed in the meantime is left alone. Native because the pointer columns are not updatable.
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE image_metadata SET content_segment = :newSegment, content_offset = :newOffset "
+            + "WHERE id = :id AND content_segment = :oldSegment AND content_offset = :oldOffset", nativeQuery = true)
+    int moveContent(Long id, Integer oldSegment, Long oldOffset, Integer newSegment, Long newOffset);
+}
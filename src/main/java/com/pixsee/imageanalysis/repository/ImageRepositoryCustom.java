@@ -0,0 +1,35 @@
+package com.pixsee.imageanalysis.repository;
+
+import com.pixsee.imageanalysis.entity.ImageMetadata;
+
+import java.util.List;
+import java.util.function.ObjLongConsumer;
+
+public interface ImageRepositoryCustom {
+
+    /**
+     * Inserts images whose ids were assigned up front as JDBC batches. Must run inside a transaction.
+     */
+    void insertAll(List<ImageMetadata> images);
+
+    /**
+     * Inserts copies of existing images, keeping their ids and versions, as JDBC batches. Must run inside a
+     * transaction.
+     */
+    void insertCopies(List<ImageMetadata> images);
+
+    /**
+     * Hands the content hash and user id of every image that has a hash to {@code consumer}, one page at a time.
+     */
+    void forEachContentHash(ObjLongConsumer<String> consumer);
+
+    /**
+     * Hands the id, user id and perceptual hash of every image that has one to {@code consumer}, one page at a time.
+     */
+    void forEachPerceptualHash(PerceptualHashConsumer consumer);
+
+    @FunctionalInterface
+    interface PerceptualHashConsumer {
+        void accept(long id, long userId, long perceptualHash);
+    }
+}
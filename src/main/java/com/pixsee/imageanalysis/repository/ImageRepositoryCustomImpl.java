@@ -0,0 +1,88 @@
+package com.pixsee.imageanalysis.repository;
+
+import com.pixsee.imageanalysis.entity.ImageMetadata;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Types;
+import java.util.List;
+import java.util.function.ObjLongConsumer;
+
+public class ImageRepositoryCustomImpl implements ImageRepositoryCustom {
+
+    private static final String INSERT_SQL = "INSERT INTO image_metadata "
+            + "(id, user_id, original_filename, upload_date, width, height, file_size, file_type, "
+            + "content_hash, perceptual_hash, content_segment, content_offset, content_length, version) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String CONTENT_HASH_PAGE_SQL = "SELECT id, user_id, content_hash FROM image_metadata "
+            + "WHERE content_hash IS NOT NULL AND id > ? ORDER BY id LIMIT ?";
+
+    private static final String PERCEPTUAL_HASH_PAGE_SQL = "SELECT id, user_id, perceptual_hash FROM image_metadata "
+            + "WHERE perceptual_hash IS NOT NULL AND id > ? ORDER BY id LIMIT ?";
+
+    private static final int PAGE_SIZE = 10_000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+
+    @Override
+    public void insertAll(List<ImageMetadata> images) {
+        // Inserted rows start at the version Hibernate gives persisted entities
+        images.forEach(image -> image.setVersion(0L));
+        insertCopies(images);
+    }
+
+    @Override
+    public void insertCopies(List<ImageMetadata> images) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, images, batchSize, (statement, image) -> {
+            statement.setLong(1, image.getId());
+            statement.setLong(2, image.getUserId());
+            statement.setString(3, image.getOriginalFilename());
+            statement.setLong(4, image.getUploadDate());
+            statement.setInt(5, image.getWidth());
+            statement.setInt(6, image.getHeight());
+            statement.setLong(7, image.getFileSize());
+            statement.setString(8, image.getFileType());
+            statement.setString(9, image.getContentHash());
+            statement.setObject(10, image.getPerceptualHash(), Types.BIGINT);
+            statement.setObject(11, image.getContentSegment(), Types.INTEGER);
+            statement.setObject(12, image.getContentOffset(), Types.BIGINT);
+            statement.setObject(13, image.getContentLength(), Types.BIGINT);
+            statement.setLong(14, image.getVersion());
+        });
+    }
+
+    @Override
+    public void forEachContentHash(ObjLongConsumer<String> consumer) {
+        // Keyset pages keep memory flat on drivers that buffer the whole result set, such as Connector/J
+        long[] lastId = {0L};
+        int[] rows = new int[1];
+        do {
+            rows[0] = 0;
+            jdbcTemplate.query(CONTENT_HASH_PAGE_SQL, resultSet -> {
+                lastId[0] = resultSet.getLong(1);
+                consumer.accept(resultSet.getString(3), resultSet.getLong(2));
+                rows[0]++;
+            }, lastId[0], PAGE_SIZE);
+        } while (rows[0] == PAGE_SIZE);
+    }
+
+    @Override
+    public void forEachPerceptualHash(PerceptualHashConsumer consumer) {
+        long[] lastId = {0L};
+        int[] rows = new int[1];
+        do {
+            rows[0] = 0;
+            jdbcTemplate.query(PERCEPTUAL_HASH_PAGE_SQL, resultSet -> {
+                lastId[0] = resultSet.getLong(1);
+                consumer.accept(lastId[0], resultSet.getLong(2), resultSet.getLong(3));
+                rows[0]++;
+            }, lastId[0], PAGE_SIZE);
+        } while (rows[0] == PAGE_SIZE);
+    }
+}
@@ -0,0 +1,9 @@
+package com.pixsee.imageanalysis.repository;
+
+import com.pixsee.imageanalysis.entity.ImageShardBucket;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ImageShardBucketRepository extends JpaRepository<ImageShardBucket, Integer> {
+}
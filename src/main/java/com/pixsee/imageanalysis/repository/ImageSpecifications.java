@@ -0,0 +1,51 @@
+package com.pixsee.imageanalysis.repository;
+
+import com.pixsee.imageanalysis.dto.ImageSearchCriteria;
+import com.pixsee.imageanalysis.entity.ImageMetadata;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ImageSpecifications {
+
+    /**
+     * Builds the WHERE clause for an image search. Absent criteria are skipped and both upload date bounds are
+     * inclusive.
+     */
+    public static Specification<ImageMetadata> matching(ImageSearchCriteria criteria) {
+        return (root, query, builder) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            predicates.add(builder.equal(root.get("userId"), criteria.getUserId()));
+            if (criteria.getFileType() != null) {
+                predicates.add(builder.equal(root.get("fileType"), criteria.getFileType()));
+            }
+            if (criteria.getUploadedFrom() != null) {
+                predicates.add(builder.greaterThanOrEqualTo(root.get("uploadDate"), criteria.getUploadedFrom()));
+            }
+            if (criteria.getUploadedTo() != null) {
+                predicates.add(builder.lessThanOrEqualTo(root.get("uploadDate"), criteria.getUploadedTo()));
+            }
+            if (criteria.getMinFileSize() != null) {
+                predicates.add(builder.greaterThanOrEqualTo(root.get("fileSize"), criteria.getMinFileSize()));
+            }
+            if (criteria.getMaxFileSize() != null) {
+                predicates.add(builder.lessThanOrEqualTo(root.get("fileSize"), criteria.getMaxFileSize()));
+            }
+            if (criteria.getMinWidth() != null) {
+                predicates.add(builder.greaterThanOrEqualTo(root.get("width"), criteria.getMinWidth()));
+            }
+            if (criteria.getMaxWidth() != null) {
+                predicates.add(builder.lessThanOrEqualTo(root.get("width"), criteria.getMaxWidth()));
+            }
+            if (criteria.getMinHeight() != null) {
+                predicates.add(builder.greaterThanOrEqualTo(root.get("height"), criteria.getMinHeight()));
+            }
+            if (criteria.getMaxHeight() != null) {
+                predicates.add(builder.lessThanOrEqualTo(root.get("height"), criteria.getMaxHeight()));
+            }
+            return builder.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+}
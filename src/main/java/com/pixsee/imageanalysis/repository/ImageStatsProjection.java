@@ -0,0 +1,5 @@
+package com.pixsee.imageanalysis.repository;
+
+public record ImageStatsProjection(Long imageCount, Long totalBytes, Long widthSum, Long heightSum,
+                                   Integer widthMin, Integer widthMax, Integer heightMin, Integer heightMax) {
+}
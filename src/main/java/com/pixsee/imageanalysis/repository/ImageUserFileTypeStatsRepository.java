@@ -0,0 +1,52 @@
+package com.pixsee.imageanalysis.repository;
+
+import com.pixsee.imageanalysis.entity.ImageUserFileTypeStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ImageUserFileTypeStatsRepository extends JpaRepository<ImageUserFileTypeStats, ImageUserFileTypeStats.Key> {
+
+    List<ImageUserFileTypeStats> findByUserId(Long userId);
+
+    @Modifying
+    @Query("delete from ImageUserFileTypeStats s where s.userId = :userId")
+    int deleteRowsByUserId(Long userId);
+
+    @Modifying
+    @Query(value = "INSERT INTO image_user_file_type_stats (user_id, file_type, image_count) "
+            + "VALUES (:userId, :fileType, :imageCount) "
+            + "ON DUPLICATE KEY UPDATE image_count = image_count + VALUES(image_count)",
+            nativeQuery = true)
+    void add(Long userId, String fileType, long imageCount);
+
+    @Modifying
+    @Query(value = "UPDATE image_user_file_type_stats SET image_count = image_count - :imageCount "
+            + "WHERE user_id = :userId AND file_type = :fileType",
+            nativeQuery = true)
+    void subtract(Long userId, String fileType, long imageCount);
+
+    @Modifying
+    @Query(value = "DELETE FROM image_user_file_type_stats WHERE user_id = :userId AND image_count <= 0",
+            nativeQuery = true)
+    void deleteEmpty(Long userId);
+
+    // Same as subtract followed by deleteEmpty for a single image, reading its user and type in the
+    // statement; both must run before the image row is deleted
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE image_user_file_type_stats SET image_count = image_count - 1 "
+            + "WHERE user_id = (SELECT i.user_id FROM image_metadata i WHERE i.id = :id) "
+            + "AND file_type = (SELECT i.file_type FROM image_metadata i WHERE i.id = :id)",
+            nativeQuery = true)
+    void subtractImage(Long id);
+
+    @Modifying
+    @Query(value = "DELETE FROM image_user_file_type_stats "
+            + "WHERE user_id = (SELECT i.user_id FROM image_metadata i WHERE i.id = :id) AND image_count <= 0",
+            nativeQuery = true)
+    void deleteEmptyForImage(Long id);
+}
@@ -0,0 +1,66 @@
+package com.pixsee.imageanalysis.repository;
+
+import com.pixsee.imageanalysis.entity.ImageUserStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ImageUserStatsRepository extends JpaRepository<ImageUserStats, Long> {
+
+    @Query("select s.userId from ImageUserStats s")
+    List<Long> findAllUserIds();
+
+    @Modifying
+    @Query("delete from ImageUserStats s where s.userId = :userId")
+    int deleteRowByUserId(Long userId);
+
+    // Single upsert so concurrent first uploads of a user cannot race on creating the row
+    @Modifying
+    @Query(value = "INSERT INTO image_user_stats (user_id, image_count, total_bytes, width_sum, height_sum, "
+            + "width_min, width_max, height_min, height_max) "
+            + "VALUES (:userId, :imageCount, :totalBytes, :widthSum, :heightSum, :widthMin, :widthMax, :heightMin, :heightMax) "
+            + "ON DUPLICATE KEY UPDATE image_count = image_count + VALUES(image_count), "
+            + "total_bytes = total_bytes + VALUES(total_bytes), "
+            + "width_sum = width_sum + VALUES(width_sum), height_sum = height_sum + VALUES(height_sum), "
+            + "width_min = LEAST(COALESCE(width_min, VALUES(width_min)), VALUES(width_min)), "
+            + "width_max = GREATEST(COALESCE(width_max, VALUES(width_max)), VALUES(width_max)), "
+            + "height_min = LEAST(COALESCE(height_min, VALUES(height_min)), VALUES(height_min)), "
+            + "height_max = GREATEST(COALESCE(height_max, VALUES(height_max)), VALUES(height_max))",
+            nativeQuery = true)
+    void add(Long userId, long imageCount, long totalBytes, long widthSum, long heightSum,
+             int widthMin, int widthMax, int heightMin, int heightMax);
+
+    // A removed image may have been the smallest or largest one, so the extremes are re-read from the
+    // (user_id, width) and (user_id, height) indexes; each MIN/MAX there is a single index seek
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE image_user_stats SET image_count = image_count - :imageCount, "
+            + "total_bytes = total_bytes - :totalBytes, "
+            + "width_sum = width_sum - :widthSum, height_sum = height_sum - :heightSum, "
+            + "width_min = (SELECT MIN(i.width) FROM image_metadata i WHERE i.user_id = :userId), "
+            + "width_max = (SELECT MAX(i.width) FROM image_metadata i WHERE i.user_id = :userId), "
+            + "height_min = (SELECT MIN(i.height) FROM image_metadata i WHERE i.user_id = :userId), "
+            + "height_max = (SELECT MAX(i.height) FROM image_metadata i WHERE i.user_id = :userId) "
+            + "WHERE user_id = :userId",
+            nativeQuery = true)
+    void subtract(Long userId, long imageCount, long totalBytes, long widthSum, long heightSum);
+
+    // Takes a single image out of its user's stats by reading its values in the statement itself, so the
+    // caller does not have to load the row first. Must run before the row is deleted; the extremes skip
+    // it explicitly, which costs at most one extra index entry per MIN/MAX
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE image_user_stats s SET image_count = image_count - 1, "
+            + "total_bytes = total_bytes - (SELECT i.file_size FROM image_metadata i WHERE i.id = :id), "
+            + "width_sum = width_sum - (SELECT i.width FROM image_metadata i WHERE i.id = :id), "
+            + "height_sum = height_sum - (SELECT i.height FROM image_metadata i WHERE i.id = :id), "
+            + "width_min = (SELECT MIN(i.width) FROM image_metadata i WHERE i.user_id = s.user_id AND i.id <> :id), "
+            + "width_max = (SELECT MAX(i.width) FROM image_metadata i WHERE i.user_id = s.user_id AND i.id <> :id), "
+            + "height_min = (SELECT MIN(i.height) FROM image_metadata i WHERE i.user_id = s.user_id AND i.id <> :id), "
+            + "height_max = (SELECT MAX(i.height) FROM image_metadata i WHERE i.user_id = s.user_id AND i.id <> :id) "
+            + "WHERE s.user_id = (SELECT i.user_id FROM image_metadata i WHERE i.id = :id)",
+            nativeQuery = true)
+    void subtractImage(Long id);
+}
@@ -0,0 +1,4 @@
+package com.pixsee.imageanalysis.repository;
+
+public record SegmentUsageProjection(Integer segment, Long liveBytes) {
+}
@@ -0,0 +1,10 @@
+package com.pixsee.imageanalysis.service;
+
+import com.pixsee.imageanalysis.dto.ImageMetadataResponseDTO;
+
+/**
+ * The image a save resolved to. {@code created} is false when the save was linked to an existing
+ * duplicate instead of creating a new image.
+ */
+public record ImageSaveResult(ImageMetadataResponseDTO image, boolean created) {
+}
@@ -1,55 +1,715 @@
 package com.pixsee.imageanalysis.service;
 
+import com.pixsee.imageanalysis.cache.ImageMetadataCache;
+import com.pixsee.imageanalysis.coalescing.ReadCoalescing;
+import com.pixsee.imageanalysis.coalescing.VersionedImageList;
+import com.pixsee.imageanalysis.dto.ImageBatchItemResultDTO;
+import com.pixsee.imageanalysis.dto.ImageBatchResponseDTO;
+import com.pixsee.imageanalysis.dto.ImageBulkResponseDTO;
+import com.pixsee.imageanalysis.dto.ImageBulkUpdateRequestDTO;
+import com.pixsee.imageanalysis.dto.ImageDuplicateGroupDTO;
 import com.pixsee.imageanalysis.dto.ImageMetadataRequestDTO;
 import com.pixsee.imageanalysis.dto.ImageMetadataResponseDTO;
+import com.pixsee.imageanalysis.dto.ImagePageResponseDTO;
+import com.pixsee.imageanalysis.dto.ImageSearchCriteria;
+import com.pixsee.imageanalysis.dto.ImageSearchResponseDTO;
+import com.pixsee.imageanalysis.dto.ImageSimilarityMatchDTO;
+import com.pixsee.imageanalysis.dedup.DedupPolicy;
+import com.pixsee.imageanalysis.dedup.ImageDedupIndex;
+import com.pixsee.imageanalysis.exception.DuplicateImageException;
+import com.pixsee.imageanalysis.exception.InvalidRequestException;
+import com.pixsee.imageanalysis.exception.PreconditionFailedException;
 import com.pixsee.imageanalysis.exception.ResourceNotFoundException;
 import com.pixsee.imageanalysis.entity.ImageMetadata;
+import com.pixsee.imageanalysis.feed.ImageChangeOutbox;
 import com.pixsee.imageanalysis.mapper.ImageMetadataMapper;
+import com.pixsee.imageanalysis.metrics.ImageMetrics;
+import com.pixsee.imageanalysis.replica.ReplicaRouting;
+import com.pixsee.imageanalysis.repository.DuplicateImageProjection;
+import com.pixsee.imageanalysis.repository.ImageContentProjection;
+import com.pixsee.imageanalysis.repository.ImageListVersionProjection;
 import com.pixsee.imageanalysis.repository.ImageRepository;
+import com.pixsee.imageanalysis.repository.ImageSpecifications;
+import com.pixsee.imageanalysis.shard.ShardRouting;
+import com.pixsee.imageanalysis.similarity.ImageSimilarityIndex;
+import com.pixsee.imageanalysis.similarity.SimilarityMatch;
+import com.pixsee.imageanalysis.storage.ContentPointer;
+import com.pixsee.imageanalysis.storage.ContentStore;
+import com.pixsee.imageanalysis.storage.ImageContent;
+import com.pixsee.imageanalysis.thumbnail.ThumbnailCache;
+import com.pixsee.imageanalysis.thumbnail.ThumbnailGenerator;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 import java.util.stream.Collectors;
 
 @Service
 public class ImageService {
 
+    private static final Set<String> SORTABLE_PROPERTIES = Set.of("id", "uploadDate", "fileSize", "width", "height");
+
     @Autowired
     private ImageRepository imageRepository;
 
+    @Autowired
+    private Validator validator;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private ImageMetadataCache imageMetadataCache;
+
+    @Autowired
+    private ImageStatsService imageStatsService;
+
+    @Autowired
+    private ImageMetrics imageMetrics;
+
+    @Autowired
+    private ContentStore contentStore;
+
+    @Autowired
+    private ImageDedupIndex imageDedupIndex;
+
+    @Autowired
+    private ImageSimilarityIndex imageSimilarityIndex;
+
+    @Autowired
+    private ThumbnailGenerator thumbnailGenerator;
+
+    @Autowired
+    private ThumbnailCache thumbnailCache;
+
+    @Autowired
+    private ImageChangeOutbox imageChangeOutbox;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ReplicaRouting replicaRouting;
+
+    @Autowired
+    private ShardRouting shardRouting;
+
+    @Autowired
+    private ReadCoalescing readCoalescing;
+
+    @Value("${image.bulk.chunk-size:1000}")
+    private int bulkChunkSize;
+
+    @Transactional
     public ImageMetadataResponseDTO saveImageMetadata(ImageMetadataRequestDTO imageMetadataRequestDTO) {
+        return saveImageMetadata(imageMetadataRequestDTO, null).image();
+    }
+
+    /**
+     * Saves an image and its uploaded {@code content}, if any, applying the dedup policy when the content hash matches
+     * one of the user's images.
+     */
+    @Transactional
+    public ImageSaveResult saveImageMetadata(ImageMetadataRequestDTO imageMetadataRequestDTO, InputStreamSource content) {
+        return shardRouting.writeUser(imageMetadataRequestDTO.getUserId(), () -> saveImage(imageMetadataRequestDTO, content));
+    }
+
+    private ImageSaveResult saveImage(ImageMetadataRequestDTO imageMetadataRequestDTO, InputStreamSource content) {
+        ImageMetadata duplicate = findDuplicate(imageMetadataRequestDTO);
+        if (duplicate != null && imageDedupIndex.getPolicy() == DedupPolicy.REJECT) {
+            throw new DuplicateImageException(duplicate.getId());
+        }
+        if (duplicate != null && imageDedupIndex.getPolicy() == DedupPolicy.LINK) {
+            return new ImageSaveResult(ImageMetadataMapper.toResponseDTO(duplicate), false);
+        }
+
         ImageMetadata imageMetadata = ImageMetadataMapper.toEntity(imageMetadataRequestDTO);
+        ContentPointer contentPointer = null;
+        if (content != null) {
+            contentPointer = duplicate != null && duplicate.getContentSegment() != null
+                    ? new ContentPointer(duplicate.getContentSegment(), duplicate.getContentOffset(), duplicate.getContentLength())
+                    : writeContent(content, imageMetadataRequestDTO.getFileSize());
+            setContent(imageMetadata, contentPointer);
+        }
         ImageMetadata savedImageMetadata = imageRepository.save(imageMetadata);
-        return ImageMetadataMapper.toResponseDTO(savedImageMetadata);
+        imageStatsService.recordAdded(List.of(savedImageMetadata));
+        imageChangeOutbox.recordCreated(List.of(savedImageMetadata.getId()));
+        recordWrite(savedImageMetadata.getUserId(), List.of(savedImageMetadata.getId()));
+        addToDedupIndex(savedImageMetadata);
+        addToSimilarityIndex(savedImageMetadata);
+        // Generated from the stored bytes, so a rolled back save only leaves unreachable thumbnails behind
+        if (contentPointer != null && ThumbnailGenerator.canGenerate(savedImageMetadata.getFileType())) {
+            thumbnailGenerator.scheduleBackfill(savedImageMetadata.getId(), contentPointer);
+        }
+        ImageMetadataResponseDTO responseDTO = ImageMetadataMapper.toResponseDTO(savedImageMetadata);
+        afterCommit(() -> imageMetadataCache.put(responseDTO));
+        return new ImageSaveResult(responseDTO, true);
+    }
+
+    /**
+     * Persists the valid items in one transaction and reports the invalid ones by their index.
+     */
+    @Transactional
+    public ImageBatchResponseDTO saveImageMetadataBatch(List<ImageMetadataRequestDTO> imageMetadataRequestDTOs) {
+        List<ImageBatchItemResultDTO> results = new ArrayList<>(imageMetadataRequestDTOs.size());
+        List<ImageBatchItemResultDTO> pendingResults = new ArrayList<>();
+        List<ImageMetadata> pendingEntities = new ArrayList<>();
+
+        for (int index = 0; index < imageMetadataRequestDTOs.size(); index++) {
+            ImageMetadataRequestDTO requestDTO = imageMetadataRequestDTOs.get(index);
+            ImageBatchItemResultDTO result = new ImageBatchItemResultDTO();
+            result.setIndex(index);
+            List<String> errors = validate(requestDTO);
+            if (errors.isEmpty()) {
+                pendingEntities.add(ImageMetadataMapper.toEntity(requestDTO));
+                pendingResults.add(result);
+            } else {
+                result.setErrors(errors);
+            }
+            results.add(result);
+        }
+
+        // Users of a batch must be on the same shard, since it is saved in one transaction
+        int created = shardRouting.writeUsers(pendingEntities.stream().map(ImageMetadata::getUserId).distinct().toList(),
+                () -> saveBatch(pendingEntities, pendingResults));
+
+        ImageBatchResponseDTO response = new ImageBatchResponseDTO();
+        response.setCreated(created);
+        response.setFailed(results.size() - created);
+        response.setResults(results);
+        return response;
+    }
+
+    private int saveBatch(List<ImageMetadata> pendingEntities, List<ImageBatchItemResultDTO> pendingResults) {
+        List<ImageMetadata> savedEntities = imageRepository.saveAll(pendingEntities);
+        imageStatsService.recordAdded(savedEntities);
+        imageChangeOutbox.recordCreated(savedEntities.stream().map(ImageMetadata::getId).toList());
+        recordWrites(savedEntities);
+        List<ImageMetadataResponseDTO> responseDTOs = new ArrayList<>(savedEntities.size());
+        for (int i = 0; i < savedEntities.size(); i++) {
+            addToDedupIndex(savedEntities.get(i));
+            addToSimilarityIndex(savedEntities.get(i));
+            ImageMetadataResponseDTO responseDTO = ImageMetadataMapper.toResponseDTO(savedEntities.get(i));
+            responseDTOs.add(responseDTO);
+            pendingResults.get(i).setImage(responseDTO);
+        }
+        afterCommit(() -> responseDTOs.forEach(imageMetadataCache::put));
+        return savedEntities.size();
+    }
+
+    /**
+     * Inserts images that already carry their ids, with their stats, in one transaction.
+     */
+    @Transactional
+    public void saveImageMetadataWithAssignedIds(List<ImageMetadata> imageMetadataList) {
+        shardRouting.writeUsers(imageMetadataList.stream().map(ImageMetadata::getUserId).distinct().toList(), () -> {
+            imageRepository.insertAll(imageMetadataList);
+            imageStatsService.recordAdded(imageMetadataList);
+            imageChangeOutbox.recordCreated(imageMetadataList.stream().map(ImageMetadata::getId).toList());
+            recordWrites(imageMetadataList);
+            return null;
+        });
+        List<ImageMetadataResponseDTO> responseDTOs = new ArrayList<>(imageMetadataList.size());
+        for (ImageMetadata imageMetadata : imageMetadataList) {
+            addToDedupIndex(imageMetadata);
+            addToSimilarityIndex(imageMetadata);
+            responseDTOs.add(ImageMetadataMapper.toResponseDTO(imageMetadata));
+        }
+        afterCommit(() -> responseDTOs.forEach(imageMetadataCache::put));
+    }
+
+    public boolean imageExists(Long id) {
+        return shardRouting.onImage(id, () -> imageRepository.existsById(id));
     }
 
+    /**
+     * Returns a tag that changes whenever the list of the user's images does.
+     */
+    public String getImagesVersionByUserId(Long userId) {
+        return shardRouting.onUser(userId, () -> replicaRouting.read(userId, () -> computeImagesVersion(userId)));
+    }
+
+    /**
+     * Returns the user's images. The list may be shared with concurrent callers and must not be modified.
+     */
     public List<ImageMetadataResponseDTO> getImagesByUserId(Long userId) {
-        List<ImageMetadata> imageMetadataList = imageRepository.findByUserId(userId);
-        return imageMetadataList.stream()
+        return readCoalescing.readImages(userId,
+                () -> shardRouting.onUser(userId, () -> replicaRouting.read(userId, () -> findImagesByUserId(userId))));
+    }
+
+    /**
+     * Returns the user's images, or null if {@code notModified} accepts the list's version tag. The list is never older
+     * than the tag.
+     */
+    public List<ImageMetadataResponseDTO> getImagesByUserId(Long userId, Predicate<String> notModified) {
+        // Set only if this caller runs the shared read, which has then already tested the tag
+        Boolean[] testedNotModified = new Boolean[1];
+        VersionedImageList versionedImages = readCoalescing.readVersionedImages(userId,
+                () -> shardRouting.onUser(userId, () -> replicaRouting.read(userId, () -> {
+                    String version = computeImagesVersion(userId);
+                    testedNotModified[0] = notModified.test(version);
+                    return new VersionedImageList(version, testedNotModified[0] ? null : findImagesByUserId(userId));
+                })));
+        if (testedNotModified[0] != null ? testedNotModified[0] : notModified.test(versionedImages.version())) {
+            return null;
+        }
+        if (versionedImages.images() != null) {
+            return versionedImages.images();
+        }
+        // The shared read was not modified for the caller that ran it; the primary is never behind the tag it read
+        return shardRouting.onUser(userId, () -> replicaRouting.readFromPrimary("coalesced", () -> findImagesByUserId(userId)));
+    }
+
+    /**
+     * Groups the user's images that share a content hash. Images without a hash are not included.
+     */
+    public List<ImageDuplicateGroupDTO> getDuplicateImages(Long userId) {
+        List<ImageDuplicateGroupDTO> groups = new ArrayList<>();
+        ImageDuplicateGroupDTO group = null;
+        List<DuplicateImageProjection> images = shardRouting.onUser(userId,
+                () -> replicaRouting.read(userId, () -> imageRepository.findDuplicatesByUserId(userId)));
+        for (DuplicateImageProjection image : images) {
+            if (group == null || !group.getContentHash().equals(image.contentHash())) {
+                group = new ImageDuplicateGroupDTO();
+                group.setContentHash(image.contentHash());
+                group.setFileSize(image.fileSize());
+                group.setImageIds(new ArrayList<>());
+                groups.add(group);
+            }
+            group.getImageIds().add(image.id());
+        }
+        return groups;
+    }
+
+    /**
+     * Finds the owner's other images whose perceptual hash is within {@code maxDistance} bits of this image's, closest
+     * first.
+     */
+    public List<ImageSimilarityMatchDTO> getSimilarImages(Long id, int maxDistance, int limit) {
+        ImageMetadataResponseDTO image = getImageById(id);
+        if (image.getPerceptualHash() == null) {
+            throw new ResourceNotFoundException("Image has no perceptual hash");
+        }
+        List<SimilarityMatch> matches = imageSimilarityIndex.findSimilar(image.getUserId(), image.getPerceptualHash(), maxDistance)
+                .stream()
+                .filter(match -> match.imageId() != id)
+                .limit(limit)
+                .toList();
+        Map<Long, ImageMetadata> imagesById = shardRouting.onUser(image.getUserId(), () -> replicaRouting.read(image.getUserId(),
+                        () -> imageRepository.findAllById(matches.stream().map(SimilarityMatch::imageId).toList())))
+                .stream()
+                .collect(Collectors.toMap(ImageMetadata::getId, Function.identity()));
+
+        List<ImageSimilarityMatchDTO> results = new ArrayList<>(matches.size());
+        for (SimilarityMatch match : matches) {
+            ImageMetadata matchedImage = imagesById.get(match.imageId());
+            if (matchedImage == null) {
+                imageSimilarityIndex.remove(image.getUserId(), match.imageId(), match.perceptualHash());
+                continue;
+            }
+            ImageSimilarityMatchDTO result = new ImageSimilarityMatchDTO();
+            result.setDistance(match.distance());
+            result.setImage(ImageMetadataMapper.toResponseDTO(matchedImage));
+            results.add(result);
+        }
+        return results;
+    }
+
+    /**
+     * Returns at most {@code limit} of the user's images after {@code cursor}, ordered by id.
+     */
+    public ImagePageResponseDTO getImagesPageByUserId(Long userId, String cursor, int limit) {
+        long afterId = cursor == null ? 0L : decodeCursor(userId, cursor);
+        // Fetch one extra row to find out whether another page exists without a COUNT query
+        List<ImageMetadata> imageMetadataList = shardRouting.onUser(userId, () -> replicaRouting.read(userId,
+                () -> imageRepository.findByUserIdAndIdGreaterThanOrderByIdAsc(userId, afterId, Limit.of(limit + 1))));
+        boolean hasMore = imageMetadataList.size() > limit;
+        List<ImageMetadata> page = hasMore ? imageMetadataList.subList(0, limit) : imageMetadataList;
+
+        ImagePageResponseDTO response = new ImagePageResponseDTO();
+        response.setItems(page.stream()
                 .map(ImageMetadataMapper::toResponseDTO)
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()));
+        response.setNextCursor(hasMore ? encodeCursor(userId, page.getLast().getId()) : null);
+        return response;
+    }
+
+    /**
+     * Hands every image of the user to {@code consumer} one at a time, without holding them all in memory.
+     */
+    public void streamImagesByUserId(Long userId, Consumer<ImageMetadataResponseDTO> consumer) {
+        shardRouting.onUser(userId, () -> replicaRouting.readInTransaction(userId, () -> {
+            try (Stream<ImageMetadata> imageMetadataStream = imageRepository.streamByUserIdOrderByIdAsc(userId)) {
+                imageMetadataStream.forEach(imageMetadata -> {
+                    ImageMetadataResponseDTO responseDTO = ImageMetadataMapper.toResponseDTO(imageMetadata);
+                    entityManager.detach(imageMetadata);
+                    consumer.accept(responseDTO);
+                });
+            }
+            return null;
+        }));
+    }
+
+    /**
+     * Filters, sorts and pages a user's images in SQL.
+     */
+    public ImageSearchResponseDTO searchImages(ImageSearchCriteria criteria, Pageable pageable) {
+        for (Sort.Order order : pageable.getSort()) {
+            if (!SORTABLE_PROPERTIES.contains(order.getProperty())) {
+                throw new InvalidRequestException("Cannot sort by " + order.getProperty());
+            }
+        }
+        Sort sort = pageable.getSort().getOrderFor("id") == null ? pageable.getSort().and(Sort.by("id")) : pageable.getSort();
+        Page<ImageMetadata> page = shardRouting.onUser(criteria.getUserId(), () -> replicaRouting.read(criteria.getUserId(),
+                () -> imageRepository.findAll(ImageSpecifications.matching(criteria),
+                        PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort))));
+
+        ImageSearchResponseDTO response = new ImageSearchResponseDTO();
+        response.setItems(page.getContent().stream()
+                .map(ImageMetadataMapper::toResponseDTO)
+                .collect(Collectors.toList()));
+        response.setPage(page.getNumber());
+        response.setSize(page.getSize());
+        response.setTotalElements(page.getTotalElements());
+        response.setTotalPages(page.getTotalPages());
+        return response;
     }
 
     public ImageMetadataResponseDTO getImageById(Long id) {
-        ImageMetadata imageMetadata = getImageEntityById(id);
-        return ImageMetadataMapper.toResponseDTO(imageMetadata);
+        // Cache misses for the same image share one query, also while the cache is disabled
+        return imageMetadataCache.get(id, key -> readCoalescing.readImage(key, () -> shardRouting.onImage(key,
+                        () -> replicaRouting.readImage(key, () -> imageRepository.findById(key)))
+                        .map(ImageMetadataMapper::toResponseDTO)))
+                .orElseThrow(() -> new ResourceNotFoundException("Image not found"));
+    }
+
+    public ImageContent getImageContent(Long id) {
+        ImageContentProjection image = shardRouting.onImage(id,
+                        () -> replicaRouting.readImage(id, () -> imageRepository.findContentById(id)))
+                .orElseThrow(() -> new ResourceNotFoundException("Image not found"));
+        if (image.contentSegment() == null) {
+            throw new ResourceNotFoundException("Image content not found");
+        }
+        try {
+            return new ImageContent(image.fileType(), contentStore.read(
+                    new ContentPointer(image.contentSegment(), image.contentOffset(), image.contentLength())));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns the image's thumbnail of the given size, generating it if it is not cached yet.
+     */
+    public CompletableFuture<byte[]> getThumbnail(Long id, int size) {
+        ImageContentProjection image = shardRouting.onImage(id,
+                        () -> replicaRouting.readImage(id, () -> imageRepository.findContentById(id)))
+                .orElseThrow(() -> new ResourceNotFoundException("Image not found"));
+        if (image.contentSegment() == null || !ThumbnailGenerator.canGenerate(image.fileType())) {
+            throw new ResourceNotFoundException("Thumbnail not found");
+        }
+        return thumbnailGenerator.getThumbnail(id,
+                new ContentPointer(image.contentSegment(), image.contentOffset(), image.contentLength()), size);
     }
 
+    @Transactional
     public ImageMetadataResponseDTO updateImageMetadata(Long id, ImageMetadataRequestDTO imageMetadataRequestDTO) {
+        return updateImageMetadata(id, imageMetadataRequestDTO, null);
+    }
+
+    /**
+     * Updates an image if its version is one of {@code expectedVersions}, or unconditionally when that is null.
+     */
+    @Transactional
+    public ImageMetadataResponseDTO updateImageMetadata(Long id, ImageMetadataRequestDTO imageMetadataRequestDTO,
+                                                        Collection<Long> expectedVersions) {
+        return shardRouting.writeImage(id, () -> updateImage(id, imageMetadataRequestDTO, expectedVersions));
+    }
+
+    private ImageMetadataResponseDTO updateImage(Long id, ImageMetadataRequestDTO imageMetadataRequestDTO,
+                                                 Collection<Long> expectedVersions) {
         ImageMetadata existingImageMetadata = getImageEntityById(id);
+        if (expectedVersions != null && !expectedVersions.contains(existingImageMetadata.getVersion())) {
+            throw new PreconditionFailedException("Image has been modified, its current version is " + existingImageMetadata.getVersion());
+        }
+        ImageMetadata previousImageMetadata = ImageMetadataMapper.copyOf(existingImageMetadata);
         ImageMetadataMapper.updateEntityFromDTO(imageMetadataRequestDTO, existingImageMetadata);
-        ImageMetadata updatedImageMetadata = imageRepository.save(existingImageMetadata);
-        return ImageMetadataMapper.toResponseDTO(updatedImageMetadata);
+        ImageMetadata updatedImageMetadata;
+        try {
+            // Flushed here so that the response and the cache get the incremented version
+            updatedImageMetadata = imageRepository.saveAndFlush(existingImageMetadata);
+        } catch (OptimisticLockingFailureException e) {
+            if (expectedVersions != null) {
+                throw new PreconditionFailedException("Image has been modified");
+            }
+            throw e;
+        }
+        imageStatsService.recordUpdated(previousImageMetadata, updatedImageMetadata);
+        // An update that changed nothing keeps the version and is not a change
+        if (!Objects.equals(previousImageMetadata.getVersion(), updatedImageMetadata.getVersion())) {
+            imageChangeOutbox.recordUpdated(List.of(id));
+            recordWrite(updatedImageMetadata.getUserId(), List.of(id));
+        }
+        ImageMetadataResponseDTO responseDTO = ImageMetadataMapper.toResponseDTO(updatedImageMetadata);
+        afterCommit(() -> imageMetadataCache.put(responseDTO));
+        return responseDTO;
     }
 
+    @Transactional
     public void deleteImage(Long id) {
-        imageRepository.deleteById(id);
+        // The stats read the row inside their own statements, so nothing is loaded before the DELETE.
+        // Stored content is left in its segment until the compactor reclaims it, and the similarity
+        // index entry until a query finds it stale.
+        shardRouting.writeImage(id, () -> {
+            // The owner's lists must not show the image from a replica either, so the owner is looked up first.
+            // Otherwise no read of any list in flight is joined once the image is gone.
+            recordWrite(replicaRouting.isEnabled() ? imageRepository.findUserIdById(id).orElse(null) : null, List.of(id));
+            imageStatsService.recordRemoving(id);
+            imageChangeOutbox.recordDeleting(List.of(id));
+            return imageRepository.deleteRowById(id);
+        });
+        afterCommit(() -> {
+            imageMetadataCache.invalidate(id);
+            thumbnailCache.invalidate(id);
+        });
+    }
+
+    /**
+     * Deletes all of the user's images, or only those listed in {@code ids}, one DELETE per chunk.
+     */
+    public ImageBulkResponseDTO deleteImages(Long userId, List<Long> ids) {
+        return forEachChunk(userId, ids, null, images -> {
+            List<Long> imageIds = images.stream().map(ImageMetadata::getId).toList();
+            imageChangeOutbox.recordDeleting(imageIds);
+            recordWrite(userId, imageIds);
+            int deleted = imageRepository.deleteRowsByIdIn(imageIds);
+            // After the DELETE, so the re-read extremes no longer include the deleted images
+            imageStatsService.recordRemoved(images);
+            return deleted;
+        }, id -> {
+            imageMetadataCache.invalidate(id);
+            thumbnailCache.invalidate(id);
+        });
+    }
+
+    /**
+     * Sets the file type of the selected images of a user, one UPDATE per chunk. Images that already have it are not
+     * counted.
+     */
+    public ImageBulkResponseDTO updateImagesFileType(ImageBulkUpdateRequestDTO imageBulkUpdateRequestDTO) {
+        String fileType = imageBulkUpdateRequestDTO.getFileType();
+        return forEachChunk(imageBulkUpdateRequestDTO.getUserId(), imageBulkUpdateRequestDTO.getIds(),
+                imageBulkUpdateRequestDTO.getCurrentFileType(), images -> {
+                    List<ImageMetadata> changed = images.stream()
+                            .filter(image -> !fileType.equals(image.getFileType()))
+                            .toList();
+                    if (changed.isEmpty()) {
+                        return 0;
+                    }
+                    List<Long> changedIds = changed.stream().map(ImageMetadata::getId).toList();
+                    int updated = imageRepository.updateFileTypeByIdIn(changedIds, fileType);
+                    imageStatsService.recordFileTypeChanged(changed, fileType);
+                    imageChangeOutbox.recordUpdated(changedIds);
+                    recordWrite(imageBulkUpdateRequestDTO.getUserId(), changedIds);
+                    return updated;
+                }, imageMetadataCache::invalidate);
+    }
+
+    /**
+     * Runs {@code write} over the selected images in chunks, each in its own transaction. A failure leaves the earlier
+     * chunks committed.
+     */
+    private ImageBulkResponseDTO forEachChunk(Long userId, List<Long> ids, String fileType,
+                                              Function<List<ImageMetadata>, Integer> write, Consumer<Long> afterCommit) {
+        List<Long> remainingIds = ids == null ? null : ids.stream().distinct().sorted().toList();
+        ImageBulkResponseDTO response = new ImageBulkResponseDTO();
+        long afterId = 0L;
+        while (true) {
+            List<Long> chunkIds = remainingIds == null ? null : remainingIds.subList(0, Math.min(bulkChunkSize, remainingIds.size()));
+            long chunkAfterId = afterId;
+            // Routed chunk by chunk, so a long bulk operation stops at the next chunk when the user's bucket is moved
+            ChunkResult chunk = shardRouting.writeUser(userId, () -> transactionTemplate.execute(status -> {
+                List<ImageMetadata> images = findChunk(userId, chunkIds, fileType, chunkAfterId);
+                List<ImageMetadata> selected = filterByFileType(images, chunkIds, fileType);
+                return new ChunkResult(images, selected.isEmpty() ? 0 : write.apply(selected));
+            }));
+            response.setAffected(response.getAffected() + chunk.affected());
+            response.setChunks(response.getChunks() + 1);
+            chunk.images().forEach(image -> afterCommit.accept(image.getId()));
+
+            if (remainingIds != null) {
+                remainingIds = remainingIds.subList(chunkIds.size(), remainingIds.size());
+                if (remainingIds.isEmpty()) {
+                    return response;
+                }
+            } else if (chunk.images().size() < bulkChunkSize) {
+                return response;
+            } else {
+                afterId = chunk.images().getLast().getId();
+            }
+        }
+    }
+
+    private List<ImageMetadata> findChunk(Long userId, List<Long> chunkIds, String fileType, long afterId) {
+        if (chunkIds != null) {
+            return chunkIds.isEmpty() ? List.of() : imageRepository.findForUpdateByUserIdAndIdInOrderByIdAsc(userId, chunkIds);
+        }
+        return fileType == null
+                ? imageRepository.findForUpdateByUserIdAndIdGreaterThanOrderByIdAsc(userId, afterId, Limit.of(bulkChunkSize))
+                : imageRepository.findForUpdateByUserIdAndFileTypeAndIdGreaterThanOrderByIdAsc(userId, fileType, afterId,
+                        Limit.of(bulkChunkSize));
+    }
+
+    // Chunks of listed ids are looked up by id alone, so the file type is filtered here
+    private static List<ImageMetadata> filterByFileType(List<ImageMetadata> images, List<Long> chunkIds, String fileType) {
+        if (chunkIds == null || fileType == null) {
+            return images;
+        }
+        return images.stream().filter(image -> fileType.equals(image.getFileType())).toList();
+    }
+
+    private record ChunkResult(List<ImageMetadata> images, int affected) {
+    }
+
+    private List<ImageMetadataResponseDTO> findImagesByUserId(Long userId) {
+        List<ImageMetadata> imageMetadataList = imageRepository.findByUserId(userId);
+        imageMetrics.recordUserImageRows(imageMetadataList.size());
+        return imageMetadataList.stream()
+                .map(ImageMetadataMapper::toResponseDTO)
+                .collect(Collectors.toList());
+    }
+
+    private String computeImagesVersion(Long userId) {
+        ImageListVersionProjection version = imageRepository.computeListVersionByUserId(userId);
+        return version.imageCount() + "-" + version.maxId() + "-" + version.versionSum();
+    }
+
+    private ImageMetadata findDuplicate(ImageMetadataRequestDTO imageMetadataRequestDTO) {
+        String contentHash = imageMetadataRequestDTO.getContentHash();
+        // The prefilter has no false negatives, so unique images are saved without a lookup
+        if (contentHash == null || !imageDedupIndex.mightContain(imageMetadataRequestDTO.getUserId(), contentHash)) {
+            return null;
+        }
+        return imageRepository.findFirstByUserIdAndContentHashOrderByIdAsc(imageMetadataRequestDTO.getUserId(), contentHash)
+                .orElse(null);
+    }
+
+    private void recordWrites(List<ImageMetadata> images) {
+        images.stream()
+                .collect(Collectors.groupingBy(ImageMetadata::getUserId, Collectors.mapping(ImageMetadata::getId, Collectors.toList())))
+                .forEach(this::recordWrite);
+    }
+
+    // Takes effect when the current transaction commits, for both the replicas and the coalesced reads
+    private void recordWrite(Long userId, Collection<Long> imageIds) {
+        replicaRouting.recordWrite(userId, imageIds);
+        readCoalescing.recordWrite(userId, imageIds);
+    }
+
+    /**
+     * Runs {@code action} once the current transaction commits, or right away outside of one.
+     */
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    // Batches are not deduplicated themselves, but later saves of the same content must find them
+    private void addToDedupIndex(ImageMetadata imageMetadata) {
+        if (imageMetadata.getContentHash() != null) {
+            imageDedupIndex.add(imageMetadata.getUserId(), imageMetadata.getContentHash());
+        }
+    }
+
+    // Neither the owner nor the perceptual hash can be updated, so an entry stays valid until the image is deleted
+    private void addToSimilarityIndex(ImageMetadata imageMetadata) {
+        if (imageMetadata.getPerceptualHash() != null) {
+            imageSimilarityIndex.add(imageMetadata.getUserId(), imageMetadata.getId(), imageMetadata.getPerceptualHash());
+        }
+    }
+
+    private ContentPointer writeContent(InputStreamSource content, long length) {
+        try (InputStream in = content.getInputStream()) {
+            return contentStore.write(in, length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void setContent(ImageMetadata imageMetadata, ContentPointer content) {
+        imageMetadata.setContentSegment(content.segment());
+        imageMetadata.setContentOffset(content.offset());
+        imageMetadata.setContentLength(content.length());
     }
 
     private ImageMetadata getImageEntityById(Long id) {
         return imageRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Image not found"));
     }
-}
 
+    private static String encodeCursor(Long userId, Long lastId) {
+        String position = userId + ":" + lastId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static long decodeCursor(Long userId, String cursor) {
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = position.indexOf(':');
+            if (separator > 0 && Long.parseLong(position.substring(0, separator)) == userId) {
+                return Long.parseLong(position.substring(separator + 1));
+            }
+        } catch (IllegalArgumentException e) {
+            // Falls through to the error below; NumberFormatException is an IllegalArgumentException
+        }
+        throw new InvalidRequestException("Invalid cursor");
+    }
+
+    private List<String> validate(ImageMetadataRequestDTO imageMetadataRequestDTO) {
+        if (imageMetadataRequestDTO == null) {
+            return List.of("Image metadata cannot be null");
+        }
+        return validator.validate(imageMetadataRequestDTO).stream()
+                .map(ConstraintViolation::getMessage)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,163 @@
+package com.pixsee.imageanalysis.service;
+
+import com.pixsee.imageanalysis.dto.ImageStatsConsistencyDTO;
+import com.pixsee.imageanalysis.dto.ImageStatsResponseDTO;
+import com.pixsee.imageanalysis.entity.ImageMetadata;
+import com.pixsee.imageanalysis.entity.ImageUserFileTypeStats;
+import com.pixsee.imageanalysis.entity.ImageUserStats;
+import com.pixsee.imageanalysis.mapper.ImageStatsMapper;
+import com.pixsee.imageanalysis.repository.ImageRepository;
+import com.pixsee.imageanalysis.repository.ImageUserFileTypeStatsRepository;
+import com.pixsee.imageanalysis.repository.ImageUserStatsRepository;
+import com.pixsee.imageanalysis.shard.ShardRouting;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Maintains the per-user aggregates in {@code image_user_stats} and {@code image_user_file_type_stats}. The record
+ * methods must run in the transaction that writes {@code image_metadata}.
+ */
+@Service
+public class ImageStatsService {
+
+    @Autowired
+    private ImageUserStatsRepository imageUserStatsRepository;
+
+    @Autowired
+    private ImageUserFileTypeStatsRepository imageUserFileTypeStatsRepository;
+
+    @Autowired
+    private ImageRepository imageRepository;
+
+    @Autowired
+    private ShardRouting shardRouting;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordAdded(Collection<ImageMetadata> images) {
+        Map<Long, ImageUserStats> deltas = aggregate(images);
+        deltas.values().forEach(delta -> imageUserStatsRepository.add(delta.getUserId(), delta.getImageCount(),
+                delta.getTotalBytes(), delta.getWidthSum(), delta.getHeightSum(),
+                delta.getWidthMin(), delta.getWidthMax(), delta.getHeightMin(), delta.getHeightMax()));
+        aggregateFileTypes(images).forEach((key, count) ->
+                imageUserFileTypeStatsRepository.add(key.getUserId(), key.getFileType(), count));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordRemoved(Collection<ImageMetadata> images) {
+        Map<Long, ImageUserStats> deltas = aggregate(images);
+        deltas.values().forEach(delta -> imageUserStatsRepository.subtract(delta.getUserId(), delta.getImageCount(),
+                delta.getTotalBytes(), delta.getWidthSum(), delta.getHeightSum()));
+        aggregateFileTypes(images).forEach((key, count) ->
+                imageUserFileTypeStatsRepository.subtract(key.getUserId(), key.getFileType(), count));
+        deltas.keySet().forEach(imageUserFileTypeStatsRepository::deleteEmpty);
+    }
+
+    /**
+     * Removes an image from the stats without loading it. Must run before the row is deleted, in the same transaction.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordRemoving(Long imageId) {
+        imageUserStatsRepository.subtractImage(imageId);
+        imageUserFileTypeStatsRepository.subtractImage(imageId);
+        imageUserFileTypeStatsRepository.deleteEmptyForImage(imageId);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordUpdated(ImageMetadata previous, ImageMetadata updated) {
+        if (Objects.equals(previous.getFileSize(), updated.getFileSize())
+                && Objects.equals(previous.getFileType(), updated.getFileType())
+                && Objects.equals(previous.getWidth(), updated.getWidth())
+                && Objects.equals(previous.getHeight(), updated.getHeight())) {
+            return;
+        }
+        recordRemoved(List.of(previous));
+        recordAdded(List.of(updated));
+    }
+
+    /**
+     * Moves the images from their current file type to {@code fileType}.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordFileTypeChanged(Collection<ImageMetadata> previous, String fileType) {
+        aggregateFileTypes(previous).forEach((key, count) ->
+                imageUserFileTypeStatsRepository.subtract(key.getUserId(), key.getFileType(), count));
+        aggregateFileTypes(previous.stream().map(image -> {
+            ImageMetadata updated = new ImageMetadata();
+            updated.setUserId(image.getUserId());
+            updated.setFileType(fileType);
+            return updated;
+        }).toList()).forEach((key, count) -> imageUserFileTypeStatsRepository.add(key.getUserId(), key.getFileType(), count));
+        aggregate(previous).keySet().forEach(imageUserFileTypeStatsRepository::deleteEmpty);
+    }
+
+    @Transactional(readOnly = true)
+    public ImageStatsResponseDTO getStats(Long userId) {
+        return shardRouting.onUser(userId, () -> {
+            ImageUserStats stats = imageUserStatsRepository.findById(userId).orElse(null);
+            return ImageStatsMapper.toResponseDTO(userId, stats, imageUserFileTypeStatsRepository.findByUserId(userId));
+        });
+    }
+
+    /**
+     * Compares the maintained counters with a full recomputation over the user's images; meant for audits.
+     */
+    @Transactional(readOnly = true)
+    public ImageStatsConsistencyDTO checkConsistency(Long userId) {
+        return shardRouting.onUser(userId, () -> {
+            ImageStatsConsistencyDTO consistency = new ImageStatsConsistencyDTO();
+            consistency.setStored(getStats(userId));
+            consistency.setRecomputed(ImageStatsMapper.toResponseDTO(userId,
+                    imageRepository.computeStatsByUserId(userId), imageRepository.countByFileTypeForUserId(userId)));
+            consistency.setConsistent(consistency.getStored().equals(consistency.getRecomputed()));
+            return consistency;
+        });
+    }
+
+    private static Map<Long, ImageUserStats> aggregate(Collection<ImageMetadata> images) {
+        // Rows are updated in user id order so concurrent batches cannot deadlock on them
+        Map<Long, ImageUserStats> deltas = new TreeMap<>();
+        for (ImageMetadata image : images) {
+            ImageUserStats delta = deltas.computeIfAbsent(image.getUserId(), userId -> {
+                ImageUserStats stats = new ImageUserStats();
+                stats.setUserId(userId);
+                stats.setImageCount(0L);
+                stats.setTotalBytes(0L);
+                stats.setWidthSum(0L);
+                stats.setHeightSum(0L);
+                stats.setWidthMin(image.getWidth());
+                stats.setWidthMax(image.getWidth());
+                stats.setHeightMin(image.getHeight());
+                stats.setHeightMax(image.getHeight());
+                return stats;
+            });
+            delta.setImageCount(delta.getImageCount() + 1);
+            delta.setTotalBytes(delta.getTotalBytes() + image.getFileSize());
+            delta.setWidthSum(delta.getWidthSum() + image.getWidth());
+            delta.setHeightSum(delta.getHeightSum() + image.getHeight());
+            delta.setWidthMin(Math.min(delta.getWidthMin(), image.getWidth()));
+            delta.setWidthMax(Math.max(delta.getWidthMax(), image.getWidth()));
+            delta.setHeightMin(Math.min(delta.getHeightMin(), image.getHeight()));
+            delta.setHeightMax(Math.max(delta.getHeightMax(), image.getHeight()));
+        }
+        return deltas;
+    }
+
+    private static Map<ImageUserFileTypeStats.Key, Long> aggregateFileTypes(Collection<ImageMetadata> images) {
+        Map<ImageUserFileTypeStats.Key, Long> counts = new TreeMap<>(
+                Comparator.comparing(ImageUserFileTypeStats.Key::getUserId)
+                        .thenComparing(ImageUserFileTypeStats.Key::getFileType));
+        for (ImageMetadata image : images) {
+            counts.merge(new ImageUserFileTypeStats.Key(image.getUserId(), image.getFileType()), 1L, Long::sum);
+        }
+        return counts;
+    }
+}
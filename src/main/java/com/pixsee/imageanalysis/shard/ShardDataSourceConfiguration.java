@@ -0,0 +1,74 @@
+package com.pixsee.imageanalysis.shard;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replaces the auto-configured data source with a {@link ShardRoutingDataSource} when {@code image.sharding.enabled} is
+ * set.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "image.sharding.enabled", havingValue = "true")
+public class ShardDataSourceConfiguration {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource homeShardDataSource(DataSourceProperties dataSourceProperties) {
+        return dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ShardRoutingDataSource shardRoutingDataSource(HikariDataSource homeShardDataSource,
+                                                         @Value("${image.sharding.urls}") List<String> urls,
+                                                         @Value("${image.sharding.username:${spring.datasource.username:}}") String username,
+                                                         @Value("${image.sharding.password:${spring.datasource.password:}}") String password,
+                                                         @Value("${image.replica.enabled:false}") boolean replicasEnabled,
+                                                         MeterRegistry meterRegistry) {
+        if (replicasEnabled) {
+            throw new IllegalStateException("image.replica.enabled cannot be combined with image.sharding.enabled");
+        }
+        if (urls.isEmpty()) {
+            throw new IllegalStateException("image.sharding.urls must list at least one shard besides the home shard");
+        }
+        List<HikariDataSource> shards = new ArrayList<>(urls.size() + 1);
+        shards.add(homeShardDataSource);
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource shard = new HikariDataSource();
+            homeShardDataSource.copyStateTo(shard);
+            shard.setPoolName("shard-" + (i + 1));
+            shard.setJdbcUrl(urls.get(i));
+            shard.setUsername(username);
+            shard.setPassword(password);
+            shard.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            shards.add(shard);
+        }
+        return new ShardRoutingDataSource(shards);
+    }
+
+    @Bean
+    @Primary
+    public LazyConnectionDataSourceProxy dataSource(ShardRoutingDataSource shardRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(shardRoutingDataSource);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer shardSchemaCustomizer(@Value("${image.sharding.urls}") List<String> urls) {
+        List<Integrator> integrators = List.of(new ShardSchemaIntegrator(urls.size() + 1));
+        return properties -> properties.put("hibernate.integrator_provider", (IntegratorProvider) () -> integrators);
+    }
+}
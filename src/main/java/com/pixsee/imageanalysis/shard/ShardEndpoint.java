@@ -0,0 +1,52 @@
+package com.pixsee.imageanalysis.shard;
+
+import com.pixsee.imageanalysis.repository.ImageRepository;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@code shards} actuator endpoint, which reports the buckets and images on every shard and moves buckets.
+ */
+@Component
+@Endpoint(id = "shards")
+@ConditionalOnProperty(name = "image.sharding.enabled", havingValue = "true")
+public class ShardEndpoint {
+
+    private final ShardRebalancer shardRebalancer;
+    private final ShardRouting shardRouting;
+    private final ImageRepository imageRepository;
+
+    public ShardEndpoint(ShardRebalancer shardRebalancer, ShardRouting shardRouting, ImageRepository imageRepository) {
+        this.shardRebalancer = shardRebalancer;
+        this.shardRouting = shardRouting;
+        this.imageRepository = imageRepository;
+    }
+
+    @ReadOperation
+    public Map<String, Object> shards() {
+        Map<String, Object> shards = new LinkedHashMap<>();
+        shards.put("buckets", shardRebalancer.getBucketCounts());
+        shards.put("images", shardRouting.scatterGather(imageRepository::count));
+        return shards;
+    }
+
+    // POST /actuator/shards
+    @WriteOperation
+    public Map<String, Object> rebalance() {
+        return Map.of("moved", shardRebalancer.rebalance());
+    }
+
+    // POST /actuator/shards/{bucket} with {"shard": n}
+    @WriteOperation
+    public Map<String, Object> move(@Selector int bucket, int shard) {
+        return Map.of("users", shardRebalancer.moveBucket(bucket, shard));
+    }
+}
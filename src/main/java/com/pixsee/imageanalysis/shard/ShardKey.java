@@ -0,0 +1,40 @@
+package com.pixsee.imageanalysis.shard;
+
+/**
+ * Maps users to buckets by a hash of the user id, and images by the bucket kept in their id's low bits. An id is {@code
+ * sequence value << 16 | origin shard << 10 | bucket}.
+ */
+final class ShardKey {
+
+    static final int BUCKET_BITS = 10;
+    static final int BUCKETS = 1 << BUCKET_BITS;
+    static final int SHARD_BITS = 6;
+    static final int MAX_SHARDS = 1 << SHARD_BITS;
+
+    private static final long MAX_SEQUENCE_VALUE = Long.MAX_VALUE >>> (BUCKET_BITS + SHARD_BITS);
+
+    private ShardKey() {
+    }
+
+    static int bucketOfUser(long userId) {
+        // MurmurHash3's 64-bit finalizer, so consecutive user ids land in unrelated buckets
+        long hash = userId;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return (int) (hash & (BUCKETS - 1));
+    }
+
+    static int bucketOfImage(long imageId) {
+        return (int) (imageId & (BUCKETS - 1));
+    }
+
+    static long encode(long sequenceValue, int shard, int bucket) {
+        if (sequenceValue < 1 || sequenceValue > MAX_SEQUENCE_VALUE) {
+            throw new IllegalStateException("Sequence value " + sequenceValue + " does not fit in a sharded id");
+        }
+        return sequenceValue << (BUCKET_BITS + SHARD_BITS) | (long) shard << BUCKET_BITS | bucket;
+    }
+}
@@ -0,0 +1,201 @@
+package com.pixsee.imageanalysis.shard;
+
+import com.pixsee.imageanalysis.entity.ImageMetadata;
+import com.pixsee.imageanalysis.entity.ImageUserFileTypeStats;
+import com.pixsee.imageanalysis.entity.ImageUserStats;
+import com.pixsee.imageanalysis.feed.ImageChangeSequencer;
+import com.pixsee.imageanalysis.repository.ImageRepository;
+import com.pixsee.imageanalysis.repository.ImageUserFileTypeStatsRepository;
+import com.pixsee.imageanalysis.repository.ImageUserStatsRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Moves buckets between shards, copying their users' images and stats. Writes of the bucket's users are refused during
+ * a move, while reads keep working.
+ */
+@Component
+public class ShardRebalancer {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardRebalancer.class);
+
+    private static final int PAGE_SIZE = 1000;
+
+    private final ShardRouting shardRouting;
+    private final ImageRepository imageRepository;
+    private final ImageUserStatsRepository imageUserStatsRepository;
+    private final ImageUserFileTypeStatsRepository imageUserFileTypeStatsRepository;
+    private final ImageChangeSequencer imageChangeSequencer;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration settleTime;
+
+    public ShardRebalancer(ShardRouting shardRouting,
+                           ImageRepository imageRepository,
+                           ImageUserStatsRepository imageUserStatsRepository,
+                           ImageUserFileTypeStatsRepository imageUserFileTypeStatsRepository,
+                           ImageChangeSequencer imageChangeSequencer,
+                           TransactionTemplate transactionTemplate,
+                           @Value("${image.sharding.move-settle-time:10s}") Duration settleTime) {
+        this.shardRouting = shardRouting;
+        this.imageRepository = imageRepository;
+        this.imageUserStatsRepository = imageUserStatsRepository;
+        this.imageUserFileTypeStatsRepository = imageUserFileTypeStatsRepository;
+        this.imageChangeSequencer = imageChangeSequencer;
+        this.transactionTemplate = transactionTemplate;
+        this.settleTime = settleTime;
+    }
+
+    /**
+     * Returns how many buckets each shard holds, in shard order.
+     */
+    public List<Integer> getBucketCounts() {
+        int[] counts = new int[shardRouting.getShardCount()];
+        for (int bucket = 0; bucket < ShardKey.BUCKETS; bucket++) {
+            counts[shardRouting.shardOfBucket(bucket)]++;
+        }
+        return IntStream.of(counts).boxed().toList();
+    }
+
+    /**
+     * Moves buckets from the fullest to the emptiest shards until their bucket counts differ by at most one. Returns
+     * the number moved.
+     */
+    public synchronized int rebalance() {
+        checkEnabled();
+        int moved = 0;
+        while (true) {
+            List<Integer> counts = getBucketCounts();
+            int fullest = 0;
+            int emptiest = 0;
+            for (int shard = 1; shard < counts.size(); shard++) {
+                if (counts.get(shard) > counts.get(fullest)) {
+                    fullest = shard;
+                }
+                if (counts.get(shard) < counts.get(emptiest)) {
+                    emptiest = shard;
+                }
+            }
+            if (counts.get(fullest) - counts.get(emptiest) <= 1) {
+                return moved;
+            }
+            int source = fullest;
+            int bucket = IntStream.range(0, ShardKey.BUCKETS)
+                    .filter(candidate -> shardRouting.shardOfBucket(candidate) == source)
+                    .max()
+                    .orElseThrow();
+            moveBucket(bucket, emptiest);
+            moved++;
+        }
+    }
+
+    /**
+     * Moves a bucket and the images of its users to another shard and returns the number of users moved.
+     */
+    public synchronized int moveBucket(int bucket, int target) {
+        checkEnabled();
+        if (bucket < 0 || bucket >= ShardKey.BUCKETS) {
+            throw new IllegalArgumentException("There is no bucket " + bucket);
+        }
+        if (target < 0 || target >= shardRouting.getShardCount()) {
+            throw new IllegalArgumentException("There is no shard " + target);
+        }
+        int source = shardRouting.shardOfBucket(bucket);
+        if (source == target) {
+            return 0;
+        }
+        shardRouting.updateBucket(bucket, source, true);
+        List<Long> userIds;
+        try {
+            settle();
+            // Events written on the source have to reach the feed before any the users write on the target
+            imageChangeSequencer.sequence();
+            userIds = findUsers(source, bucket);
+            for (Long userId : userIds) {
+                copyUser(userId, source, target);
+            }
+        } catch (RuntimeException e) {
+            shardRouting.updateBucket(bucket, source, false);
+            throw e;
+        }
+        shardRouting.updateBucket(bucket, target, false);
+
+        settle();
+        for (Long userId : userIds) {
+            shardRouting.onShard(source, () -> transactionTemplate.execute(status -> deleteUser(userId)));
+        }
+        log.info("Moved bucket {} with {} users from shard {} to shard {}", bucket, userIds.size(), source, target);
+        return userIds.size();
+    }
+
+    private List<Long> findUsers(int shard, int bucket) {
+        // Users whose images were all deleted may still have a stats row
+        return shardRouting.onShard(shard, () -> Stream.concat(imageRepository.findDistinctUserIds().stream(),
+                        imageUserStatsRepository.findAllUserIds().stream())
+                .filter(userId -> ShardKey.bucketOfUser(userId) == bucket)
+                .distinct()
+                .sorted()
+                .toList());
+    }
+
+    private void copyUser(Long userId, int source, int target) {
+        // Replaces what an earlier, failed move may have left on the target
+        shardRouting.onShard(target, () -> transactionTemplate.execute(status -> deleteUser(userId)));
+
+        long lastId = 0;
+        List<ImageMetadata> page;
+        do {
+            long after = lastId;
+            page = shardRouting.onShard(source,
+                    () -> imageRepository.findByUserIdAndIdGreaterThanOrderByIdAsc(userId, after, Limit.of(PAGE_SIZE)));
+            if (!page.isEmpty()) {
+                List<ImageMetadata> images = page;
+                shardRouting.onShard(target, () -> transactionTemplate.execute(status -> {
+                    imageRepository.insertCopies(images);
+                    return null;
+                }));
+                lastId = page.getLast().getId();
+            }
+        } while (page.size() == PAGE_SIZE);
+
+        Optional<ImageUserStats> stats = shardRouting.onShard(source, () -> imageUserStatsRepository.findById(userId));
+        List<ImageUserFileTypeStats> fileTypeStats = new ArrayList<>(
+                shardRouting.onShard(source, () -> imageUserFileTypeStatsRepository.findByUserId(userId)));
+        shardRouting.onShard(target, () -> transactionTemplate.execute(status -> {
+            stats.ifPresent(imageUserStatsRepository::save);
+            imageUserFileTypeStatsRepository.saveAll(fileTypeStats);
+            return null;
+        }));
+    }
+
+    private int deleteUser(Long userId) {
+        imageUserFileTypeStatsRepository.deleteRowsByUserId(userId);
+        imageUserStatsRepository.deleteRowByUserId(userId);
+        return imageRepository.deleteRowsByUserId(userId);
+    }
+
+    private void settle() {
+        try {
+            Thread.sleep(settleTime);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while moving a bucket", e);
+        }
+    }
+
+    private void checkEnabled() {
+        if (!shardRouting.isEnabled()) {
+            throw new IllegalStateException("Sharding is not enabled");
+        }
+    }
+}
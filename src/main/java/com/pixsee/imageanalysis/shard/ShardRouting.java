@@ -0,0 +1,348 @@
+package com.pixsee.imageanalysis.shard;
+
+import com.pixsee.imageanalysis.entity.ImageShardBucket;
+import com.pixsee.imageanalysis.exception.InvalidRequestException;
+import com.pixsee.imageanalysis.exception.ServiceUnavailableException;
+import com.pixsee.imageanalysis.repository.ImageShardBucketRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Decides which shard serves a piece of work, by user or by image id. A transaction stays on the shard of its first
+ * statement, and writes to a bucket that is being moved are refused.
+ */
+@Component
+public class ShardRouting implements SmartLifecycle {
+
+    public static final int HOME_SHARD = 0;
+
+    private static final ThreadLocal<Integer> CURRENT_SHARD = new ThreadLocal<>();
+
+    private final boolean enabled;
+    private final int shardCount;
+    private final long retryAfterSeconds;
+    private final ImageShardBucketRepository imageShardBucketRepository;
+    private final TransactionTemplate transactionTemplate;
+    private volatile Directory directory;
+    private volatile boolean running;
+
+    public ShardRouting(@Value("${image.sharding.enabled:false}") boolean enabled,
+                        @Value("${image.sharding.urls:}") List<String> urls,
+                        @Value("${image.sharding.directory-refresh-interval:PT5S}") Duration refreshInterval,
+                        ImageShardBucketRepository imageShardBucketRepository,
+                        TransactionTemplate transactionTemplate) {
+        this.enabled = enabled;
+        this.shardCount = enabled ? urls.size() + 1 : 1;
+        if (shardCount > ShardKey.MAX_SHARDS) {
+            throw new IllegalStateException("At most " + ShardKey.MAX_SHARDS + " shards are supported");
+        }
+        // A moved bucket accepts writes again once every instance has refreshed its directory
+        this.retryAfterSeconds = Math.max(1, refreshInterval.toSeconds());
+        this.imageShardBucketRepository = imageShardBucketRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    // The shard that connections obtained by this thread right now should come from, or null for the home shard
+    static Integer currentShard() {
+        return CURRENT_SHARD.get();
+    }
+
+    static <T> T callOnShard(int shard, Supplier<T> work) {
+        Integer current = CURRENT_SHARD.get();
+        if (current != null) {
+            if (current != shard) {
+                throw new IllegalStateException("Cannot switch from shard " + current + " to shard " + shard + " on the same thread");
+            }
+            return work.get();
+        }
+        CURRENT_SHARD.set(shard);
+        try {
+            return work.get();
+        } finally {
+            CURRENT_SHARD.remove();
+        }
+    }
+
+    @Override
+    public void start() {
+        loadDirectory();
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Before the indexes and the change sequencer, which read the shards when they start
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 8192;
+    }
+
+    private void loadDirectory() {
+        if (!enabled) {
+            return;
+        }
+        onShard(HOME_SHARD, () -> {
+            if (imageShardBucketRepository.count() == 0) {
+                List<ImageShardBucket> entries = new ArrayList<>(ShardKey.BUCKETS);
+                for (int bucket = 0; bucket < ShardKey.BUCKETS; bucket++) {
+                    entries.add(entry(bucket, bucket % shardCount));
+                }
+                try {
+                    transactionTemplate.executeWithoutResult(status -> imageShardBucketRepository.saveAll(entries));
+                } catch (DataIntegrityViolationException e) {
+                    // Created by another instance starting at the same time
+                }
+            }
+            return null;
+        });
+        refreshDirectory();
+    }
+
+    /**
+     * Reloads the directory, picking up buckets moved by other instances.
+     */
+    @Scheduled(fixedDelayString = "${image.sharding.directory-refresh-interval:PT5S}",
+            initialDelayString = "${image.sharding.directory-refresh-interval:PT5S}")
+    public void refreshDirectory() {
+        if (!enabled) {
+            return;
+        }
+        List<ImageShardBucket> entries = onShard(HOME_SHARD, imageShardBucketRepository::findAll);
+        if (entries.size() != ShardKey.BUCKETS) {
+            throw new IllegalStateException("The shard directory has " + entries.size() + " buckets instead of " + ShardKey.BUCKETS);
+        }
+        int[] shards = new int[ShardKey.BUCKETS];
+        BitSet moving = new BitSet(ShardKey.BUCKETS);
+        for (ImageShardBucket entry : entries) {
+            if (entry.getShard() >= shardCount) {
+                throw new IllegalStateException("Bucket " + entry.getBucket() + " is on shard " + entry.getShard()
+                        + ", but only " + shardCount + " shards are configured");
+            }
+            shards[entry.getBucket()] = entry.getShard();
+            moving.set(entry.getBucket(), entry.getMoving());
+        }
+        directory = new Directory(shards, moving);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    public int shardOfUser(long userId) {
+        return shardOfBucket(ShardKey.bucketOfUser(userId));
+    }
+
+    public int shardOfImage(long imageId) {
+        return shardOfBucket(ShardKey.bucketOfImage(imageId));
+    }
+
+    int shardOfBucket(int bucket) {
+        return enabled ? directory.shards()[bucket] : HOME_SHARD;
+    }
+
+    boolean isMoving(int bucket) {
+        return enabled && directory.moving().get(bucket);
+    }
+
+    /**
+     * Runs a read of the user's rows on the user's shard.
+     */
+    public <T> T onUser(Long userId, Supplier<T> work) {
+        return enabled ? route(ShardKey.bucketOfUser(userId), false, work) : work.get();
+    }
+
+    /**
+     * Runs a write of the user's rows on the user's shard, unless the user's bucket is being moved.
+     */
+    public <T> T writeUser(Long userId, Supplier<T> work) {
+        return enabled ? route(ShardKey.bucketOfUser(userId), true, work) : work.get();
+    }
+
+    /**
+     * Runs a write of rows of several users in one transaction, which requires them to be on the same shard.
+     */
+    public <T> T writeUsers(Collection<Long> userIds, Supplier<T> work) {
+        if (!enabled || userIds.isEmpty()) {
+            return work.get();
+        }
+        Directory current = directory;
+        Integer shard = null;
+        for (Long userId : userIds) {
+            int bucket = ShardKey.bucketOfUser(userId);
+            checkWritable(current, bucket);
+            if (shard != null && shard != current.shards()[bucket]) {
+                throw new InvalidRequestException("Images of users on different shards cannot be saved together");
+            }
+            shard = current.shards()[bucket];
+        }
+        return onShard(shard, work);
+    }
+
+    /**
+     * Runs a read of an image on the shard that holds it.
+     */
+    public <T> T onImage(Long imageId, Supplier<T> work) {
+        return enabled ? route(ShardKey.bucketOfImage(imageId), false, work) : work.get();
+    }
+
+    /**
+     * Runs a write of an image on the shard that holds it, unless its bucket is being moved.
+     */
+    public <T> T writeImage(Long imageId, Supplier<T> work) {
+        return enabled ? route(ShardKey.bucketOfImage(imageId), true, work) : work.get();
+    }
+
+    public <T> T onShard(int shard, Supplier<T> work) {
+        if (!enabled) {
+            return work.get();
+        }
+        if (shard < 0 || shard >= shardCount) {
+            throw new IllegalArgumentException("There is no shard " + shard);
+        }
+        return callOnShard(shard, work);
+    }
+
+    /**
+     * Runs {@code query} on every shard at once and returns the results in shard order.
+     */
+    public <T> List<T> scatterGather(Supplier<T> query) {
+        return gather(IntStream.range(0, shardCount).boxed().toList(), shard -> query.get());
+    }
+
+    /**
+     * Runs {@code work} on one shard after the other, for scans over all users that feed a single consumer.
+     */
+    public void forEachShard(Runnable work) {
+        for (int shard = 0; shard < shardCount; shard++) {
+            onShard(shard, () -> {
+                work.run();
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Looks up images on the shards that hold them, querying each shard once with its share of the ids.
+     */
+    public <T> List<T> onImages(Collection<Long> imageIds, Function<List<Long>, List<T>> query) {
+        if (!enabled) {
+            return query.apply(List.copyOf(imageIds));
+        }
+        Map<Integer, List<Long>> idsByShard = imageIds.stream()
+                .collect(Collectors.groupingBy(this::shardOfImage, TreeMap::new, Collectors.toList()));
+        return gather(idsByShard.keySet(), shard -> query.apply(idsByShard.get(shard))).stream()
+                .flatMap(List::stream)
+                .toList();
+    }
+
+    /**
+     * Splits {@code items} by the shard of their user, keeping their order.
+     */
+    public <T> Collection<List<T>> groupByShard(List<T> items, ToLongFunction<T> userId) {
+        if (!enabled) {
+            return List.of(items);
+        }
+        return items.stream()
+                .collect(Collectors.groupingBy(item -> shardOfUser(userId.applyAsLong(item)), TreeMap::new, Collectors.toList()))
+                .values();
+    }
+
+    // Changes a bucket's directory entry, for the rebalancer; other instances see it on their next refresh
+    void updateBucket(int bucket, int shard, boolean moving) {
+        onShard(HOME_SHARD, () -> transactionTemplate.execute(status -> {
+            ImageShardBucket entry = imageShardBucketRepository.findById(bucket).orElseThrow();
+            entry.setShard(shard);
+            entry.setMoving(moving);
+            return null;
+        }));
+        refreshDirectory();
+    }
+
+    private <T> T route(int bucket, boolean write, Supplier<T> work) {
+        Directory current = directory;
+        if (write) {
+            checkWritable(current, bucket);
+        }
+        return onShard(current.shards()[bucket], work);
+    }
+
+    private void checkWritable(Directory current, int bucket) {
+        if (current.moving().get(bucket)) {
+            throw new ServiceUnavailableException("Images of this user are being moved to another shard", retryAfterSeconds);
+        }
+    }
+
+    private <T> List<T> gather(Collection<Integer> shards, IntFunction<T> query) {
+        if (shards.size() == 1) {
+            int shard = shards.iterator().next();
+            return Collections.singletonList(onShard(shard, () -> query.apply(shard)));
+        }
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<T>> futures = shards.stream()
+                    .map(shard -> executor.submit(() -> onShard(shard, () -> query.apply(shard))))
+                    .toList();
+            List<T> results = new ArrayList<>(futures.size());
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while querying the shards", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static ImageShardBucket entry(int bucket, int shard) {
+        ImageShardBucket entry = new ImageShardBucket();
+        entry.setBucket(bucket);
+        entry.setShard(shard);
+        entry.setMoving(false);
+        return entry;
+    }
+
+    private record Directory(int[] shards, BitSet moving) {
+    }
+}
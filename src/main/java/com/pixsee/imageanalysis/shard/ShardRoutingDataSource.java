@@ -0,0 +1,40 @@
+package com.pixsee.imageanalysis.shard;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Hands out connections of the shard that {@link ShardRouting} set for the current thread, or of the home shard when
+ * none is set.
+ */
+public class ShardRoutingDataSource extends AbstractDataSource implements DisposableBean {
+
+    private final List<HikariDataSource> shards;
+
+    public ShardRoutingDataSource(List<HikariDataSource> shards) {
+        this.shards = shards;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Integer shard = ShardRouting.currentShard();
+        return shards.get(shard == null ? ShardRouting.HOME_SHARD : shard).getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        Integer shard = ShardRouting.currentShard();
+        return shards.get(shard == null ? ShardRouting.HOME_SHARD : shard).getConnection(username, password);
+    }
+
+    // The home shard is a bean of its own and closed by the context
+    @Override
+    public void destroy() {
+        shards.subList(1, shards.size()).forEach(HikariDataSource::close);
+    }
+}
@@ -0,0 +1,50 @@
+package com.pixsee.imageanalysis.shard;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.hibernate.tool.schema.spi.DelayedDropAction;
+import org.hibernate.tool.schema.spi.SchemaManagementToolCoordinator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Applies {@code spring.jpa.hibernate.ddl-auto} to every shard but the home one, which Hibernate handles itself.
+ */
+class ShardSchemaIntegrator implements Integrator {
+
+    private final int shardCount;
+    private final List<DelayedDropAction> dropActions = new ArrayList<>();
+
+    ShardSchemaIntegrator(int shardCount) {
+        this.shardCount = shardCount;
+    }
+
+    @Override
+    public void integrate(Metadata metadata, BootstrapContext bootstrapContext, SessionFactoryImplementor sessionFactory) {
+        ServiceRegistry serviceRegistry = bootstrapContext.getServiceRegistry();
+        for (int shard = 1; shard < shardCount; shard++) {
+            int current = shard;
+            ShardRouting.callOnShard(shard, () -> {
+                SchemaManagementToolCoordinator.process(metadata, serviceRegistry,
+                        serviceRegistry.requireService(ConfigurationService.class).getSettings(),
+                        action -> dropActions.add(registry -> ShardRouting.callOnShard(current, () -> {
+                            action.perform(registry);
+                            return null;
+                        })));
+                return null;
+            });
+        }
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+        dropActions.forEach(action -> action.perform(serviceRegistry));
+        dropActions.clear();
+    }
+}
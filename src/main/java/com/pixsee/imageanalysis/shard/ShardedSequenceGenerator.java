@@ -0,0 +1,57 @@
+package com.pixsee.imageanalysis.shard;
+
+import com.pixsee.imageanalysis.entity.ImageMetadata;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.enhanced.Optimizer;
+import org.hibernate.id.enhanced.OptimizerDescriptor;
+import org.hibernate.id.enhanced.OptimizerFactory;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.id.factory.spi.CustomIdGeneratorCreationContext;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.lang.reflect.Member;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hibernate's sequence generator, with one optimizer per shard. Outside of a shard it behaves exactly like {@code
+ * @SequenceGenerator}.
+ */
+public class ShardedSequenceGenerator extends SequenceStyleGenerator {
+
+    private static final long serialVersionUID = 1L;
+
+    // Generators are only Serializable through IdentifierGenerator and are never serialized, as the session
+    // factory holding them is not; the optimizers and their blocks could not be restored anyway
+    private final transient ShardedSequence config;
+    private final transient Map<Integer, Optimizer> shardOptimizers = new ConcurrentHashMap<>();
+    private transient OptimizerDescriptor optimizerDescriptor;
+
+    public ShardedSequenceGenerator(ShardedSequence config, Member member, CustomIdGeneratorCreationContext context) {
+        this.config = config;
+    }
+
+    @Override
+    public void configure(Type type, Properties parameters, ServiceRegistry serviceRegistry) {
+        parameters.setProperty(SEQUENCE_PARAM, config.sequenceName());
+        parameters.setProperty(INCREMENT_PARAM, String.valueOf(config.allocationSize()));
+        parameters.setProperty(INITIAL_PARAM, String.valueOf(DEFAULT_INITIAL_VALUE));
+        super.configure(type, parameters, serviceRegistry);
+        optimizerDescriptor = determineOptimizationStrategy(parameters, getOptimizer().getIncrementSize());
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        Integer shard = ShardRouting.currentShard();
+        if (shard == null) {
+            return super.generate(session, object);
+        }
+        Optimizer optimizer = shardOptimizers.computeIfAbsent(shard, key -> OptimizerFactory.buildOptimizer(optimizerDescriptor,
+                getIdentifierType().getReturnedClass(), getOptimizer().getIncrementSize(), DEFAULT_INITIAL_VALUE));
+        // The callback uses the session's connection, which is the shard's
+        long value = ((Number) optimizer.generate(getDatabaseStructure().buildCallback(session))).longValue();
+        return ShardKey.encode(value, shard, ShardKey.bucketOfUser(((ImageMetadata) object).getUserId()));
+    }
+}
@@ -0,0 +1,258 @@
+package com.pixsee.imageanalysis.similarity;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntConsumer;
+
+/**
+ * Multi-index hashing over 64-bit hashes, so a query only probes the entries near its own hash instead of comparing
+ * every one. Reads run concurrently; writes take an exclusive lock.
+ */
+public final class HammingIndex {
+
+    static final int INDEX_THRESHOLD = 8192;
+
+    // Past this many probes, visiting the buckets costs more than scanning the packed hashes (see
+    // SimilarityIndexBenchmark); only radii above 12 get there
+    private static final int MAX_PROBES = 2048;
+
+    private static final int CHUNKS = 4;
+    private static final int CHUNK_BITS = 16;
+    private static final int CHUNK_MASK = (1 << CHUNK_BITS) - 1;
+
+    /**
+     * Receives each entry within the query distance, in no particular order.
+     */
+    @FunctionalInterface
+    public interface MatchConsumer {
+        void accept(long id, long hash, int distance);
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private long[] ids = new long[8];
+    private long[] hashes = new long[8];
+    private int size;
+    // Buckets by chunk and chunk value; null while the index is small enough to scan. A bucket holds its
+    // entry count followed by a hash and position per entry, so verifying a candidate touches one array.
+    private long[][][] tables;
+
+    public void add(long id, long hash) {
+        lock.writeLock().lock();
+        try {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                hashes = Arrays.copyOf(hashes, size * 2);
+            }
+            ids[size] = id;
+            hashes[size] = hash;
+            if (tables != null) {
+                addToTables(size);
+            }
+            size++;
+            if (tables == null && size >= INDEX_THRESHOLD) {
+                buildTables();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the entry for {@code id}, which must have been added with {@code hash}.
+     */
+    public boolean remove(long id, long hash) {
+        lock.writeLock().lock();
+        try {
+            int position = find(id, hash);
+            if (position < 0) {
+                return false;
+            }
+            int last = size - 1;
+            if (tables != null) {
+                for (int chunk = 0; chunk < CHUNKS; chunk++) {
+                    removeFromBucket(tables[chunk][chunk(hash, chunk)], position);
+                }
+            }
+            // The last entry moves into the freed position
+            if (position != last) {
+                if (tables != null) {
+                    for (int chunk = 0; chunk < CHUNKS; chunk++) {
+                        moveInBucket(tables[chunk][chunk(hashes[last], chunk)], last, position);
+                    }
+                }
+                ids[position] = ids[last];
+                hashes[position] = hashes[last];
+            }
+            size--;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void query(long hash, int maxDistance, MatchConsumer consumer) {
+        lock.readLock().lock();
+        try {
+            if (tables == null || probes(maxDistance) > MAX_PROBES) {
+                scan(hash, maxDistance, consumer);
+                return;
+            }
+            for (int chunk = 0; chunk < CHUNKS; chunk++) {
+                long[][] table = tables[chunk];
+                int probed = chunk;
+                forEachWithin(chunk(hash, chunk), chunkRadius(maxDistance, chunk), value -> {
+                    long[] bucket = table[value];
+                    for (int i = 1; bucket != null && i < 2 * bucket[0]; i += 2) {
+                        long candidate = bucket[i];
+                        int distance = Long.bitCount(candidate ^ hash);
+                        if (distance <= maxDistance && !foundInEarlierChunk(candidate, hash, maxDistance, probed)) {
+                            consumer.accept(ids[(int) bucket[i + 1]], candidate, distance);
+                        }
+                    }
+                });
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void scan(long hash, int maxDistance, MatchConsumer consumer) {
+        // Locals let the JIT keep the loop tight; the fields may change only under the write lock
+        long[] packed = hashes;
+        int count = size;
+        for (int position = 0; position < count; position++) {
+            int distance = Long.bitCount(packed[position] ^ hash);
+            if (distance <= maxDistance) {
+                consumer.accept(ids[position], packed[position], distance);
+            }
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int find(long id, long hash) {
+        if (tables == null) {
+            for (int position = 0; position < size; position++) {
+                if (ids[position] == id && hashes[position] == hash) {
+                    return position;
+                }
+            }
+            return -1;
+        }
+        long[] bucket = tables[0][chunk(hash, 0)];
+        for (int i = 1; bucket != null && i < 2 * bucket[0]; i += 2) {
+            if (bucket[i] == hash && ids[(int) bucket[i + 1]] == id) {
+                return (int) bucket[i + 1];
+            }
+        }
+        return -1;
+    }
+
+    private void buildTables() {
+        tables = new long[CHUNKS][CHUNK_MASK + 1][];
+        for (int position = 0; position < size; position++) {
+            addToTables(position);
+        }
+    }
+
+    private void addToTables(int position) {
+        long hash = hashes[position];
+        for (int chunk = 0; chunk < CHUNKS; chunk++) {
+            long[][] table = tables[chunk];
+            int value = chunk(hash, chunk);
+            long[] bucket = table[value];
+            if (bucket == null) {
+                bucket = new long[5];
+            } else if (2 * bucket[0] + 1 == bucket.length) {
+                bucket = Arrays.copyOf(bucket, 2 * bucket.length - 1);
+            }
+            int count = (int) bucket[0];
+            bucket[2 * count + 1] = hash;
+            bucket[2 * count + 2] = position;
+            bucket[0] = count + 1;
+            table[value] = bucket;
+        }
+    }
+
+    private static void removeFromBucket(long[] bucket, int position) {
+        int last = 2 * (int) bucket[0] - 1;
+        for (int i = 1; i <= last; i += 2) {
+            if (bucket[i + 1] == position) {
+                bucket[i] = bucket[last];
+                bucket[i + 1] = bucket[last + 1];
+                bucket[0]--;
+                return;
+            }
+        }
+    }
+
+    private static void moveInBucket(long[] bucket, int from, int to) {
+        for (int i = 2; i <= 2 * bucket[0]; i += 2) {
+            if (bucket[i] == from) {
+                bucket[i] = to;
+                return;
+            }
+        }
+    }
+
+    // Number of chunk values a query visits across all chunks
+    private static int probes(int maxDistance) {
+        int probes = 0;
+        for (int chunk = 0; chunk < CHUNKS; chunk++) {
+            int combinations = 1;
+            for (int bits = 1; bits <= chunkRadius(maxDistance, chunk); bits++) {
+                combinations = combinations * (CHUNK_BITS - bits + 1) / bits;
+                probes += combinations;
+            }
+            probes += chunkRadius(maxDistance, chunk) >= 0 ? 1 : 0;
+        }
+        return probes;
+    }
+
+    // The first maxDistance % CHUNKS + 1 chunks are probed one bit further than the rest
+    private static int chunkRadius(int maxDistance, int chunk) {
+        return maxDistance / CHUNKS - (chunk <= maxDistance % CHUNKS ? 0 : 1);
+    }
+
+    // A candidate close enough in an earlier chunk was already reported when that chunk was probed
+    private static boolean foundInEarlierChunk(long candidate, long hash, int maxDistance, int chunk) {
+        for (int earlier = 0; earlier < chunk; earlier++) {
+            if (Integer.bitCount(chunk(candidate, earlier) ^ chunk(hash, earlier)) <= chunkRadius(maxDistance, earlier)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int chunk(long hash, int chunk) {
+        return (int) (hash >>> (chunk * CHUNK_BITS)) & CHUNK_MASK;
+    }
+
+    // Visits every chunk value that differs from value in at most radius bits
+    private static void forEachWithin(int value, int radius, IntConsumer consumer) {
+        if (radius < 0) {
+            return;
+        }
+        consumer.accept(value);
+        flip(value, radius, 0, consumer);
+    }
+
+    private static void flip(int value, int remaining, int fromBit, IntConsumer consumer) {
+        if (remaining == 0) {
+            return;
+        }
+        for (int bit = fromBit; bit < CHUNK_BITS; bit++) {
+            int flipped = value ^ (1 << bit);
+            consumer.accept(flipped);
+            flip(flipped, remaining - 1, bit + 1, consumer);
+        }
+    }
+}
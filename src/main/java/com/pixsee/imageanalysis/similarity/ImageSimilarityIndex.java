@@ -0,0 +1,90 @@
+package com.pixsee.imageanalysis.similarity;
+
+import com.pixsee.imageanalysis.repository.ImageRepository;
+import com.pixsee.imageanalysis.shard.ShardRouting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory index of perceptual hashes per user. Entries of deleted images are dropped when a query finds them gone.
+ */
+@Component
+public class ImageSimilarityIndex implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageSimilarityIndex.class);
+
+    private final ImageRepository imageRepository;
+    private final ShardRouting shardRouting;
+    private final Map<Long, HammingIndex> indexes = new ConcurrentHashMap<>();
+    private volatile boolean running;
+
+    public ImageSimilarityIndex(ImageRepository imageRepository, ShardRouting shardRouting) {
+        this.imageRepository = imageRepository;
+        this.shardRouting = shardRouting;
+    }
+
+    @Override
+    public void start() {
+        rebuild();
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Once the shard directory is loaded, and before the web server takes requests
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 6144;
+    }
+
+    public void rebuild() {
+        indexes.clear();
+        long[] count = new long[1];
+        shardRouting.forEachShard(() -> imageRepository.forEachPerceptualHash((id, userId, perceptualHash) -> {
+            add(userId, id, perceptualHash);
+            count[0]++;
+        }));
+        log.info("Similarity index rebuilt from {} images of {} users", count[0], indexes.size());
+    }
+
+    public void add(long userId, long imageId, long perceptualHash) {
+        indexes.computeIfAbsent(userId, key -> new HammingIndex()).add(imageId, perceptualHash);
+    }
+
+    public void remove(long userId, long imageId, long perceptualHash) {
+        HammingIndex index = indexes.get(userId);
+        if (index != null) {
+            index.remove(imageId, perceptualHash);
+        }
+    }
+
+    /**
+     * Returns the user's images whose hash is within {@code maxDistance} bits of {@code perceptualHash}, closest first.
+     */
+    public List<SimilarityMatch> findSimilar(long userId, long perceptualHash, int maxDistance) {
+        HammingIndex index = indexes.get(userId);
+        if (index == null) {
+            return List.of();
+        }
+        List<SimilarityMatch> matches = new ArrayList<>();
+        index.query(perceptualHash, maxDistance, (imageId, hash, distance) -> matches.add(new SimilarityMatch(imageId, hash, distance)));
+        matches.sort(Comparator.comparingInt(SimilarityMatch::distance).thenComparingLong(SimilarityMatch::imageId));
+        return matches;
+    }
+}
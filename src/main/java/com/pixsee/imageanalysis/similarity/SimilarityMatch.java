@@ -0,0 +1,7 @@
+package com.pixsee.imageanalysis.similarity;
+
+/**
+ * An indexed image and the Hamming distance of its perceptual hash from the query hash.
+ */
+public record SimilarityMatch(long imageId, long perceptualHash, int distance) {
+}
@@ -0,0 +1,112 @@
+package com.pixsee.imageanalysis.storage;
+
+import com.pixsee.imageanalysis.repository.ContentLocationProjection;
+import com.pixsee.imageanalysis.repository.ImageRepository;
+import com.pixsee.imageanalysis.repository.SegmentUsageProjection;
+import com.pixsee.imageanalysis.shard.ShardRouting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reclaims the space of deleted images by copying the live content of sparse sealed segments into a new one.
+ */
+@Component
+public class ContentCompactor {
+
+    private static final Logger log = LoggerFactory.getLogger(ContentCompactor.class);
+
+    private final SegmentFileContentStore contentStore;
+    private final ImageRepository imageRepository;
+    private final ShardRouting shardRouting;
+    private final double threshold;
+    private final Duration minAge;
+    private final long segmentSize;
+
+    public ContentCompactor(SegmentFileContentStore contentStore, ImageRepository imageRepository, ShardRouting shardRouting,
+                            @Value("${image.storage.compaction-threshold:0.5}") double threshold,
+                            @Value("${image.storage.compaction-min-age:10m}") Duration minAge,
+                            @Value("${image.storage.segment-size:256MB}") DataSize segmentSize) {
+        this.contentStore = contentStore;
+        this.imageRepository = imageRepository;
+        this.shardRouting = shardRouting;
+        this.threshold = threshold;
+        this.minAge = minAge;
+        this.segmentSize = segmentSize.toBytes();
+    }
+
+    @Scheduled(fixedDelayString = "${image.storage.compaction-interval:PT10M}",
+            initialDelayString = "${image.storage.compaction-interval:PT10M}")
+    public void scheduledCompaction() throws IOException {
+        compact();
+    }
+
+    /**
+     * Runs one compaction pass and returns the number of segments retired by it.
+     */
+    public synchronized int compact() throws IOException {
+        int deleted = contentStore.deleteRetired();
+
+        Map<Integer, Long> liveBytes = new HashMap<>();
+        for (List<SegmentUsageProjection> shardUsage : shardRouting.scatterGather(imageRepository::sumContentLengthBySegment)) {
+            for (SegmentUsageProjection usage : shardUsage) {
+                liveBytes.merge(usage.segment(), usage.liveBytes(), Long::sum);
+            }
+        }
+
+        int retired = 0;
+        long reclaimed = 0;
+        SegmentFileContentStore.Segment target = null;
+        for (Map.Entry<Integer, Long> sealed : contentStore.sealedSegments(minAge).entrySet()) {
+            int segment = sealed.getKey();
+            long size = sealed.getValue();
+            long live = liveBytes.getOrDefault(segment, 0L);
+            if (live >= size * threshold) {
+                continue;
+            }
+            List<ContentLocationProjection> locations = shardRouting.scatterGather(() -> imageRepository.findContentBySegment(segment)).stream()
+                    .flatMap(List::stream)
+                    .toList();
+            List<ContentPointer> copies = new ArrayList<>(locations.size());
+            for (ContentLocationProjection location : locations) {
+                if (target == null || (contentStore.size(target) > 0 && contentStore.size(target) + location.length() > segmentSize)) {
+                    if (target != null) {
+                        contentStore.finishCompaction(target);
+                    }
+                    target = contentStore.createCompactionSegment();
+                }
+                copies.add(contentStore.copy(new ContentPointer(segment, location.offset(), location.length()), target));
+            }
+            // The copies have to be durable before any row points at them
+            if (target != null) {
+                contentStore.flush(target);
+            }
+            for (int i = 0; i < locations.size(); i++) {
+                ContentLocationProjection location = locations.get(i);
+                ContentPointer copy = copies.get(i);
+                shardRouting.writeImage(location.id(),
+                        () -> imageRepository.moveContent(location.id(), segment, location.offset(), copy.segment(), copy.offset()));
+            }
+            contentStore.retire(segment);
+            retired++;
+            reclaimed += size - live;
+        }
+        if (target != null) {
+            contentStore.finishCompaction(target);
+        }
+        if (retired > 0 || deleted > 0) {
+            log.info("Content compaction retired {} segments ({} bytes reclaimed) and deleted {}", retired, reclaimed, deleted);
+        }
+        return retired;
+    }
+}
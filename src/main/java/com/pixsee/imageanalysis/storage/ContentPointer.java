@@ -0,0 +1,7 @@
+package com.pixsee.imageanalysis.storage;
+
+/**
+ * Location of an image's bytes: {@code length} bytes starting at {@code offset} in segment {@code segment}.
+ */
+public record ContentPointer(int segment, long offset, long length) {
+}
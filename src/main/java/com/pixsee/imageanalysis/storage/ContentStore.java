@@ -0,0 +1,22 @@
+package com.pixsee.imageanalysis.storage;
+
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Storage for uploaded image bytes. Content is immutable once written.
+ */
+public interface ContentStore {
+
+    /**
+     * Stores exactly {@code length} bytes read from {@code content}.
+     */
+    ContentPointer write(InputStream content, long length) throws IOException;
+
+    /**
+     * Returns the stored bytes as a resource that can skip to a range without reading up to it.
+     */
+    Resource read(ContentPointer pointer) throws IOException;
+}
@@ -0,0 +1,6 @@
+package com.pixsee.imageanalysis.storage;
+
+import org.springframework.core.io.Resource;
+
+public record ImageContent(String fileType, Resource resource) {
+}
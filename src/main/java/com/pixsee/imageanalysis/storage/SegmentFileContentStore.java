@@ -0,0 +1,300 @@
+package com.pixsee.imageanalysis.storage;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Keeps image bytes in a few large append-only segment files instead of one file per image.
+ */
+@Component
+public class SegmentFileContentStore implements ContentStore {
+
+    private static final Logger log = LoggerFactory.getLogger(SegmentFileContentStore.class);
+
+    private static final Pattern SEGMENT_FILE = Pattern.compile("segment-(\\d+)\\.dat");
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+    // Sealed segments are mapped once. While a segment is still appended to, mapping a region per read
+    // costs a system call and page-table updates, which is more than copying a typical image onto the heap.
+    private static final int MAP_THRESHOLD = 1024 * 1024;
+
+    private final Path directory;
+    private final long segmentSize;
+    private final boolean fsync;
+    private final Clock clock;
+
+    private final Map<Integer, Segment> segments = new ConcurrentHashMap<>();
+    private final Object appendLock = new Object();
+    private Segment active;
+    private int lastSegmentId;
+
+    @Autowired
+    public SegmentFileContentStore(@Value("${image.storage.directory:data/content}") Path directory,
+                                   @Value("${image.storage.segment-size:256MB}") DataSize segmentSize,
+                                   @Value("${image.storage.fsync:true}") boolean fsync) throws IOException {
+        this(directory, segmentSize.toBytes(), fsync, Clock.systemUTC());
+    }
+
+    SegmentFileContentStore(Path directory, long segmentSize, boolean fsync, Clock clock) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.fsync = fsync;
+        this.clock = clock;
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Matcher matcher = SEGMENT_FILE.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    Segment segment = openSegment(Integer.parseInt(matcher.group(1)), file);
+                    segments.put(segment.id, segment);
+                    lastSegmentId = Math.max(lastSegmentId, segment.id);
+                }
+            }
+        }
+        // Segments left by a previous run are sealed; new content always starts a fresh segment
+        log.info("Opened {} content segments in {}", segments.size(), directory);
+    }
+
+    @Override
+    public ContentPointer write(InputStream content, long length) throws IOException {
+        Segment segment;
+        long offset;
+        synchronized (appendLock) {
+            // Content larger than a segment gets a segment of its own
+            if (active == null || (active.end > 0 && active.end + length > segmentSize)) {
+                seal(active);
+                active = createSegment();
+            }
+            segment = active;
+            offset = segment.end;
+            segment.end += length;
+        }
+
+        byte[] chunk = new byte[(int) Math.min(COPY_BUFFER_SIZE, Math.max(length, 1))];
+        long written = 0;
+        while (written < length) {
+            int count = content.read(chunk, 0, (int) Math.min(chunk.length, length - written));
+            if (count < 0) {
+                throw new EOFException("Content ended after " + written + " of " + length + " bytes");
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(chunk, 0, count);
+            long position = offset + written;
+            while (buffer.hasRemaining()) {
+                position += segment.channel.write(buffer, position);
+            }
+            written += count;
+        }
+        if (fsync) {
+            segment.channel.force(false);
+        }
+        return new ContentPointer(segment.id, offset, length);
+    }
+
+    @Override
+    public Resource read(ContentPointer pointer) throws IOException {
+        Segment segment = segments.get(pointer.segment());
+        if (segment == null) {
+            throw new NoSuchFileException(segmentPath(pointer.segment()).toString());
+        }
+        String description = "image content " + pointer;
+        ByteBuffer mapped = segment.mapped();
+        if (mapped != null) {
+            return new MappedContentResource(mapped.slice((int) pointer.offset(), (int) pointer.length()), description);
+        }
+        if (pointer.length() <= MAP_THRESHOLD) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) pointer.length());
+            long position = pointer.offset();
+            while (buffer.hasRemaining()) {
+                int count = segment.channel.read(buffer, position);
+                if (count < 0) {
+                    throw new EOFException("Segment " + segment.id + " ends before " + pointer);
+                }
+                position += count;
+            }
+            return new ByteArrayResource(buffer.array(), description);
+        }
+        return new MappedContentResource(
+                segment.channel.map(FileChannel.MapMode.READ_ONLY, pointer.offset(), pointer.length()), description);
+    }
+
+    /**
+     * Returns the bytes written to each sealed, unretired segment that was sealed at least {@code minAge} ago.
+     */
+    Map<Integer, Long> sealedSegments(Duration minAge) {
+        long sealedBefore = clock.millis() - minAge.toMillis();
+        Map<Integer, Long> sealed = new HashMap<>();
+        for (Segment segment : segments.values()) {
+            if (segment.sealedAt > 0 && segment.sealedAt <= sealedBefore && !segment.retired) {
+                sealed.put(segment.id, segment.end);
+            }
+        }
+        return sealed;
+    }
+
+    /**
+     * Starts a segment that only the compactor writes to. It is sealed by {@link #finishCompaction}.
+     */
+    Segment createCompactionSegment() throws IOException {
+        synchronized (appendLock) {
+            return createSegment();
+        }
+    }
+
+    /**
+     * Copies stored content into {@code target} without passing it through the heap.
+     */
+    ContentPointer copy(ContentPointer pointer, Segment target) throws IOException {
+        Segment source = segments.get(pointer.segment());
+        if (source == null) {
+            throw new NoSuchFileException(segmentPath(pointer.segment()).toString());
+        }
+        long offset = target.end;
+        long copied = 0;
+        while (copied < pointer.length()) {
+            copied += source.channel.transferTo(pointer.offset() + copied, pointer.length() - copied,
+                    target.channel.position(offset + copied));
+        }
+        target.end += pointer.length();
+        return new ContentPointer(target.id, offset, pointer.length());
+    }
+
+    long size(Segment segment) {
+        return segment.end;
+    }
+
+    void flush(Segment target) throws IOException {
+        target.channel.force(false);
+    }
+
+    void finishCompaction(Segment target) throws IOException {
+        flush(target);
+        seal(target);
+    }
+
+    /**
+     * Marks a segment whose live content has moved. It stays readable until the next {@link #deleteRetired()}.
+     */
+    void retire(int segmentId) {
+        Segment segment = segments.get(segmentId);
+        if (segment != null) {
+            segment.retired = true;
+        }
+    }
+
+    int deleteRetired() throws IOException {
+        List<Segment> retired = new ArrayList<>();
+        for (Segment segment : segments.values()) {
+            if (segment.retired) {
+                retired.add(segment);
+            }
+        }
+        for (Segment segment : retired) {
+            segments.remove(segment.id);
+            segment.channel.close();
+            Files.deleteIfExists(segment.path);
+        }
+        return retired.size();
+    }
+
+    @PreDestroy
+    public void close() {
+        for (Segment segment : segments.values()) {
+            try {
+                segment.channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private Segment createSegment() throws IOException {
+        int id = ++lastSegmentId;
+        Segment segment = new Segment(id, segmentPath(id), FileChannel.open(segmentPath(id),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE));
+        segments.put(id, segment);
+        return segment;
+    }
+
+    private Segment openSegment(int id, Path path) throws IOException {
+        Segment segment = new Segment(id, path, FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE));
+        segment.end = segment.channel.size();
+        seal(segment);
+        return segment;
+    }
+
+    private void seal(Segment segment) {
+        if (segment != null) {
+            segment.sealedAt = clock.millis();
+        }
+    }
+
+    private Path segmentPath(int id) {
+        return directory.resolve(String.format("segment-%08d.dat", id));
+    }
+
+    static final class Segment {
+
+        private final int id;
+        private final Path path;
+        private final FileChannel channel;
+        // Guarded by appendLock for the active segment; compaction segments have a single writer
+        private long end;
+        private volatile long sealedAt;
+        private volatile boolean retired;
+        private volatile ByteBuffer mapped;
+
+        private Segment(int id, Path path, FileChannel channel) {
+            this.id = id;
+            this.path = path;
+            this.channel = channel;
+        }
+
+        int id() {
+            return id;
+        }
+
+        /**
+         * Maps a sealed segment once; null for segments still being written or too large for one buffer.
+         */
+        private ByteBuffer mapped() throws IOException {
+            ByteBuffer buffer = mapped;
+            if (buffer == null && sealedAt > 0 && end <= Integer.MAX_VALUE) {
+                synchronized (this) {
+                    buffer = mapped;
+                    if (buffer == null) {
+                        buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, end);
+                        mapped = buffer;
+                    }
+                }
+            }
+            return buffer;
+        }
+    }
+}
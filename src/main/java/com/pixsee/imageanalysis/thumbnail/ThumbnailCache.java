@@ -0,0 +1,187 @@
+package com.pixsee.imageanalysis.thumbnail;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Generated thumbnails on local disk, evicted least recently used first once they exceed {@code
+ * image.thumbnail.cache-size}.
+ */
+@Component
+public class ThumbnailCache {
+
+    private static final String SUFFIX = ".jpg";
+    // Only files named like the cache's own are touched, so the directory may hold other files too
+    private static final Pattern THUMBNAIL = Pattern.compile("\\d+-\\d+\\.jpg");
+    private static final Pattern TEMPORARY = Pattern.compile("\\d+-\\d+\\.jpg\\d*\\.tmp");
+
+    private final Path directory;
+    private final long maxBytes;
+    // Only set for the Spring bean, which publishes the gauge once it is constructed
+    private MeterRegistry meterRegistry;
+    // File name to file size, in access order
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    @Autowired
+    public ThumbnailCache(@Value("${image.thumbnail.directory:data/thumbnails}") Path directory,
+                          @Value("${image.thumbnail.cache-size:1GB}") DataSize maxSize,
+                          MeterRegistry meterRegistry) throws IOException {
+        this(directory, maxSize);
+        this.meterRegistry = meterRegistry;
+    }
+
+    public ThumbnailCache(Path directory, DataSize maxSize) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.maxBytes = maxSize.toBytes();
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.toList();
+        }
+        List<Path> thumbnails = new ArrayList<>();
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            if (THUMBNAIL.matcher(name).matches()) {
+                thumbnails.add(file);
+            } else if (TEMPORARY.matcher(name).matches()) {
+                // Left over from a write interrupted by a crash
+                Files.deleteIfExists(file);
+            }
+        }
+        thumbnails.sort(Comparator.comparing(ThumbnailCache::lastModified));
+        for (Path file : thumbnails) {
+            long size = Files.size(file);
+            entries.put(file.getFileName().toString(), size);
+            totalBytes += size;
+        }
+        delete(evict());
+    }
+
+    // Not in the constructor, so the registry never sees a cache that is still being loaded
+    @PostConstruct
+    public void registerMetrics() {
+        if (meterRegistry != null) {
+            Gauge.builder("image.thumbnail.cache.size", this, ThumbnailCache::totalBytes)
+                    .description("Bytes of thumbnails cached on disk")
+                    .baseUnit("bytes")
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Returns the thumbnail, or null if it is not cached.
+     */
+    public byte[] get(long imageId, int size) {
+        String name = name(imageId, size);
+        synchronized (this) {
+            if (entries.get(name) == null) {
+                return null;
+            }
+        }
+        try {
+            return Files.readAllBytes(directory.resolve(name));
+        } catch (NoSuchFileException e) {
+            // Evicted since the lookup above, or deleted by an eviction that raced with a newer put
+            synchronized (this) {
+                Long length = entries.remove(name);
+                totalBytes -= length == null ? 0 : length;
+            }
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void put(long imageId, int size, byte[] thumbnail) throws IOException {
+        String name = name(imageId, size);
+        // Readers never see a partly written file
+        Path temporary = Files.createTempFile(directory, name, ".tmp");
+        Files.write(temporary, thumbnail);
+        Files.move(temporary, directory.resolve(name), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        List<String> evicted;
+        synchronized (this) {
+            Long previous = entries.put(name, (long) thumbnail.length);
+            totalBytes += thumbnail.length - (previous == null ? 0 : previous);
+            evicted = evict();
+        }
+        delete(evicted);
+    }
+
+    /**
+     * Removes every size of the image's thumbnail.
+     */
+    public void invalidate(long imageId) {
+        List<String> removed = new ArrayList<>();
+        synchronized (this) {
+            for (int size : ThumbnailSizes.get()) {
+                String name = name(imageId, size);
+                Long length = entries.remove(name);
+                if (length != null) {
+                    totalBytes -= length;
+                    removed.add(name);
+                }
+            }
+        }
+        delete(removed);
+    }
+
+    public synchronized long totalBytes() {
+        return totalBytes;
+    }
+
+    private List<String> evict() {
+        List<String> evicted = new ArrayList<>();
+        Iterator<Map.Entry<String, Long>> eldest = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<String, Long> entry = eldest.next();
+            totalBytes -= entry.getValue();
+            evicted.add(entry.getKey());
+            eldest.remove();
+        }
+        return evicted;
+    }
+
+    // Files are deleted outside the lock; a reader that already looked a file up just misses
+    private void delete(List<String> names) {
+        for (String name : names) {
+            try {
+                Files.deleteIfExists(directory.resolve(name));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static String name(long imageId, int size) {
+        return imageId + "-" + size + SUFFIX;
+    }
+
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package com.pixsee.imageanalysis.thumbnail;
+
+import com.pixsee.imageanalysis.analysis.ImageDecoder;
+import com.pixsee.imageanalysis.exception.TooManyRequestsException;
+import com.pixsee.imageanalysis.storage.ContentPointer;
+import com.pixsee.imageanalysis.storage.ContentStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates JPEG thumbnails in every configured size on a fixed pool of workers. Client requests go ahead of background
+ * jobs, and concurrent requests for one image share a single job.
+ */
+@Component
+public class ThumbnailGenerator {
+
+    private static final Logger log = LoggerFactory.getLogger(ThumbnailGenerator.class);
+
+    public enum Priority {
+        INTERACTIVE,
+        BACKFILL
+    }
+
+    private final ContentStore contentStore;
+    private final ThumbnailCache thumbnailCache;
+    private final List<Integer> sizes;
+    private final int queueCapacity;
+    private final ThreadPoolExecutor pool;
+    private final Map<Long, Job> jobs = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter coalesced;
+    private final Counter dropped;
+
+    public ThumbnailGenerator(ContentStore contentStore, ThumbnailCache thumbnailCache, MeterRegistry meterRegistry,
+                              @Value("${image.thumbnail.sizes:128,512}") List<Integer> sizes,
+                              @Value("${image.thumbnail.threads:0}") int threads,
+                              @Value("${image.thumbnail.queue-capacity:1024}") int queueCapacity) {
+        ThumbnailSizes.configure(sizes);
+        this.contentStore = contentStore;
+        this.thumbnailCache = thumbnailCache;
+        this.sizes = ThumbnailSizes.get();
+        this.queueCapacity = queueCapacity;
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+        // Tasks are ordered by priority, then by submission; the capacity is enforced in schedule
+        this.pool = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS, new PriorityBlockingQueue<>(),
+                runnable -> Thread.ofPlatform().daemon().name("thumbnail-" + threadCount.incrementAndGet()).unstarted(runnable));
+        // Bound rather than monitored: the monitoring wrapper would hide the tasks' priorities from the queue
+        new ExecutorServiceMetrics(pool, "thumbnail", Tags.empty()).bindTo(meterRegistry);
+        this.hits = requests(meterRegistry, "hit");
+        this.misses = requests(meterRegistry, "miss");
+        this.coalesced = requests(meterRegistry, "coalesced");
+        this.dropped = Counter.builder("image.thumbnail.backfill.dropped")
+                .description("Background thumbnail jobs dropped because the queue was full")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the cached thumbnail, or generates the image's thumbnails ahead of any background work.
+     */
+    public CompletableFuture<byte[]> getThumbnail(long imageId, ContentPointer content, int size) {
+        byte[] thumbnail = thumbnailCache.get(imageId, size);
+        if (thumbnail != null) {
+            hits.increment();
+            return CompletableFuture.completedFuture(thumbnail);
+        }
+        return schedule(imageId, content, Priority.INTERACTIVE).thenApply(thumbnails -> thumbnails.get(size));
+    }
+
+    /**
+     * Generates the image's thumbnails in the background, unless the queue is full.
+     */
+    public void scheduleBackfill(long imageId, ContentPointer content) {
+        schedule(imageId, content, Priority.BACKFILL);
+    }
+
+    public static boolean canGenerate(String fileType) {
+        return ImageDecoder.canDecode(fileType);
+    }
+
+    private CompletableFuture<Map<Integer, byte[]>> schedule(long imageId, ContentPointer content, Priority priority) {
+        Job job = jobs.get(imageId);
+        if (job == null) {
+            // The capacity is a soft limit: concurrent callers may overshoot it by a few jobs
+            if (pool.getQueue().size() >= queueCapacity) {
+                if (priority == Priority.INTERACTIVE) {
+                    throw new TooManyRequestsException("Thumbnail queue is full", 1);
+                }
+                dropped.increment();
+                return null;
+            }
+            Job created = new Job(imageId, content, priority);
+            job = jobs.putIfAbsent(imageId, created);
+            if (job == null) {
+                if (priority == Priority.INTERACTIVE) {
+                    misses.increment();
+                }
+                execute(created, priority);
+                return created.result;
+            }
+        }
+        if (priority == Priority.INTERACTIVE) {
+            coalesced.increment();
+            // A queued background job is submitted again ahead of the backlog; whichever copy runs first does the work
+            if (job.promote()) {
+                execute(job, Priority.INTERACTIVE);
+            }
+        }
+        return job.result;
+    }
+
+    private void execute(Job job, Priority priority) {
+        try {
+            pool.execute(new Task(job, priority, sequence.incrementAndGet()));
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+            jobs.remove(job.imageId, job);
+            job.result.completeExceptionally(new TooManyRequestsException("Thumbnail generation is shutting down", 1));
+        }
+    }
+
+    Map<Integer, byte[]> generate(ContentPointer content) throws IOException {
+        int largest = sizes.getLast();
+        BufferedImage image;
+        try (InputStream in = contentStore.read(content).getInputStream()) {
+            // Decoding at no less than twice the largest size keeps the downscaled thumbnails sharp
+            image = ImageDecoder.decode(in, (width, height) -> Math.max(width, height) / (2 * largest));
+        }
+        if (image == null) {
+            throw new IOException("No decoder for the image");
+        }
+        Map<Integer, byte[]> thumbnails = new LinkedHashMap<>();
+        for (int size : sizes) {
+            thumbnails.put(size, encode(scale(image, size)));
+        }
+        return thumbnails;
+    }
+
+    // Fits the image into a size x size box; images already smaller are not enlarged
+    private static BufferedImage scale(BufferedImage image, int size) {
+        double factor = Math.min(1.0, (double) size / Math.max(image.getWidth(), image.getHeight()));
+        int width = Math.max(1, (int) Math.round(image.getWidth() * factor));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * factor));
+        BufferedImage thumbnail = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = thumbnail.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            // JPEG has no alpha channel, so transparent pixels become white
+            graphics.drawImage(image, 0, 0, width, height, Color.WHITE, null);
+        } finally {
+            graphics.dispose();
+        }
+        return thumbnail;
+    }
+
+    private static byte[] encode(BufferedImage thumbnail) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(thumbnail, "jpg", out);
+        return out.toByteArray();
+    }
+
+    private static Counter requests(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("image.thumbnail.requests")
+                .description("Thumbnail requests by whether they were cached, generated or joined a running job")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        pool.shutdown();
+        if (!pool.awaitTermination(10, TimeUnit.SECONDS)) {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Generates all sizes of one image's thumbnail; runs once even if queued twice.
+     */
+    private final class Job {
+
+        private final long imageId;
+        private final ContentPointer content;
+        private final CompletableFuture<Map<Integer, byte[]>> result = new CompletableFuture<>();
+        private final AtomicBoolean started = new AtomicBoolean();
+        private final AtomicBoolean promoted = new AtomicBoolean();
+
+        Job(long imageId, ContentPointer content, Priority priority) {
+            this.imageId = imageId;
+            this.content = content;
+            this.promoted.set(priority == Priority.INTERACTIVE);
+        }
+
+        boolean promote() {
+            return !started.get() && promoted.compareAndSet(false, true);
+        }
+
+        void run() {
+            if (!started.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                Map<Integer, byte[]> thumbnails = generate(content);
+                for (Map.Entry<Integer, byte[]> thumbnail : thumbnails.entrySet()) {
+                    thumbnailCache.put(imageId, thumbnail.getKey(), thumbnail.getValue());
+                }
+                result.complete(thumbnails);
+            } catch (IOException | RuntimeException e) {
+                log.warn("Could not generate the thumbnails of image {}", imageId, e);
+                result.completeExceptionally(e);
+            } finally {
+                jobs.remove(imageId, this);
+            }
+        }
+    }
+
+    private record Task(Job job, Priority priority, long sequence) implements Runnable, Comparable<Task> {
+
+        @Override
+        public void run() {
+            job.run();
+        }
+
+        @Override
+        public int compareTo(Task other) {
+            int byPriority = priority.compareTo(other.priority);
+            return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.pixsee.imageanalysis.thumbnail;
+
+import java.util.List;
+
+/**
+ * The configured thumbnail sizes, as the length of the longest side in pixels.
+ */
+public final class ThumbnailSizes {
+
+    private static volatile List<Integer> sizes = List.of(128, 512);
+
+    private ThumbnailSizes() {
+    }
+
+    public static List<Integer> get() {
+        return sizes;
+    }
+
+    static void configure(List<Integer> configured) {
+        if (configured.isEmpty() || configured.stream().anyMatch(size -> size < 1)) {
+            throw new IllegalArgumentException("Thumbnail sizes must be positive: " + configured);
+        }
+        sizes = configured.stream().distinct().sorted().toList();
+    }
+}
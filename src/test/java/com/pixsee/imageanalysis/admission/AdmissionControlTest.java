@@ -0,0 +1,217 @@
+package com.pixsee.imageanalysis.admission;
+
+import com.pixsee.imageanalysis.repository.ImageRepository;
+import com.pixsee.imageanalysis.repository.ImageUserFileTypeStatsRepository;
+import com.pixsee.imageanalysis.repository.ImageUserStatsRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Buckets that practically do not refill while the test runs, and one concurrent list request
+@SpringBootTest(properties = {
+        "image.admission.upload.rate=0.01",
+        "image.admission.upload.burst=2",
+        "image.admission.list.rate=0.01",
+        "image.admission.list.burst=3",
+        "image.admission.list.max-concurrent=1"})
+@AutoConfigureMockMvc
+class AdmissionControlTest {
+
+    private static final long USER_ID = 111L;
+    private static final long OTHER_USER_ID = 112L;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AdmissionControl admissionControl;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ImageRepository imageRepository;
+
+    @Autowired
+    private ImageUserStatsRepository imageUserStatsRepository;
+
+    @Autowired
+    private ImageUserFileTypeStatsRepository imageUserFileTypeStatsRepository;
+
+    @AfterEach
+    void tearDown() {
+        imageRepository.deleteAllInBatch();
+        imageUserStatsRepository.deleteAllInBatch();
+        imageUserFileTypeStatsRepository.deleteAllInBatch();
+    }
+
+    private static String imageJson(long userId) {
+        return "{\"userId\":" + userId + ",\"originalFilename\":\"image.jpg\",\"width\":800,"
+                + "\"height\":600,\"fileSize\":12345,\"fileType\":\"jpg\"}";
+    }
+
+    private static MockMultipartFile pngFile(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertTrue(ImageIO.write(image, "png", out));
+        return new MockMultipartFile("file", "photo.png", "image/png", out.toByteArray());
+    }
+
+    private double rejected(String endpoint, String limit) {
+        return meterRegistry.counter("image.admission.rejected", "endpoint", endpoint, "limit", limit).count();
+    }
+
+    // Happy Path - Uploads Over the User's Burst Are Rejected Before Anything Is Saved
+    @Test
+    void testUploadImage_RateLimited() throws Exception {
+        double rejectedBefore = rejected("upload", "rate");
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/images").contentType(MediaType.APPLICATION_JSON).content(imageJson(USER_ID)))
+                    .andExpect(status().isCreated());
+        }
+
+        mockMvc.perform(post("/images").contentType(MediaType.APPLICATION_JSON).content(imageJson(USER_ID)))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "100"))
+                .andExpect(jsonPath("$.errors[0]").value("Request rate limit exceeded for user " + USER_ID));
+        assertEquals(2, imageRepository.findByUserId(USER_ID).size());
+        assertEquals(rejectedBefore + 1, rejected("upload", "rate"));
+
+        // Another user is not affected
+        mockMvc.perform(post("/images").contentType(MediaType.APPLICATION_JSON).content(imageJson(OTHER_USER_ID)))
+                .andExpect(status().isCreated());
+    }
+
+    // Happy Path - File Uploads Share the Upload Bucket
+    @Test
+    void testUploadImageFile_RateLimited() throws Exception {
+        long userId = USER_ID + 30;
+        mockMvc.perform(post("/images").contentType(MediaType.APPLICATION_JSON).content(imageJson(userId)))
+                .andExpect(status().isCreated());
+        MvcResult upload = mockMvc.perform(multipart("/images/upload").file(pngFile(64, 48)).param("userId", String.valueOf(userId)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(upload))
+                .andExpect(status().isCreated());
+
+        // Rejected before the file is read
+        mockMvc.perform(multipart("/images/upload").file(pngFile(32, 24)).param("userId", String.valueOf(userId)))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists(HttpHeaders.RETRY_AFTER))
+                .andExpect(jsonPath("$.errors[0]").value("Request rate limit exceeded for user " + userId));
+        assertEquals(2, imageRepository.findByUserId(userId).size());
+    }
+
+    // Happy Path - A Batch Is Charged One Token per Item
+    @Test
+    void testUploadImages_RateLimited() throws Exception {
+        long userId = USER_ID + 40;
+        mockMvc.perform(post("/images/batch").contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + imageJson(userId) + "," + imageJson(userId) + "]"))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(post("/images").contentType(MediaType.APPLICATION_JSON).content(imageJson(userId)))
+                .andExpect(status().isTooManyRequests());
+        mockMvc.perform(post("/images/batch").contentType(MediaType.APPLICATION_JSON).content("[" + imageJson(userId) + "]"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists(HttpHeaders.RETRY_AFTER))
+                .andExpect(jsonPath("$.errors[0]").value("Request rate limit exceeded for user " + userId));
+        assertEquals(2, imageRepository.findByUserId(userId).size());
+    }
+
+    // Negative Path - A Batch Rejected for One User Gives the Other Users Their Tokens Back
+    @Test
+    void testUploadImages_RateLimitedUserRefundsOthers() throws Exception {
+        long userId = USER_ID + 50;
+        long limitedUserId = USER_ID + 51;
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/images").contentType(MediaType.APPLICATION_JSON).content(imageJson(limitedUserId)))
+                    .andExpect(status().isCreated());
+        }
+
+        mockMvc.perform(post("/images/batch").contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + imageJson(userId) + "," + imageJson(limitedUserId) + "]"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(jsonPath("$.errors[0]").value("Request rate limit exceeded for user " + limitedUserId));
+
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/images").contentType(MediaType.APPLICATION_JSON).content(imageJson(userId)))
+                    .andExpect(status().isCreated());
+        }
+    }
+
+    // Negative Path - A Null Item Is Reported Like Any Other Invalid Item
+    @Test
+    void testUploadImages_NullItem() throws Exception {
+        long userId = USER_ID + 60;
+        mockMvc.perform(post("/images/batch").contentType(MediaType.APPLICATION_JSON).content("[" + imageJson(userId) + ",null]"))
+                .andExpect(status().isMultiStatus())
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.results[1].errors[0]").value("Image metadata cannot be null"));
+    }
+
+    // Happy Path - All Representations of the List Share the User's Bucket
+    @Test
+    void testListImages_RateLimited() throws Exception {
+        long userId = USER_ID + 10;
+        mockMvc.perform(get("/images").param("userId", String.valueOf(userId)))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/images").param("userId", String.valueOf(userId)).param("limit", "10"))
+                .andExpect(status().isOk());
+        MvcResult stream = mockMvc.perform(get("/images").param("userId", String.valueOf(userId))
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andReturn();
+        mockMvc.perform(asyncDispatch(stream))
+                .andExpect(status().isOk());
+
+        // Rejected by the user's rate, which also shows that the streamed response gave its slot back
+        mockMvc.perform(get("/images").param("userId", String.valueOf(userId)))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists(HttpHeaders.RETRY_AFTER))
+                .andExpect(jsonPath("$.errors[0]").value("Request rate limit exceeded for user " + userId));
+    }
+
+    // Negative Path - Requests Over the Endpoint's Concurrency Limit Are Rejected
+    @Test
+    void testListImages_ConcurrencyLimited() throws Exception {
+        double rejectedBefore = rejected("list", "concurrency");
+        AdmissionControl.Permit permit = admissionControl.admit(AdmissionEndpoint.LIST, OTHER_USER_ID + 10);
+        try {
+            mockMvc.perform(get("/images").param("userId", String.valueOf(USER_ID + 20)))
+                    .andExpect(status().isTooManyRequests())
+                    .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+        } finally {
+            permit.close();
+        }
+        assertEquals(rejectedBefore + 1, rejected("list", "concurrency"));
+
+        // The rejected request took no token, and the released slot is available again
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(get("/images").param("userId", String.valueOf(USER_ID + 20)))
+                    .andExpect(status().isOk());
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.pixsee.imageanalysis.admission;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    // Happy Path - A Full Bucket Admits a Burst, Then Refills at the Rate
+    @Test
+    void testTryAcquire_BurstAndRefill() {
+        AtomicLong clock = new AtomicLong(123 * SECOND);
+        TokenBucketLimiter limiter = new TokenBucketLimiter(2, 3, clock::get);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.tryAcquire(1L));
+        }
+        assertEquals(SECOND / 2, limiter.tryAcquire(1L));
+
+        clock.addAndGet(SECOND / 4);
+        assertEquals(SECOND / 4, limiter.tryAcquire(1L));
+        clock.addAndGet(SECOND / 4);
+        assertEquals(0, limiter.tryAcquire(1L));
+        assertTrue(limiter.tryAcquire(1L) > 0);
+
+        // Tokens do not accumulate beyond the burst however long the bucket is idle
+        clock.addAndGet(60 * SECOND);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.tryAcquire(1L));
+        }
+        assertTrue(limiter.tryAcquire(1L) > 0);
+    }
+
+    // Happy Path - A Request of Several Tokens Needs One and Takes the Rest From the Next Refills
+    @Test
+    void testTryAcquire_SeveralTokens() {
+        AtomicLong clock = new AtomicLong();
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1, 3, clock::get);
+
+        assertEquals(0, limiter.tryAcquire(1L, 2));
+        assertEquals(0, limiter.tryAcquire(1L, 5));
+        assertEquals(5 * SECOND, limiter.tryAcquire(1L, 1));
+
+        clock.addAndGet(5 * SECOND);
+        assertEquals(0, limiter.tryAcquire(1L, 1));
+        assertThrows(IllegalArgumentException.class, () -> limiter.tryAcquire(1L, 0));
+    }
+
+    // Happy Path - Released Tokens Can Be Taken Again
+    @Test
+    void testRelease() {
+        AtomicLong clock = new AtomicLong();
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1, 2, clock::get);
+
+        assertEquals(0, limiter.tryAcquire(1L, 2));
+        assertTrue(limiter.tryAcquire(1L) > 0);
+        limiter.release(1L, 2);
+        assertEquals(0, limiter.tryAcquire(1L, 2));
+
+        // Nothing happens for a user without a bucket
+        limiter.release(2L, 1);
+        assertEquals(1, limiter.size());
+    }
+
+    // Happy Path - Users Have Their Own Buckets
+    @Test
+    void testTryAcquire_PerUser() {
+        AtomicLong clock = new AtomicLong();
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1, 1, clock::get);
+
+        assertEquals(0, limiter.tryAcquire(1L));
+        assertTrue(limiter.tryAcquire(1L) > 0);
+        assertEquals(0, limiter.tryAcquire(2L));
+        assertEquals(2, limiter.size());
+    }
+
+    // Happy Path - Only Full Buckets Are Evicted, and Eviction Does Not Reset a Limit
+    @Test
+    void testEvictIdle() {
+        AtomicLong clock = new AtomicLong();
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1, 2, clock::get);
+        limiter.tryAcquire(1L);
+        clock.addAndGet(SECOND);
+        limiter.tryAcquire(2L);
+        limiter.tryAcquire(2L);
+
+        assertEquals(1, limiter.evictIdle());
+        assertEquals(1, limiter.size());
+        assertTrue(limiter.tryAcquire(2L) > 0);
+
+        clock.addAndGet(2 * SECOND);
+        assertEquals(1, limiter.evictIdle());
+        assertEquals(0, limiter.size());
+        assertEquals(0, limiter.tryAcquire(2L));
+    }
+
+    // Happy Path - Concurrent Requests of One User Take Exactly the Burst
+    @Test
+    void testTryAcquire_Concurrent() throws Exception {
+        AtomicLong clock = new AtomicLong();
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1, 1_000, clock::get);
+        int threads = 8;
+        List<Callable<Integer>> tasks = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            tasks.add(() -> {
+                int admitted = 0;
+                for (int j = 0; j < 1_000; j++) {
+                    if (limiter.tryAcquire(1L) == 0) {
+                        admitted++;
+                    }
+                    // Eviction racing with requests must neither lose nor duplicate tokens
+                    limiter.evictIdle();
+                }
+                return admitted;
+            });
+        }
+        int admitted = 0;
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            for (Future<Integer> future : executor.invokeAll(tasks)) {
+                admitted += future.get();
+            }
+        }
+        assertEquals(1_000, admitted);
+    }
+
+    // Negative Path - Invalid Rate or Burst
+    @Test
+    void testConstructor_Invalid() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucketLimiter(0, 1, System::nanoTime));
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucketLimiter(1, 0, System::nanoTime));
+    }
+}
@@ -0,0 +1,117 @@
+package com.pixsee.imageanalysis.analysis;
+
+import com.pixsee.imageanalysis.exception.UnsupportedImageException;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageHeaderParserTest {
+
+    static byte[] encode(String formatName, int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < width; x++) {
+            image.setRGB(x, x * height / width, 0xFF8800);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertTrue(ImageIO.write(image, formatName, out));
+        return out.toByteArray();
+    }
+
+    private static byte[] webp(String variant, byte[] payload) {
+        ByteBuffer buffer = ByteBuffer.allocate(20 + payload.length).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put("RIFF".getBytes(StandardCharsets.US_ASCII)).putInt(12 + payload.length);
+        buffer.put("WEBP".getBytes(StandardCharsets.US_ASCII)).put(variant.getBytes(StandardCharsets.US_ASCII)).putInt(payload.length);
+        buffer.put(payload);
+        return buffer.array();
+    }
+
+    private static ImageHeader parse(byte[] bytes) throws IOException {
+        return ImageHeaderParser.parse(new ByteArrayInputStream(bytes));
+    }
+
+    // Happy Path - Formats ImageIO Can Write
+    @Test
+    void testParse_JpegPngGifBmp() throws IOException {
+        assertEquals(new ImageHeader(ImageFormat.JPEG, 640, 480), parse(encode("jpg", 640, 480)));
+        assertEquals(new ImageHeader(ImageFormat.PNG, 320, 200), parse(encode("png", 320, 200)));
+        assertEquals(new ImageHeader(ImageFormat.GIF, 33, 17), parse(encode("gif", 33, 17)));
+        assertEquals(new ImageHeader(ImageFormat.BMP, 101, 57), parse(encode("bmp", 101, 57)));
+    }
+
+    // Happy Path - Lossy, Lossless and Extended WebP
+    @Test
+    void testParse_Webp() throws IOException {
+        byte[] lossy = {0x10, 0x02, 0x00, (byte) 0x9D, 0x01, 0x2A, (byte) 0x80, 0x02, (byte) 0xE0, 0x01};
+        assertEquals(new ImageHeader(ImageFormat.WEBP, 640, 480), parse(webp("VP8 ", lossy)));
+
+        int bits = (1023 - 1) | ((767 - 1) << 14);
+        byte[] lossless = ByteBuffer.allocate(5).order(ByteOrder.LITTLE_ENDIAN).put((byte) 0x2F).putInt(bits).array();
+        assertEquals(new ImageHeader(ImageFormat.WEBP, 1023, 767), parse(webp("VP8L", lossless)));
+
+        byte[] extended = {0x10, 0, 0, 0, (byte) 0xFF, 0x0F, 0x00, (byte) 0x37, 0x04, 0x00};
+        assertEquals(new ImageHeader(ImageFormat.WEBP, 4096, 1080), parse(webp("VP8X", extended)));
+    }
+
+    // Happy Path - Large Segments Before The JPEG Frame Header Are Skipped
+    @Test
+    void testParse_JpegWithLargeApplicationSegment() throws IOException {
+        byte[] jpeg = encode("jpg", 64, 48);
+        byte[] app1 = new byte[4 + 60_000];
+        app1[0] = (byte) 0xFF;
+        app1[1] = (byte) 0xE1;
+        app1[2] = (byte) ((app1.length - 2) >> 8);
+        app1[3] = (byte) (app1.length - 2);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(jpeg, 0, 2);
+        out.write(app1);
+        out.write(jpeg, 2, jpeg.length - 2);
+
+        assertEquals(new ImageHeader(ImageFormat.JPEG, 64, 48), parse(out.toByteArray()));
+    }
+
+    // Happy Path - Only The Header Is Read
+    @Test
+    void testParse_ReadsOnlyTheHeader() throws IOException {
+        byte[] png = encode("png", 2000, 2000);
+        int[] bytesRead = new int[1];
+        InputStream counting = new FilterInputStream(new ByteArrayInputStream(png)) {
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int read = super.read(b, off, len);
+                bytesRead[0] += Math.max(read, 0);
+                return read;
+            }
+        };
+
+        assertEquals(new ImageHeader(ImageFormat.PNG, 2000, 2000), ImageHeaderParser.parse(counting));
+        assertTrue(bytesRead[0] <= 512, "Read " + bytesRead[0] + " of " + png.length + " bytes");
+    }
+
+    // Negative Path - Unknown Format
+    @Test
+    void testParse_UnsupportedFormat() {
+        byte[] text = "hello, world".getBytes(StandardCharsets.US_ASCII);
+
+        assertThrows(UnsupportedImageException.class, () -> parse(text));
+    }
+
+    // Negative Path - Truncated Header
+    @Test
+    void testParse_TruncatedHeader() throws IOException {
+        byte[] png = Arrays.copyOf(encode("png", 10, 10), 20);
+
+        assertThrows(UnsupportedImageException.class, () -> parse(png));
+    }
+}
@@ -0,0 +1,86 @@
+package com.pixsee.imageanalysis.analysis;
+
+import com.pixsee.imageanalysis.repository.ImageRepository;
+import com.pixsee.imageanalysis.repository.ImageUserFileTypeStatsRepository;
+import com.pixsee.imageanalysis.repository.ImageUserStatsRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ImageUploadTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ImageRepository imageRepository;
+
+    @Autowired
+    private ImageUserStatsRepository imageUserStatsRepository;
+
+    @Autowired
+    private ImageUserFileTypeStatsRepository imageUserFileTypeStatsRepository;
+
+    @AfterEach
+    void tearDown() {
+        imageRepository.deleteAllInBatch();
+        imageUserStatsRepository.deleteAllInBatch();
+        imageUserFileTypeStatsRepository.deleteAllInBatch();
+    }
+
+    // Happy Path - Dimensions, Type And Size Are Taken From The File
+    @Test
+    void testUploadImageFile_Success() throws Exception {
+        byte[] png = ImageHeaderParserTest.encode("png", 320, 200);
+        MockMultipartFile file = new MockMultipartFile("file", "photo.png", "image/png", png);
+
+        MvcResult result = mockMvc.perform(multipart("/images/upload").file(file).param("userId", "41"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id").isNumber())
+                .andExpect(jsonPath("$.userId").value(41))
+                .andExpect(jsonPath("$.originalFilename").value("photo.png"))
+                .andExpect(jsonPath("$.width").value(320))
+                .andExpect(jsonPath("$.height").value(200))
+                .andExpect(jsonPath("$.fileSize").value(png.length))
+                .andExpect(jsonPath("$.fileType").value("png"));
+    }
+
+    // Negative Path - File That Is Not A Supported Image
+    @Test
+    void testUploadImageFile_UnsupportedFormat() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "notes.txt", "text/plain", "not an image".getBytes());
+
+        MvcResult result = mockMvc.perform(multipart("/images/upload").file(file).param("userId", "41"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isUnsupportedMediaType());
+    }
+
+    // Negative Path - Empty File
+    @Test
+    void testUploadImageFile_EmptyFile() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "empty.png", "image/png", new byte[0]);
+
+        mockMvc.perform(multipart("/images/upload").file(file).param("userId", "41"))
+                .andExpect(status().isBadRequest());
+    }
+}
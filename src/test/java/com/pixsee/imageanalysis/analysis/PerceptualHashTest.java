@@ -0,0 +1,73 @@
+package com.pixsee.imageanalysis.analysis;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PerceptualHashTest {
+
+    // A grid of random grey blocks, drawn at the requested size
+    static BufferedImage pattern(long seed, int width, int height) {
+        SplittableRandom random = new SplittableRandom(seed);
+        BufferedImage blocks = new BufferedImage(16, 12, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < blocks.getHeight(); y++) {
+            for (int x = 0; x < blocks.getWidth(); x++) {
+                int grey = random.nextInt(256);
+                blocks.setRGB(x, y, grey << 16 | grey << 8 | grey);
+            }
+        }
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.drawImage(blocks, 0, 0, width, height, null);
+        graphics.dispose();
+        return image;
+    }
+
+    static byte[] encode(BufferedImage image, String format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertTrue(ImageIO.write(image, format, out));
+        return out.toByteArray();
+    }
+
+    private static Long hash(byte[] content) throws IOException {
+        return PerceptualHash.compute(new ByteArrayInputStream(content));
+    }
+
+    // Happy Path - Resized And Re-Encoded Copies Hash Close To The Original
+    @Test
+    void testCompute_SimilarImagesAreClose() throws IOException {
+        long original = hash(encode(pattern(1, 1280, 960), "png"));
+        long resized = hash(encode(pattern(1, 320, 240), "jpg"));
+
+        assertTrue(Long.bitCount(original ^ resized) <= 6, "distance: " + Long.bitCount(original ^ resized));
+    }
+
+    // Happy Path - Unrelated Images Hash Far Apart
+    @Test
+    void testCompute_DifferentImagesAreFar() throws IOException {
+        long first = hash(encode(pattern(1, 320, 240), "png"));
+        long second = hash(encode(pattern(2, 320, 240), "png"));
+
+        assertTrue(Long.bitCount(first ^ second) > 16, "distance: " + Long.bitCount(first ^ second));
+    }
+
+    // Negative Path - Format Without A Decoder
+    @Test
+    void testCompute_UndecodableImage() throws IOException {
+        assertNull(hash("RIFF\0\0\0\0WEBPVP8 ".getBytes()));
+    }
+
+    // Happy Path - Images Smaller Than The Hash Grid
+    @Test
+    void testCompute_TinyImage() {
+        assertDoesNotThrow(() -> PerceptualHash.compute(pattern(3, 3, 2)));
+    }
+}
@@ -0,0 +1,79 @@
+package com.pixsee.imageanalysis.benchmark;
+
+import com.pixsee.imageanalysis.dto.ImageBatchResponseDTO;
+import com.pixsee.imageanalysis.dto.ImageMetadataRequestDTO;
+import com.pixsee.imageanalysis.repository.ImageRepository;
+import com.pixsee.imageanalysis.service.ImageService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares rows per second of single inserts with the batch path.
+ */
+@Tag("benchmark")
+@SpringBootTest
+class BatchInsertBenchmark {
+
+    private static final int ROWS = 20_000;
+    private static final int BATCH_SIZE = 1_000;
+
+    @Autowired
+    private ImageService imageService;
+
+    @Autowired
+    private ImageRepository imageRepository;
+
+    private ImageMetadataRequestDTO createImageMetadataRequestDTO(int i) {
+        ImageMetadataRequestDTO requestDTO = new ImageMetadataRequestDTO();
+        requestDTO.setUserId((long) (i % 100));
+        requestDTO.setOriginalFilename("image-" + i + ".jpg");
+        requestDTO.setWidth(800);
+        requestDTO.setHeight(600);
+        requestDTO.setFileSize(12345L);
+        requestDTO.setFileType("jpg");
+        return requestDTO;
+    }
+
+    @Test
+    void singleInsertVersusBatchInsert() {
+        // Warm up both paths so the JIT and the connection pool do not skew the first measurement
+        insertOneByOne(2_000);
+        insertInBatches(2_000);
+        imageRepository.deleteAllInBatch();
+
+        long singleNanos = insertOneByOne(ROWS);
+        long batchNanos = insertInBatches(ROWS);
+
+        assertEquals(2L * ROWS, imageRepository.count());
+        System.out.printf("single insert: %,.0f rows/sec%n", ROWS / (singleNanos / 1e9));
+        System.out.printf("batch insert:  %,.0f rows/sec%n", ROWS / (batchNanos / 1e9));
+    }
+
+    private long insertOneByOne(int rows) {
+        long start = System.nanoTime();
+        for (int i = 0; i < rows; i++) {
+            imageService.saveImageMetadata(createImageMetadataRequestDTO(i));
+        }
+        return System.nanoTime() - start;
+    }
+
+    private long insertInBatches(int rows) {
+        long start = System.nanoTime();
+        for (int offset = 0; offset < rows; offset += BATCH_SIZE) {
+            List<ImageMetadataRequestDTO> batch = new ArrayList<>(BATCH_SIZE);
+            for (int i = offset; i < Math.min(rows, offset + BATCH_SIZE); i++) {
+                batch.add(createImageMetadataRequestDTO(i));
+            }
+            ImageBatchResponseDTO response = imageService.saveImageMetadataBatch(batch);
+            assertEquals(0, response.getFailed());
+        }
+        return System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,143 @@
+package com.pixsee.imageanalysis.benchmark;
+
+import com.pixsee.imageanalysis.dto.ImageBulkResponseDTO;
+import com.pixsee.imageanalysis.dto.ImageBulkUpdateRequestDTO;
+import com.pixsee.imageanalysis.dto.ImageMetadataRequestDTO;
+import com.pixsee.imageanalysis.entity.ImageMetadata;
+import com.pixsee.imageanalysis.repository.ImageRepository;
+import com.pixsee.imageanalysis.repository.ImageUserFileTypeStatsRepository;
+import com.pixsee.imageanalysis.repository.ImageUserStatsRepository;
+import com.pixsee.imageanalysis.service.ImageService;
+import com.pixsee.imageanalysis.service.ImageStatsService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares rows per second of deleting and updating images one request at a time with the chunked operations.
+ */
+@Tag("benchmark")
+@SpringBootTest
+class BulkOperationBenchmark {
+
+    private static final int ROWS = 10_000;
+    private static final int BATCH_SIZE = 1_000;
+    private static final long PER_RECORD_USER_ID = 1L;
+    private static final long BULK_USER_ID = 2L;
+
+    @Autowired
+    private ImageService imageService;
+
+    @Autowired
+    private ImageStatsService imageStatsService;
+
+    @Autowired
+    private ImageRepository imageRepository;
+
+    @Autowired
+    private ImageUserStatsRepository imageUserStatsRepository;
+
+    @Autowired
+    private ImageUserFileTypeStatsRepository imageUserFileTypeStatsRepository;
+
+    @AfterEach
+    void tearDown() {
+        imageRepository.deleteAllInBatch();
+        imageUserStatsRepository.deleteAllInBatch();
+        imageUserFileTypeStatsRepository.deleteAllInBatch();
+    }
+
+    private ImageMetadataRequestDTO createImageMetadataRequestDTO(long userId, int i, String fileType) {
+        ImageMetadataRequestDTO requestDTO = new ImageMetadataRequestDTO();
+        requestDTO.setUserId(userId);
+        requestDTO.setOriginalFilename("image-" + i + "." + fileType);
+        requestDTO.setWidth(800 + i % 100);
+        requestDTO.setHeight(600 + i % 100);
+        requestDTO.setFileSize(12345L);
+        requestDTO.setFileType(fileType);
+        return requestDTO;
+    }
+
+    @Test
+    void perRecordVersusBulk() {
+        // Warm up both paths so the JIT and the connection pool do not skew the first measurement
+        insert(PER_RECORD_USER_ID, 1_000);
+        insert(BULK_USER_ID, 1_000);
+        updateOneByOne(PER_RECORD_USER_ID);
+        updateInBulk(BULK_USER_ID);
+        deleteOneByOne(PER_RECORD_USER_ID);
+        deleteInBulk(BULK_USER_ID);
+
+        insert(PER_RECORD_USER_ID, ROWS);
+        insert(BULK_USER_ID, ROWS);
+        long singleUpdateNanos = updateOneByOne(PER_RECORD_USER_ID);
+        long bulkUpdateNanos = updateInBulk(BULK_USER_ID);
+        long singleDeleteNanos = deleteOneByOne(PER_RECORD_USER_ID);
+        long bulkDeleteNanos = deleteInBulk(BULK_USER_ID);
+
+        assertEquals(0, imageRepository.count());
+        assertTrue(imageStatsService.checkConsistency(PER_RECORD_USER_ID).isConsistent());
+        assertTrue(imageStatsService.checkConsistency(BULK_USER_ID).isConsistent());
+        System.out.printf("per-record update: %,.0f rows/sec%n", ROWS / (singleUpdateNanos / 1e9));
+        System.out.printf("bulk update:       %,.0f rows/sec%n", ROWS / (bulkUpdateNanos / 1e9));
+        System.out.printf("per-record delete: %,.0f rows/sec%n", ROWS / (singleDeleteNanos / 1e9));
+        System.out.printf("bulk delete:       %,.0f rows/sec%n", ROWS / (bulkDeleteNanos / 1e9));
+    }
+
+    private void insert(long userId, int rows) {
+        for (int offset = 0; offset < rows; offset += BATCH_SIZE) {
+            List<ImageMetadataRequestDTO> batch = new ArrayList<>(BATCH_SIZE);
+            for (int i = offset; i < Math.min(rows, offset + BATCH_SIZE); i++) {
+                batch.add(createImageMetadataRequestDTO(userId, i, "jpg"));
+            }
+            assertEquals(0, imageService.saveImageMetadataBatch(batch).getFailed());
+        }
+    }
+
+    private long updateOneByOne(long userId) {
+        List<ImageMetadata> images = imageRepository.findByUserId(userId);
+        long start = System.nanoTime();
+        for (int i = 0; i < images.size(); i++) {
+            imageService.updateImageMetadata(images.get(i).getId(), createImageMetadataRequestDTO(userId, i, "png"));
+        }
+        return System.nanoTime() - start;
+    }
+
+    private long updateInBulk(long userId) {
+        long expected = imageRepository.findByUserId(userId).size();
+        ImageBulkUpdateRequestDTO requestDTO = new ImageBulkUpdateRequestDTO();
+        requestDTO.setUserId(userId);
+        requestDTO.setFileType("png");
+        long start = System.nanoTime();
+        ImageBulkResponseDTO response = imageService.updateImagesFileType(requestDTO);
+        long elapsed = System.nanoTime() - start;
+        assertEquals(expected, response.getAffected());
+        return elapsed;
+    }
+
+    private long deleteOneByOne(long userId) {
+        List<Long> ids = imageRepository.findByUserId(userId).stream().map(ImageMetadata::getId).toList();
+        long start = System.nanoTime();
+        for (Long id : ids) {
+            imageService.deleteImage(id);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private long deleteInBulk(long userId) {
+        long expected = imageRepository.findByUserId(userId).size();
+        long start = System.nanoTime();
+        ImageBulkResponseDTO response = imageService.deleteImages(userId, null);
+        long elapsed = System.nanoTime() - start;
+        assertEquals(expected, response.getAffected());
+        return elapsed;
+    }
+}
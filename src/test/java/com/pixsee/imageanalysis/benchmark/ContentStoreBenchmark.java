@@ -0,0 +1,123 @@
+package com.pixsee.imageanalysis.benchmark;
+
+import com.pixsee.imageanalysis.storage.ContentPointer;
+import com.pixsee.imageanalysis.storage.SegmentFileContentStore;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+/**
+ * Compares the segment file content store with one file per image, for writes, random reads and 4 KB range reads.
+ */
+@Tag("benchmark")
+class ContentStoreBenchmark {
+
+    private final int images = Integer.getInteger("benchmark.images", 5000);
+    private final int imageBytes = Integer.getInteger("benchmark.image-kb", 32) * 1024;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void segmentFilesVersusFilePerImage() throws IOException {
+        byte[] content = new byte[imageBytes];
+        new Random(7).nextBytes(content);
+        int[] order = new Random(11).ints(images, 0, images).toArray();
+
+        for (boolean fsync : new boolean[]{false, true}) {
+            Path segmentDirectory = Files.createDirectories(directory.resolve("segments-" + fsync));
+            Path fileDirectory = Files.createDirectories(directory.resolve("files-" + fsync));
+            SegmentFileContentStore store = new SegmentFileContentStore(segmentDirectory, DataSize.ofMegabytes(32), fsync);
+            ContentPointer[] pointers = new ContentPointer[images];
+
+            long start = System.nanoTime();
+            for (int i = 0; i < images; i++) {
+                pointers[i] = store.write(new ByteArrayInputStream(content), content.length);
+            }
+            long segmentWrite = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < images; i++) {
+                try (FileChannel channel = FileChannel.open(fileDirectory.resolve(i + ".img"),
+                        StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+                     OutputStream out = Channels.newOutputStream(channel)) {
+                    out.write(content);
+                    if (fsync) {
+                        channel.force(false);
+                    }
+                }
+            }
+            long fileWrite = System.nanoTime() - start;
+
+            long segmentRead = 0;
+            long fileRead = 0;
+            long segmentRange = 0;
+            long fileRange = 0;
+            long checksum = 0;
+            // The first pass warms the page cache and the JIT
+            for (int round = 0; round < 2; round++) {
+                start = System.nanoTime();
+                for (int i : order) {
+                    try (InputStream in = store.read(pointers[i]).getInputStream()) {
+                        checksum += in.transferTo(OutputStream.nullOutputStream());
+                    }
+                }
+                segmentRead = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                for (int i : order) {
+                    try (InputStream in = Files.newInputStream(fileDirectory.resolve(i + ".img"))) {
+                        checksum += in.transferTo(OutputStream.nullOutputStream());
+                    }
+                }
+                fileRead = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                for (int i : order) {
+                    try (InputStream in = store.read(pointers[i]).getInputStream()) {
+                        in.skipNBytes(imageBytes / 2);
+                        checksum += in.readNBytes(4096).length;
+                    }
+                }
+                segmentRange = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                for (int i : order) {
+                    try (InputStream in = Files.newInputStream(fileDirectory.resolve(i + ".img"))) {
+                        in.skipNBytes(imageBytes / 2);
+                        checksum += in.readNBytes(4096).length;
+                    }
+                }
+                fileRange = System.nanoTime() - start;
+            }
+            store.close();
+
+            System.out.printf("fsync=%-5s %,d images of %,d KB (checksum %d)%n", fsync, images, imageBytes / 1024, checksum);
+            System.out.printf("  write   segments=%,10.0f images/s  file-per-image=%,10.0f images/s%n",
+                    rate(segmentWrite), rate(fileWrite));
+            System.out.printf("  read    segments=%,10.0f images/s  file-per-image=%,10.0f images/s%n",
+                    rate(segmentRead), rate(fileRead));
+            System.out.printf("  range   segments=%,10.0f images/s  file-per-image=%,10.0f images/s%n",
+                    rate(segmentRange), rate(fileRange));
+            try (var segmentFiles = Files.list(segmentDirectory); var imageFiles = Files.list(fileDirectory)) {
+                System.out.printf("  files   segments=%,10d           file-per-image=%,10d%n", segmentFiles.count(), imageFiles.count());
+            }
+        }
+    }
+
+    private double rate(long nanos) {
+        return images / (nanos / 1e9);
+    }
+}
@@ -0,0 +1,132 @@
+package com.pixsee.imageanalysis.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.pixsee.imageanalysis.dto.ImageMetadataRequestDTO;
+import com.pixsee.imageanalysis.export.ImageExporter;
+import com.pixsee.imageanalysis.repository.ImageRepository;
+import com.pixsee.imageanalysis.service.ImageService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares rows per second and output size of the columnar export with a JSON dump of every user's listing.
+ */
+@Tag("benchmark")
+@SpringBootTest
+class ExportBenchmark {
+
+    private static final int USERS = 1_000;
+    private static final int BATCH_SIZE = 1_000;
+    private static final List<String> FILE_TYPES = List.of("jpg", "jpg", "jpg", "png", "png", "gif", "webp");
+
+    private final int rows = Integer.getInteger("benchmark.rows", 200_000);
+
+    @Autowired
+    private ImageService imageService;
+
+    @Autowired
+    private ImageRepository imageRepository;
+
+    @Autowired
+    private ImageExporter imageExporter;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @AfterEach
+    void tearDown() {
+        imageRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void columnarExportVersusJsonDump() throws IOException {
+        for (int offset = 0; offset < rows; offset += BATCH_SIZE) {
+            List<ImageMetadataRequestDTO> batch = new ArrayList<>(BATCH_SIZE);
+            for (int i = offset; i < Math.min(rows, offset + BATCH_SIZE); i++) {
+                ImageMetadataRequestDTO requestDTO = new ImageMetadataRequestDTO();
+                requestDTO.setUserId((long) (i % USERS));
+                requestDTO.setOriginalFilename("IMG_" + (100_000 + i) + "." + FILE_TYPES.get(i % FILE_TYPES.size()));
+                requestDTO.setWidth(640 + i % 3_000);
+                requestDTO.setHeight(480 + i % 2_000);
+                requestDTO.setFileSize(50_000L + (i * 7919L) % 5_000_000);
+                requestDTO.setFileType(FILE_TYPES.get(i % FILE_TYPES.size()));
+                batch.add(requestDTO);
+            }
+            imageService.saveImageMetadataBatch(batch);
+        }
+
+        // The first round of each is warm-up
+        exportColumnar();
+        dumpJson(false);
+        long[] columnar = exportColumnar();
+        long[] json = dumpJson(false);
+        long[] gzippedJson = dumpJson(true);
+
+        assertEquals(rows, columnar[0]);
+        assertEquals(rows, json[0]);
+        report("columnar", columnar);
+        report("json", json);
+        report("json+gzip", gzippedJson);
+    }
+
+    // Returns rows, bytes and nanoseconds
+    private long[] exportColumnar() throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        long start = System.nanoTime();
+        long exported = imageExporter.export(null, null, out);
+        return new long[]{exported, out.count, System.nanoTime() - start};
+    }
+
+    private long[] dumpJson(boolean gzip) throws IOException {
+        CountingOutputStream counter = new CountingOutputStream();
+        long[] dumped = new long[1];
+        long start = System.nanoTime();
+        try (OutputStream out = gzip ? new GZIPOutputStream(counter, 65_536) : counter;
+             SequenceWriter writer = objectMapper.writer().withRootValueSeparator("\n").writeValues(out)) {
+            for (Long userId : imageRepository.findDistinctUserIds()) {
+                imageService.streamImagesByUserId(userId, image -> {
+                    try {
+                        writer.write(image);
+                        dumped[0]++;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        }
+        return new long[]{dumped[0], counter.count, System.nanoTime() - start};
+    }
+
+    private static void report(String name, long[] result) {
+        System.out.printf("%-10s %,10.0f rows/sec  %,12d bytes  %6.1f bytes/row%n",
+                name, result[0] / (result[2] / 1e9), result[1], (double) result[1] / result[0]);
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.pixsee.imageanalysis.benchmark;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Per-client latency log for the HTTP load benchmarks; each client thread owns one.
+ */
+final class LatencyRecorder {
+
+    private long[] latencies = new long[256];
+    private int size;
+
+    void record(long nanos) {
+        if (size == latencies.length) {
+            latencies = Arrays.copyOf(latencies, size * 2);
+        }
+        latencies[size++] = nanos;
+    }
+
+    static long[] merge(List<LatencyRecorder> recorders) {
+        return recorders.stream()
+                .flatMapToLong(recorder -> Arrays.stream(recorder.latencies, 0, recorder.size))
+                .sorted()
+                .toArray();
+    }
+
+    static double percentileMillis(long[] sortedLatencies, double percentile) {
+        if (sortedLatencies.length == 0) {
+            return 0;
+        }
+        return sortedLatencies[(int) Math.ceil(sortedLatencies.length * percentile) - 1] / 1e6;
+    }
+}
@@ -0,0 +1,138 @@
+package com.pixsee.imageanalysis.benchmark;
+
+import com.pixsee.imageanalysis.ImageAnalysisApplication;
+import com.pixsee.imageanalysis.dto.ImageMetadataRequestDTO;
+import com.pixsee.imageanalysis.service.ImageService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Counts the queries of bursts of identical concurrent reads with read coalescing disabled and enabled.
+ */
+@Tag("benchmark")
+class ReadCoalescingBenchmark {
+
+    private static final int IMAGES = 2_000;
+    private static final int BATCH_SIZE = 1_000;
+    private static final int BURSTS = 5;
+    private static final long USER_ID = 1L;
+
+    private final int[] readerCounts = Arrays.stream(System.getProperty("benchmark.readers", "1,10,100,1000")
+            .split(",")).mapToInt(Integer::parseInt).toArray();
+
+    @Test
+    void uncoalescedVersusCoalesced() throws Exception {
+        List<String> report = new ArrayList<>();
+        for (boolean coalescing : new boolean[]{false, true}) {
+            try (ConfigurableApplicationContext context = start(coalescing)) {
+                ImageService imageService = context.getBean(ImageService.class);
+                MeterRegistry meterRegistry = context.getBean(MeterRegistry.class);
+                long imageId = seed(imageService);
+                // Warm up both paths so the JIT and the connection pool do not skew the first level
+                burst(meterRegistry, "findByUserId", 100, () -> imageService.getImagesByUserId(USER_ID).size(), IMAGES);
+                burst(meterRegistry, "findById", 100, () -> imageService.getImageById(imageId).getId(), imageId);
+
+                for (int readers : readerCounts) {
+                    report.add(measure(coalescing, "list", meterRegistry, "findByUserId", readers,
+                            () -> imageService.getImagesByUserId(USER_ID).size(), IMAGES));
+                }
+                for (int readers : readerCounts) {
+                    report.add(measure(coalescing, "image", meterRegistry, "findById", readers,
+                            () -> imageService.getImageById(imageId).getId(), imageId));
+                }
+            }
+        }
+        report.forEach(System.out::println);
+    }
+
+    private ConfigurableApplicationContext start(boolean coalescing) {
+        return new SpringApplicationBuilder(ImageAnalysisApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "image.coalescing.enabled=" + coalescing,
+                        "spring.datasource.url=jdbc:h2:mem:coalescing_" + coalescing + ";MODE=MySQL;DB_CLOSE_DELAY=-1",
+                        // Uncoalesced bursts queue for connections, which must not time out
+                        "spring.datasource.hikari.connection-timeout=120000",
+                        "image.cache.enabled=false",
+                        "logging.level.root=WARN")
+                .run();
+    }
+
+    private long seed(ImageService imageService) {
+        for (int offset = 0; offset < IMAGES; offset += BATCH_SIZE) {
+            List<ImageMetadataRequestDTO> batch = new ArrayList<>(BATCH_SIZE);
+            for (int i = offset; i < offset + BATCH_SIZE; i++) {
+                ImageMetadataRequestDTO requestDTO = new ImageMetadataRequestDTO();
+                requestDTO.setUserId(USER_ID);
+                requestDTO.setOriginalFilename("image-" + i + ".jpg");
+                requestDTO.setWidth(800 + i % 100);
+                requestDTO.setHeight(600 + i % 100);
+                requestDTO.setFileSize(12345L);
+                requestDTO.setFileType("jpg");
+                batch.add(requestDTO);
+            }
+            assertEquals(0, imageService.saveImageMetadataBatch(batch).getFailed());
+        }
+        return imageService.getImagesByUserId(USER_ID).getFirst().getId();
+    }
+
+    private String measure(boolean coalescing, String read, MeterRegistry meterRegistry, String method, int readers,
+                           Supplier<Object> reader, Object expected) throws Exception {
+        long queries = 0;
+        long nanos = 0;
+        for (int i = 0; i < BURSTS; i++) {
+            long[] burst = burst(meterRegistry, method, readers, reader, expected);
+            queries += burst[0];
+            nanos += burst[1];
+        }
+        return String.format("%-11s %-5s readers=%,6d  queries/burst=%,9.1f  time/burst=%,9.2f ms",
+                coalescing ? "coalesced" : "uncoalesced", read, readers, queries / (double) BURSTS, nanos / 1e6 / BURSTS);
+    }
+
+    // Returns the queries issued and the nanoseconds taken until every reader had its result
+    private long[] burst(MeterRegistry meterRegistry, String method, int readers, Supplier<Object> reader, Object expected)
+            throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        long queriesBefore = queries(meterRegistry, method);
+        long elapsed;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Object>> results = new ArrayList<>(readers);
+            for (int i = 0; i < readers; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return reader.get();
+                }));
+            }
+            long startNanos = System.nanoTime();
+            start.countDown();
+            for (Future<Object> result : results) {
+                assertEquals(expected, result.get(2, TimeUnit.MINUTES));
+            }
+            elapsed = System.nanoTime() - startNanos;
+        }
+        return new long[]{queries(meterRegistry, method) - queriesBefore, elapsed};
+    }
+
+    private static long queries(MeterRegistry meterRegistry, String method) {
+        return meterRegistry.find("spring.data.repository.invocations").tag("method", method).timers().stream()
+                .mapToLong(Timer::count)
+                .sum();
+    }
+}
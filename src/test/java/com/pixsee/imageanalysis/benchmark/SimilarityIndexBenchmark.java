@@ -0,0 +1,88 @@
+package com.pixsee.imageanalysis.benchmark;
+
+import com.pixsee.imageanalysis.similarity.HammingIndex;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Query latency of the perceptual-hash index against a linear scan, over {@code benchmark.indexed-images} hashes of one
+ * user.
+ */
+@Tag("benchmark")
+class SimilarityIndexBenchmark {
+
+    private final int indexedImages = Integer.getInteger("benchmark.indexed-images", 1_000_000);
+    private final int queries = Integer.getInteger("benchmark.queries", 2_000);
+
+    @Test
+    void indexVersusLinearScan() {
+        SplittableRandom random = new SplittableRandom(5);
+        long[] hashes = new long[indexedImages];
+        HammingIndex index = new HammingIndex();
+        long start = System.nanoTime();
+        for (int i = 0; i < indexedImages; i++) {
+            hashes[i] = i % 10 == 0 ? random.nextLong() : flipBits(hashes[i - i % 10], random.nextInt(12), random);
+            index.add(i, hashes[i]);
+        }
+        System.out.printf("indexed %,d hashes in %,d ms%n", indexedImages, (System.nanoTime() - start) / 1_000_000);
+
+        long[] queryHashes = new long[queries];
+        for (int q = 0; q < queries; q++) {
+            queryHashes[q] = flipBits(hashes[random.nextInt(indexedImages)], random.nextInt(4), random);
+        }
+
+        for (int maxDistance : new int[]{4, 8, 10, 12, 13, 14, 16}) {
+            long matches = 0;
+            long scanMatches = 0;
+            LatencyRecorder indexLatencies = new LatencyRecorder();
+            LatencyRecorder scanLatencies = new LatencyRecorder();
+            // The first pass warms up the JIT
+            for (int round = 0; round < 2; round++) {
+                indexLatencies = new LatencyRecorder();
+                scanLatencies = new LatencyRecorder();
+                matches = 0;
+                scanMatches = 0;
+                for (long query : queryHashes) {
+                    long[] found = new long[1];
+                    long queryStart = System.nanoTime();
+                    index.query(query, maxDistance, (id, hash, distance) -> found[0]++);
+                    indexLatencies.record(System.nanoTime() - queryStart);
+                    matches += found[0];
+
+                    queryStart = System.nanoTime();
+                    scanMatches += linearScan(hashes, query, maxDistance);
+                    scanLatencies.record(System.nanoTime() - queryStart);
+                }
+            }
+            long[] indexSorted = LatencyRecorder.merge(List.of(indexLatencies));
+            long[] scanSorted = LatencyRecorder.merge(List.of(scanLatencies));
+            System.out.printf("maxDistance=%-2d matches/query=%6.1f (scan %6.1f)%n", maxDistance,
+                    (double) matches / queries, (double) scanMatches / queries);
+            System.out.printf("  index  p50=%8.3f ms  p99=%8.3f ms%n",
+                    LatencyRecorder.percentileMillis(indexSorted, 0.50), LatencyRecorder.percentileMillis(indexSorted, 0.99));
+            System.out.printf("  scan   p50=%8.3f ms  p99=%8.3f ms%n",
+                    LatencyRecorder.percentileMillis(scanSorted, 0.50), LatencyRecorder.percentileMillis(scanSorted, 0.99));
+        }
+    }
+
+    private static int linearScan(long[] hashes, long query, int maxDistance) {
+        int found = 0;
+        for (long hash : hashes) {
+            if (Long.bitCount(hash ^ query) <= maxDistance) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    private static long flipBits(long hash, int bits, SplittableRandom random) {
+        long flipped = hash;
+        while (Long.bitCount(flipped ^ hash) < bits) {
+            flipped ^= 1L << random.nextInt(64);
+        }
+        return flipped;
+    }
+}
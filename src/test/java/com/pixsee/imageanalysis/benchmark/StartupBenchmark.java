@@ -0,0 +1,207 @@
+package com.pixsee.imageanalysis.benchmark;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Compares time to first request and resident set size of the packaged application with the {@code cds} build. Needs
+ * {@code mvn -Pcds package -DskipTests} first.
+ */
+@Tag("benchmark")
+class StartupBenchmark {
+
+    private static final String JAR = "image-analysis-0.0.1-SNAPSHOT.jar";
+    private static final Path TARGET = Path.of("target").toAbsolutePath();
+    private static final Path CDS = TARGET.resolve("cds");
+    private static final Path WORK = TARGET.resolve("startup-benchmark");
+
+    private static final String BODY = "{\"userId\":1,\"originalFilename\":\"image.jpg\",\"width\":800,"
+            + "\"height\":600,\"fileSize\":12345,\"fileType\":\"jpg\"}";
+    private static final Pattern ID = Pattern.compile("\"id\":(\\d+)");
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(2);
+
+    private final int runs = Integer.getInteger("benchmark.runs", 5);
+    private final int warmupRequests = Integer.getInteger("benchmark.warmup-requests", 5_000);
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofMillis(500))
+            .build();
+
+    @Test
+    void defaultVersusOptimizedBuild() throws Exception {
+        Path jar = TARGET.resolve(JAR);
+        assumeTrue(Files.exists(jar), "target/" + JAR + " is missing, build it with mvn -Pcds package -DskipTests");
+        FileSystemUtils.deleteRecursively(WORK);
+        Files.createDirectories(WORK);
+        String h2 = h2Jar();
+        String java = ProcessHandle.current().info().command().orElse("java");
+
+        // The fat jar as it is deployed; the driver of the embedded database is added through the launcher
+        List<String> defaultBuild = List.of(java, "-Dloader.path=" + h2, "-cp", jar.toString(),
+                "org.springframework.boot.loader.launch.PropertiesLauncher");
+        // Started from target/cds, where the archive was trained: CDS accepts entries appended to its classpath
+        // and -Xshare:on makes it fail rather than silently start without the archive
+        List<String> optimizedBuild = List.of(java, "-Xshare:on", "-XX:SharedArchiveFile=application.jsa",
+                "-Dspring.aot.enabled=true", "-cp", JAR + File.pathSeparator + h2,
+                "com.pixsee.imageanalysis.ImageAnalysisApplication");
+
+        long id = seed(defaultBuild);
+        List<String> report = new ArrayList<>();
+        report.add(measure("default", defaultBuild, TARGET, id));
+        if (Files.exists(CDS.resolve("application.jsa"))) {
+            report.add(measure("aot+cds", optimizedBuild, CDS, id));
+        } else {
+            System.out.println("target/cds/application.jsa is missing, skipping the optimized build; "
+                    + "build it with mvn -Pcds package -DskipTests");
+        }
+        report.forEach(System.out::println);
+    }
+
+    // Creates the schema and the image every launch reads
+    private long seed(List<String> command) throws Exception {
+        int port = freePort();
+        Process process = launch("seed", command, TARGET, port);
+        try {
+            HttpRequest request = HttpRequest.newBuilder(uri(port, "/images"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(BODY))
+                    .build();
+            HttpResponse<String> response = awaitSuccess(process, request, HttpResponse.BodyHandlers.ofString());
+            Matcher matcher = ID.matcher(response.body());
+            assertTrue(matcher.find(), response.body());
+            return Long.parseLong(matcher.group(1));
+        } finally {
+            stop(process);
+        }
+    }
+
+    private String measure(String name, List<String> command, Path directory, long id) throws Exception {
+        long[] startupMillis = new long[runs];
+        long[] rssKilobytes = new long[runs];
+        for (int run = 0; run < runs; run++) {
+            int port = freePort();
+            HttpRequest request = HttpRequest.newBuilder(uri(port, "/images/" + id)).GET().build();
+            long start = System.nanoTime();
+            Process process = launch(name, command, directory, port);
+            try {
+                awaitSuccess(process, request, HttpResponse.BodyHandlers.discarding());
+                startupMillis[run] = (System.nanoTime() - start) / 1_000_000;
+                for (int i = 0; i < warmupRequests; i++) {
+                    HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                    assertEquals(200, response.statusCode());
+                }
+                rssKilobytes[run] = residentSetKilobytes(process.pid());
+            } finally {
+                stop(process);
+            }
+        }
+        long rss = median(rssKilobytes);
+        return String.format("%-8s first GET /images/{id}: median=%,6d ms  min=%,6d ms  RSS after %,d requests: %s",
+                name, median(startupMillis), Arrays.stream(startupMillis).min().orElseThrow(), warmupRequests,
+                rss < 0 ? "n/a" : String.format("%,d MB", rss / 1024));
+    }
+
+    private Process launch(String name, List<String> command, Path directory, int port) throws IOException {
+        List<String> arguments = new ArrayList<>(command);
+        arguments.addAll(List.of(
+                "--server.port=" + port,
+                "--spring.datasource.url=jdbc:h2:file:" + WORK.resolve("db") + ";MODE=MySQL",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--image.storage.directory=" + WORK.resolve("content"),
+                "--image.thumbnail.directory=" + WORK.resolve("thumbnails")));
+        return new ProcessBuilder(arguments)
+                .directory(directory.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.appendTo(WORK.resolve(name + ".log").toFile()))
+                .start();
+    }
+
+    private <T> HttpResponse<T> awaitSuccess(Process process, HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler)
+            throws Exception {
+        long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("The application exited with " + process.exitValue() + ", see " + WORK);
+            }
+            try {
+                HttpResponse<T> response = httpClient.send(request, bodyHandler);
+                if (response.statusCode() / 100 == 2) {
+                    return response;
+                }
+            } catch (ConnectException e) {
+                // Not listening yet
+            }
+            Thread.sleep(5);
+        }
+        throw new IllegalStateException("The application did not answer within " + STARTUP_TIMEOUT);
+    }
+
+    private static void stop(Process process) throws InterruptedException {
+        process.destroy();
+        if (!process.waitFor(30, TimeUnit.SECONDS)) {
+            process.destroyForcibly().waitFor();
+        }
+    }
+
+    private static long residentSetKilobytes(long pid) throws IOException {
+        Path status = Path.of("/proc", Long.toString(pid), "status");
+        if (!Files.exists(status)) {
+            return -1;
+        }
+        return Files.readAllLines(status).stream()
+                .filter(line -> line.startsWith("VmRSS:"))
+                .mapToLong(line -> Long.parseLong(line.replaceAll("\\D", "")))
+                .findFirst()
+                .orElse(-1);
+    }
+
+    private static String h2Jar() {
+        return Arrays.stream(System.getProperty("java.class.path").split(File.pathSeparator))
+                .filter(entry -> Path.of(entry).getFileName().toString().matches("h2-[\\d.]+\\.jar"))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("The H2 driver is not on the test classpath"));
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static URI uri(int port, String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
@@ -0,0 +1,91 @@
+package com.pixsee.imageanalysis.benchmark;
+
+import com.pixsee.imageanalysis.storage.ContentPointer;
+import com.pixsee.imageanalysis.storage.SegmentFileContentStore;
+import com.pixsee.imageanalysis.thumbnail.ThumbnailCache;
+import com.pixsee.imageanalysis.thumbnail.ThumbnailGenerator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Thumbnail generation throughput by worker count, from 1 up to the number of CPUs.
+ */
+@Tag("benchmark")
+class ThumbnailGenerationBenchmark {
+
+    private final int images = Integer.getInteger("benchmark.images", 200);
+    private final int width = Integer.getInteger("benchmark.width", 2048);
+    private final int height = Integer.getInteger("benchmark.height", 1536);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void throughputByWorkerCount() throws Exception {
+        byte[] photo = photo();
+        SegmentFileContentStore store = new SegmentFileContentStore(directory.resolve("content"), DataSize.ofMegabytes(256), false);
+        List<ContentPointer> pointers = new ArrayList<>();
+        for (int i = 0; i < images; i++) {
+            pointers.add(store.write(new ByteArrayInputStream(photo), photo.length));
+        }
+        System.out.printf("%,d images of %dx%d (%,d KB each)%n", images, width, height, photo.length / 1024);
+
+        int cpus = Runtime.getRuntime().availableProcessors();
+        // The first run warms up the JIT and the decoders
+        for (int threads : warmupThen(cpus)) {
+            ThumbnailGenerator generator = new ThumbnailGenerator(store,
+                    new ThumbnailCache(directory.resolve("thumbnails-" + System.nanoTime()), DataSize.ofGigabytes(1)),
+                    new SimpleMeterRegistry(), List.of(128, 512), threads, images);
+            long start = System.nanoTime();
+            List<CompletableFuture<byte[]>> thumbnails = new ArrayList<>(images);
+            for (int i = 0; i < images; i++) {
+                thumbnails.add(generator.getThumbnail(i, pointers.get(i), 128));
+            }
+            CompletableFuture.allOf(thumbnails.toArray(CompletableFuture[]::new)).join();
+            long elapsed = System.nanoTime() - start;
+            generator.shutdown();
+            System.out.printf("  workers=%-3d %,8.1f images/s%n", threads, images / (elapsed / 1e9));
+        }
+        store.close();
+    }
+
+    private static List<Integer> warmupThen(int cpus) {
+        List<Integer> threadCounts = new ArrayList<>(List.of(cpus));
+        for (int threads = 1; threads <= cpus; threads = threads < 4 ? threads + 1 : threads * 2) {
+            threadCounts.add(threads);
+        }
+        return threadCounts;
+    }
+
+    // A gradient with some shapes, so the JPEG has realistic detail to decode
+    private byte[] photo() throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setPaint(new GradientPaint(0, 0, Color.ORANGE, width, height, Color.BLUE));
+        graphics.fillRect(0, 0, width, height);
+        for (int i = 0; i < 200; i++) {
+            graphics.setColor(new Color(i * 37 % 256, i * 91 % 256, i * 53 % 256));
+            graphics.fillOval(i * 97 % width, i * 61 % height, 40 + i % 120, 40 + i % 90);
+        }
+        graphics.dispose();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpg", out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,136 @@
+package com.pixsee.imageanalysis.benchmark;
+
+import com.pixsee.imageanalysis.ImageAnalysisApplication;
+import com.pixsee.imageanalysis.dto.ImageBatchItemResultDTO;
+import com.pixsee.imageanalysis.dto.ImageMetadataRequestDTO;
+import com.pixsee.imageanalysis.dto.ImageMetadataResponseDTO;
+import com.pixsee.imageanalysis.service.ImageService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load test of {@code GET /images/{id}} on platform threads and on virtual threads, at 100, 1,000 and 10,000 concurrent
+ * clients.
+ */
+@Tag("benchmark")
+class VirtualThreadLoadBenchmark {
+
+    private static final int IMAGES = 1_000;
+
+    private final int[] concurrencyLevels = Arrays.stream(System.getProperty("benchmark.concurrency", "100,1000,10000")
+            .split(",")).mapToInt(Integer::parseInt).toArray();
+    private final Duration warmup = Duration.ofSeconds(Long.getLong("benchmark.warmup-seconds", 3));
+    private final Duration measurement = Duration.ofSeconds(Long.getLong("benchmark.measurement-seconds", 10));
+
+    @Test
+    void platformThreadsVersusVirtualThreads() throws Exception {
+        List<String> report = new ArrayList<>();
+        for (boolean virtualThreads : new boolean[]{false, true}) {
+            try (ConfigurableApplicationContext context = start(virtualThreads)) {
+                int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+                List<Long> ids = seed(context.getBean(ImageService.class));
+                for (int clients : concurrencyLevels) {
+                    run(port, ids, clients, warmup);
+                    LoadResult result = run(port, ids, clients, measurement);
+                    report.add(String.format("%-8s clients=%,7d  throughput=%,10.0f req/s  p99=%,9.2f ms  errors=%,d",
+                            virtualThreads ? "virtual" : "platform", clients,
+                            result.requests() / (measurement.toNanos() / 1e9), result.p99Millis(), result.errors()));
+                }
+            }
+        }
+        report.forEach(System.out::println);
+    }
+
+    private ConfigurableApplicationContext start(boolean virtualThreads) {
+        return new SpringApplicationBuilder(ImageAnalysisApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.threads.virtual.enabled=" + virtualThreads,
+                        "spring.datasource.url=jdbc:h2:mem:load_" + virtualThreads + ";MODE=MySQL;DB_CLOSE_DELAY=-1",
+                        "image.cache.enabled=false",
+                        "server.tomcat.max-connections=20000",
+                        "server.tomcat.accept-count=10000",
+                        "logging.level.root=WARN")
+                .run();
+    }
+
+    private List<Long> seed(ImageService imageService) {
+        List<ImageMetadataRequestDTO> batch = new ArrayList<>();
+        for (int i = 0; i < IMAGES; i++) {
+            ImageMetadataRequestDTO requestDTO = new ImageMetadataRequestDTO();
+            requestDTO.setUserId((long) (i % 10));
+            requestDTO.setOriginalFilename("image-" + i + ".jpg");
+            requestDTO.setWidth(800);
+            requestDTO.setHeight(600);
+            requestDTO.setFileSize(12345L);
+            requestDTO.setFileType("jpg");
+            batch.add(requestDTO);
+        }
+        return imageService.saveImageMetadataBatch(batch).getResults().stream()
+                .map(ImageBatchItemResultDTO::getImage)
+                .map(ImageMetadataResponseDTO::getId)
+                .toList();
+    }
+
+    private LoadResult run(int port, List<Long> ids, int clients, Duration duration) throws InterruptedException {
+        AtomicLong errors = new AtomicLong();
+        List<LatencyRecorder> recorders = new ArrayList<>(clients);
+        long deadline = System.nanoTime() + duration.toNanos();
+        // Clients always run on virtual threads so the client side is never the bottleneck being measured
+        try (HttpClient httpClient = HttpClient.newBuilder()
+                     .version(HttpClient.Version.HTTP_1_1)
+                     .connectTimeout(Duration.ofSeconds(30))
+                     .build();
+             ExecutorService clientExecutor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int client = 0; client < clients; client++) {
+                LatencyRecorder recorder = new LatencyRecorder();
+                recorders.add(recorder);
+                clientExecutor.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        long id = ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+                        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/images/" + id)).build();
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() == 200) {
+                                recorder.record(System.nanoTime() - start);
+                            } else {
+                                errors.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                    }
+                });
+            }
+            clientExecutor.shutdown();
+            clientExecutor.awaitTermination(duration.toSeconds() + 120, TimeUnit.SECONDS);
+        }
+        return LoadResult.of(recorders, errors.get());
+    }
+
+    private record LoadResult(long requests, double p99Millis, long errors) {
+
+        static LoadResult of(List<LatencyRecorder> recorders, long errors) {
+            long[] latencies = LatencyRecorder.merge(recorders);
+            return new LoadResult(latencies.length, LatencyRecorder.percentileMillis(latencies, 0.99), errors);
+        }
+    }
+}
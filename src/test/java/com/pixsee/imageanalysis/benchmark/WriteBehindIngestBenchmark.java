@@ -0,0 +1,109 @@
+package com.pixsee.imageanalysis.benchmark;
+
+import com.pixsee.imageanalysis.ImageAnalysisApplication;
+import com.pixsee.imageanalysis.repository.ImageRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares ingest throughput and acknowledgement latency of {@code POST /images} in synchronous and write-behind mode.
+ */
+@Tag("benchmark")
+class WriteBehindIngestBenchmark {
+
+    private static final String BODY = "{\"userId\":%d,\"originalFilename\":\"image.jpg\",\"width\":800,"
+            + "\"height\":600,\"fileSize\":12345,\"fileType\":\"jpg\"}";
+
+    private final int clients = Integer.getInteger("benchmark.clients", 64);
+    private final Duration measurement = Duration.ofSeconds(Long.getLong("benchmark.measurement-seconds", 10));
+
+    @Test
+    void synchronousVersusWriteBehind() throws Exception {
+        List<String> report = new ArrayList<>();
+        try (ConfigurableApplicationContext context = start()) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            ImageRepository imageRepository = context.getBean(ImageRepository.class);
+            for (boolean writeBehind : new boolean[]{false, true, false, true}) {
+                imageRepository.deleteAllInBatch();
+                AtomicLong rejected = new AtomicLong();
+                long[] latencies = run(port, writeBehind, rejected);
+                long drainStart = System.nanoTime();
+                while (imageRepository.count() < latencies.length) {
+                    Thread.sleep(5);
+                }
+                double drainMillis = (System.nanoTime() - drainStart) / 1e6;
+                report.add(String.format("%-12s acknowledged=%,10.0f req/s  p50=%,7.2f ms  p99=%,7.2f ms  rejected=%,d  drain=%,.0f ms",
+                        writeBehind ? "write-behind" : "sync", latencies.length / (measurement.toNanos() / 1e9),
+                        LatencyRecorder.percentileMillis(latencies, 0.50), LatencyRecorder.percentileMillis(latencies, 0.99),
+                        rejected.get(), drainMillis));
+            }
+        }
+        // The first round of each mode is warm-up
+        report.subList(2, 4).forEach(System.out::println);
+    }
+
+    private ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(ImageAnalysisApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:ingest;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                        "image.write-behind.enabled=true",
+                        // The clients upload as fast as they can; the per-user limits would turn this into a 429 benchmark
+                        "image.admission.enabled=false",
+                        "logging.level.root=WARN")
+                .run();
+    }
+
+    private long[] run(int port, boolean writeBehind, AtomicLong rejected) throws InterruptedException {
+        List<LatencyRecorder> recorders = new ArrayList<>(clients);
+        long deadline = System.nanoTime() + measurement.toNanos();
+        try (HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+             ExecutorService clientExecutor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int client = 0; client < clients; client++) {
+                LatencyRecorder recorder = new LatencyRecorder();
+                recorders.add(recorder);
+                long userId = client;
+                clientExecutor.submit(() -> {
+                    HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/images"))
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString(String.format(BODY, userId)));
+                    if (writeBehind) {
+                        builder.header("Prefer", "respond-async");
+                    }
+                    HttpRequest request = builder.build();
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() == 201 || response.statusCode() == 202) {
+                                recorder.record(System.nanoTime() - start);
+                            } else {
+                                rejected.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            rejected.incrementAndGet();
+                        }
+                    }
+                });
+            }
+            clientExecutor.shutdown();
+            clientExecutor.awaitTermination(measurement.toSeconds() + 60, TimeUnit.SECONDS);
+        }
+        return LatencyRecorder.merge(recorders);
+    }
+}
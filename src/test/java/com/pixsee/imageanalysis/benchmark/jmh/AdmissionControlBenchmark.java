@@ -0,0 +1,81 @@
+package com.pixsee.imageanalysis.benchmark.jmh;
+
+import com.pixsee.imageanalysis.admission.AdmissionControl;
+import com.pixsee.imageanalysis.admission.AdmissionEndpoint;
+import com.pixsee.imageanalysis.admission.TokenBucketLimiter;
+import com.pixsee.imageanalysis.metrics.ImageMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of admitting a request on every core at once, for one user and for 10,000 random users, against buckets behind
+ * one lock.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(Threads.MAX)
+public class AdmissionControlBenchmark {
+
+    private static final double RATE = 1e9;
+    private static final int BURST = 1_000_000;
+
+    @Param({"1", "10000"})
+    private int users;
+
+    private TokenBucketLimiter limiter;
+    private LockedBuckets lockedBuckets;
+    private AdmissionControl admissionControl;
+
+    @Setup
+    public void setUp() {
+        limiter = new TokenBucketLimiter(RATE, BURST, System::nanoTime);
+        lockedBuckets = new LockedBuckets();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        admissionControl = new AdmissionControl(true, RATE, BURST, Integer.MAX_VALUE, RATE, BURST, Integer.MAX_VALUE,
+                new ImageMetrics(meterRegistry), meterRegistry);
+    }
+
+    @Benchmark
+    public long tokenBucket() {
+        return limiter.tryAcquire(ThreadLocalRandom.current().nextInt(users));
+    }
+
+    @Benchmark
+    public long lockedBuckets() {
+        return lockedBuckets.tryAcquire(ThreadLocalRandom.current().nextInt(users));
+    }
+
+    // Concurrency slot, token and permit release, as done for each POST /images
+    @Benchmark
+    public void admit() {
+        AdmissionControl.Permit permit = admissionControl.admit(AdmissionEndpoint.UPLOAD, ThreadLocalRandom.current().nextInt(users));
+        permit.close();
+    }
+
+    private static final class LockedBuckets {
+
+        private final Map<Long, long[]> fullAt = new HashMap<>();
+        private final long refillIntervalNanos = Math.max(1L, Math.round(1e9 / RATE));
+        private final long burstToleranceNanos = (BURST - 1) * refillIntervalNanos;
+
+        synchronized long tryAcquire(long userId) {
+            long now = System.nanoTime();
+            long[] bucket = fullAt.computeIfAbsent(userId, id -> new long[]{now});
+            long ahead = bucket[0] - now;
+            if (ahead > burstToleranceNanos) {
+                return ahead - burstToleranceNanos;
+            }
+            bucket[0] = (ahead < 0 ? now : bucket[0]) + refillIntervalNanos;
+            return 0;
+        }
+    }
+}
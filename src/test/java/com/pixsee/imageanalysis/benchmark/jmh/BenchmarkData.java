@@ -0,0 +1,56 @@
+package com.pixsee.imageanalysis.benchmark.jmh;
+
+import com.pixsee.imageanalysis.dto.ImageMetadataRequestDTO;
+import com.pixsee.imageanalysis.entity.ImageMetadata;
+
+import java.util.ArrayList;
+import java.util.List;
+
+final class BenchmarkData {
+
+    private static final String[] FILE_TYPES = {"jpg", "png", "gif", "webp"};
+
+    private BenchmarkData() {
+    }
+
+    static ImageMetadataRequestDTO requestDTO(int i) {
+        ImageMetadataRequestDTO requestDTO = new ImageMetadataRequestDTO();
+        requestDTO.setUserId(1L + i % 100);
+        requestDTO.setOriginalFilename("IMG_" + (100_000 + i) + "." + FILE_TYPES[i % FILE_TYPES.length]);
+        requestDTO.setWidth(640 + i % 3_200);
+        requestDTO.setHeight(480 + i % 2_400);
+        requestDTO.setFileSize(50_000L + i * 31L);
+        requestDTO.setFileType(FILE_TYPES[i % FILE_TYPES.length]);
+        return requestDTO;
+    }
+
+    static ImageMetadata entity(int i) {
+        ImageMetadataRequestDTO requestDTO = requestDTO(i);
+        ImageMetadata entity = new ImageMetadata();
+        entity.setId(1L + i);
+        entity.setUserId(requestDTO.getUserId());
+        entity.setOriginalFilename(requestDTO.getOriginalFilename());
+        entity.setUploadDate(1_700_000_000L + i);
+        entity.setWidth(requestDTO.getWidth());
+        entity.setHeight(requestDTO.getHeight());
+        entity.setFileSize(requestDTO.getFileSize());
+        entity.setFileType(requestDTO.getFileType());
+        return entity;
+    }
+
+    static List<ImageMetadataRequestDTO> requestDTOs(int size) {
+        List<ImageMetadataRequestDTO> requestDTOs = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            requestDTOs.add(requestDTO(i));
+        }
+        return requestDTOs;
+    }
+
+    static List<ImageMetadata> entities(int size) {
+        List<ImageMetadata> entities = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            entities.add(entity(i));
+        }
+        return entities;
+    }
+}
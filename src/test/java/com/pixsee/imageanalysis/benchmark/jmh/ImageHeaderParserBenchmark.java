@@ -0,0 +1,60 @@
+package com.pixsee.imageanalysis.benchmark.jmh;
+
+import com.pixsee.imageanalysis.analysis.ImageHeader;
+import com.pixsee.imageanalysis.analysis.ImageHeaderParser;
+import org.openjdk.jmh.annotations.*;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Header-only parsing with {@link ImageHeaderParser} against a full {@link ImageIO#read} decode of the same file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImageHeaderParserBenchmark {
+
+    @Param({"jpg", "png", "gif", "bmp"})
+    private String format;
+
+    @Param({"640x480", "4000x3000"})
+    private String dimensions;
+
+    private byte[] file;
+
+    @Setup
+    public void setUp() throws IOException {
+        String[] size = dimensions.split("x");
+        BufferedImage image = new BufferedImage(Integer.parseInt(size[0]), Integer.parseInt(size[1]), BufferedImage.TYPE_INT_RGB);
+        // Noise keeps the encoders from compressing the file down to almost nothing
+        Random random = new Random(42);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                image.setRGB(x, y, random.nextInt(0x1000000));
+            }
+        }
+        ImageIO.setUseCache(false);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, format, out);
+        file = out.toByteArray();
+    }
+
+    @Benchmark
+    public ImageHeader headerOnly() throws IOException {
+        return ImageHeaderParser.parse(new ByteArrayInputStream(file));
+    }
+
+    @Benchmark
+    public BufferedImage fullDecode() throws IOException {
+        return ImageIO.read(new ByteArrayInputStream(file));
+    }
+}
@@ -0,0 +1,72 @@
+package com.pixsee.imageanalysis.benchmark.jmh;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.pixsee.imageanalysis.controller.SmileMessageConverter;
+import com.pixsee.imageanalysis.dto.ImageMetadataRequestDTO;
+import com.pixsee.imageanalysis.dto.ImageMetadataResponseDTO;
+import com.pixsee.imageanalysis.mapper.ImageMetadataMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding 10k image listings and batch uploads as JSON and as Smile.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImageMetadataEncodingBenchmark {
+
+    private static final int SIZE = 10_000;
+
+    @Param({"json", "smile"})
+    private String format;
+
+    private ObjectWriter responseListWriter;
+    private ObjectReader responseListReader;
+    private ObjectReader requestListReader;
+    private List<ImageMetadataResponseDTO> responseDTOs;
+    private byte[] responseList;
+    private byte[] requestList;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = format.equals("smile")
+                ? new SmileMessageConverter(Jackson2ObjectMapperBuilder.json()).getObjectMapper()
+                : Jackson2ObjectMapperBuilder.json().build();
+        responseListWriter = objectMapper.writerFor(new TypeReference<List<ImageMetadataResponseDTO>>() {
+        });
+        responseListReader = objectMapper.readerFor(new TypeReference<List<ImageMetadataResponseDTO>>() {
+        });
+        requestListReader = objectMapper.readerFor(new TypeReference<List<ImageMetadataRequestDTO>>() {
+        });
+        responseDTOs = BenchmarkData.entities(SIZE).stream().map(ImageMetadataMapper::toResponseDTO).toList();
+        responseList = responseListWriter.writeValueAsBytes(responseDTOs);
+        requestList = objectMapper.writeValueAsBytes(BenchmarkData.requestDTOs(SIZE));
+        System.out.printf("%n%s: listing %,d bytes, batch upload %,d bytes%n", format, responseList.length, requestList.length);
+    }
+
+    @Benchmark
+    public byte[] writeResponseList() throws IOException {
+        return responseListWriter.writeValueAsBytes(responseDTOs);
+    }
+
+    @Benchmark
+    public List<ImageMetadataResponseDTO> readResponseList() throws IOException {
+        return responseListReader.readValue(responseList);
+    }
+
+    @Benchmark
+    public List<ImageMetadataRequestDTO> readRequestList() throws IOException {
+        return requestListReader.readValue(requestList);
+    }
+}
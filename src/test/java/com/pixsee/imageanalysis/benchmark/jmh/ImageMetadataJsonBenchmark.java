@@ -0,0 +1,85 @@
+package com.pixsee.imageanalysis.benchmark.jmh;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.pixsee.imageanalysis.dto.ImageMetadataRequestDTO;
+import com.pixsee.imageanalysis.dto.ImageMetadataResponseDTO;
+import com.pixsee.imageanalysis.mapper.ImageMetadataMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson reads of request bodies and writes of response bodies, using an {@link ObjectMapper} configured
+ * like the one Spring MVC uses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImageMetadataJsonBenchmark {
+
+    private static final ObjectMapper OBJECT_MAPPER = Jackson2ObjectMapperBuilder.json().build();
+
+    private ObjectWriter responseWriter;
+    private ObjectReader requestReader;
+    private ImageMetadataResponseDTO responseDTO;
+    private byte[] requestJson;
+
+    @State(Scope.Benchmark)
+    public static class Listing {
+
+        @Param({"1000", "100000"})
+        private int size;
+
+        private ObjectWriter responseListWriter;
+        private ObjectReader requestListReader;
+        private List<ImageMetadataResponseDTO> responseDTOs;
+        private byte[] requestListJson;
+
+        @Setup
+        public void setUp() throws IOException {
+            responseListWriter = OBJECT_MAPPER.writerFor(new TypeReference<List<ImageMetadataResponseDTO>>() {
+            });
+            requestListReader = OBJECT_MAPPER.readerFor(new TypeReference<List<ImageMetadataRequestDTO>>() {
+            });
+            responseDTOs = BenchmarkData.entities(size).stream().map(ImageMetadataMapper::toResponseDTO).toList();
+            requestListJson = OBJECT_MAPPER.writeValueAsBytes(BenchmarkData.requestDTOs(size));
+        }
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        responseWriter = OBJECT_MAPPER.writerFor(ImageMetadataResponseDTO.class);
+        requestReader = OBJECT_MAPPER.readerFor(ImageMetadataRequestDTO.class);
+        responseDTO = ImageMetadataMapper.toResponseDTO(BenchmarkData.entity(1));
+        requestJson = OBJECT_MAPPER.writeValueAsBytes(BenchmarkData.requestDTO(1));
+    }
+
+    @Benchmark
+    public byte[] writeResponse() throws IOException {
+        return responseWriter.writeValueAsBytes(responseDTO);
+    }
+
+    @Benchmark
+    public byte[] writeResponseList(Listing listing) throws IOException {
+        return listing.responseListWriter.writeValueAsBytes(listing.responseDTOs);
+    }
+
+    @Benchmark
+    public ImageMetadataRequestDTO readRequest() throws IOException {
+        return requestReader.readValue(requestJson);
+    }
+
+    @Benchmark
+    public List<ImageMetadataRequestDTO> readRequestList(Listing listing) throws IOException {
+        return listing.requestListReader.readValue(listing.requestListJson);
+    }
+}
@@ -0,0 +1,82 @@
+package com.pixsee.imageanalysis.benchmark.jmh;
+
+import com.pixsee.imageanalysis.dto.ImageMetadataRequestDTO;
+import com.pixsee.imageanalysis.dto.ImageMetadataResponseDTO;
+import com.pixsee.imageanalysis.entity.ImageMetadata;
+import com.pixsee.imageanalysis.mapper.ImageMetadataMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Mapping costs of {@link ImageMetadataMapper} for a single item and for whole listings, including the
+ * stream pipeline used by {@code ImageService.getImagesByUserId} and two alternatives to it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImageMetadataMapperBenchmark {
+
+    private ImageMetadataRequestDTO requestDTO;
+    private ImageMetadata entity;
+
+    @State(Scope.Benchmark)
+    public static class Listing {
+
+        @Param({"1000", "100000"})
+        private int size;
+
+        private List<ImageMetadata> entities;
+
+        @Setup
+        public void setUp() {
+            entities = BenchmarkData.entities(size);
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        requestDTO = BenchmarkData.requestDTO(1);
+        entity = BenchmarkData.entity(1);
+    }
+
+    @Benchmark
+    public ImageMetadata toEntity() {
+        return ImageMetadataMapper.toEntity(requestDTO);
+    }
+
+    @Benchmark
+    public ImageMetadataResponseDTO toResponseDTO() {
+        return ImageMetadataMapper.toResponseDTO(entity);
+    }
+
+    // The pipeline in ImageService.getImagesByUserId
+    @Benchmark
+    public List<ImageMetadataResponseDTO> listStreamCollectToList(Listing listing) {
+        return listing.entities.stream()
+                .map(ImageMetadataMapper::toResponseDTO)
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<ImageMetadataResponseDTO> listStreamToList(Listing listing) {
+        return listing.entities.stream()
+                .map(ImageMetadataMapper::toResponseDTO)
+                .toList();
+    }
+
+    @Benchmark
+    public List<ImageMetadataResponseDTO> listPresizedLoop(Listing listing) {
+        List<ImageMetadataResponseDTO> responseDTOs = new ArrayList<>(listing.entities.size());
+        for (ImageMetadata imageMetadata : listing.entities) {
+            responseDTOs.add(ImageMetadataMapper.toResponseDTO(imageMetadata));
+        }
+        return responseDTOs;
+    }
+}
@@ -0,0 +1,77 @@
+package com.pixsee.imageanalysis.benchmark.jmh;
+
+import com.pixsee.imageanalysis.dto.ImageMetadataRequestDTO;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bean Validation of {@link ImageMetadataRequestDTO}, as done for every {@code POST}/{@code PUT} body and
+ * for every item of a batch upload.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImageMetadataValidationBenchmark {
+
+    private ValidatorFactory validatorFactory;
+    private Validator validator;
+    private ImageMetadataRequestDTO validRequestDTO;
+    private ImageMetadataRequestDTO invalidRequestDTO;
+
+    @State(Scope.Benchmark)
+    public static class Listing {
+
+        @Param({"1000", "100000"})
+        private int size;
+
+        private List<ImageMetadataRequestDTO> requestDTOs;
+
+        @Setup
+        public void setUp() {
+            requestDTOs = BenchmarkData.requestDTOs(size);
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+        validRequestDTO = BenchmarkData.requestDTO(1);
+        invalidRequestDTO = BenchmarkData.requestDTO(2);
+        invalidRequestDTO.setOriginalFilename("");
+        invalidRequestDTO.setFileType(null);
+    }
+
+    @TearDown
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<ImageMetadataRequestDTO>> validateValid() {
+        return validator.validate(validRequestDTO);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<ImageMetadataRequestDTO>> validateInvalid() {
+        return validator.validate(invalidRequestDTO);
+    }
+
+    @Benchmark
+    public void validateList(Listing listing, Blackhole blackhole) {
+        for (ImageMetadataRequestDTO requestDTO : listing.requestDTOs) {
+            blackhole.consume(validator.validate(requestDTO));
+        }
+    }
+}
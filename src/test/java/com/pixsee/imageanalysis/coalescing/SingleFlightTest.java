@@ -0,0 +1,204 @@
+package com.pixsee.imageanalysis.coalescing;
+
+import com.pixsee.imageanalysis.exception.ServiceUnavailableException;
+import com.pixsee.imageanalysis.metrics.ImageMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    private static final int WAITERS = 8;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final AtomicInteger reads = new AtomicInteger();
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    private SingleFlight<Long, String> createSingleFlight(Duration waitTimeout) {
+        return new SingleFlight<>("test", waitTimeout, new ImageMetrics(new SimpleMeterRegistry()));
+    }
+
+    // Counts the read and, for the first one, blocks until the test releases it
+    private Supplier<String> blockingRead(String result) {
+        return () -> {
+            if (reads.incrementAndGet() == 1) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException(e);
+                }
+            }
+            return result;
+        };
+    }
+
+    private Future<String> startLeader(SingleFlight<Long, String> flights, Supplier<String> reader) throws InterruptedException {
+        Future<String> leader = executor.submit(() -> flights.execute(1L, reader));
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        return leader;
+    }
+
+    private static void awaitWaiting(SingleFlight<?, ?> flights, int waiters) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (flights.waiting() != waiters) {
+            assertTrue(System.nanoTime() < deadline, "Expected " + waiters + " waiters, found " + flights.waiting());
+            Thread.sleep(5);
+        }
+    }
+
+    // Happy Path - Callers Arriving While a Read Is in Flight Share Its Result
+    @Test
+    void testExecute_ConcurrentCallersShareOneRead() throws Exception {
+        SingleFlight<Long, String> flights = createSingleFlight(Duration.ofSeconds(10));
+        Supplier<String> reader = blockingRead("images");
+        Future<String> leader = startLeader(flights, reader);
+        List<Future<String>> waiters = new ArrayList<>();
+        for (int i = 0; i < WAITERS; i++) {
+            waiters.add(executor.submit(() -> flights.execute(1L, reader)));
+        }
+        awaitWaiting(flights, WAITERS);
+
+        release.countDown();
+        assertEquals("images", leader.get(10, TimeUnit.SECONDS));
+        for (Future<String> waiter : waiters) {
+            assertEquals("images", waiter.get(10, TimeUnit.SECONDS));
+        }
+        assertEquals(1, reads.get());
+        assertEquals(0, flights.waiting());
+
+        // The finished read is not joined
+        assertEquals("images", flights.execute(1L, reader));
+        assertEquals(2, reads.get());
+    }
+
+    // Happy Path - Reads of Different Keys Are Not Joined
+    @Test
+    void testExecute_DifferentKeys() throws Exception {
+        SingleFlight<Long, String> flights = createSingleFlight(Duration.ofSeconds(10));
+        Future<String> leader = startLeader(flights, blockingRead("first"));
+
+        assertEquals("second", flights.execute(2L, blockingRead("second")));
+        release.countDown();
+        assertEquals("first", leader.get(10, TimeUnit.SECONDS));
+        assertEquals(2, reads.get());
+    }
+
+    // Happy Path - A Forgotten Read Is Not Joined, but Still Completes for Its Waiters
+    @Test
+    void testForget_StartsNewRead() throws Exception {
+        SingleFlight<Long, String> flights = createSingleFlight(Duration.ofSeconds(10));
+        Supplier<String> reader = blockingRead("images");
+        Future<String> leader = startLeader(flights, reader);
+        Future<String> waiter = executor.submit(() -> flights.execute(1L, reader));
+        awaitWaiting(flights, 1);
+
+        flights.forget(1L);
+        assertEquals("images", flights.execute(1L, reader));
+        assertEquals(2, reads.get());
+
+        release.countDown();
+        assertEquals("images", leader.get(10, TimeUnit.SECONDS));
+        assertEquals("images", waiter.get(10, TimeUnit.SECONDS));
+    }
+
+    // Edge Case - A Failed Read Is Rethrown to Every Waiter and Not Retried by Them
+    @Test
+    void testExecute_FailureIsShared() throws Exception {
+        SingleFlight<Long, String> flights = createSingleFlight(Duration.ofSeconds(10));
+        Supplier<String> blocking = blockingRead("images");
+        Future<String> leader = startLeader(flights, () -> {
+            blocking.get();
+            throw new IllegalArgumentException("Query failed");
+        });
+        List<Future<String>> waiters = new ArrayList<>();
+        for (int i = 0; i < WAITERS; i++) {
+            waiters.add(executor.submit(() -> flights.execute(1L, blocking)));
+        }
+        awaitWaiting(flights, WAITERS);
+
+        release.countDown();
+        ExecutionException leaderError = assertThrows(ExecutionException.class, () -> leader.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalArgumentException.class, leaderError.getCause());
+        for (Future<String> waiter : waiters) {
+            ExecutionException error = assertThrows(ExecutionException.class, () -> waiter.get(10, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalArgumentException.class, error.getCause());
+        }
+        assertEquals(1, reads.get());
+    }
+
+    // Edge Case - A Waiter That Times Out Stops Waiting, and the Read Goes On
+    @Test
+    void testExecute_WaiterTimesOut() throws Exception {
+        SingleFlight<Long, String> flights = createSingleFlight(Duration.ofMillis(50));
+        Supplier<String> reader = blockingRead("images");
+        Future<String> leader = startLeader(flights, reader);
+
+        assertThrows(ServiceUnavailableException.class, () -> flights.execute(1L, reader));
+        assertEquals(0, flights.waiting());
+
+        release.countDown();
+        assertEquals("images", leader.get(10, TimeUnit.SECONDS));
+        assertEquals(1, reads.get());
+    }
+
+    // Edge Case - An Interrupted Waiter Stops Waiting and Keeps Its Interrupt Status
+    @Test
+    void testExecute_WaiterInterrupted() throws Exception {
+        SingleFlight<Long, String> flights = createSingleFlight(Duration.ofSeconds(10));
+        Supplier<String> reader = blockingRead("images");
+        Future<String> leader = startLeader(flights, reader);
+        AtomicReference<Thread> waiterThread = new AtomicReference<>();
+        Future<Boolean> waiter = executor.submit(() -> {
+            waiterThread.set(Thread.currentThread());
+            assertThrows(IllegalStateException.class, () -> flights.execute(1L, reader));
+            return Thread.interrupted();
+        });
+        awaitWaiting(flights, 1);
+
+        waiterThread.get().interrupt();
+        assertTrue(waiter.get(10, TimeUnit.SECONDS));
+        assertEquals(0, flights.waiting());
+        release.countDown();
+        assertEquals("images", leader.get(10, TimeUnit.SECONDS));
+        assertEquals(1, reads.get());
+    }
+
+    // Edge Case - When the Caller Running the Read Is Interrupted, a Waiter Runs It Instead
+    @Test
+    void testExecute_LeaderInterrupted() throws Exception {
+        SingleFlight<Long, String> flights = createSingleFlight(Duration.ofSeconds(10));
+        Supplier<String> reader = blockingRead("images");
+        Future<String> leader = startLeader(flights, reader);
+        Future<String> waiter = executor.submit(() -> flights.execute(1L, reader));
+        awaitWaiting(flights, 1);
+
+        leader.cancel(true);
+        assertEquals("images", waiter.get(10, TimeUnit.SECONDS));
+        assertEquals(2, reads.get());
+        assertEquals(0, flights.waiting());
+    }
+}
@@ -0,0 +1,119 @@
+package com.pixsee.imageanalysis.controller;
+
+import com.pixsee.imageanalysis.dto.ImageBatchResponseDTO;
+import com.pixsee.imageanalysis.dto.ImageMetadataRequestDTO;
+import com.pixsee.imageanalysis.dto.ImageMetadataResponseDTO;
+import com.pixsee.imageanalysis.repository.ImageRepository;
+import com.pixsee.imageanalysis.repository.ImageUserFileTypeStatsRepository;
+import com.pixsee.imageanalysis.repository.ImageUserStatsRepository;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ImageSmileTest {
+
+    private static final long USER_ID = 101L;
+    private static final MediaType SMILE = MediaType.valueOf("application/x-jackson-smile");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private SmileMessageConverter smileMessageConverter;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ImageRepository imageRepository;
+
+    @Autowired
+    private ImageUserStatsRepository imageUserStatsRepository;
+
+    @Autowired
+    private ImageUserFileTypeStatsRepository imageUserFileTypeStatsRepository;
+
+    @AfterEach
+    void tearDown() {
+        imageRepository.deleteAllInBatch();
+        imageUserStatsRepository.deleteAllInBatch();
+        imageUserFileTypeStatsRepository.deleteAllInBatch();
+    }
+
+    private static List<ImageMetadataRequestDTO> createImageMetadataRequestDTOs(int count) {
+        List<ImageMetadataRequestDTO> requestDTOs = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ImageMetadataRequestDTO requestDTO = new ImageMetadataRequestDTO();
+            requestDTO.setUserId(USER_ID);
+            requestDTO.setOriginalFilename("image-" + i + ".jpg");
+            requestDTO.setWidth(800 + i);
+            requestDTO.setHeight(600 + i);
+            requestDTO.setFileSize(12345L + i);
+            requestDTO.setFileType(i % 2 == 0 ? "jpg" : "png");
+            requestDTOs.add(requestDTO);
+        }
+        return requestDTOs;
+    }
+
+    // Happy Path - Uploading a Batch and Listing It in Smile
+    @Test
+    void testBatchAndList_Smile() throws Exception {
+        ObjectMapper smileMapper = smileMessageConverter.getObjectMapper();
+        byte[] batchResponse = mockMvc.perform(post("/images/batch")
+                        .contentType(SMILE)
+                        .accept(SMILE)
+                        .content(smileMapper.writeValueAsBytes(createImageMetadataRequestDTOs(50))))
+                .andExpect(status().isCreated())
+                .andExpect(content().contentType(SMILE))
+                .andReturn().getResponse().getContentAsByteArray();
+        assertEquals(50, smileMapper.readValue(batchResponse, ImageBatchResponseDTO.class).getCreated());
+
+        byte[] smileList = mockMvc.perform(get("/images").param("userId", String.valueOf(USER_ID)).accept(SMILE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(SMILE))
+                .andReturn().getResponse().getContentAsByteArray();
+        byte[] jsonList = mockMvc.perform(get("/images").param("userId", String.valueOf(USER_ID)))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        TypeReference<List<ImageMetadataResponseDTO>> listType = new TypeReference<>() {
+        };
+        List<ImageMetadataResponseDTO> images = smileMapper.readValue(smileList, listType);
+        assertEquals(50, images.size());
+        assertEquals(objectMapper.readValue(jsonList, listType), images);
+        assertTrue(smileList.length < jsonList.length / 2, smileList.length + " vs " + jsonList.length);
+    }
+
+    // Negative Path - Errors Are Encoded Like the Requested Body
+    @Test
+    void testListImagesPage_InvalidLimit_Smile() throws Exception {
+        byte[] error = mockMvc.perform(get("/images").param("userId", String.valueOf(USER_ID)).param("limit", "0").accept(SMILE))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().contentType(SMILE))
+                .andReturn().getResponse().getContentAsByteArray();
+        assertTrue(smileMessageConverter.getObjectMapper().readTree(error).has("errors"));
+
+        mockMvc.perform(get("/images").param("userId", String.valueOf(USER_ID)).param("limit", "0"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors[0]").exists());
+    }
+}
@@ -0,0 +1,46 @@
+package com.pixsee.imageanalysis.dedup;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BloomFilterTest {
+
+    // Happy Path - Every Inserted Key Is Reported As Present
+    @Test
+    void testMightContain_NoFalseNegatives() {
+        BloomFilter filter = BloomFilter.create(10_000, 0.01);
+        SplittableRandom random = new SplittableRandom(1);
+        long[] keys = new long[20_000];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = random.nextLong();
+        }
+        for (int i = 0; i < keys.length; i += 2) {
+            filter.put(keys[i], keys[i + 1] | 1L);
+        }
+
+        for (int i = 0; i < keys.length; i += 2) {
+            assertTrue(filter.mightContain(keys[i], keys[i + 1] | 1L));
+        }
+    }
+
+    // Happy Path - False Positive Rate Stays Close To The Configured Probability
+    @Test
+    void testMightContain_FalsePositiveRate() {
+        BloomFilter filter = BloomFilter.create(10_000, 0.01);
+        SplittableRandom random = new SplittableRandom(2);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put(random.nextLong(), random.nextLong() | 1L);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain(random.nextLong(), random.nextLong() | 1L)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 2_000, "false positives: " + falsePositives);
+    }
+}
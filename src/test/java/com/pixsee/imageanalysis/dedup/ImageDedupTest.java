@@ -0,0 +1,172 @@
+package com.pixsee.imageanalysis.dedup;
+
+import com.pixsee.imageanalysis.entity.ImageMetadata;
+import com.pixsee.imageanalysis.repository.ImageRepository;
+import com.pixsee.imageanalysis.repository.ImageUserFileTypeStatsRepository;
+import com.pixsee.imageanalysis.repository.ImageUserStatsRepository;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+
+import static org.hamcrest.Matchers.contains;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ImageDedupTest {
+
+    private static final String IMAGE_JSON = "{\"userId\":%d,\"originalFilename\":\"image.jpg\",\"width\":800,"
+            + "\"height\":600,\"fileSize\":12345,\"fileType\":\"jpg\",\"contentHash\":\"%s\"}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ImageDedupIndex imageDedupIndex;
+
+    @Autowired
+    private ImageRepository imageRepository;
+
+    @Autowired
+    private ImageUserStatsRepository imageUserStatsRepository;
+
+    @Autowired
+    private ImageUserFileTypeStatsRepository imageUserFileTypeStatsRepository;
+
+    @AfterEach
+    void tearDown() {
+        imageRepository.deleteAllInBatch();
+        imageUserStatsRepository.deleteAllInBatch();
+        imageUserFileTypeStatsRepository.deleteAllInBatch();
+    }
+
+    private static byte[] png(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(width / 2, height / 2, 0x3366FF);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertTrue(ImageIO.write(image, "png", out));
+        return out.toByteArray();
+    }
+
+    private static String sha256(byte[] content) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+    }
+
+    private ResultActions upload(long userId, byte[] content) throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "photo.png", "image/png", content);
+        MvcResult result = mockMvc.perform(multipart("/images/upload").file(file).param("userId", String.valueOf(userId)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(result));
+    }
+
+    private ImageMetadata saveDirectly(long userId, String contentHash) {
+        ImageMetadata imageMetadata = new ImageMetadata();
+        imageMetadata.setUserId(userId);
+        imageMetadata.setOriginalFilename("copy.jpg");
+        imageMetadata.setUploadDate(0L);
+        imageMetadata.setWidth(800);
+        imageMetadata.setHeight(600);
+        imageMetadata.setFileSize(12345L);
+        imageMetadata.setFileType("jpg");
+        imageMetadata.setContentHash(contentHash);
+        return imageRepository.save(imageMetadata);
+    }
+
+    // Happy Path - Uploading The Same File Again Returns The Existing Image
+    @Test
+    void testUpload_DuplicateLinked() throws Exception {
+        byte[] content = png(64, 48);
+        String contentHash = sha256(content);
+
+        Integer id = JsonPath.read(upload(51L, content)
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.contentHash").value(contentHash))
+                .andReturn().getResponse().getContentAsString(), "$.id");
+
+        upload(51L, content)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(id));
+        // The same file uploaded by another user is not a duplicate
+        upload(52L, content).andExpect(status().isCreated());
+
+        assertEquals(2, imageRepository.count());
+    }
+
+    // Happy Path - A Hash Saved In A Batch Is Found By Later Saves
+    @Test
+    void testSaveImageMetadataBatch_HashLinked() throws Exception {
+        String contentHash = sha256(new byte[]{4});
+        Integer id = JsonPath.read(mockMvc.perform(post("/images/batch").contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + String.format(IMAGE_JSON, 56L, contentHash) + "]"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString(), "$.results[0].image.id");
+
+        assertTrue(imageDedupIndex.mightContain(56L, contentHash));
+        mockMvc.perform(post("/images").contentType(MediaType.APPLICATION_JSON).content(String.format(IMAGE_JSON, 56L, contentHash)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(id));
+        assertEquals(1, imageRepository.count());
+    }
+
+    // Negative Path - Content Hash That Is Not A SHA-256 Digest
+    @Test
+    void testSaveImageMetadata_InvalidContentHash() throws Exception {
+        mockMvc.perform(post("/images").contentType(MediaType.APPLICATION_JSON).content(String.format(IMAGE_JSON, 51L, "abc")))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors[0]").value("Content Hash must be a lowercase hex SHA-256 digest"));
+    }
+
+    // Happy Path - Duplicates Report Groups Images By Content Hash
+    @Test
+    void testListDuplicateImages_Success() throws Exception {
+        String duplicated = sha256(new byte[]{1});
+        ImageMetadata first = saveDirectly(53L, duplicated);
+        ImageMetadata second = saveDirectly(53L, duplicated);
+        saveDirectly(53L, sha256(new byte[]{2}));
+        saveDirectly(54L, duplicated);
+
+        mockMvc.perform(get("/images/duplicates").param("userId", "53"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].contentHash").value(duplicated))
+                .andExpect(jsonPath("$[0].fileSize").value(12345))
+                .andExpect(jsonPath("$[0].imageIds", contains(first.getId().intValue(), second.getId().intValue())));
+    }
+
+    // Happy Path - Rebuilding The Index Picks Up Images Saved Without It
+    @Test
+    void testRebuild_LoadsExistingHashes() throws Exception {
+        String contentHash = sha256(new byte[]{3});
+        saveDirectly(55L, contentHash);
+        assertFalse(imageDedupIndex.mightContain(55L, contentHash));
+
+        imageDedupIndex.rebuild();
+
+        assertTrue(imageDedupIndex.mightContain(55L, contentHash));
+        mockMvc.perform(post("/images").contentType(MediaType.APPLICATION_JSON).content(String.format(IMAGE_JSON, 55L, contentHash)))
+                .andExpect(status().isOk());
+    }
+}
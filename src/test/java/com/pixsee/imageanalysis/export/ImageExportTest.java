@@ -0,0 +1,172 @@
+package com.pixsee.imageanalysis.export;
+
+import com.pixsee.imageanalysis.dto.ImageMetadataRequestDTO;
+import com.pixsee.imageanalysis.repository.ImageRepository;
+import com.pixsee.imageanalysis.service.ImageService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Small row groups and several threads, so that an export is split into ranges and each range into groups
+@SpringBootTest(properties = {"image.export.row-group-size=100", "image.export.threads=4"})
+@AutoConfigureMockMvc
+class ImageExportTest {
+
+    private static final long USER_ID = 141L;
+    private static final int IMAGE_COUNT = 1_000;
+    private static final long FIRST_UPLOAD_DATE = 1_700_000_000L;
+    private static final List<String> FILE_TYPES = List.of("jpg", "png", "gif");
+
+    private static final String SELECT_SQL = "SELECT id, user_id, original_filename, upload_date, width, height, "
+            + "file_size, file_type, content_hash, perceptual_hash, version FROM image_metadata";
+
+    @Autowired
+    private ImageService imageService;
+
+    @Autowired
+    private ImageRepository imageRepository;
+
+    @Autowired
+    private ImageExporter imageExporter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        List<ImageMetadataRequestDTO> batch = new ArrayList<>();
+        for (int i = 0; i < IMAGE_COUNT; i++) {
+            ImageMetadataRequestDTO requestDTO = new ImageMetadataRequestDTO();
+            requestDTO.setUserId(USER_ID + i % 5);
+            requestDTO.setOriginalFilename("image-" + i + "." + FILE_TYPES.get(i % 3));
+            requestDTO.setWidth(800 + i);
+            requestDTO.setHeight(600);
+            requestDTO.setFileSize(12345L + i);
+            requestDTO.setFileType(FILE_TYPES.get(i % 3));
+            batch.add(requestDTO);
+        }
+        imageService.saveImageMetadataBatch(batch);
+        // One upload a minute, and content hashes on every other image, so the nullable columns hold both
+        List<Long> ids = jdbcTemplate.queryForList("SELECT id FROM image_metadata ORDER BY id", Long.class);
+        jdbcTemplate.batchUpdate("UPDATE image_metadata SET upload_date = ? WHERE id = ?", ids, 100,
+                (statement, id) -> {
+                    statement.setLong(1, FIRST_UPLOAD_DATE + ids.indexOf(id) * 60L);
+                    statement.setLong(2, id);
+                });
+        jdbcTemplate.update("UPDATE image_metadata SET content_hash = LPAD(CAST(id AS VARCHAR), 64, 'a'), "
+                + "perceptual_hash = -id WHERE MOD(id, 2) = 0");
+    }
+
+    @AfterEach
+    void tearDown() {
+        imageRepository.deleteAllInBatch();
+    }
+
+    // Happy Path - Every row comes back exactly once with all of its columns, across several row groups
+    @Test
+    void testExport_RoundTripsEveryRow() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long exported = imageExporter.export(null, null, out);
+
+        assertEquals(IMAGE_COUNT, exported);
+        List<List<ImageExportRow>> groups = readGroups(new ByteArrayInputStream(out.toByteArray()));
+        assertTrue(groups.size() >= IMAGE_COUNT / 100, "only " + groups.size() + " row groups");
+        assertEquals(queryRows(""), sorted(groups));
+    }
+
+    // Happy Path - A time range exports only the images uploaded within it, both bounds included
+    @Test
+    void testExport_FiltersByUploadDate() throws IOException {
+        long from = FIRST_UPLOAD_DATE + 60 * 60;
+        long to = FIRST_UPLOAD_DATE + 4 * 60 * 60;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        imageExporter.export(from, to, out);
+
+        List<ImageExportRow> expected = queryRows(" WHERE upload_date BETWEEN " + from + " AND " + to);
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, sorted(readGroups(new ByteArrayInputStream(out.toByteArray()))));
+    }
+
+    // Happy Path - The endpoint streams the export as an attachment
+    @Test
+    void testExportEndpoint_StreamsExport() throws Exception {
+        MvcResult result = mockMvc.perform(get("/images/export")).andReturn();
+        byte[] body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"images.pxic\""))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        assertEquals(queryRows(""), sorted(readGroups(new ByteArrayInputStream(body))));
+    }
+
+    // Negative Path - A time range that ends before it starts is rejected
+    @Test
+    void testExportEndpoint_InvertedRange_ReturnsBadRequest() throws Exception {
+        mockMvc.perform(get("/images/export").param("uploadedFrom", "200").param("uploadedTo", "100"))
+                .andExpect(status().isBadRequest());
+    }
+
+    // Happy Path - The job leaves a complete file and no partial one
+    @Test
+    void testExportToDirectory_WritesCompleteFile() throws IOException {
+        Path file = imageExporter.exportToDirectory();
+
+        try (InputStream in = Files.newInputStream(file)) {
+            assertEquals(queryRows(""), sorted(readGroups(in)));
+        }
+        try (Stream<Path> files = Files.list(file.getParent())) {
+            assertTrue(files.noneMatch(path -> path.toString().endsWith(".partial")));
+        }
+    }
+
+    private List<ImageExportRow> queryRows(String where) {
+        return jdbcTemplate.query(SELECT_SQL + where + " ORDER BY id", (resultSet, row) -> new ImageExportRow(
+                resultSet.getLong(1), resultSet.getLong(2), resultSet.getString(3), resultSet.getLong(4),
+                resultSet.getInt(5), resultSet.getInt(6), resultSet.getLong(7), resultSet.getString(8),
+                resultSet.getString(9), resultSet.getObject(10, Long.class), resultSet.getLong(11)));
+    }
+
+    private static List<List<ImageExportRow>> readGroups(InputStream in) throws IOException {
+        ImageExportReader reader = new ImageExportReader(in);
+        List<List<ImageExportRow>> groups = new ArrayList<>();
+        for (List<ImageExportRow> group = reader.nextRowGroup(); group != null; group = reader.nextRowGroup()) {
+            groups.add(group);
+        }
+        return groups;
+    }
+
+    private static List<ImageExportRow> sorted(List<List<ImageExportRow>> groups) {
+        return groups.stream()
+                .flatMap(List::stream)
+                .sorted(Comparator.comparingLong(ImageExportRow::id))
+                .toList();
+    }
+}
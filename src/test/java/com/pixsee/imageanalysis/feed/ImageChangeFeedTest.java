@@ -0,0 +1,236 @@
+package com.pixsee.imageanalysis.feed;
+
+import com.pixsee.imageanalysis.dto.ImageChangeBatchDTO;
+import com.pixsee.imageanalysis.dto.ImageChangeEventDTO;
+import com.pixsee.imageanalysis.dto.ImageMetadataRequestDTO;
+import com.pixsee.imageanalysis.entity.ImageChangeType;
+import com.pixsee.imageanalysis.repository.ImageRepository;
+import com.pixsee.imageanalysis.repository.ImageUserFileTypeStatsRepository;
+import com.pixsee.imageanalysis.repository.ImageUserStatsRepository;
+import com.pixsee.imageanalysis.service.ImageService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Without retention, pruning removes everything but the newest event
+@SpringBootTest(properties = "image.changes.retention=0s")
+@AutoConfigureMockMvc
+class ImageChangeFeedTest {
+
+    private static final long USER_ID = 91L;
+    private static final int WRITERS = 8;
+    private static final int ITERATIONS = 25;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ImageService imageService;
+
+    @Autowired
+    private ImageChangeFeed imageChangeFeed;
+
+    @Autowired
+    private ImageChangeSequencer imageChangeSequencer;
+
+    @Autowired
+    private ImageChangePruner imageChangePruner;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ImageRepository imageRepository;
+
+    @Autowired
+    private ImageUserStatsRepository imageUserStatsRepository;
+
+    @Autowired
+    private ImageUserFileTypeStatsRepository imageUserFileTypeStatsRepository;
+
+    @AfterEach
+    void tearDown() {
+        imageRepository.deleteAllInBatch();
+        imageUserStatsRepository.deleteAllInBatch();
+        imageUserFileTypeStatsRepository.deleteAllInBatch();
+    }
+
+    private static ImageMetadataRequestDTO createImageMetadataRequestDTO(String originalFilename) {
+        return createImageMetadataRequestDTO(USER_ID, originalFilename);
+    }
+
+    private static ImageMetadataRequestDTO createImageMetadataRequestDTO(long userId, String originalFilename) {
+        ImageMetadataRequestDTO requestDTO = new ImageMetadataRequestDTO();
+        requestDTO.setUserId(userId);
+        requestDTO.setOriginalFilename(originalFilename);
+        requestDTO.setWidth(800);
+        requestDTO.setHeight(600);
+        requestDTO.setFileSize(12345L);
+        requestDTO.setFileType("jpg");
+        return requestDTO;
+    }
+
+    private long currentPosition() throws Exception {
+        imageChangeSequencer.sequence();
+        return imageChangeFeed.getChanges(null, 1, Duration.ZERO).get().getNextSince();
+    }
+
+    // Happy Path - Concurrent Writes Are Each Delivered Exactly Once, in Order per Image
+    @Test
+    void testGetChanges_ConcurrentWrites() throws Exception {
+        long since = currentPosition();
+        AtomicInteger writes = new AtomicInteger();
+        ExecutorService writers = Executors.newFixedThreadPool(WRITERS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int writer = 0; writer < WRITERS; writer++) {
+            // One user per writer, so the writers do not queue up on the same stats rows
+            long userId = USER_ID + writer;
+            futures.add(writers.submit(() -> {
+                for (int i = 0; i < ITERATIONS; i++) {
+                    Long id = imageService.saveImageMetadata(createImageMetadataRequestDTO(userId, "image.jpg")).getId();
+                    imageService.updateImageMetadata(id, createImageMetadataRequestDTO(userId, "renamed.jpg"));
+                    imageService.saveImageMetadataBatch(List.of(createImageMetadataRequestDTO(userId, "a.jpg"),
+                            createImageMetadataRequestDTO(userId, "b.jpg")));
+                    imageService.deleteImage(id);
+                    writes.addAndGet(5);
+                }
+                return null;
+            }));
+        }
+
+        // Reads while the writers run, each batch resuming from the previous one
+        List<ImageChangeEventDTO> events = new ArrayList<>();
+        long position = since;
+        while (true) {
+            boolean writersDone = futures.stream().allMatch(Future::isDone);
+            long last = writersDone ? imageChangeSequencer.sequence() : Long.MAX_VALUE;
+            ImageChangeBatchDTO batch = imageChangeFeed.getChanges(position, 50, Duration.ofMillis(100)).get();
+            events.addAll(batch.getEvents());
+            position = batch.getNextSince();
+            if (position == last) {
+                break;
+            }
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        writers.shutdown();
+
+        assertEquals(writes.get(), events.size());
+        Set<String> seen = new HashSet<>();
+        Map<Long, List<ImageChangeType>> typesByImage = new HashMap<>();
+        for (int i = 0; i < events.size(); i++) {
+            ImageChangeEventDTO event = events.get(i);
+            assertEquals(since + i + 1, event.getPosition());
+            assertTrue(seen.add(event.getImageId() + ":" + event.getType() + ":" + event.getVersion()));
+            typesByImage.computeIfAbsent(event.getImageId(), id -> new ArrayList<>()).add(event.getType());
+        }
+        for (List<ImageChangeType> types : typesByImage.values()) {
+            assertTrue(types.equals(List.of(ImageChangeType.CREATED))
+                    || types.equals(List.of(ImageChangeType.CREATED, ImageChangeType.UPDATED, ImageChangeType.DELETED)), types::toString);
+        }
+    }
+
+    // Happy Path - The Event Carries the Image's Current State
+    @Test
+    void testGetChanges_EmbedsImage() throws Exception {
+        long since = currentPosition();
+        Long id = imageService.saveImageMetadata(createImageMetadataRequestDTO("image.jpg")).getId();
+        imageService.updateImageMetadata(id, createImageMetadataRequestDTO("renamed.jpg"));
+        imageChangeSequencer.sequence();
+
+        List<ImageChangeEventDTO> events = imageChangeFeed.getChanges(since, 10, Duration.ZERO).get().getEvents();
+
+        assertEquals(2, events.size());
+        assertEquals(ImageChangeType.CREATED, events.get(0).getType());
+        assertEquals(0L, events.get(0).getVersion());
+        assertEquals(1L, events.get(1).getVersion());
+        assertEquals("renamed.jpg", events.get(1).getImage().getOriginalFilename());
+    }
+
+    // Negative Path - A Rolled Back Write Publishes Nothing
+    @Test
+    void testGetChanges_RolledBackWrite() throws Exception {
+        long since = currentPosition();
+        transactionTemplate.executeWithoutResult(status -> {
+            imageService.saveImageMetadata(createImageMetadataRequestDTO("image.jpg"));
+            status.setRollbackOnly();
+        });
+
+        assertEquals(since, currentPosition());
+        assertTrue(imageChangeFeed.getChanges(since, 10, Duration.ZERO).get().getEvents().isEmpty());
+    }
+
+    // Happy Path - A Waiting Request Is Answered When a Write Commits
+    @Test
+    void testGetChanges_LongPoll() throws Exception {
+        long since = currentPosition();
+        MvcResult pending = mockMvc.perform(get("/images/changes")
+                        .param("since", String.valueOf(since))
+                        .param("wait", "10"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        Long id = imageService.saveImageMetadata(createImageMetadataRequestDTO("image.jpg")).getId();
+
+        mockMvc.perform(asyncDispatch(pending))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.events[0].type").value("CREATED"))
+                .andExpect(jsonPath("$.events[0].image.id").value(id))
+                .andExpect(jsonPath("$.nextSince").value(since + 1));
+    }
+
+    // Negative Path - Resuming From a Pruned Position
+    @Test
+    void testGetChanges_Pruned() throws Exception {
+        long since = currentPosition();
+        Long id = imageService.saveImageMetadata(createImageMetadataRequestDTO("image.jpg")).getId();
+        imageService.deleteImage(id);
+        imageChangeSequencer.sequence();
+        Thread.sleep(5);
+
+        assertTrue(imageChangePruner.prune() > 0);
+
+        // The newest event is kept, so the consumer learns that it missed the ones before it
+        mockMvc.perform(get("/images/changes").param("since", String.valueOf(since)))
+                .andExpect(status().isGone())
+                .andExpect(jsonPath("$.errors[0]").exists());
+        mockMvc.perform(asyncDispatch(mockMvc.perform(get("/images/changes").param("since", String.valueOf(since + 1))).andReturn()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.events[0].type").value("DELETED"))
+                .andExpect(jsonPath("$.events[0].image").doesNotExist());
+    }
+
+    // Negative Path - Invalid Limit or Wait
+    @Test
+    void testGetChanges_InvalidRequest() throws Exception {
+        mockMvc.perform(get("/images/changes").param("since", "0").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/images/changes").param("since", "0").param("wait", "3600"))
+                .andExpect(status().isBadRequest());
+    }
+}
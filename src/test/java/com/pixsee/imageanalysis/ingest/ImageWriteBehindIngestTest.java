@@ -0,0 +1,131 @@
+package com.pixsee.imageanalysis.ingest;
+
+import com.pixsee.imageanalysis.dto.ImageMetadataRequestDTO;
+import com.pixsee.imageanalysis.dto.ImageMetadataResponseDTO;
+import com.pixsee.imageanalysis.repository.ImageRepository;
+import com.pixsee.imageanalysis.repository.ImageUserFileTypeStatsRepository;
+import com.pixsee.imageanalysis.repository.ImageUserStatsRepository;
+import com.pixsee.imageanalysis.service.ImageService;
+import com.pixsee.imageanalysis.service.ImageStatsService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ImageWriteBehindIngestTest {
+
+    private static final long USER_ID = 11L;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ImageWriteBehindQueue imageWriteBehindQueue;
+
+    @Autowired
+    private ImageService imageService;
+
+    @Autowired
+    private ImageStatsService imageStatsService;
+
+    @Autowired
+    private ImageRepository imageRepository;
+
+    @Autowired
+    private ImageUserStatsRepository imageUserStatsRepository;
+
+    @Autowired
+    private ImageUserFileTypeStatsRepository imageUserFileTypeStatsRepository;
+
+    @AfterEach
+    void tearDown() {
+        imageRepository.deleteAllInBatch();
+        imageUserStatsRepository.deleteAllInBatch();
+        imageUserFileTypeStatsRepository.deleteAllInBatch();
+    }
+
+    private ImageMetadataRequestDTO createImageMetadataRequestDTO(long fileSize) {
+        ImageMetadataRequestDTO requestDTO = new ImageMetadataRequestDTO();
+        requestDTO.setUserId(USER_ID);
+        requestDTO.setOriginalFilename("image.jpg");
+        requestDTO.setWidth(800);
+        requestDTO.setHeight(600);
+        requestDTO.setFileSize(fileSize);
+        requestDTO.setFileType("jpg");
+        return requestDTO;
+    }
+
+    private void awaitPersisted(Long id) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (imageWriteBehindQueue.getStatus(id).getStatus() != IngestStatus.PERSISTED) {
+            assertTrue(System.currentTimeMillis() < deadline, "Image " + id + " was not persisted in time");
+            Thread.sleep(10);
+        }
+    }
+
+    // Happy Path - Queued Images Share The Id Sequence With Synchronous Saves And Update Stats
+    @Test
+    void testEnqueue_PersistedWithStats() throws InterruptedException {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 1; i <= 120; i++) {
+            ids.add(imageWriteBehindQueue.enqueue(createImageMetadataRequestDTO(i)).getId());
+        }
+        ids.add(imageService.saveImageMetadata(createImageMetadataRequestDTO(1_000L)).getId());
+
+        for (Long id : ids) {
+            awaitPersisted(id);
+        }
+
+        Set<Long> distinctIds = new HashSet<>(ids);
+        assertEquals(ids.size(), distinctIds.size());
+        assertEquals(121, imageRepository.findByUserId(USER_ID).size());
+        assertEquals(121, imageStatsService.getStats(USER_ID).getImageCount());
+        assertTrue(imageStatsService.checkConsistency(USER_ID).isConsistent());
+        ImageMetadataResponseDTO cached = imageService.getImageById(ids.get(0));
+        assertEquals(1L, cached.getFileSize());
+    }
+
+    // Happy Path - Prefer: respond-async Returns 202 With A Status Location
+    @Test
+    void testUploadImage_RespondAsync() throws Exception {
+        String location = mockMvc.perform(post("/images")
+                        .header("Prefer", "respond-async")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userId\":11,\"originalFilename\":\"a.png\",\"width\":10,\"height\":20,\"fileSize\":30,\"fileType\":\"png\"}"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().exists("Location"))
+                .andExpect(jsonPath("$.id").isNumber())
+                .andReturn().getResponse().getHeader("Location");
+
+        Long id = Long.valueOf(location.split("/")[2]);
+        awaitPersisted(id);
+
+        mockMvc.perform(get(location))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("PERSISTED"));
+    }
+
+    // Negative Path - Status Of An Unknown Image
+    @Test
+    void testGetStatus_NotFound() throws Exception {
+        mockMvc.perform(get("/images/987654321/status"))
+                .andExpect(status().isNotFound());
+    }
+}
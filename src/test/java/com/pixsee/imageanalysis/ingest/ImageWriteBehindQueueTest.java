@@ -0,0 +1,115 @@
+package com.pixsee.imageanalysis.ingest;
+
+import com.pixsee.imageanalysis.dto.ImageMetadataRequestDTO;
+import com.pixsee.imageanalysis.dto.ImageMetadataResponseDTO;
+import com.pixsee.imageanalysis.entity.ImageMetadata;
+import com.pixsee.imageanalysis.exception.TooManyRequestsException;
+import com.pixsee.imageanalysis.service.ImageService;
+import com.pixsee.imageanalysis.shard.ShardRouting;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class ImageWriteBehindQueueTest {
+
+    private final ImageService imageService = mock(ImageService.class);
+    private final ImageIdAllocator imageIdAllocator = mock(ImageIdAllocator.class);
+    private final ShardRouting shardRouting = new ShardRouting(false, List.of(), Duration.ofSeconds(5), null, null);
+    private final AtomicLong nextId = new AtomicLong(1);
+
+    private ImageWriteBehindQueue createQueue(int queueCapacity) {
+        when(imageIdAllocator.allocate(any(ImageMetadata.class))).thenAnswer(invocation -> nextId.getAndIncrement());
+        return new ImageWriteBehindQueue(imageService, imageIdAllocator, shardRouting, new SimpleMeterRegistry(), true,
+                queueCapacity, 10, Duration.ofMillis(5), Duration.ofSeconds(5));
+    }
+
+    private ImageMetadataRequestDTO createImageMetadataRequestDTO() {
+        ImageMetadataRequestDTO requestDTO = new ImageMetadataRequestDTO();
+        requestDTO.setUserId(1L);
+        requestDTO.setOriginalFilename("image.jpg");
+        requestDTO.setWidth(800);
+        requestDTO.setHeight(600);
+        requestDTO.setFileSize(2048L);
+        requestDTO.setFileType("jpg");
+        return requestDTO;
+    }
+
+    // Happy Path - Queued Images Are Written And Drained On Stop
+    @Test
+    void testEnqueue_WrittenBeforeStopReturns() {
+        ImageWriteBehindQueue queue = createQueue(100);
+        queue.start();
+
+        ImageMetadataResponseDTO accepted = queue.enqueue(createImageMetadataRequestDTO());
+        queue.enqueue(createImageMetadataRequestDTO());
+        queue.stop();
+
+        assertEquals(1L, accepted.getId());
+        verify(imageService, atLeastOnce()).saveImageMetadataWithAssignedIds(anyList());
+        when(imageService.imageExists(1L)).thenReturn(true);
+        assertEquals(IngestStatus.PERSISTED, queue.getStatus(1L).getStatus());
+    }
+
+    // Negative Path - Full Queue Rejects With 429
+    @Test
+    void testEnqueue_QueueFull() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await();
+            return null;
+        }).when(imageService).saveImageMetadataWithAssignedIds(anyList());
+        ImageWriteBehindQueue queue = createQueue(1);
+        queue.start();
+
+        queue.enqueue(createImageMetadataRequestDTO());
+        // The writer now holds the first image, so the single slot takes exactly one more
+        verify(imageService, timeout(5_000)).saveImageMetadataWithAssignedIds(anyList());
+        ImageMetadataResponseDTO queued = queue.enqueue(createImageMetadataRequestDTO());
+
+        assertThrows(TooManyRequestsException.class, () -> queue.enqueue(createImageMetadataRequestDTO()));
+        assertEquals(IngestStatus.QUEUED, queue.getStatus(queued.getId()).getStatus());
+
+        release.countDown();
+        queue.stop();
+    }
+
+    // Negative Path - A Row That Fails On Its Own Is Reported As FAILED
+    @Test
+    void testWrite_FailedImageMarkedFailed() {
+        doAnswer(invocation -> {
+            List<ImageMetadata> images = invocation.getArgument(0);
+            if (images.stream().anyMatch(image -> image.getId() == 2L)) {
+                throw new IllegalStateException("insert failed");
+            }
+            return null;
+        }).when(imageService).saveImageMetadataWithAssignedIds(anyList());
+        ImageWriteBehindQueue queue = createQueue(100);
+        queue.start();
+
+        queue.enqueue(createImageMetadataRequestDTO());
+        queue.enqueue(createImageMetadataRequestDTO());
+        queue.stop();
+
+        when(imageService.imageExists(1L)).thenReturn(true);
+        assertEquals(IngestStatus.PERSISTED, queue.getStatus(1L).getStatus());
+        assertEquals(IngestStatus.FAILED, queue.getStatus(2L).getStatus());
+    }
+
+    // Negative Path - Uploads Are Refused Once The Queue Has Stopped
+    @Test
+    void testEnqueue_NotRunning() {
+        ImageWriteBehindQueue queue = createQueue(100);
+
+        assertThrows(TooManyRequestsException.class, () -> queue.enqueue(createImageMetadataRequestDTO()));
+        verifyNoInteractions(imageService);
+    }
+}
@@ -137,4 +137,20 @@ class ImageMetadataMapperTest {
         assertNull(existingEntity.getFileSize());
         assertEquals("image.jpg", existingEntity.getOriginalFilename());
     }
+
+    // Happy Path - Copying an Entity Detaches it from Later Updates
+    @Test
+    void testCopyOf_Success() {
+        ImageMetadata entity = createImageMetadata(1L);
+
+        // Perform the copy and change the original
+        ImageMetadata copy = ImageMetadataMapper.copyOf(entity);
+        entity.setWidth(1024);
+
+        // Verify the copy keeps the values from before the change
+        assertNotSame(entity, copy);
+        assertEquals(800, copy.getWidth());
+        assertEquals(entity.getId(), copy.getId());
+        assertEquals(entity.getUploadDate(), copy.getUploadDate());
+    }
 }
@@ -0,0 +1,153 @@
+package com.pixsee.imageanalysis.metrics;
+
+import com.pixsee.imageanalysis.dto.ImageMetadataRequestDTO;
+import com.pixsee.imageanalysis.repository.ImageRepository;
+import com.pixsee.imageanalysis.repository.ImageUserFileTypeStatsRepository;
+import com.pixsee.imageanalysis.repository.ImageUserStatsRepository;
+import com.pixsee.imageanalysis.service.ImageService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+class ImageMetricsTest {
+
+    private static final long USER_ID = 21L;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ImageService imageService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ImageRepository imageRepository;
+
+    @Autowired
+    private ImageUserStatsRepository imageUserStatsRepository;
+
+    @Autowired
+    private ImageUserFileTypeStatsRepository imageUserFileTypeStatsRepository;
+
+    @AfterEach
+    void tearDown() {
+        imageRepository.deleteAllInBatch();
+        imageUserStatsRepository.deleteAllInBatch();
+        imageUserFileTypeStatsRepository.deleteAllInBatch();
+    }
+
+    private ImageMetadataRequestDTO createImageMetadataRequestDTO() {
+        ImageMetadataRequestDTO requestDTO = new ImageMetadataRequestDTO();
+        requestDTO.setUserId(USER_ID);
+        requestDTO.setOriginalFilename("image.jpg");
+        requestDTO.setWidth(800);
+        requestDTO.setHeight(600);
+        requestDTO.setFileSize(2048L);
+        requestDTO.setFileType("jpg");
+        return requestDTO;
+    }
+
+    // Happy Path - Controller, Service, Repository, Pool And Error Metrics Are Scraped In Prometheus Format
+    @Test
+    void testPrometheusEndpoint_ExposesHotPathMetrics() throws Exception {
+        mockMvc.perform(post("/images")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userId\":21,\"originalFilename\":\"a.png\",\"width\":10,\"height\":20,\"fileSize\":30,\"fileType\":\"png\"}"))
+                .andExpect(status().isCreated());
+        mockMvc.perform(get("/images").param("userId", "21"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/images/987654321"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(post("/images")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userId\":21}"))
+                .andExpect(status().isBadRequest());
+
+        String scrape = mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertTrue(scrape.contains("http_server_requests_seconds_bucket{"));
+        assertTrue(scrape.contains("image_service_seconds_bucket{class=\"ImageService\""));
+        assertTrue(scrape.contains("method=\"getImagesByUserId\""));
+        assertTrue(scrape.contains("spring_data_repository_invocations_seconds_bucket{"));
+        assertTrue(scrape.contains("repository=\"ImageRepository\""));
+        assertTrue(scrape.contains("hikaricp_connections_pending{"));
+        assertTrue(scrape.contains("hikaricp_connections_acquire_seconds_bucket{"));
+        assertTrue(scrape.contains("image_find_by_user_id_rows_count 1"));
+        assertTrue(scrape.contains("image_errors_total{exception=\"ResourceNotFoundException\"} 1.0"));
+        assertTrue(scrape.contains("image_errors_total{exception=\"MethodArgumentNotValidException\"} 1.0"));
+    }
+
+    // Happy Path - Every Service Call Records One Timer Sample
+    @Test
+    void testServiceInstrumentation_RecordsEachCall() {
+        assertTrue(AopUtils.isAopProxy(imageService));
+        Long id = imageService.saveImageMetadata(createImageMetadataRequestDTO()).getId();
+        imageService.getImageById(id);
+        Timer timer = meterRegistry.get("image.service").tag("method", "getImageById").tag("exception", "none").timer();
+        long before = timer.count();
+
+        for (int i = 0; i < 10; i++) {
+            imageService.getImageById(id);
+        }
+
+        assertEquals(before + 10, timer.count());
+    }
+
+    // Happy Path - Timing A Service Call Costs Microseconds, Far Below One Database Round Trip
+    @Test
+    @Tag("benchmark")
+    void testServiceInstrumentation_LowOverhead() {
+        assertTrue(AopUtils.isAopProxy(imageService));
+        ImageService uninstrumented = AopTestUtils.getUltimateTargetObject(imageService);
+        Long id = imageService.saveImageMetadata(createImageMetadataRequestDTO()).getId();
+        int calls = 50_000;
+
+        // getImageById is served from the cache, so nearly all of the difference is the timer
+        measure(imageService, id, calls);
+        measure(uninstrumented, id, calls);
+        long instrumentedNanos = measure(imageService, id, calls);
+        long uninstrumentedNanos = measure(uninstrumented, id, calls);
+        double overheadMicros = (instrumentedNanos - uninstrumentedNanos) / 1_000.0 / calls;
+
+        long queryNanos = Long.MAX_VALUE;
+        for (int i = 0; i < 20; i++) {
+            long start = System.nanoTime();
+            imageService.getImagesByUserId(USER_ID);
+            queryNanos = Math.min(queryNanos, System.nanoTime() - start);
+        }
+
+        assertTrue(overheadMicros < 20, "Timer overhead per call was " + overheadMicros + " us");
+        assertTrue(overheadMicros * 1_000 < queryNanos * 0.1,
+                "Timer overhead of " + overheadMicros + " us exceeds 10% of a single query, which took " + queryNanos / 1_000.0 + " us");
+    }
+
+    private long measure(ImageService service, Long id, int calls) {
+        long start = System.nanoTime();
+        for (int i = 0; i < calls; i++) {
+            assertNotNull(service.getImageById(id));
+        }
+        return System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,248 @@
+package com.pixsee.imageanalysis.replica;
+
+import com.pixsee.imageanalysis.dto.ImageMetadataRequestDTO;
+import com.pixsee.imageanalysis.mapper.ImageMetadataMapper;
+import com.pixsee.imageanalysis.repository.ImageRepository;
+import com.pixsee.imageanalysis.repository.ImageUserFileTypeStatsRepository;
+import com.pixsee.imageanalysis.repository.ImageUserStatsRepository;
+import com.jayway.jsonpath.JsonPath;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Two embedded databases stand in for the primary and a replica. Replication is simulated by copying the
+// primary into the replica, so the replica is as stale as each test needs it to be. The image cache is off
+// so that every lookup reaches a database.
+@SpringBootTest(properties = {
+        "spring.datasource.url=" + ReplicaRoutingTest.PRIMARY_URL,
+        "spring.datasource.hikari.connection-timeout=250",
+        "image.replica.enabled=true",
+        "image.replica.urls=" + ReplicaRoutingTest.REPLICA_URL + ";IFEXISTS=TRUE",
+        "image.replica.health-check-interval=PT1H",
+        "image.cache.enabled=false"})
+@AutoConfigureMockMvc
+class ReplicaRoutingTest {
+
+    static final String PRIMARY_URL = "jdbc:h2:mem:replica_routing_primary;MODE=MySQL;DB_CLOSE_DELAY=-1";
+    static final String REPLICA_URL = "jdbc:h2:mem:replica_routing_replica;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    private static final long USER_ID = 121L;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ReplicaRoutingDataSource replicaRoutingDataSource;
+
+    @Autowired
+    private ReplicaRouting replicaRouting;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ImageRepository imageRepository;
+
+    @Autowired
+    private ImageUserStatsRepository imageUserStatsRepository;
+
+    @Autowired
+    private ImageUserFileTypeStatsRepository imageUserFileTypeStatsRepository;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        replicate();
+        replicaRoutingDataSource.checkHealth();
+    }
+
+    @AfterEach
+    void tearDown() {
+        imageRepository.deleteAllInBatch();
+        imageUserStatsRepository.deleteAllInBatch();
+        imageUserFileTypeStatsRepository.deleteAllInBatch();
+    }
+
+    private static String imageJson(long userId, String originalFilename) {
+        return "{\"userId\":" + userId + ",\"originalFilename\":\"" + originalFilename + "\",\"width\":800,"
+                + "\"height\":600,\"fileSize\":12345,\"fileType\":\"jpg\"}";
+    }
+
+    // Written to the primary without going through ImageService, as another instance would
+    private Long saveOnPrimary(long userId) {
+        ImageMetadataRequestDTO requestDTO = new ImageMetadataRequestDTO();
+        requestDTO.setUserId(userId);
+        requestDTO.setOriginalFilename("primary.jpg");
+        requestDTO.setWidth(800);
+        requestDTO.setHeight(600);
+        requestDTO.setFileSize(12345L);
+        requestDTO.setFileType("jpg");
+        return imageRepository.save(ImageMetadataMapper.toEntity(requestDTO)).getId();
+    }
+
+    private static void replicate() throws SQLException {
+        try (Connection primary = DriverManager.getConnection(PRIMARY_URL, "sa", "");
+             Connection replica = DriverManager.getConnection(REPLICA_URL, "sa", "");
+             Statement primaryStatement = primary.createStatement();
+             Statement replicaStatement = replica.createStatement()) {
+            List<String> script = new ArrayList<>();
+            try (ResultSet rows = primaryStatement.executeQuery("SCRIPT")) {
+                while (rows.next()) {
+                    script.add(rows.getString(1));
+                }
+            }
+            replicaStatement.execute("DROP ALL OBJECTS");
+            for (String statement : script) {
+                replicaStatement.execute(statement);
+            }
+        }
+    }
+
+    private static void executeOnReplica(String sql) throws SQLException {
+        try (Connection replica = DriverManager.getConnection(REPLICA_URL, "sa", "");
+             Statement statement = replica.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private double primaryReads(String reason) {
+        return meterRegistry.counter("image.replica.primary_reads", "reason", reason).count();
+    }
+
+    // Happy Path - Reads Are Served by the Replica
+    @Test
+    void testReads_FromReplica() throws Exception {
+        Long id = saveOnPrimary(USER_ID);
+        replicate();
+        executeOnReplica("UPDATE image_metadata SET original_filename = 'replica.jpg'");
+
+        mockMvc.perform(get("/images").param("userId", String.valueOf(USER_ID)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].originalFilename").value("replica.jpg"));
+        mockMvc.perform(get("/images").param("userId", String.valueOf(USER_ID)).param("limit", "10"))
+                .andExpect(jsonPath("$.items[0].originalFilename").value("replica.jpg"));
+        mockMvc.perform(get("/images/{id}", id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.originalFilename").value("replica.jpg"));
+    }
+
+    // Happy Path - A Client Sees Its Own Writes Although the Replica Has Not Caught Up
+    @Test
+    void testReadYourWrites() throws Exception {
+        long userId = USER_ID + 1;
+        double readYourWritesBefore = primaryReads("read-your-writes");
+        String response = mockMvc.perform(post("/images").contentType(MediaType.APPLICATION_JSON).content(imageJson(userId, "new.jpg")))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        Integer id = JsonPath.read(response, "$.id");
+
+        mockMvc.perform(get("/images").param("userId", String.valueOf(userId)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1));
+        mockMvc.perform(get("/images/{id}", id))
+                .andExpect(status().isOk());
+        assertTrue(primaryReads("read-your-writes") >= readYourWritesBefore + 2);
+
+        // The write itself went to the primary only
+        replicate();
+        executeOnReplica("UPDATE image_metadata SET original_filename = 'replica.jpg'");
+        mockMvc.perform(put("/images/{id}", id).contentType(MediaType.APPLICATION_JSON).content(imageJson(userId, "renamed.jpg")))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/images/{id}", id))
+                .andExpect(jsonPath("$.originalFilename").value("renamed.jpg"));
+    }
+
+    // Happy Path - An Image Missing on the Replica Is Looked Up on the Primary
+    @Test
+    void testGetImage_NotYetReplicated() throws Exception {
+        Long id = saveOnPrimary(USER_ID + 2);
+        double notFoundBefore = primaryReads("not-found");
+
+        mockMvc.perform(get("/images/{id}", id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.originalFilename").value("primary.jpg"));
+        assertEquals(notFoundBefore + 1, primaryReads("not-found"));
+        mockMvc.perform(get("/images/{id}", 987654321L))
+                .andExpect(status().isNotFound());
+    }
+
+    // Negative Path - Reads Fall Back to the Primary While the Replica Is Down
+    @Test
+    void testReads_ReplicaDown() throws Exception {
+        long userId = USER_ID + 3;
+        saveOnPrimary(userId);
+        replicate();
+        executeOnReplica("UPDATE image_metadata SET original_filename = 'replica.jpg'");
+        executeOnReplica("SHUTDOWN");
+        double unavailableBefore = primaryReads("replica-unavailable");
+
+        replicaRoutingDataSource.checkHealth();
+        assertEquals(0, replicaRoutingDataSource.getHealthyReplicaCount());
+        mockMvc.perform(get("/images").param("userId", String.valueOf(userId)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].originalFilename").value("primary.jpg"));
+        assertEquals(unavailableBefore + 1, primaryReads("replica-unavailable"));
+
+        // Back in rotation once it answers again
+        replicate();
+        executeOnReplica("UPDATE image_metadata SET original_filename = 'replica.jpg'");
+        replicaRoutingDataSource.checkHealth();
+        assertEquals(1, replicaRoutingDataSource.getHealthyReplicaCount());
+        mockMvc.perform(get("/images").param("userId", String.valueOf(userId)))
+                .andExpect(jsonPath("$[0].originalFilename").value("replica.jpg"));
+    }
+
+    // Negative Path - A Replica Whose Pool Has No Free Connection Stays in Rotation
+    @Test
+    void testReads_ReplicaBusy() throws Exception {
+        double busyBefore = primaryReads("replica-busy");
+        double unavailableBefore = primaryReads("replica-unavailable");
+        List<Connection> held = new ArrayList<>();
+        try {
+            // Takes replica connections in a replica read until the pool is exhausted and the primary steps in
+            boolean primaryReached = replicaRouting.read(USER_ID + 4, () -> {
+                try {
+                    for (int i = 0; i < 100; i++) {
+                        Connection connection = replicaRoutingDataSource.getConnection();
+                        held.add(connection);
+                        if (connection.getMetaData().getURL().contains("replica_routing_primary")) {
+                            return true;
+                        }
+                    }
+                    return false;
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            assertTrue(primaryReached);
+        } finally {
+            for (Connection connection : held) {
+                connection.close();
+            }
+        }
+
+        assertEquals(busyBefore + 1, primaryReads("replica-busy"));
+        assertEquals(unavailableBefore, primaryReads("replica-unavailable"));
+        assertEquals(1, replicaRoutingDataSource.getHealthyReplicaCount());
+    }
+}
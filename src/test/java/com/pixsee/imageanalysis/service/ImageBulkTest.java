@@ -0,0 +1,155 @@
+package com.pixsee.imageanalysis.service;
+
+import com.pixsee.imageanalysis.dto.ImageMetadataRequestDTO;
+import com.pixsee.imageanalysis.dto.ImageStatsResponseDTO;
+import com.pixsee.imageanalysis.repository.ImageRepository;
+import com.pixsee.imageanalysis.repository.ImageUserFileTypeStatsRepository;
+import com.pixsee.imageanalysis.repository.ImageUserStatsRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// A small chunk size so that every operation spans several chunks
+@SpringBootTest(properties = "image.bulk.chunk-size=2")
+@AutoConfigureMockMvc
+class ImageBulkTest {
+
+    private static final long USER_ID = 71L;
+    private static final long OTHER_USER_ID = 72L;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ImageService imageService;
+
+    @Autowired
+    private ImageStatsService imageStatsService;
+
+    @Autowired
+    private ImageRepository imageRepository;
+
+    @Autowired
+    private ImageUserStatsRepository imageUserStatsRepository;
+
+    @Autowired
+    private ImageUserFileTypeStatsRepository imageUserFileTypeStatsRepository;
+
+    @AfterEach
+    void tearDown() {
+        imageRepository.deleteAllInBatch();
+        imageUserStatsRepository.deleteAllInBatch();
+        imageUserFileTypeStatsRepository.deleteAllInBatch();
+    }
+
+    private List<Long> saveImages(long userId, String fileType, int count) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ImageMetadataRequestDTO requestDTO = new ImageMetadataRequestDTO();
+            requestDTO.setUserId(userId);
+            requestDTO.setOriginalFilename("image." + fileType);
+            requestDTO.setWidth(100 + i);
+            requestDTO.setHeight(50 + i);
+            requestDTO.setFileSize(1000L + i);
+            requestDTO.setFileType(fileType);
+            ids.add(imageService.saveImageMetadata(requestDTO).getId());
+        }
+        return ids;
+    }
+
+    // Happy Path - Deleting All Images of a User
+    @Test
+    void testDeleteImages_ByUserId() throws Exception {
+        List<Long> ids = saveImages(USER_ID, "jpg", 5);
+        saveImages(OTHER_USER_ID, "jpg", 2);
+
+        mockMvc.perform(delete("/images").param("userId", String.valueOf(USER_ID)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.affected").value(5))
+                .andExpect(jsonPath("$.chunks").value(3));
+
+        // The cached copies are gone along with the rows
+        mockMvc.perform(get("/images/{id}", ids.getFirst())).andExpect(status().isNotFound());
+        assertEquals(0, imageStatsService.getStats(USER_ID).getImageCount());
+        assertTrue(imageStatsService.checkConsistency(USER_ID).isConsistent());
+        assertEquals(2, imageStatsService.getStats(OTHER_USER_ID).getImageCount());
+        assertTrue(imageStatsService.checkConsistency(OTHER_USER_ID).isConsistent());
+    }
+
+    // Happy Path - Deleting Listed Images Only Deletes the User's Own
+    @Test
+    void testDeleteImages_ByIds() throws Exception {
+        List<Long> ids = saveImages(USER_ID, "jpg", 4);
+        List<Long> otherIds = saveImages(OTHER_USER_ID, "jpg", 1);
+
+        mockMvc.perform(delete("/images").param("userId", String.valueOf(USER_ID))
+                        .param("ids", String.valueOf(ids.get(0)), String.valueOf(ids.get(2)), String.valueOf(ids.get(3)),
+                                String.valueOf(otherIds.getFirst()), "987654321"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.affected").value(3));
+
+        assertEquals(List.of(ids.get(1)), imageRepository.findByUserId(USER_ID).stream().map(image -> image.getId()).toList());
+        assertTrue(imageRepository.existsById(otherIds.getFirst()));
+        ImageStatsResponseDTO stats = imageStatsService.getStats(USER_ID);
+        assertEquals(1, stats.getImageCount());
+        assertEquals(101, stats.getMinWidth());
+        assertTrue(imageStatsService.checkConsistency(USER_ID).isConsistent());
+    }
+
+    // Happy Path - Changing the File Type of the Images That Have Another One
+    @Test
+    void testUpdateImages_FileType() throws Exception {
+        List<Long> gifs = saveImages(USER_ID, "gif", 3);
+        saveImages(USER_ID, "jpg", 2);
+        saveImages(USER_ID, "png", 1);
+        // Loaded into the cache before the update, which must not leave it stale
+        mockMvc.perform(get("/images/{id}", gifs.getFirst())).andExpect(jsonPath("$.fileType").value("gif"));
+
+        mockMvc.perform(patch("/images")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userId\":" + USER_ID + ",\"currentFileType\":\"gif\",\"fileType\":\"png\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.affected").value(3));
+
+        mockMvc.perform(get("/images/{id}", gifs.getFirst())).andExpect(jsonPath("$.fileType").value("png"));
+        assertEquals(Map.of("jpg", 2L, "png", 4L), imageStatsService.getStats(USER_ID).getFileTypeCounts());
+        assertTrue(imageStatsService.checkConsistency(USER_ID).isConsistent());
+
+        // Images that already have the new type are not counted
+        mockMvc.perform(patch("/images")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userId\":" + USER_ID + ",\"fileType\":\"jpg\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.affected").value(4));
+        assertEquals(Map.of("jpg", 6L), imageStatsService.getStats(USER_ID).getFileTypeCounts());
+        assertTrue(imageStatsService.checkConsistency(USER_ID).isConsistent());
+    }
+
+    // Negative Path - Missing User Id or New File Type
+    @Test
+    void testUpdateImages_InvalidRequest() throws Exception {
+        mockMvc.perform(patch("/images")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"fileType\":\"png\"}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(patch("/images")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userId\":" + USER_ID + ",\"ids\":[]}"))
+                .andExpect(status().isBadRequest());
+    }
+}
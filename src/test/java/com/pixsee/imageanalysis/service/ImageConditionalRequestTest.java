@@ -0,0 +1,141 @@
+package com.pixsee.imageanalysis.service;
+
+import com.pixsee.imageanalysis.repository.ImageRepository;
+import com.pixsee.imageanalysis.repository.ImageUserFileTypeStatsRepository;
+import com.pixsee.imageanalysis.repository.ImageUserStatsRepository;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ImageConditionalRequestTest {
+
+    private static final long USER_ID = 81L;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ImageRepository imageRepository;
+
+    @Autowired
+    private ImageUserStatsRepository imageUserStatsRepository;
+
+    @Autowired
+    private ImageUserFileTypeStatsRepository imageUserFileTypeStatsRepository;
+
+    @AfterEach
+    void tearDown() {
+        imageRepository.deleteAllInBatch();
+        imageUserStatsRepository.deleteAllInBatch();
+        imageUserFileTypeStatsRepository.deleteAllInBatch();
+    }
+
+    private static String imageJson(String originalFilename) {
+        return "{\"userId\":" + USER_ID + ",\"originalFilename\":\"" + originalFilename + "\",\"width\":800,"
+                + "\"height\":600,\"fileSize\":12345,\"fileType\":\"jpg\"}";
+    }
+
+    private Integer upload(String originalFilename) throws Exception {
+        String response = mockMvc.perform(post("/images").contentType(MediaType.APPLICATION_JSON).content(imageJson(originalFilename)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return JsonPath.read(response, "$.id");
+    }
+
+    // Happy Path - An Unchanged Image is Not Sent Again
+    @Test
+    void testGetImage_IfNoneMatch() throws Exception {
+        Integer id = upload("image.jpg");
+
+        mockMvc.perform(get("/images/{id}", id))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"0\""))
+                .andExpect(jsonPath("$.version").value(0));
+        mockMvc.perform(get("/images/{id}", id).header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"0\""))
+                .andExpect(content().string(""));
+
+        mockMvc.perform(put("/images/{id}", id).contentType(MediaType.APPLICATION_JSON).content(imageJson("renamed.jpg")))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/images/{id}", id).header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""))
+                .andExpect(jsonPath("$.originalFilename").value("renamed.jpg"));
+    }
+
+    // Happy Path - Updates With the Current Version Succeed, Stale Ones Fail
+    @Test
+    void testUpdateImage_IfMatch() throws Exception {
+        Integer id = upload("image.jpg");
+
+        mockMvc.perform(put("/images/{id}", id).header(HttpHeaders.IF_MATCH, "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON).content(imageJson("first.jpg")))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""))
+                .andExpect(jsonPath("$.version").value(1));
+        // A second client still holding version 0 must not overwrite the first one's update
+        mockMvc.perform(put("/images/{id}", id).header(HttpHeaders.IF_MATCH, "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON).content(imageJson("second.jpg")))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.errors[0]").exists());
+        mockMvc.perform(put("/images/{id}", id).header(HttpHeaders.IF_MATCH, "W/\"1\"")
+                        .contentType(MediaType.APPLICATION_JSON).content(imageJson("second.jpg")))
+                .andExpect(status().isPreconditionFailed());
+
+        mockMvc.perform(get("/images/{id}", id))
+                .andExpect(jsonPath("$.originalFilename").value("first.jpg"));
+        mockMvc.perform(put("/images/{id}", id).header(HttpHeaders.IF_MATCH, "*")
+                        .contentType(MediaType.APPLICATION_JSON).content(imageJson("second.jpg")))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"2\""));
+    }
+
+    // Happy Path - The List's Tag Changes With Any of the User's Images
+    @Test
+    void testListImages_IfNoneMatch() throws Exception {
+        Integer id = upload("image.jpg");
+        upload("other.jpg");
+
+        String eTag = mockMvc.perform(get("/images").param("userId", String.valueOf(USER_ID)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(eTag);
+        mockMvc.perform(get("/images").param("userId", String.valueOf(USER_ID)).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        mockMvc.perform(put("/images/{id}", id).contentType(MediaType.APPLICATION_JSON).content(imageJson("renamed.jpg")))
+                .andExpect(status().isOk());
+        String updatedETag = mockMvc.perform(get("/images").param("userId", String.valueOf(USER_ID)).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(eTag, updatedETag);
+
+        // Replacing an image by a new one keeps the count but not the tag
+        mockMvc.perform(delete("/images/{id}", id))
+                .andExpect(status().isNoContent());
+        upload("replacement.jpg");
+        mockMvc.perform(get("/images").param("userId", String.valueOf(USER_ID)).header(HttpHeaders.IF_NONE_MATCH, updatedETag))
+                .andExpect(status().isOk());
+    }
+}
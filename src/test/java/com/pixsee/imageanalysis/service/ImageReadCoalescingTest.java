@@ -0,0 +1,236 @@
+package com.pixsee.imageanalysis.service;
+
+import com.pixsee.imageanalysis.dto.ImageMetadataRequestDTO;
+import com.pixsee.imageanalysis.dto.ImageMetadataResponseDTO;
+import com.pixsee.imageanalysis.metrics.ImageMetrics;
+import com.pixsee.imageanalysis.repository.ImageRepository;
+import com.pixsee.imageanalysis.repository.ImageUserFileTypeStatsRepository;
+import com.pixsee.imageanalysis.repository.ImageUserStatsRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Runs concurrent identical listings through {@code ImageService}, holding the first until the others are waiting for
+ * it.
+ */
+@SpringBootTest
+class ImageReadCoalescingTest {
+
+    private static final long USER_ID = 51L;
+    private static final int READERS = 16;
+
+    @Autowired
+    private ImageService imageService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ImageRepository imageRepository;
+
+    @Autowired
+    private ImageUserStatsRepository imageUserStatsRepository;
+
+    @Autowired
+    private ImageUserFileTypeStatsRepository imageUserFileTypeStatsRepository;
+
+    // Each listing query reports its row count here, so the calls count the queries
+    @SpyBean
+    private ImageMetrics imageMetrics;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(READERS);
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+        imageRepository.deleteAllInBatch();
+        imageUserStatsRepository.deleteAllInBatch();
+        imageUserFileTypeStatsRepository.deleteAllInBatch();
+    }
+
+    private ImageMetadataRequestDTO createImageMetadataRequestDTO() {
+        ImageMetadataRequestDTO requestDTO = new ImageMetadataRequestDTO();
+        requestDTO.setUserId(USER_ID);
+        requestDTO.setOriginalFilename("image.jpg");
+        requestDTO.setWidth(800);
+        requestDTO.setHeight(600);
+        requestDTO.setFileSize(12345L);
+        requestDTO.setFileType("jpg");
+        return requestDTO;
+    }
+
+    private void holdFirstListing() {
+        AtomicBoolean first = new AtomicBoolean(true);
+        doAnswer(invocation -> {
+            if (first.compareAndSet(true, false)) {
+                started.countDown();
+                release.await();
+            }
+            return invocation.callRealMethod();
+        }).when(imageMetrics).recordUserImageRows(anyInt());
+    }
+
+    private void awaitWaiting(String read, int waiters) throws InterruptedException {
+        Gauge waiting = meterRegistry.get("image.coalescing.waiting").tag("read", read).gauge();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (waiting.value() != waiters) {
+            assertTrue(System.nanoTime() < deadline, "Expected " + waiters + " waiting listings, found " + waiting.value());
+            Thread.sleep(5);
+        }
+    }
+
+    private double joinedListings() {
+        Counter joined = meterRegistry.find("image.coalescing.reads").tag("read", "list").tag("outcome", "joined").counter();
+        return joined == null ? 0 : joined.count();
+    }
+
+    // Happy Path - Concurrent Listings of One User Run One Query
+    @Test
+    void testGetImagesByUserId_ConcurrentListingsShareOneQuery() throws Exception {
+        imageService.saveImageMetadata(createImageMetadataRequestDTO());
+        imageService.saveImageMetadata(createImageMetadataRequestDTO());
+        double joinedBefore = joinedListings();
+        holdFirstListing();
+
+        List<Future<List<ImageMetadataResponseDTO>>> listings = new ArrayList<>();
+        listings.add(executor.submit(() -> imageService.getImagesByUserId(USER_ID)));
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        for (int i = 1; i < READERS; i++) {
+            listings.add(executor.submit(() -> imageService.getImagesByUserId(USER_ID)));
+        }
+        awaitWaiting("list", READERS - 1);
+        release.countDown();
+
+        List<ImageMetadataResponseDTO> first = listings.getFirst().get(10, TimeUnit.SECONDS);
+        assertEquals(2, first.size());
+        for (Future<List<ImageMetadataResponseDTO>> listing : listings) {
+            assertSame(first, listing.get(10, TimeUnit.SECONDS));
+        }
+        verify(imageMetrics, times(1)).recordUserImageRows(anyInt());
+        awaitWaiting("list", 0);
+        assertEquals(READERS - 1, joinedListings() - joinedBefore);
+    }
+
+    // Happy Path - Concurrent Conditional Listings Share the Tag and the List
+    @Test
+    void testGetImagesByUserId_ConcurrentConditionalListingsShareOneRead() throws Exception {
+        imageService.saveImageMetadata(createImageMetadataRequestDTO());
+        imageService.saveImageMetadata(createImageMetadataRequestDTO());
+        String version = imageService.getImagesVersionByUserId(USER_ID);
+        holdFirstListing();
+
+        List<Future<List<ImageMetadataResponseDTO>>> listings = new ArrayList<>();
+        listings.add(executor.submit(() -> imageService.getImagesByUserId(USER_ID, tag -> false)));
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        for (int i = 1; i < READERS; i++) {
+            // Every other client already has the current list
+            boolean cached = i % 2 == 0;
+            listings.add(executor.submit(() -> imageService.getImagesByUserId(USER_ID, tag -> cached && tag.equals(version))));
+        }
+        awaitWaiting("versioned-list", READERS - 1);
+        release.countDown();
+
+        List<ImageMetadataResponseDTO> first = listings.getFirst().get(10, TimeUnit.SECONDS);
+        assertEquals(2, first.size());
+        for (int i = 1; i < READERS; i++) {
+            List<ImageMetadataResponseDTO> listing = listings.get(i).get(10, TimeUnit.SECONDS);
+            if (i % 2 == 0) {
+                assertNull(listing);
+            } else {
+                assertSame(first, listing);
+            }
+        }
+        verify(imageMetrics, times(1)).recordUserImageRows(anyInt());
+    }
+
+    // Edge Case - A Conditional Listing Joining a Read That Skipped the List Reads the List Itself
+    @Test
+    void testGetImagesByUserId_JoinedReadWithoutList() throws Exception {
+        imageService.saveImageMetadata(createImageMetadataRequestDTO());
+        String version = imageService.getImagesVersionByUserId(USER_ID);
+
+        // The first client has the current list, and its check holds the shared read until the other one joins
+        Future<List<ImageMetadataResponseDTO>> notModified = executor.submit(() -> imageService.getImagesByUserId(USER_ID, tag -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return tag.equals(version);
+        }));
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        Future<List<ImageMetadataResponseDTO>> modified = executor.submit(() -> imageService.getImagesByUserId(USER_ID, tag -> false));
+        awaitWaiting("versioned-list", 1);
+        release.countDown();
+
+        assertNull(notModified.get(10, TimeUnit.SECONDS));
+        assertEquals(1, modified.get(10, TimeUnit.SECONDS).size());
+        verify(imageMetrics, times(1)).recordUserImageRows(anyInt());
+    }
+
+    // Edge Case - A Listing Started After a Write Commits Does Not Join One That Started Before
+    @Test
+    void testGetImagesByUserId_WriteStartsNewQuery() throws Exception {
+        imageService.saveImageMetadata(createImageMetadataRequestDTO());
+        holdFirstListing();
+
+        Future<List<ImageMetadataResponseDTO>> staleListing = executor.submit(() -> imageService.getImagesByUserId(USER_ID));
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        Future<List<ImageMetadataResponseDTO>> joinedListing = executor.submit(() -> imageService.getImagesByUserId(USER_ID));
+        awaitWaiting("list", 1);
+
+        ImageMetadataResponseDTO saved = imageService.saveImageMetadata(createImageMetadataRequestDTO());
+        List<ImageMetadataResponseDTO> freshListing = imageService.getImagesByUserId(USER_ID);
+        assertEquals(2, freshListing.size());
+        assertTrue(freshListing.stream().anyMatch(image -> image.getId().equals(saved.getId())));
+
+        release.countDown();
+        assertEquals(1, staleListing.get(10, TimeUnit.SECONDS).size());
+        assertEquals(1, joinedListing.get(10, TimeUnit.SECONDS).size());
+        verify(imageMetrics, times(2)).recordUserImageRows(anyInt());
+    }
+
+    // Edge Case - A Conditional Listing Is Never Older Than Its Tag
+    @Test
+    void testGetImagesByUserId_ConditionalListingMatchesTag() throws Exception {
+        imageService.saveImageMetadata(createImageMetadataRequestDTO());
+        holdFirstListing();
+
+        Future<List<ImageMetadataResponseDTO>> staleListing = executor.submit(() -> imageService.getImagesByUserId(USER_ID));
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        imageService.saveImageMetadata(createImageMetadataRequestDTO());
+
+        List<String> tags = new ArrayList<>();
+        List<ImageMetadataResponseDTO> images = imageService.getImagesByUserId(USER_ID, tag -> !tags.add(tag));
+        assertEquals(List.of(imageService.getImagesVersionByUserId(USER_ID)), tags);
+        assertEquals(2, images.size());
+
+        release.countDown();
+        assertEquals(1, staleListing.get(10, TimeUnit.SECONDS).size());
+    }
+}
@@ -0,0 +1,126 @@
+package com.pixsee.imageanalysis.service;
+
+import com.pixsee.imageanalysis.dto.ImageMetadataRequestDTO;
+import com.pixsee.imageanalysis.dto.ImageMetadataResponseDTO;
+import com.pixsee.imageanalysis.dto.ImageSearchCriteria;
+import com.pixsee.imageanalysis.dto.ImageSearchResponseDTO;
+import com.pixsee.imageanalysis.repository.ImageRepository;
+import com.pixsee.imageanalysis.repository.ImageUserFileTypeStatsRepository;
+import com.pixsee.imageanalysis.repository.ImageUserStatsRepository;
+import com.pixsee.imageanalysis.support.SqlStatementRecorder;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ImageSearchTest {
+
+    private static final int USERS = 50;
+    private static final int IMAGES_PER_USER = 1_000;
+    private static final long FIRST_UPLOAD = 1_700_000_000L;
+    private static final String[] FILE_TYPES = {"jpg", "png", "gif", "webp"};
+
+    @Autowired
+    private ImageService imageService;
+
+    @Autowired
+    private ImageRepository imageRepository;
+
+    @Autowired
+    private ImageUserStatsRepository imageUserStatsRepository;
+
+    @Autowired
+    private ImageUserFileTypeStatsRepository imageUserFileTypeStatsRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    void setUp() {
+        for (int user = 1; user <= USERS; user++) {
+            List<ImageMetadataRequestDTO> batch = new ArrayList<>(IMAGES_PER_USER);
+            for (int i = 0; i < IMAGES_PER_USER; i++) {
+                ImageMetadataRequestDTO requestDTO = new ImageMetadataRequestDTO();
+                requestDTO.setUserId((long) user);
+                requestDTO.setOriginalFilename("image-" + i + ".jpg");
+                requestDTO.setWidth(100 + i);
+                requestDTO.setHeight(100 + i % 500);
+                requestDTO.setFileSize(1_000L * i);
+                requestDTO.setFileType(FILE_TYPES[i % FILE_TYPES.length]);
+                batch.add(requestDTO);
+            }
+            imageService.saveImageMetadataBatch(batch);
+        }
+        // Spread upload dates over one day per user so date windows are selective
+        jdbcTemplate.update("UPDATE image_metadata SET upload_date = ? + MOD(id, ?) * 60", FIRST_UPLOAD, IMAGES_PER_USER);
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @AfterAll
+    void tearDown() {
+        imageRepository.deleteAllInBatch();
+        imageUserStatsRepository.deleteAllInBatch();
+        imageUserFileTypeStatsRepository.deleteAllInBatch();
+    }
+
+    private ImageSearchCriteria createCriteria() {
+        ImageSearchCriteria criteria = new ImageSearchCriteria();
+        criteria.setUserId(7L);
+        criteria.setFileType("png");
+        criteria.setUploadedFrom(FIRST_UPLOAD + 100 * 60);
+        criteria.setUploadedTo(FIRST_UPLOAD + 499 * 60);
+        return criteria;
+    }
+
+    // Happy Path - Filters and Sort are Applied in SQL
+    @Test
+    void testSearchImages_FiltersAndSorts() {
+        ImageSearchCriteria criteria = createCriteria();
+        criteria.setMinWidth(300);
+
+        ImageSearchResponseDTO results = imageService.searchImages(criteria,
+                PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "uploadDate")));
+
+        assertEquals(20, results.getItems().size());
+        assertTrue(results.getTotalElements() > 20);
+        long previousUploadDate = Long.MAX_VALUE;
+        for (ImageMetadataResponseDTO image : results.getItems()) {
+            assertEquals(7L, image.getUserId());
+            assertEquals("png", image.getFileType());
+            assertTrue(image.getWidth() >= 300);
+            assertTrue(image.getUploadDate() >= criteria.getUploadedFrom() && image.getUploadDate() <= criteria.getUploadedTo());
+            assertTrue(image.getUploadDate() <= previousUploadDate);
+            previousUploadDate = image.getUploadDate();
+        }
+    }
+
+    // The generated query must start from a (user_id, ...) index range instead of scanning the table
+    @Test
+    void testSearchImages_UsesIndexRangeScan() {
+        ImageSearchCriteria criteria = createCriteria();
+
+        SqlStatementRecorder.start();
+        imageService.searchImages(criteria, PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "uploadDate")));
+        String sql = SqlStatementRecorder.stop().stream()
+                .filter(statement -> statement.startsWith("select") && !statement.contains("count("))
+                .findFirst().orElseThrow();
+
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class,
+                criteria.getUserId(), criteria.getFileType(), criteria.getUploadedFrom(), criteria.getUploadedTo(), 20);
+
+        assertFalse(plan.contains("tableScan"), plan);
+        assertTrue(plan.contains("USER_ID_FILE_TYPE_IDX") || plan.contains("USER_ID_UPLOAD_DATE_IDX"), plan);
+    }
+}
@@ -0,0 +1,202 @@
+package com.pixsee.imageanalysis.service;
+
+import com.pixsee.imageanalysis.cache.ImageMetadataCache;
+import com.pixsee.imageanalysis.dto.ImageMetadataRequestDTO;
+import com.pixsee.imageanalysis.dto.ImageSearchCriteria;
+import com.pixsee.imageanalysis.repository.ImageRepository;
+import com.pixsee.imageanalysis.repository.ImageUserFileTypeStatsRepository;
+import com.pixsee.imageanalysis.repository.ImageUserStatsRepository;
+import com.pixsee.imageanalysis.support.SqlStatementRecorder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pins the number of SQL statements each {@code ImageService} operation issues, by type.
+ */
+@SpringBootTest
+class ImageServiceQueryCountTest {
+
+    private static final long USER_ID = 31L;
+
+    @Autowired
+    private ImageService imageService;
+
+    @Autowired
+    private ImageStatsService imageStatsService;
+
+    @Autowired
+    private ImageMetadataCache imageMetadataCache;
+
+    @Autowired
+    private ImageRepository imageRepository;
+
+    @Autowired
+    private ImageUserStatsRepository imageUserStatsRepository;
+
+    @Autowired
+    private ImageUserFileTypeStatsRepository imageUserFileTypeStatsRepository;
+
+    private Long imageId;
+
+    @BeforeEach
+    void setUp() {
+        imageId = imageService.saveImageMetadata(createImageMetadataRequestDTO(2048L)).getId();
+        imageService.saveImageMetadata(createImageMetadataRequestDTO(4096L));
+    }
+
+    @AfterEach
+    void tearDown() {
+        imageRepository.deleteAllInBatch();
+        imageUserStatsRepository.deleteAllInBatch();
+        imageUserFileTypeStatsRepository.deleteAllInBatch();
+    }
+
+    private ImageMetadataRequestDTO createImageMetadataRequestDTO(long fileSize) {
+        ImageMetadataRequestDTO requestDTO = new ImageMetadataRequestDTO();
+        requestDTO.setUserId(USER_ID);
+        requestDTO.setOriginalFilename("image.jpg");
+        requestDTO.setWidth(800);
+        requestDTO.setHeight(600);
+        requestDTO.setFileSize(fileSize);
+        requestDTO.setFileType("jpg");
+        return requestDTO;
+    }
+
+    private static String randomContentHash() {
+        byte[] digest = new byte[32];
+        ThreadLocalRandom.current().nextBytes(digest);
+        return HexFormat.of().formatHex(digest);
+    }
+
+    private Map<String, Integer> countStatements(Runnable operation) {
+        SqlStatementRecorder.start();
+        try {
+            operation.run();
+        } catch (RuntimeException e) {
+            SqlStatementRecorder.stop();
+            throw e;
+        }
+        return SqlStatementRecorder.countByType(SqlStatementRecorder.stop());
+    }
+
+    @Test
+    void testSaveImageMetadata() {
+        // The image, one upsert each for the user and file type counters, then the change event
+        assertEquals(Map.of("insert", 4), countStatements(() -> imageService.saveImageMetadata(createImageMetadataRequestDTO(1L))));
+    }
+
+    @Test
+    void testSaveImageMetadata_UniqueContentHash() {
+        ImageMetadataRequestDTO requestDTO = createImageMetadataRequestDTO(1L);
+        requestDTO.setContentHash(randomContentHash());
+        // The dedup prefilter rules the hash out, so unique images need no lookup
+        assertEquals(Map.of("insert", 4), countStatements(() -> imageService.saveImageMetadata(requestDTO)));
+    }
+
+    @Test
+    void testSaveImageMetadata_DuplicateContentHash() {
+        ImageMetadataRequestDTO requestDTO = createImageMetadataRequestDTO(1L);
+        requestDTO.setContentHash(randomContentHash());
+        imageService.saveImageMetadata(requestDTO);
+        // One lookup finds the original, which is returned instead of inserting anything
+        assertEquals(Map.of("select", 1), countStatements(() -> imageService.saveImageMetadata(requestDTO)));
+    }
+
+    @Test
+    void testSaveImageMetadataBatch() {
+        List<ImageMetadataRequestDTO> batch = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            batch.add(createImageMetadataRequestDTO(i));
+        }
+        // The images go out as one JDBC batch; the stats are aggregated to one upsert per user and file type,
+        // and the change events are written by a single INSERT ... SELECT
+        assertEquals(Map.of("insert", 4), countStatements(() -> imageService.saveImageMetadataBatch(batch)));
+    }
+
+    @Test
+    void testGetImageById() {
+        imageMetadataCache.invalidate(imageId);
+        assertEquals(Map.of("select", 1), countStatements(() -> imageService.getImageById(imageId)));
+        assertEquals(Map.of(), countStatements(() -> imageService.getImageById(imageId)));
+    }
+
+    @Test
+    void testGetImagesByUserId() {
+        assertEquals(Map.of("select", 1), countStatements(() -> imageService.getImagesByUserId(USER_ID)));
+    }
+
+    @Test
+    void testGetImagesVersionByUserId() {
+        // A conditional list request that is not modified needs only the aggregate
+        assertEquals(Map.of("select", 1), countStatements(() -> imageService.getImagesVersionByUserId(USER_ID)));
+    }
+
+    @Test
+    void testGetImagesPageByUserId() {
+        assertEquals(Map.of("select", 1), countStatements(() -> imageService.getImagesPageByUserId(USER_ID, null, 1)));
+    }
+
+    @Test
+    void testSearchImages() {
+        ImageSearchCriteria criteria = new ImageSearchCriteria();
+        criteria.setUserId(USER_ID);
+        // A full first page needs the COUNT query, a partial one does not
+        assertEquals(Map.of("select", 2), countStatements(() -> imageService.searchImages(criteria, PageRequest.of(0, 1))));
+        assertEquals(Map.of("select", 1), countStatements(() -> imageService.searchImages(criteria, PageRequest.of(0, 10))));
+    }
+
+    @Test
+    void testUpdateImageMetadata() {
+        ImageMetadataRequestDTO renamed = createImageMetadataRequestDTO(2048L);
+        renamed.setOriginalFilename("renamed.jpg");
+        assertEquals(Map.of("select", 1, "update", 1, "insert", 1), countStatements(() -> imageService.updateImageMetadata(imageId, renamed)));
+        // Nothing changes the second time, so there is no UPDATE and no change event
+        assertEquals(Map.of("select", 1), countStatements(() -> imageService.updateImageMetadata(imageId, renamed)));
+    }
+
+    @Test
+    void testUpdateImageMetadata_StatsChange() {
+        // Subtracting the old values touches both counters and drops emptied file types; adding the new ones
+        // upserts both, and the change event is the third insert
+        assertEquals(Map.of("select", 1, "update", 3, "delete", 1, "insert", 3),
+                countStatements(() -> imageService.updateImageMetadata(imageId, createImageMetadataRequestDTO(1L))));
+    }
+
+    @Test
+    void testDeleteImage() {
+        // No SELECT: the stats statements and the change event read the row themselves before it is deleted
+        assertEquals(Map.of("update", 2, "delete", 2, "insert", 1), countStatements(() -> imageService.deleteImage(imageId)));
+        assertTrue(imageStatsService.checkConsistency(USER_ID).isConsistent());
+    }
+
+    @Test
+    void testDeleteImage_NotFound() {
+        assertEquals(Map.of("update", 2, "delete", 2, "insert", 1), countStatements(() -> imageService.deleteImage(987654321L)));
+        assertEquals(2, imageStatsService.getStats(USER_ID).getImageCount());
+    }
+
+    @Test
+    void testDeleteImages() {
+        // One locking SELECT, one INSERT of the chunk's change events and one DELETE for the chunk, then the
+        // stats deltas of the whole chunk at once
+        assertEquals(Map.of("select", 1, "update", 2, "delete", 2, "insert", 1), countStatements(() -> imageService.deleteImages(USER_ID, null)));
+        assertTrue(imageStatsService.checkConsistency(USER_ID).isConsistent());
+    }
+
+    @Test
+    void testGetStats() {
+        assertEquals(Map.of("select", 2), countStatements(() -> imageStatsService.getStats(USER_ID)));
+    }
+}
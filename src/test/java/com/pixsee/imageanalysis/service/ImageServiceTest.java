@@ -1,19 +1,50 @@
 package com.pixsee.imageanalysis.service;
 
+import com.pixsee.imageanalysis.cache.ImageMetadataCache;
+import com.pixsee.imageanalysis.coalescing.ReadCoalescing;
+import com.pixsee.imageanalysis.dedup.DedupPolicy;
+import com.pixsee.imageanalysis.dedup.ImageDedupIndex;
+import com.pixsee.imageanalysis.dto.ImageBatchResponseDTO;
 import com.pixsee.imageanalysis.dto.ImageMetadataRequestDTO;
 import com.pixsee.imageanalysis.dto.ImageMetadataResponseDTO;
+import com.pixsee.imageanalysis.dto.ImagePageResponseDTO;
+import com.pixsee.imageanalysis.dto.ImageSearchCriteria;
+import com.pixsee.imageanalysis.dto.ImageSimilarityMatchDTO;
 import com.pixsee.imageanalysis.entity.ImageMetadata;
+import com.pixsee.imageanalysis.exception.DuplicateImageException;
+import com.pixsee.imageanalysis.exception.InvalidRequestException;
+import com.pixsee.imageanalysis.exception.PreconditionFailedException;
 import com.pixsee.imageanalysis.exception.ResourceNotFoundException;
+import com.pixsee.imageanalysis.feed.ImageChangeOutbox;
+import com.pixsee.imageanalysis.metrics.ImageMetrics;
+import com.pixsee.imageanalysis.replica.ReplicaRouting;
 import com.pixsee.imageanalysis.repository.ImageRepository;
+import com.pixsee.imageanalysis.shard.ShardRouting;
+import com.pixsee.imageanalysis.similarity.ImageSimilarityIndex;
+import com.pixsee.imageanalysis.thumbnail.ThumbnailCache;
+import com.pixsee.imageanalysis.thumbnail.ThumbnailGenerator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
-
+import org.mockito.Spy;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -26,6 +57,45 @@ class ImageServiceTest {
     @Mock
     private ImageRepository imageRepository;
 
+    @Spy
+    private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    @Mock
+    private ImageStatsService imageStatsService;
+
+    @Spy
+    private ImageMetadataCache imageMetadataCache =
+            new ImageMetadataCache(true, 100, Duration.ofMinutes(1), Duration.ofMinutes(1), new SimpleMeterRegistry());
+
+    @Spy
+    private ImageMetrics imageMetrics = new ImageMetrics(new SimpleMeterRegistry());
+
+    @Spy
+    private ImageDedupIndex imageDedupIndex = new ImageDedupIndex(null, null, DedupPolicy.LINK, 1000, 0.01);
+
+    @Spy
+    private ImageSimilarityIndex imageSimilarityIndex = new ImageSimilarityIndex(null, null);
+
+    @Mock
+    private ThumbnailGenerator thumbnailGenerator;
+
+    @Mock
+    private ThumbnailCache thumbnailCache;
+
+    @Mock
+    private ImageChangeOutbox imageChangeOutbox;
+
+    @Spy
+    private ReplicaRouting replicaRouting = new ReplicaRouting(false, Duration.ofSeconds(5), null, imageMetrics);
+
+    @Spy
+    private ShardRouting shardRouting = new ShardRouting(false, List.of(), Duration.ofSeconds(5), null, null);
+
+    @Spy
+    private ReadCoalescing readCoalescing = new ReadCoalescing(true, Duration.ofSeconds(10), imageMetrics, new SimpleMeterRegistry());
+
+    private static final String CONTENT_HASH = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08";
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
@@ -69,6 +139,7 @@ class ImageServiceTest {
         assertEquals("image.jpg", responseDTO.getOriginalFilename());
 
         verify(imageRepository, times(1)).save(any(ImageMetadata.class));
+        verify(imageStatsService, times(1)).recordAdded(List.of(savedEntity));
     }
 
     // Negative Path - Saving Image Metadata with null User ID
@@ -80,6 +151,108 @@ class ImageServiceTest {
         assertThrows(NullPointerException.class, () -> imageService.saveImageMetadata(requestDTO));
     }
 
+    // Happy Path - Image With An Unseen Content Hash Is Saved Without A Dedup Lookup
+    @Test
+    void testSaveImageMetadata_UniqueContentHash() {
+        ImageMetadataRequestDTO requestDTO = createImageMetadataRequestDTO();
+        requestDTO.setContentHash(CONTENT_HASH);
+        ImageMetadata savedEntity = createImageMetadata(1L);
+        savedEntity.setContentHash(CONTENT_HASH);
+
+        when(imageRepository.save(any(ImageMetadata.class))).thenReturn(savedEntity);
+
+        ImageSaveResult result = imageService.saveImageMetadata(requestDTO, null);
+
+        assertTrue(result.created());
+        assertEquals(CONTENT_HASH, result.image().getContentHash());
+        verify(imageRepository, never()).findFirstByUserIdAndContentHashOrderByIdAsc(anyLong(), anyString());
+        assertTrue(imageDedupIndex.mightContain(1L, CONTENT_HASH));
+    }
+
+    // Happy Path - Duplicate Is Linked To The Existing Image
+    @Test
+    void testSaveImageMetadata_DuplicateLinked() {
+        ImageMetadataRequestDTO requestDTO = createImageMetadataRequestDTO();
+        requestDTO.setContentHash(CONTENT_HASH);
+        ImageMetadata existing = createImageMetadata(7L);
+        existing.setContentHash(CONTENT_HASH);
+        imageDedupIndex.add(1L, CONTENT_HASH);
+
+        when(imageRepository.findFirstByUserIdAndContentHashOrderByIdAsc(1L, CONTENT_HASH)).thenReturn(Optional.of(existing));
+
+        ImageSaveResult result = imageService.saveImageMetadata(requestDTO, null);
+
+        assertFalse(result.created());
+        assertEquals(7L, result.image().getId());
+        verify(imageRepository, never()).save(any(ImageMetadata.class));
+        verifyNoInteractions(imageStatsService);
+    }
+
+    // Negative Path - Duplicate Is Rejected
+    @Test
+    void testSaveImageMetadata_DuplicateRejected() {
+        ImageMetadataRequestDTO requestDTO = createImageMetadataRequestDTO();
+        requestDTO.setContentHash(CONTENT_HASH);
+        imageDedupIndex.add(1L, CONTENT_HASH);
+
+        doReturn(DedupPolicy.REJECT).when(imageDedupIndex).getPolicy();
+        when(imageRepository.findFirstByUserIdAndContentHashOrderByIdAsc(1L, CONTENT_HASH))
+                .thenReturn(Optional.of(createImageMetadata(7L)));
+
+        DuplicateImageException exception = assertThrows(DuplicateImageException.class,
+                () -> imageService.saveImageMetadata(requestDTO, null));
+        assertEquals(7L, exception.getExistingImageId());
+        verify(imageRepository, never()).save(any(ImageMetadata.class));
+    }
+
+    // Happy Path - Probable Duplicate That Turns Out To Be Unique Is Saved
+    @Test
+    void testSaveImageMetadata_FalsePositive() {
+        ImageMetadataRequestDTO requestDTO = createImageMetadataRequestDTO();
+        requestDTO.setContentHash(CONTENT_HASH);
+        imageDedupIndex.add(1L, CONTENT_HASH);
+
+        when(imageRepository.findFirstByUserIdAndContentHashOrderByIdAsc(1L, CONTENT_HASH)).thenReturn(Optional.empty());
+        when(imageRepository.save(any(ImageMetadata.class))).thenReturn(createImageMetadata(1L));
+
+        assertTrue(imageService.saveImageMetadata(requestDTO, null).created());
+        verify(imageRepository).save(any(ImageMetadata.class));
+    }
+
+    // Happy Path - Similar Images Come From The Index, And Deleted Ones Are Dropped From It
+    @Test
+    void testGetSimilarImages_Success() {
+        ImageMetadata image = createImageMetadata(1L);
+        image.setPerceptualHash(0xFF00L);
+        ImageMetadata similar = createImageMetadata(2L);
+        similar.setPerceptualHash(0xFF01L);
+        imageSimilarityIndex.add(1L, 1L, 0xFF00L);
+        imageSimilarityIndex.add(1L, 2L, 0xFF01L);
+        imageSimilarityIndex.add(1L, 3L, 0xFF03L);
+        imageSimilarityIndex.add(1L, 4L, 0xFFFFL);
+
+        when(imageRepository.findById(1L)).thenReturn(Optional.of(image));
+        when(imageRepository.findAllById(List.of(2L, 3L))).thenReturn(List.of(similar));
+
+        List<ImageSimilarityMatchDTO> matches = imageService.getSimilarImages(1L, 4, 10);
+
+        assertEquals(1, matches.size());
+        assertEquals(1, matches.get(0).getDistance());
+        assertEquals(2L, matches.get(0).getImage().getId());
+        // Image 3 was deleted, so it is no longer a candidate
+        assertEquals(List.of(2L), imageSimilarityIndex.findSimilar(1L, 0xFF00L, 4).stream()
+                .map(match -> match.imageId()).filter(id -> id != 1L).toList());
+    }
+
+    // Negative Path - Image Without A Perceptual Hash
+    @Test
+    void testGetSimilarImages_NoPerceptualHash() {
+        when(imageRepository.findById(1L)).thenReturn(Optional.of(createImageMetadata(1L)));
+
+        assertThrows(ResourceNotFoundException.class, () -> imageService.getSimilarImages(1L, 4, 10));
+        verify(imageRepository, never()).findAllById(any());
+    }
+
     // Happy Path - Retrieving Images by User ID
     @Test
     void testGetImagesByUserId_Success() {
@@ -94,6 +267,7 @@ class ImageServiceTest {
         assertEquals("image.jpg", responseDTOs.getFirst().getOriginalFilename());
 
         verify(imageRepository, times(1)).findByUserId(1L);
+        verify(imageMetrics).recordUserImageRows(2);
     }
 
     // Negative Path - Retrieving Images with No Data
@@ -140,7 +314,7 @@ class ImageServiceTest {
         ImageMetadataRequestDTO updateRequestDTO = createImageMetadataRequestDTO();
 
         when(imageRepository.findById(1L)).thenReturn(Optional.of(existingImage));
-        when(imageRepository.save(any(ImageMetadata.class))).thenReturn(existingImage);
+        when(imageRepository.saveAndFlush(any(ImageMetadata.class))).thenReturn(existingImage);
 
         ImageMetadataResponseDTO updatedResponse = imageService.updateImageMetadata(1L, updateRequestDTO);
 
@@ -149,7 +323,27 @@ class ImageServiceTest {
         assertEquals("image.jpg", updatedResponse.getOriginalFilename());
 
         verify(imageRepository, times(1)).findById(1L);
-        verify(imageRepository, times(1)).save(any(ImageMetadata.class));
+        verify(imageRepository, times(1)).saveAndFlush(any(ImageMetadata.class));
+        // The version did not change, so nothing was updated
+        verify(imageChangeOutbox, never()).recordUpdated(any());
+    }
+
+    // Happy Path - Update Image Metadata Records a Change Event
+    @Test
+    void testUpdateImageMetadata_RecordsChange() {
+        ImageMetadata existingImage = createImageMetadata(1L);
+        existingImage.setVersion(3L);
+        ImageMetadata updatedImage = createImageMetadata(1L);
+        updatedImage.setVersion(4L);
+        ImageMetadataRequestDTO updateRequestDTO = createImageMetadataRequestDTO();
+
+        when(imageRepository.findById(1L)).thenReturn(Optional.of(existingImage));
+        when(imageRepository.saveAndFlush(any(ImageMetadata.class))).thenReturn(updatedImage);
+
+        ImageMetadataResponseDTO updatedResponse = imageService.updateImageMetadata(1L, updateRequestDTO);
+
+        assertEquals(4L, updatedResponse.getVersion());
+        verify(imageChangeOutbox, times(1)).recordUpdated(List.of(1L));
     }
 
     // Negative Path - Update Image Metadata Not Found
@@ -164,14 +358,258 @@ class ImageServiceTest {
         verify(imageRepository, times(1)).findById(1L);
     }
 
+    // Negative Path - Update Image Metadata With a Stale Version
+    @Test
+    void testUpdateImageMetadata_StaleVersion() {
+        ImageMetadata existingImage = createImageMetadata(1L);
+        existingImage.setVersion(3L);
+        ImageMetadataRequestDTO updateRequestDTO = createImageMetadataRequestDTO();
+
+        when(imageRepository.findById(1L)).thenReturn(Optional.of(existingImage));
+
+        assertThrows(PreconditionFailedException.class, () -> imageService.updateImageMetadata(1L, updateRequestDTO, Set.of(2L)));
+
+        verify(imageRepository, never()).saveAndFlush(any(ImageMetadata.class));
+        verify(imageStatsService, never()).recordUpdated(any(), any());
+    }
+
+    // Negative Path - Update Image Metadata Losing the Race Against a Concurrent Update
+    @Test
+    void testUpdateImageMetadata_ConcurrentUpdate() {
+        ImageMetadata existingImage = createImageMetadata(1L);
+        existingImage.setVersion(3L);
+        ImageMetadataRequestDTO updateRequestDTO = createImageMetadataRequestDTO();
+
+        when(imageRepository.findById(1L)).thenReturn(Optional.of(existingImage));
+        when(imageRepository.saveAndFlush(any(ImageMetadata.class)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(ImageMetadata.class, 1L));
+
+        // Conditional updates report the lost race as a failed precondition, unconditional ones as the conflict it is
+        assertThrows(PreconditionFailedException.class, () -> imageService.updateImageMetadata(1L, updateRequestDTO, Set.of(3L)));
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> imageService.updateImageMetadata(1L, updateRequestDTO));
+    }
+
     // Happy Path - Delete Image
     @Test
     void testDeleteImage_Success() {
-        doNothing().when(imageRepository).deleteById(1L);
+        when(imageRepository.deleteRowById(1L)).thenReturn(1);
+
+        imageService.deleteImage(1L);
+
+        verify(imageRepository, times(1)).deleteRowById(1L);
+        verify(imageRepository, never()).findById(anyLong());
+    }
+
+    // Happy Path - Saving a Batch of Image Metadata
+    @Test
+    void testSaveImageMetadataBatch_Success() {
+        List<ImageMetadataRequestDTO> requestDTOs = List.of(createImageMetadataRequestDTO(), createImageMetadataRequestDTO());
+
+        when(imageRepository.saveAll(anyList())).thenReturn(List.of(createImageMetadata(1L), createImageMetadata(2L)));
+
+        ImageBatchResponseDTO response = imageService.saveImageMetadataBatch(requestDTOs);
+
+        assertEquals(2, response.getCreated());
+        assertEquals(0, response.getFailed());
+        assertEquals(2L, response.getResults().get(1).getImage().getId());
+        assertNull(response.getResults().get(1).getErrors());
+
+        verify(imageRepository, times(1)).saveAll(anyList());
+        verify(imageRepository, never()).save(any(ImageMetadata.class));
+    }
+
+    // Negative Path - Saving a Batch with Invalid Items
+    @Test
+    void testSaveImageMetadataBatch_PartialFailure() {
+        ImageMetadataRequestDTO invalidRequestDTO = createImageMetadataRequestDTO();
+        invalidRequestDTO.setFileType("");
+        List<ImageMetadataRequestDTO> requestDTOs = Arrays.asList(invalidRequestDTO, createImageMetadataRequestDTO(), null);
+
+        when(imageRepository.saveAll(anyList())).thenReturn(List.of(createImageMetadata(1L)));
+
+        ImageBatchResponseDTO response = imageService.saveImageMetadataBatch(requestDTOs);
+
+        assertEquals(1, response.getCreated());
+        assertEquals(2, response.getFailed());
+        assertEquals(List.of("File Type cannot be empty/null"), response.getResults().get(0).getErrors());
+        assertEquals(1L, response.getResults().get(1).getImage().getId());
+        assertEquals(List.of("Image metadata cannot be null"), response.getResults().get(2).getErrors());
+    }
+
+    // Happy Path - Keyset Page with a Next Cursor
+    @Test
+    void testGetImagesPageByUserId_HasNextPage() {
+        when(imageRepository.findByUserIdAndIdGreaterThanOrderByIdAsc(1L, 0L, Limit.of(3)))
+                .thenReturn(List.of(createImageMetadata(1L), createImageMetadata(2L), createImageMetadata(3L)));
+        when(imageRepository.findByUserIdAndIdGreaterThanOrderByIdAsc(1L, 2L, Limit.of(3)))
+                .thenReturn(List.of(createImageMetadata(3L)));
+
+        ImagePageResponseDTO firstPage = imageService.getImagesPageByUserId(1L, null, 2);
+
+        assertEquals(2, firstPage.getItems().size());
+        assertNotNull(firstPage.getNextCursor());
+
+        ImagePageResponseDTO secondPage = imageService.getImagesPageByUserId(1L, firstPage.getNextCursor(), 2);
+
+        assertEquals(1, secondPage.getItems().size());
+        assertEquals(3L, secondPage.getItems().getFirst().getId());
+        assertNull(secondPage.getNextCursor());
+    }
+
+    // Negative Path - Keyset Page with a Cursor Issued for Another User
+    @Test
+    void testGetImagesPageByUserId_InvalidCursor() {
+        when(imageRepository.findByUserIdAndIdGreaterThanOrderByIdAsc(1L, 0L, Limit.of(2)))
+                .thenReturn(List.of(createImageMetadata(1L), createImageMetadata(2L)));
+
+        String cursor = imageService.getImagesPageByUserId(1L, null, 1).getNextCursor();
+
+        assertThrows(InvalidRequestException.class, () -> imageService.getImagesPageByUserId(2L, cursor, 1));
+        assertThrows(InvalidRequestException.class, () -> imageService.getImagesPageByUserId(1L, "not-a-cursor", 1));
+    }
+
+    // Happy Path - Repeated Get Image by ID is Served from the Cache
+    @Test
+    void testGetImageById_CacheHit() {
+        when(imageRepository.findById(1L)).thenReturn(Optional.of(createImageMetadata(1L)));
+
+        imageService.getImageById(1L);
+        ImageMetadataResponseDTO responseDTO = imageService.getImageById(1L);
+
+        assertEquals(1L, responseDTO.getId());
+
+        verify(imageRepository, times(1)).findById(1L);
+    }
+
+    // Negative Path - Repeated Get Image by ID Not Found is Served from the Cache
+    @Test
+    void testGetImageById_NegativeCacheHit() {
+        when(imageRepository.findById(1L)).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class, () -> imageService.getImageById(1L));
+        assertThrows(ResourceNotFoundException.class, () -> imageService.getImageById(1L));
+
+        verify(imageRepository, times(1)).findById(1L);
+    }
+
+    // Happy Path - Saving Image Metadata Replaces a Cached Not Found Entry
+    @Test
+    void testSaveImageMetadata_RefreshesCache() {
+        when(imageRepository.findById(1L)).thenReturn(Optional.empty());
+        when(imageRepository.save(any(ImageMetadata.class))).thenReturn(createImageMetadata(1L));
+
+        assertThrows(ResourceNotFoundException.class, () -> imageService.getImageById(1L));
+        imageService.saveImageMetadata(createImageMetadataRequestDTO());
+
+        assertEquals(1L, imageService.getImageById(1L).getId());
+
+        verify(imageRepository, times(1)).findById(1L);
+    }
+
+    // Happy Path - Update Image Metadata Refreshes the Cached Entry
+    @Test
+    void testUpdateImageMetadata_RefreshesCache() {
+        ImageMetadata existingImage = createImageMetadata(1L);
+        ImageMetadataRequestDTO updateRequestDTO = createImageMetadataRequestDTO();
+        updateRequestDTO.setOriginalFilename("renamed.jpg");
+
+        when(imageRepository.findById(1L)).thenReturn(Optional.of(existingImage));
+        when(imageRepository.saveAndFlush(any(ImageMetadata.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        imageService.getImageById(1L);
+        imageService.updateImageMetadata(1L, updateRequestDTO);
+
+        assertEquals("renamed.jpg", imageService.getImageById(1L).getOriginalFilename());
+    }
+
+    // Happy Path - Delete Image Invalidates the Cached Entry
+    @Test
+    void testDeleteImage_InvalidatesCache() {
+        ImageMetadata existingImage = createImageMetadata(1L);
+
+        when(imageRepository.findById(1L)).thenReturn(Optional.of(existingImage), Optional.empty());
+
+        imageService.getImageById(1L);
+        imageService.deleteImage(1L);
+
+        assertThrows(ResourceNotFoundException.class, () -> imageService.getImageById(1L));
+
+        verify(imageRepository, times(2)).findById(1L);
+        verify(thumbnailCache).invalidate(1L);
+    }
+
+    // Edge Case - Delete Image Keeps the Cached Entry Until the Transaction Commits
+    @Test
+    void testDeleteImage_InvalidatesCacheAfterCommit() {
+        ImageMetadata existingImage = createImageMetadata(1L);
+
+        when(imageRepository.findById(1L)).thenReturn(Optional.of(existingImage));
+
+        imageService.getImageById(1L);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            imageService.deleteImage(1L);
+            verify(imageMetadataCache, never()).invalidate(1L);
+            verify(thumbnailCache, never()).invalidate(1L);
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verify(imageMetadataCache).invalidate(1L);
+        verify(thumbnailCache).invalidate(1L);
+    }
+
+    // Happy Path - Update Image Metadata Passes the Previous and Updated Values to the Stats
+    @Test
+    void testUpdateImageMetadata_RecordsStats() {
+        ImageMetadata existingImage = createImageMetadata(1L);
+        ImageMetadataRequestDTO updateRequestDTO = createImageMetadataRequestDTO();
+        updateRequestDTO.setWidth(1024);
+
+        when(imageRepository.findById(1L)).thenReturn(Optional.of(existingImage));
+        when(imageRepository.saveAndFlush(any(ImageMetadata.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        imageService.updateImageMetadata(1L, updateRequestDTO);
+
+        verify(imageStatsService, times(1)).recordUpdated(
+                argThat(previous -> previous.getWidth() == 800), argThat(updated -> updated.getWidth() == 1024));
+    }
+
+    // Happy Path - Delete Image Removes it from the Stats
+    @Test
+    void testDeleteImage_RecordsStats() {
+        when(imageRepository.deleteRowById(1L)).thenReturn(1);
 
         imageService.deleteImage(1L);
 
-        verify(imageRepository, times(1)).deleteById(1L);
+        // The stats read the row in SQL, so they must be adjusted before it is deleted
+        InOrder inOrder = inOrder(imageStatsService, imageRepository);
+        inOrder.verify(imageStatsService).recordRemoving(1L);
+        inOrder.verify(imageRepository).deleteRowById(1L);
+    }
+
+    // Negative Path - Delete Image Not Found Does Not Fail
+    @Test
+    void testDeleteImage_NotFound() {
+        when(imageRepository.deleteRowById(1L)).thenReturn(0);
+
+        assertDoesNotThrow(() -> imageService.deleteImage(1L));
+
+        verify(imageRepository, times(1)).deleteRowById(1L);
+    }
+
+    // Negative Path - Search Sorted by a Column that is not Sortable
+    @Test
+    void testSearchImages_InvalidSort() {
+        ImageSearchCriteria criteria = new ImageSearchCriteria();
+        criteria.setUserId(1L);
+
+        assertThrows(InvalidRequestException.class,
+                () -> imageService.searchImages(criteria, PageRequest.of(0, 10, Sort.by("originalFilename"))));
+
+        verifyNoInteractions(imageRepository);
     }
 
 }
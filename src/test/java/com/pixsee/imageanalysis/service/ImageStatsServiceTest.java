@@ -0,0 +1,121 @@
+package com.pixsee.imageanalysis.service;
+
+import com.pixsee.imageanalysis.dto.ImageMetadataRequestDTO;
+import com.pixsee.imageanalysis.dto.ImageMetadataResponseDTO;
+import com.pixsee.imageanalysis.dto.ImageStatsConsistencyDTO;
+import com.pixsee.imageanalysis.dto.ImageStatsResponseDTO;
+import com.pixsee.imageanalysis.repository.ImageRepository;
+import com.pixsee.imageanalysis.repository.ImageUserFileTypeStatsRepository;
+import com.pixsee.imageanalysis.repository.ImageUserStatsRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class ImageStatsServiceTest {
+
+    private static final long USER_ID = 7L;
+
+    @Autowired
+    private ImageService imageService;
+
+    @Autowired
+    private ImageStatsService imageStatsService;
+
+    @Autowired
+    private ImageRepository imageRepository;
+
+    @Autowired
+    private ImageUserStatsRepository imageUserStatsRepository;
+
+    @Autowired
+    private ImageUserFileTypeStatsRepository imageUserFileTypeStatsRepository;
+
+    @AfterEach
+    void tearDown() {
+        imageRepository.deleteAllInBatch();
+        imageUserStatsRepository.deleteAllInBatch();
+        imageUserFileTypeStatsRepository.deleteAllInBatch();
+    }
+
+    private ImageMetadataRequestDTO createImageMetadataRequestDTO(int width, int height, long fileSize, String fileType) {
+        ImageMetadataRequestDTO requestDTO = new ImageMetadataRequestDTO();
+        requestDTO.setUserId(USER_ID);
+        requestDTO.setOriginalFilename("image." + fileType);
+        requestDTO.setWidth(width);
+        requestDTO.setHeight(height);
+        requestDTO.setFileSize(fileSize);
+        requestDTO.setFileType(fileType);
+        return requestDTO;
+    }
+
+    // Happy Path - Stats Follow Saves, Batch Saves, Updates and Deletes
+    @Test
+    void testGetStats_MaintainedIncrementally() {
+        ImageMetadataResponseDTO smallest = imageService.saveImageMetadata(createImageMetadataRequestDTO(100, 50, 1_000L, "png"));
+        imageService.saveImageMetadataBatch(List.of(
+                createImageMetadataRequestDTO(800, 600, 20_000L, "jpg"),
+                createImageMetadataRequestDTO(1920, 1080, 300_000L, "jpg")));
+        ImageMetadataResponseDTO gif = imageService.saveImageMetadata(createImageMetadataRequestDTO(400, 400, 5_000L, "gif"));
+
+        imageService.updateImageMetadata(gif.getId(), createImageMetadataRequestDTO(400, 400, 6_000L, "png"));
+        imageService.deleteImage(smallest.getId());
+
+        ImageStatsResponseDTO stats = imageStatsService.getStats(USER_ID);
+
+        assertEquals(3, stats.getImageCount());
+        assertEquals(326_000L, stats.getTotalBytes());
+        assertEquals(Map.of("jpg", 2L, "png", 1L), stats.getFileTypeCounts());
+        assertEquals(400, stats.getMinWidth());
+        assertEquals(1920, stats.getMaxWidth());
+        assertEquals(400, stats.getMinHeight());
+        assertEquals(1080, stats.getMaxHeight());
+        assertEquals((800 + 1920 + 400) / 3.0, stats.getAvgWidth());
+    }
+
+    // Happy Path - Maintained Counters Match a Full Recomputation
+    @Test
+    void testCheckConsistency_Consistent() {
+        ImageMetadataResponseDTO image = imageService.saveImageMetadata(createImageMetadataRequestDTO(800, 600, 20_000L, "jpg"));
+        imageService.saveImageMetadata(createImageMetadataRequestDTO(640, 480, 10_000L, "jpg"));
+        imageService.deleteImage(image.getId());
+
+        ImageStatsConsistencyDTO consistency = imageStatsService.checkConsistency(USER_ID);
+
+        assertTrue(consistency.isConsistent());
+        assertEquals(1, consistency.getRecomputed().getImageCount());
+    }
+
+    // Negative Path - Drifted Counters are Reported
+    @Test
+    void testCheckConsistency_Drifted() {
+        imageService.saveImageMetadata(createImageMetadataRequestDTO(800, 600, 20_000L, "jpg"));
+        imageUserStatsRepository.findById(USER_ID).ifPresent(stats -> {
+            stats.setImageCount(5L);
+            imageUserStatsRepository.save(stats);
+        });
+
+        ImageStatsConsistencyDTO consistency = imageStatsService.checkConsistency(USER_ID);
+
+        assertFalse(consistency.isConsistent());
+        assertEquals(5, consistency.getStored().getImageCount());
+        assertEquals(1, consistency.getRecomputed().getImageCount());
+    }
+
+    // Edge Case - Stats of a User without Images
+    @Test
+    void testGetStats_NoImages() {
+        ImageStatsResponseDTO stats = imageStatsService.getStats(USER_ID);
+
+        assertEquals(0, stats.getImageCount());
+        assertTrue(stats.getFileTypeCounts().isEmpty());
+        assertNull(stats.getMinWidth());
+        assertTrue(imageStatsService.checkConsistency(USER_ID).isConsistent());
+    }
+}
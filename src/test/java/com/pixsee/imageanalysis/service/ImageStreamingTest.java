@@ -0,0 +1,103 @@
+package com.pixsee.imageanalysis.service;
+
+import com.pixsee.imageanalysis.dto.ImageMetadataRequestDTO;
+import com.pixsee.imageanalysis.repository.ImageRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ImageStreamingTest {
+
+    private static final long USER_ID = 42L;
+    private static final int IMAGE_COUNT = 20_000;
+
+    @Autowired
+    private ImageService imageService;
+
+    @Autowired
+    private ImageRepository imageRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        for (int offset = 0; offset < IMAGE_COUNT; offset += 1_000) {
+            List<ImageMetadataRequestDTO> batch = new ArrayList<>();
+            for (int i = 0; i < 1_000; i++) {
+                ImageMetadataRequestDTO requestDTO = new ImageMetadataRequestDTO();
+                requestDTO.setUserId(USER_ID);
+                requestDTO.setOriginalFilename("image-" + (offset + i) + ".jpg");
+                requestDTO.setWidth(800);
+                requestDTO.setHeight(600);
+                requestDTO.setFileSize(12345L);
+                requestDTO.setFileType("jpg");
+                batch.add(requestDTO);
+            }
+            imageService.saveImageMetadataBatch(batch);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        imageRepository.deleteAllInBatch();
+    }
+
+    // Every streamed row is detached before the next one is read, so the persistence context
+    // (the only place rows could pile up on the application side) never holds more than one entity
+    @Test
+    void testStreamImagesByUserId_PersistenceContextStaysBounded() {
+        AtomicInteger streamed = new AtomicInteger();
+        AtomicInteger maxManagedEntities = new AtomicInteger();
+        long[] lastId = {0L};
+
+        imageService.streamImagesByUserId(USER_ID, image -> {
+            int managedEntities = entityManager.unwrap(SessionImplementor.class)
+                    .getPersistenceContextInternal().getNumberOfManagedEntities();
+            maxManagedEntities.accumulateAndGet(managedEntities, Math::max);
+            assertTrue(image.getId() > lastId[0]);
+            lastId[0] = image.getId();
+            streamed.incrementAndGet();
+        });
+
+        assertEquals(IMAGE_COUNT, streamed.get());
+        assertTrue(maxManagedEntities.get() <= 1, "persistence context grew to " + maxManagedEntities.get());
+    }
+
+    @Test
+    void testStreamImagesEndpoint_WritesOneJsonDocumentPerLine() throws Exception {
+        MvcResult result = mockMvc.perform(get("/images").param("userId", String.valueOf(USER_ID))
+                        .accept("application/x-ndjson"))
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertEquals(IMAGE_COUNT, lines.length);
+        assertTrue(lines[0].startsWith("{\"id\":"));
+    }
+}
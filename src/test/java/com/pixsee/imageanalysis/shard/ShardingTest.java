@@ -0,0 +1,262 @@
+package com.pixsee.imageanalysis.shard;
+
+import com.pixsee.imageanalysis.dto.ImageChangeBatchDTO;
+import com.pixsee.imageanalysis.dto.ImageChangeEventDTO;
+import com.pixsee.imageanalysis.dto.ImageMetadataRequestDTO;
+import com.pixsee.imageanalysis.dto.ImageMetadataResponseDTO;
+import com.pixsee.imageanalysis.entity.ImageChangeType;
+import com.pixsee.imageanalysis.feed.ImageChangeFeed;
+import com.pixsee.imageanalysis.feed.ImageChangeSequencer;
+import com.pixsee.imageanalysis.repository.ImageRepository;
+import com.pixsee.imageanalysis.repository.ImageUserFileTypeStatsRepository;
+import com.pixsee.imageanalysis.repository.ImageUserStatsRepository;
+import com.pixsee.imageanalysis.service.ImageService;
+import com.pixsee.imageanalysis.service.ImageStatsService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Three embedded databases stand in for the home shard and two more. The directory is never refreshed on its
+// own and moves do not wait, so every test sees its changes right away. The image cache is off so that every
+// lookup reaches a shard.
+@SpringBootTest(properties = {
+        "spring.datasource.url=" + ShardingTest.HOME_URL,
+        "image.sharding.enabled=true",
+        "image.sharding.urls=" + ShardingTest.SHARD_1_URL + "," + ShardingTest.SHARD_2_URL,
+        "image.sharding.directory-refresh-interval=PT1H",
+        "image.sharding.move-settle-time=0s",
+        "image.cache.enabled=false"})
+@AutoConfigureMockMvc
+class ShardingTest {
+
+    static final String HOME_URL = "jdbc:h2:mem:sharding_home;MODE=MySQL;DB_CLOSE_DELAY=-1";
+    static final String SHARD_1_URL = "jdbc:h2:mem:sharding_1;MODE=MySQL;DB_CLOSE_DELAY=-1";
+    static final String SHARD_2_URL = "jdbc:h2:mem:sharding_2;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    private static final List<String> SHARD_URLS = List.of(HOME_URL, SHARD_1_URL, SHARD_2_URL);
+    private static final long USER_ID = 131L;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ImageService imageService;
+
+    @Autowired
+    private ImageStatsService imageStatsService;
+
+    @Autowired
+    private ImageChangeFeed imageChangeFeed;
+
+    @Autowired
+    private ImageChangeSequencer imageChangeSequencer;
+
+    @Autowired
+    private ShardRouting shardRouting;
+
+    @Autowired
+    private ShardRebalancer shardRebalancer;
+
+    @Autowired
+    private ImageRepository imageRepository;
+
+    @Autowired
+    private ImageUserStatsRepository imageUserStatsRepository;
+
+    @Autowired
+    private ImageUserFileTypeStatsRepository imageUserFileTypeStatsRepository;
+
+    @AfterEach
+    void tearDown() {
+        shardRouting.forEachShard(() -> {
+            imageRepository.deleteAllInBatch();
+            imageUserStatsRepository.deleteAllInBatch();
+            imageUserFileTypeStatsRepository.deleteAllInBatch();
+        });
+    }
+
+    private static ImageMetadataRequestDTO createImageMetadataRequestDTO(long userId, String originalFilename) {
+        ImageMetadataRequestDTO requestDTO = new ImageMetadataRequestDTO();
+        requestDTO.setUserId(userId);
+        requestDTO.setOriginalFilename(originalFilename);
+        requestDTO.setWidth(800);
+        requestDTO.setHeight(600);
+        requestDTO.setFileSize(12345L);
+        requestDTO.setFileType("jpg");
+        return requestDTO;
+    }
+
+    private static String imageJson(long userId, String originalFilename) {
+        return "{\"userId\":" + userId + ",\"originalFilename\":\"" + originalFilename + "\",\"width\":800,"
+                + "\"height\":600,\"fileSize\":12345,\"fileType\":\"jpg\"}";
+    }
+
+    // The first user from USER_ID on that the directory currently places on the shard
+    private long userOnShard(int shard) {
+        long userId = USER_ID;
+        while (shardRouting.shardOfUser(userId) != shard) {
+            userId++;
+        }
+        return userId;
+    }
+
+    // Counted with plain JDBC, so the count does not depend on the routing under test
+    private static long count(int shard, String sql) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(SHARD_URLS.get(shard), "sa", "");
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(sql)) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+    private static long countImages(int shard, long userId) throws SQLException {
+        return count(shard, "SELECT COUNT(*) FROM image_metadata WHERE user_id = " + userId);
+    }
+
+    // Happy Path - Each User's Images Are Written to and Read from the User's Shard Only
+    @Test
+    void testImages_OnUsersShard() throws Exception {
+        for (int shard = 0; shard < shardRouting.getShardCount(); shard++) {
+            long userId = userOnShard(shard);
+            ImageMetadataResponseDTO saved = imageService.saveImageMetadata(createImageMetadataRequestDTO(userId, "image.jpg"));
+            assertEquals(ShardKey.bucketOfUser(userId), ShardKey.bucketOfImage(saved.getId()));
+
+            for (int other = 0; other < shardRouting.getShardCount(); other++) {
+                assertEquals(other == shard ? 1 : 0, countImages(other, userId));
+            }
+            assertEquals("image.jpg", imageService.getImageById(saved.getId()).getOriginalFilename());
+            assertEquals(1, imageService.getImagesByUserId(userId).size());
+            assertEquals(1, imageStatsService.getStats(userId).getImageCount());
+            assertTrue(imageStatsService.checkConsistency(userId).isConsistent());
+
+            imageService.updateImageMetadata(saved.getId(), createImageMetadataRequestDTO(userId, "renamed.jpg"));
+            assertEquals("renamed.jpg", imageService.getImageById(saved.getId()).getOriginalFilename());
+            imageService.deleteImage(saved.getId());
+            assertEquals(0, countImages(shard, userId));
+        }
+    }
+
+    // Negative Path - A Batch Is Saved in One Transaction, So Its Users Must Share a Shard
+    @Test
+    void testBatch_UsersOnDifferentShards() throws Exception {
+        long first = userOnShard(1);
+        long second = userOnShard(2);
+
+        mockMvc.perform(post("/images/batch").contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + imageJson(first, "a.jpg") + "," + imageJson(second, "b.jpg") + "]"))
+                .andExpect(status().isBadRequest());
+        assertEquals(0, countImages(1, first));
+        assertEquals(0, countImages(2, second));
+
+        mockMvc.perform(post("/images/batch").contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + imageJson(first, "a.jpg") + "," + imageJson(first, "b.jpg") + "]"))
+                .andExpect(status().isCreated());
+        assertEquals(2, countImages(1, first));
+    }
+
+    // Happy Path - Events Written on Every Shard End Up in One Feed on the Home Shard
+    @Test
+    void testChangeFeed_AcrossShards() throws Exception {
+        imageChangeSequencer.sequence();
+        long since = imageChangeFeed.getChanges(null, 1, Duration.ZERO).get().getNextSince();
+        long first = userOnShard(1);
+        long second = userOnShard(2);
+        Long firstId = imageService.saveImageMetadata(createImageMetadataRequestDTO(first, "a.jpg")).getId();
+        Long secondId = imageService.saveImageMetadata(createImageMetadataRequestDTO(second, "b.jpg")).getId();
+        imageService.deleteImage(firstId);
+
+        imageChangeSequencer.sequence();
+        ImageChangeBatchDTO batch = imageChangeFeed.getChanges(since, 10, Duration.ZERO).get();
+        List<ImageChangeEventDTO> events = batch.getEvents();
+        assertEquals(3, events.size());
+        assertEquals(since + 3, batch.getNextSince());
+        ImageChangeEventDTO created = events.stream().filter(event -> event.getImageId().equals(secondId)).findFirst().orElseThrow();
+        assertEquals("b.jpg", created.getImage().getOriginalFilename());
+        assertEquals(List.of(ImageChangeType.CREATED, ImageChangeType.DELETED), events.stream()
+                .filter(event -> event.getImageId().equals(firstId))
+                .map(ImageChangeEventDTO::getType)
+                .toList());
+        // Relayed events are removed from the shard they were written on
+        assertEquals(0, count(1, "SELECT COUNT(*) FROM image_change_event"));
+        assertEquals(0, count(2, "SELECT COUNT(*) FROM image_change_event"));
+    }
+
+    // Happy Path - Moving a Bucket Keeps Ids, Versions and Stats
+    @Test
+    void testMoveBucket() throws Exception {
+        long userId = userOnShard(1);
+        int bucket = ShardKey.bucketOfUser(userId);
+        Long id = imageService.saveImageMetadata(createImageMetadataRequestDTO(userId, "a.jpg")).getId();
+        imageService.saveImageMetadata(createImageMetadataRequestDTO(userId, "b.jpg"));
+        imageService.updateImageMetadata(id, createImageMetadataRequestDTO(userId, "renamed.jpg"));
+
+        assertEquals(1, shardRebalancer.moveBucket(bucket, 2));
+        assertEquals(2, shardRouting.shardOfUser(userId));
+        assertEquals(0, countImages(1, userId));
+        assertEquals(2, countImages(2, userId));
+        ImageMetadataResponseDTO moved = imageService.getImageById(id);
+        assertEquals("renamed.jpg", moved.getOriginalFilename());
+        assertEquals(1L, moved.getVersion());
+        assertEquals(2, imageStatsService.getStats(userId).getImageCount());
+        assertTrue(imageStatsService.checkConsistency(userId).isConsistent());
+
+        // New images of the user go to the new shard and keep the bucket in their ids
+        Long newId = imageService.saveImageMetadata(createImageMetadataRequestDTO(userId, "c.jpg")).getId();
+        assertEquals(bucket, ShardKey.bucketOfImage(newId));
+        assertEquals(3, countImages(2, userId));
+        imageService.deleteImage(id);
+        assertEquals(2, imageService.getImagesByUserId(userId).size());
+
+        // Evens out the shards again
+        shardRebalancer.rebalance();
+        List<Integer> counts = shardRebalancer.getBucketCounts();
+        assertTrue(Collections.max(counts) - Collections.min(counts) <= 1);
+        assertEquals(2, imageService.getImagesByUserId(userId).size());
+    }
+
+    // Negative Path - Writes to a Moving Bucket Are Refused While Reads Go On
+    @Test
+    void testWrite_BucketMoving() throws Exception {
+        long userId = userOnShard(2);
+        int bucket = ShardKey.bucketOfUser(userId);
+        Long id = imageService.saveImageMetadata(createImageMetadataRequestDTO(userId, "a.jpg")).getId();
+
+        shardRouting.updateBucket(bucket, 2, true);
+        try {
+            mockMvc.perform(post("/images").contentType(MediaType.APPLICATION_JSON).content(imageJson(userId, "b.jpg")))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().exists("Retry-After"));
+            mockMvc.perform(get("/images/{id}", id))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.originalFilename").value("a.jpg"));
+            mockMvc.perform(get("/images").param("userId", String.valueOf(userId)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.length()").value(1));
+        } finally {
+            shardRouting.updateBucket(bucket, 2, false);
+        }
+        mockMvc.perform(post("/images").contentType(MediaType.APPLICATION_JSON).content(imageJson(userId, "b.jpg")))
+                .andExpect(status().isCreated());
+    }
+}
@@ -0,0 +1,108 @@
+package com.pixsee.imageanalysis.similarity;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HammingIndexTest {
+
+    private static long flipBits(long hash, int bits, SplittableRandom random) {
+        long flipped = hash;
+        while (Long.bitCount(flipped ^ hash) < bits) {
+            flipped ^= 1L << random.nextInt(64);
+        }
+        return flipped;
+    }
+
+    private static Map<Long, Integer> query(HammingIndex index, long hash, int maxDistance) {
+        Map<Long, Integer> matches = new HashMap<>();
+        index.query(hash, maxDistance, (id, matchedHash, distance) ->
+                assertNull(matches.put(id, distance), "reported twice: " + id));
+        return matches;
+    }
+
+    private static void assertMatchesLinearScan(HammingIndex index, long[] hashes, int size, SplittableRandom random) {
+        for (int maxDistance : new int[]{0, 3, 8, 13, 16}) {
+            for (int q = 0; q < 20; q++) {
+                long query = flipBits(hashes[random.nextInt(size)], random.nextInt(6), random);
+                Map<Long, Integer> expected = new HashMap<>();
+                for (int i = 0; i < size; i++) {
+                    int distance = Long.bitCount(hashes[i] ^ query);
+                    if (distance <= maxDistance) {
+                        expected.put((long) i, distance);
+                    }
+                }
+                assertEquals(expected, query(index, query, maxDistance));
+            }
+        }
+    }
+
+    // Happy Path - Queries Return Exactly What A Linear Scan Finds, Before And After The Tables Are Built
+    @Test
+    void testQuery_MatchesLinearScan() {
+        SplittableRandom random = new SplittableRandom(1);
+        HammingIndex index = new HammingIndex();
+        long[] hashes = new long[HammingIndex.INDEX_THRESHOLD * 2];
+        for (int i = 0; i < hashes.length; i++) {
+            // Clusters of near-duplicates, so every distance up to the maximum occurs
+            hashes[i] = i % 10 == 0 ? random.nextLong() : flipBits(hashes[i - i % 10], random.nextInt(20), random);
+            index.add(i, hashes[i]);
+            if (i == 999) {
+                assertMatchesLinearScan(index, hashes, 1000, random);
+            }
+        }
+
+        assertMatchesLinearScan(index, hashes, hashes.length, random);
+    }
+
+    // Happy Path - Removing Entries From A Large Index Keeps The Rest Findable
+    @Test
+    void testRemove_LargeIndex() {
+        SplittableRandom random = new SplittableRandom(2);
+        HammingIndex index = new HammingIndex();
+        long[] hashes = new long[HammingIndex.INDEX_THRESHOLD * 2];
+        for (int i = 0; i < hashes.length; i++) {
+            hashes[i] = random.nextLong();
+            index.add(i, hashes[i]);
+        }
+
+        // Removing the even ids leaves the odd ones, now at different positions
+        for (int i = 0; i < hashes.length; i += 2) {
+            assertTrue(index.remove(i, hashes[i]));
+        }
+
+        assertEquals(hashes.length / 2, index.size());
+        for (int i = 0; i < hashes.length; i++) {
+            assertEquals(i % 2 == 0 ? Map.of() : Map.of((long) i, 0), query(index, hashes[i], 0));
+        }
+    }
+
+    // Happy Path - Removed Entries Are No Longer Found And The Rest Still Are
+    @Test
+    void testRemove_Success() {
+        HammingIndex index = new HammingIndex();
+        index.add(1, 0xF0F0L);
+        index.add(2, 0xF0F1L);
+        index.add(3, 0xF0F3L);
+
+        assertTrue(index.remove(1, 0xF0F0L));
+
+        assertEquals(Map.of(2L, 1, 3L, 2), query(index, 0xF0F0L, 4));
+        assertEquals(2, index.size());
+    }
+
+    // Negative Path - Removing An Entry That Is Not There
+    @Test
+    void testRemove_Missing() {
+        HammingIndex index = new HammingIndex();
+        index.add(1, 0xF0F0L);
+
+        assertFalse(index.remove(1, 0xF0F1L));
+        assertFalse(index.remove(2, 0xF0F0L));
+        assertEquals(1, index.size());
+    }
+}
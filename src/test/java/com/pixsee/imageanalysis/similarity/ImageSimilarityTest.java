@@ -0,0 +1,135 @@
+package com.pixsee.imageanalysis.similarity;
+
+import com.pixsee.imageanalysis.repository.ImageRepository;
+import com.pixsee.imageanalysis.repository.ImageUserFileTypeStatsRepository;
+import com.pixsee.imageanalysis.repository.ImageUserStatsRepository;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ImageSimilarityTest {
+
+    private static final String IMAGE_JSON = "{\"userId\":61,\"originalFilename\":\"image.jpg\",\"width\":800,"
+            + "\"height\":600,\"fileSize\":12345,\"fileType\":\"jpg\"}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ImageRepository imageRepository;
+
+    @Autowired
+    private ImageUserStatsRepository imageUserStatsRepository;
+
+    @Autowired
+    private ImageUserFileTypeStatsRepository imageUserFileTypeStatsRepository;
+
+    @AfterEach
+    void tearDown() {
+        imageRepository.deleteAllInBatch();
+        imageUserStatsRepository.deleteAllInBatch();
+        imageUserFileTypeStatsRepository.deleteAllInBatch();
+    }
+
+    // A grid of random grey blocks, so that different seeds give unrelated pictures
+    private static byte[] pattern(long seed, int width, int height, String format) throws Exception {
+        SplittableRandom random = new SplittableRandom(seed);
+        BufferedImage blocks = new BufferedImage(16, 12, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < blocks.getHeight(); y++) {
+            for (int x = 0; x < blocks.getWidth(); x++) {
+                int grey = random.nextInt(256);
+                blocks.setRGB(x, y, grey << 16 | grey << 8 | grey);
+            }
+        }
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.drawImage(blocks, 0, 0, width, height, null);
+        graphics.dispose();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertTrue(ImageIO.write(image, format, out));
+        return out.toByteArray();
+    }
+
+    private Integer upload(long userId, byte[] content) throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "photo", "application/octet-stream", content);
+        MvcResult result = mockMvc.perform(multipart("/images/upload").file(file).param("userId", String.valueOf(userId)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return JsonPath.read(mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.perceptualHash").isNumber())
+                .andReturn().getResponse().getContentAsString(), "$.id");
+    }
+
+    // Happy Path - Resized Copies Of The User's Image Are Returned, Unrelated And Other Users' Images Are Not
+    @Test
+    void testListSimilarImages_Success() throws Exception {
+        Integer original = upload(61L, pattern(1, 640, 480, "png"));
+        Integer resized = upload(61L, pattern(1, 320, 240, "jpg"));
+        upload(61L, pattern(2, 640, 480, "png"));
+        upload(62L, pattern(1, 640, 480, "bmp"));
+
+        mockMvc.perform(get("/images/{id}/similar", original).param("maxDistance", "8"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].image.id").value(resized))
+                .andExpect(jsonPath("$[0].distance").isNumber());
+    }
+
+    // Happy Path - Deleted Images Are No Longer Returned
+    @Test
+    void testListSimilarImages_DeletedImage() throws Exception {
+        Integer original = upload(63L, pattern(3, 640, 480, "png"));
+        Integer resized = upload(63L, pattern(3, 200, 150, "png"));
+
+        mockMvc.perform(delete("/images/{id}", resized)).andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/images/{id}/similar", original))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0));
+    }
+
+    // Negative Path - Image Without A Perceptual Hash
+    @Test
+    void testListSimilarImages_NoPerceptualHash() throws Exception {
+        Integer id = JsonPath.read(mockMvc.perform(post("/images").contentType(MediaType.APPLICATION_JSON).content(IMAGE_JSON))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString(), "$.id");
+
+        mockMvc.perform(get("/images/{id}/similar", id))
+                .andExpect(status().isNotFound());
+    }
+
+    // Negative Path - Distance Above The Configured Maximum
+    @Test
+    void testListSimilarImages_InvalidMaxDistance() throws Exception {
+        mockMvc.perform(get("/images/1/similar").param("maxDistance", "17"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors[0]").value("Max distance must be between 0 and 16"));
+    }
+}
@@ -0,0 +1,209 @@
+package com.pixsee.imageanalysis.storage;
+
+import com.pixsee.imageanalysis.dto.ImageMetadataRequestDTO;
+import com.pixsee.imageanalysis.dto.ImageMetadataResponseDTO;
+import com.pixsee.imageanalysis.entity.ImageMetadata;
+import com.pixsee.imageanalysis.repository.ImageContentProjection;
+import com.pixsee.imageanalysis.repository.ImageRepository;
+import com.pixsee.imageanalysis.repository.ImageUserFileTypeStatsRepository;
+import com.pixsee.imageanalysis.repository.ImageUserStatsRepository;
+import com.pixsee.imageanalysis.service.ImageService;
+import com.pixsee.imageanalysis.shard.ShardRouting;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.util.unit.DataSize;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ImageContentTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ImageService imageService;
+
+    @Autowired
+    private ShardRouting shardRouting;
+
+    @Autowired
+    private ImageRepository imageRepository;
+
+    @Autowired
+    private ImageUserStatsRepository imageUserStatsRepository;
+
+    @Autowired
+    private ImageUserFileTypeStatsRepository imageUserFileTypeStatsRepository;
+
+    @TempDir
+    Path directory;
+
+    @AfterEach
+    void tearDown() {
+        imageRepository.deleteAllInBatch();
+        imageUserStatsRepository.deleteAllInBatch();
+        imageUserFileTypeStatsRepository.deleteAllInBatch();
+    }
+
+    // Noise does not compress, so the PNG is large enough to be served from a mapped region
+    private static byte[] noisePng(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(width * 31L + height);
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                image.setRGB(x, y, random.nextInt());
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertTrue(ImageIO.write(image, "png", out));
+        return out.toByteArray();
+    }
+
+    private ImageMetadataResponseDTO upload(byte[] png) throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "noise.png", "image/png", png);
+        MvcResult result = mockMvc.perform(multipart("/images/upload").file(file).param("userId", "42"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(body, ImageMetadataResponseDTO.class);
+    }
+
+    // Happy Path - Uploaded Bytes Are Served Back With The Image's Content Type
+    @Test
+    void testGetImageContent_Success() throws Exception {
+        byte[] png = noisePng(120, 120);
+        ImageMetadataResponseDTO image = upload(png);
+
+        mockMvc.perform(get("/images/" + image.getId() + "/content"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.IMAGE_PNG))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(content().bytes(png));
+    }
+
+    // Happy Path - A Range Request Returns Only The Requested Bytes
+    @Test
+    void testGetImageContent_Range() throws Exception {
+        byte[] png = noisePng(120, 120);
+        ImageMetadataResponseDTO image = upload(png);
+
+        mockMvc.perform(get("/images/" + image.getId() + "/content").header(HttpHeaders.RANGE, "bytes=1000-1999"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 1000-1999/" + png.length))
+                .andExpect(content().bytes(Arrays.copyOfRange(png, 1000, 2000)));
+    }
+
+    // Negative Path - Image Created From Metadata Only Has No Content
+    @Test
+    void testGetImageContent_NoContent() throws Exception {
+        ImageMetadataRequestDTO requestDTO = new ImageMetadataRequestDTO();
+        requestDTO.setUserId(42L);
+        requestDTO.setOriginalFilename("metadata-only.png");
+        requestDTO.setWidth(10);
+        requestDTO.setHeight(10);
+        requestDTO.setFileSize(100L);
+        requestDTO.setFileType("png");
+        ImageMetadataResponseDTO image = imageService.saveImageMetadata(requestDTO);
+
+        mockMvc.perform(get("/images/" + image.getId() + "/content"))
+                .andExpect(status().isNotFound());
+    }
+
+    // Negative Path - Content Of A Deleted Image
+    @Test
+    void testGetImageContent_DeletedImage() throws Exception {
+        ImageMetadataResponseDTO image = upload(noisePng(20, 20));
+
+        mockMvc.perform(delete("/images/" + image.getId())).andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/images/" + image.getId() + "/content"))
+                .andExpect(status().isNotFound());
+    }
+
+    // Happy Path - Compaction Moves Live Content Out Of Mostly Deleted Segments
+    @Test
+    void testCompaction_RelocatesLiveContent() throws IOException {
+        SegmentFileContentStore store = new SegmentFileContentStore(directory, 1000, false, Clock.systemUTC());
+        ContentCompactor compactor = new ContentCompactor(store, imageRepository, shardRouting, 0.5, Duration.ZERO, DataSize.ofBytes(1000));
+        byte[] kept = new byte[300];
+        new Random(1).nextBytes(kept);
+        ImageMetadata keptImage = saveWithContent(store, kept);
+        ImageMetadata deletedImage = saveWithContent(store, new byte[400]);
+        ImageMetadata otherImage = saveWithContent(store, new byte[400]);
+        ContentPointer before = pointerOf(keptImage.getId());
+        ContentPointer otherBefore = pointerOf(otherImage.getId());
+
+        imageService.deleteImage(deletedImage.getId());
+        assertEquals(1, compactor.compact());
+
+        ContentPointer after = pointerOf(keptImage.getId());
+        assertNotEquals(before.segment(), after.segment());
+        // The active segment is never compacted
+        assertEquals(otherBefore, pointerOf(otherImage.getId()));
+        try (InputStream in = store.read(after).getInputStream()) {
+            assertArrayEquals(kept, in.readAllBytes());
+        }
+        // The old segment is deleted by the next run
+        assertEquals(0, compactor.compact());
+        assertThrows(IOException.class, () -> store.read(before));
+        store.close();
+    }
+
+    private ImageMetadata saveWithContent(SegmentFileContentStore store, byte[] content) throws IOException {
+        ContentPointer pointer = store.write(new ByteArrayInputStream(content), content.length);
+        ImageMetadata imageMetadata = new ImageMetadata();
+        imageMetadata.setUserId(43L);
+        imageMetadata.setOriginalFilename("raw.bin");
+        imageMetadata.setUploadDate(0L);
+        imageMetadata.setWidth(1);
+        imageMetadata.setHeight(1);
+        imageMetadata.setFileSize((long) content.length);
+        imageMetadata.setFileType("png");
+        imageMetadata.setContentSegment(pointer.segment());
+        imageMetadata.setContentOffset(pointer.offset());
+        imageMetadata.setContentLength(pointer.length());
+        return imageRepository.save(imageMetadata);
+    }
+
+    private ContentPointer pointerOf(Long id) {
+        ImageContentProjection content = imageRepository.findContentById(id).orElseThrow();
+        return new ContentPointer(content.contentSegment(), content.contentOffset(), content.contentLength());
+    }
+}
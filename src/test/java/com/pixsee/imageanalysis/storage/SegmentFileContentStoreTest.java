@@ -0,0 +1,140 @@
+package com.pixsee.imageanalysis.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.Resource;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SegmentFileContentStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static byte[] readAll(Resource resource) throws IOException {
+        try (InputStream in = resource.getInputStream()) {
+            return in.readAllBytes();
+        }
+    }
+
+    private SegmentFileContentStore newStore(long segmentSize) throws IOException {
+        return new SegmentFileContentStore(directory, segmentSize, false, Clock.systemUTC());
+    }
+
+    // Happy Path - Small And Large Content Are Read Back Unchanged
+    @Test
+    void testWriteAndRead_Success() throws IOException {
+        SegmentFileContentStore store = newStore(1024 * 1024);
+        byte[] small = randomBytes(100);
+        byte[] large = randomBytes(200 * 1024);
+
+        ContentPointer smallPointer = store.write(new ByteArrayInputStream(small), small.length);
+        ContentPointer largePointer = store.write(new ByteArrayInputStream(large), large.length);
+
+        assertEquals(smallPointer.segment(), largePointer.segment());
+        assertEquals(small.length, largePointer.offset());
+        assertArrayEquals(small, readAll(store.read(smallPointer)));
+        assertArrayEquals(large, readAll(store.read(largePointer)));
+        assertEquals(large.length, store.read(largePointer).contentLength());
+        store.close();
+    }
+
+    // Happy Path - Skipping Into Mapped Content Does Not Read The Skipped Bytes
+    @Test
+    void testRead_SkipToRange() throws IOException {
+        SegmentFileContentStore store = newStore(1024 * 1024);
+        byte[] content = randomBytes(100 * 1024);
+        ContentPointer pointer = store.write(new ByteArrayInputStream(content), content.length);
+
+        try (InputStream in = store.read(pointer).getInputStream()) {
+            assertEquals(50_000, in.skip(50_000));
+            assertArrayEquals(Arrays.copyOfRange(content, 50_000, 50_100), in.readNBytes(100));
+        }
+        store.close();
+    }
+
+    // Happy Path - A Full Segment Is Sealed And The Next Write Starts A New One
+    @Test
+    void testWrite_RollsOverToNewSegment() throws IOException {
+        SegmentFileContentStore store = newStore(1000);
+
+        byte[] content = randomBytes(600);
+
+        ContentPointer first = store.write(new ByteArrayInputStream(content), 600);
+        ContentPointer second = store.write(new ByteArrayInputStream(randomBytes(600)), 600);
+
+        assertNotEquals(first.segment(), second.segment());
+        assertEquals(0, second.offset());
+        assertEquals(Map.of(first.segment(), 600L), store.sealedSegments(Duration.ZERO));
+        // Sealed segments are served from a single mapping
+        assertArrayEquals(content, readAll(store.read(first)));
+        store.close();
+    }
+
+    // Happy Path - Existing Segments Are Reopened After A Restart
+    @Test
+    void testReopen_ExistingContentIsReadable() throws IOException {
+        byte[] content = randomBytes(500);
+        SegmentFileContentStore store = newStore(1024 * 1024);
+        ContentPointer pointer = store.write(new ByteArrayInputStream(content), content.length);
+        store.close();
+
+        SegmentFileContentStore reopened = newStore(1024 * 1024);
+        ContentPointer next = reopened.write(new ByteArrayInputStream(content), content.length);
+
+        assertArrayEquals(content, readAll(reopened.read(pointer)));
+        assertNotEquals(pointer.segment(), next.segment());
+        reopened.close();
+    }
+
+    // Happy Path - Copied Content Survives Deletion Of The Retired Segment
+    @Test
+    void testCopyAndRetire_Success() throws IOException {
+        SegmentFileContentStore store = newStore(1000);
+        byte[] content = randomBytes(700);
+        ContentPointer pointer = store.write(new ByteArrayInputStream(content), content.length);
+        store.write(new ByteArrayInputStream(randomBytes(700)), 700);
+
+        SegmentFileContentStore.Segment target = store.createCompactionSegment();
+        ContentPointer copy = store.copy(pointer, target);
+        store.finishCompaction(target);
+        store.retire(pointer.segment());
+
+        // Still readable until the retired segment is deleted
+        assertArrayEquals(content, readAll(store.read(pointer)));
+        assertEquals(1, store.deleteRetired());
+        assertArrayEquals(content, readAll(store.read(copy)));
+        assertThrows(IOException.class, () -> store.read(pointer));
+        try (var files = Files.list(directory)) {
+            assertEquals(2, files.count());
+        }
+        store.close();
+    }
+
+    // Negative Path - Stream Shorter Than The Declared Length
+    @Test
+    void testWrite_TruncatedContent() throws IOException {
+        SegmentFileContentStore store = newStore(1024 * 1024);
+
+        assertThrows(EOFException.class, () -> store.write(new ByteArrayInputStream(randomBytes(10)), 20));
+        store.close();
+    }
+}
@@ -0,0 +1,53 @@
+package com.pixsee.imageanalysis.support;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Records the SQL Hibernate prepares on the current thread between {@link #start()} and {@link #stop()}.
+ * Registered for all tests through {@code hibernate.session_factory.statement_inspector}; it is a no-op
+ * while not recording.
+ */
+public class SqlStatementRecorder implements StatementInspector {
+
+    private static final ThreadLocal<List<String>> STATEMENTS = new ThreadLocal<>();
+
+    public static void start() {
+        STATEMENTS.set(new ArrayList<>());
+    }
+
+    public static List<String> stop() {
+        List<String> statements = STATEMENTS.get();
+        STATEMENTS.remove();
+        return statements == null ? List.of() : statements;
+    }
+
+    /**
+     * Counts statements by their leading keyword. Sequence calls are left out.
+     */
+    public static Map<String, Integer> countByType(List<String> statements) {
+        Map<String, Integer> counts = new TreeMap<>();
+        for (String statement : statements) {
+            String sql = statement.strip().toLowerCase(Locale.ROOT);
+            if (sql.contains("image_metadata_seq")) {
+                continue;
+            }
+            counts.merge(sql.split("\\s+", 2)[0], 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        List<String> statements = STATEMENTS.get();
+        if (statements != null) {
+            statements.add(sql);
+        }
+        return sql;
+    }
+}
@@ -0,0 +1,128 @@
+package com.pixsee.imageanalysis.thumbnail;
+
+import com.pixsee.imageanalysis.repository.ImageRepository;
+import com.pixsee.imageanalysis.repository.ImageUserFileTypeStatsRepository;
+import com.pixsee.imageanalysis.repository.ImageUserStatsRepository;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ImageThumbnailTest {
+
+    private static final String IMAGE_JSON = "{\"userId\":71,\"originalFilename\":\"image.jpg\",\"width\":800,"
+            + "\"height\":600,\"fileSize\":12345,\"fileType\":\"jpg\"}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ImageRepository imageRepository;
+
+    @Autowired
+    private ImageUserStatsRepository imageUserStatsRepository;
+
+    @Autowired
+    private ImageUserFileTypeStatsRepository imageUserFileTypeStatsRepository;
+
+    @AfterEach
+    void tearDown() {
+        imageRepository.deleteAllInBatch();
+        imageUserStatsRepository.deleteAllInBatch();
+        imageUserFileTypeStatsRepository.deleteAllInBatch();
+    }
+
+    private Integer upload(int width, int height) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertTrue(ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", out));
+        MockMultipartFile file = new MockMultipartFile("file", "photo.png", "image/png", out.toByteArray());
+        MvcResult result = mockMvc.perform(multipart("/images/upload").file(file).param("userId", "71"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String response = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        Integer id = JsonPath.read(response, "$.id");
+        assertEquals("/images/" + id + "/thumbnails/128", JsonPath.read(response, "$.thumbnails.128"));
+        assertEquals("/images/" + id + "/thumbnails/512", JsonPath.read(response, "$.thumbnails.512"));
+        return id;
+    }
+
+    private MvcResult getThumbnail(Object id, int size) throws Exception {
+        MvcResult result = mockMvc.perform(get("/images/{id}/thumbnails/{size}", id, size))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(result)).andReturn();
+    }
+
+    // Happy Path - Uploaded Images Have Thumbnails In Every Configured Size
+    @Test
+    void testGetImageThumbnail_Success() throws Exception {
+        Integer id = upload(900, 600);
+
+        for (int size : new int[]{128, 512}) {
+            MvcResult result = getThumbnail(id, size);
+            assertEquals(200, result.getResponse().getStatus());
+            assertEquals(MediaType.IMAGE_JPEG_VALUE, result.getResponse().getContentType());
+            BufferedImage thumbnail = ImageIO.read(new ByteArrayInputStream(result.getResponse().getContentAsByteArray()));
+            assertEquals(size, thumbnail.getWidth());
+            assertEquals(size * 2 / 3, thumbnail.getHeight(), 1);
+        }
+    }
+
+    // Negative Path - Size That Is Not Configured
+    @Test
+    void testGetImageThumbnail_UnknownSize() throws Exception {
+        mockMvc.perform(get("/images/1/thumbnails/100"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors[0]").value("Thumbnail size must be one of [128, 512]"));
+    }
+
+    // Negative Path - Image Created Without Content
+    @Test
+    void testGetImageThumbnail_NoContent() throws Exception {
+        String response = mockMvc.perform(post("/images").contentType(MediaType.APPLICATION_JSON).content(IMAGE_JSON))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.thumbnails").doesNotExist())
+                .andReturn().getResponse().getContentAsString();
+
+        mockMvc.perform(get("/images/{id}/thumbnails/128", (Integer) JsonPath.read(response, "$.id")))
+                .andExpect(status().isNotFound());
+    }
+
+    // Negative Path - Deleted Image
+    @Test
+    void testGetImageThumbnail_DeletedImage() throws Exception {
+        Integer id = upload(300, 200);
+        assertEquals(200, getThumbnail(id, 128).getResponse().getStatus());
+
+        mockMvc.perform(delete("/images/{id}", id)).andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/images/{id}/thumbnails/128", id))
+                .andExpect(status().isNotFound());
+    }
+}
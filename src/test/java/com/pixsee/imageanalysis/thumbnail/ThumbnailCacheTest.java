@@ -0,0 +1,73 @@
+package com.pixsee.imageanalysis.thumbnail;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ThumbnailCacheTest {
+
+    @TempDir
+    Path directory;
+
+    // Happy Path - The Least Recently Used Thumbnail Is Evicted First
+    @Test
+    void testPut_EvictsLeastRecentlyUsed() throws IOException {
+        ThumbnailCache cache = new ThumbnailCache(directory, DataSize.ofBytes(300));
+        cache.put(1, 128, new byte[100]);
+        cache.put(2, 128, new byte[100]);
+        cache.put(3, 128, new byte[100]);
+        assertNotNull(cache.get(1, 128));
+
+        cache.put(4, 128, new byte[100]);
+
+        assertNotNull(cache.get(1, 128));
+        assertNull(cache.get(2, 128));
+        assertNotNull(cache.get(3, 128));
+        assertNotNull(cache.get(4, 128));
+        assertEquals(300, cache.totalBytes());
+        assertFalse(Files.exists(directory.resolve("2-128.jpg")));
+    }
+
+    // Happy Path - Thumbnails Written Before A Restart Are Found Again
+    @Test
+    void testRestart_LoadsExistingThumbnails() throws IOException {
+        ThumbnailCache cache = new ThumbnailCache(directory, DataSize.ofKilobytes(1));
+        cache.put(1, 128, new byte[]{1, 2, 3});
+        Files.write(directory.resolve("1-128.jpg12345.tmp"), new byte[10]);
+        // Files that are not the cache's own are neither counted nor deleted
+        Files.write(directory.resolve("notes.txt"), new byte[10]);
+        Files.write(directory.resolve("photo.jpg"), new byte[10]);
+
+        ThumbnailCache reopened = new ThumbnailCache(directory, DataSize.ofKilobytes(1));
+
+        assertArrayEquals(new byte[]{1, 2, 3}, reopened.get(1, 128));
+        assertEquals(3, reopened.totalBytes());
+        assertFalse(Files.exists(directory.resolve("1-128.jpg12345.tmp")));
+        assertTrue(Files.exists(directory.resolve("notes.txt")));
+        assertTrue(Files.exists(directory.resolve("photo.jpg")));
+    }
+
+    // Happy Path - Invalidating An Image Removes Every Size
+    @Test
+    void testInvalidate_RemovesAllSizes() throws IOException {
+        ThumbnailCache cache = new ThumbnailCache(directory, DataSize.ofKilobytes(1));
+        for (int size : ThumbnailSizes.get()) {
+            cache.put(1, size, new byte[10]);
+        }
+        cache.put(2, ThumbnailSizes.get().getFirst(), new byte[10]);
+
+        cache.invalidate(1);
+
+        for (int size : ThumbnailSizes.get()) {
+            assertNull(cache.get(1, size));
+        }
+        assertNotNull(cache.get(2, ThumbnailSizes.get().getFirst()));
+        assertEquals(10, cache.totalBytes());
+    }
+}
@@ -0,0 +1,157 @@
+package com.pixsee.imageanalysis.thumbnail;
+
+import com.pixsee.imageanalysis.storage.ContentPointer;
+import com.pixsee.imageanalysis.storage.ContentStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.util.unit.DataSize;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ThumbnailGeneratorTest {
+
+    @TempDir
+    Path directory;
+
+    private final CountDownLatch released = new CountDownLatch(1);
+    private final List<Integer> reads = Collections.synchronizedList(new ArrayList<>());
+    private ThumbnailGenerator generator;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        released.countDown();
+        generator.shutdown();
+    }
+
+    // Every pointer's segment doubles as the image id; reading image 1 blocks until the test releases it
+    private ThumbnailGenerator generator(int queueCapacity) throws IOException {
+        byte[] png = png(1200, 800);
+        ContentStore contentStore = new ContentStore() {
+            @Override
+            public ContentPointer write(InputStream content, long length) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public Resource read(ContentPointer pointer) {
+                reads.add(pointer.segment());
+                if (pointer.segment() == 1) {
+                    try {
+                        assertTrue(released.await(10, TimeUnit.SECONDS));
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+                return new ByteArrayResource(png);
+            }
+        };
+        generator = new ThumbnailGenerator(contentStore, new ThumbnailCache(directory, DataSize.ofMegabytes(1)),
+                new SimpleMeterRegistry(), List.of(128, 512), 1, queueCapacity);
+        return generator;
+    }
+
+    private static byte[] png(int width, int height) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertTrue(ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", out));
+        return out.toByteArray();
+    }
+
+    private static ContentPointer pointer(int imageId) {
+        return new ContentPointer(imageId, 0, 0);
+    }
+
+    private static void awaitRead(List<Integer> reads, int count) throws InterruptedException {
+        for (int i = 0; i < 100 && reads.size() < count; i++) {
+            Thread.sleep(20);
+        }
+    }
+
+    // Happy Path - Thumbnails Fit The Configured Sizes And Are Cached
+    @Test
+    void testGetThumbnail_GeneratesAllSizes() throws Exception {
+        ThumbnailGenerator generator = generator(16);
+
+        byte[] small = generator.getThumbnail(2, pointer(2), 128).get(10, TimeUnit.SECONDS);
+        byte[] large = generator.getThumbnail(2, pointer(2), 512).get(10, TimeUnit.SECONDS);
+
+        BufferedImage smallImage = ImageIO.read(new ByteArrayInputStream(small));
+        BufferedImage largeImage = ImageIO.read(new ByteArrayInputStream(large));
+        assertEquals(128, smallImage.getWidth());
+        assertEquals(85, smallImage.getHeight());
+        assertEquals(512, largeImage.getWidth());
+        // One decode produced both sizes
+        assertEquals(List.of(2), reads);
+    }
+
+    // Happy Path - Interactive Requests Run Ahead Of Queued Background Jobs
+    @Test
+    void testGetThumbnail_InteractiveBeforeBackfill() throws Exception {
+        ThumbnailGenerator generator = generator(16);
+        generator.scheduleBackfill(1, pointer(1));
+        awaitRead(reads, 1);
+        generator.scheduleBackfill(2, pointer(2));
+        generator.scheduleBackfill(3, pointer(3));
+        CompletableFuture<byte[]> interactive = generator.getThumbnail(4, pointer(4), 128);
+        // Joining a queued background job moves it ahead too
+        CompletableFuture<byte[]> promoted = generator.getThumbnail(3, pointer(3), 128);
+
+        released.countDown();
+
+        assertNotNull(interactive.get(10, TimeUnit.SECONDS));
+        assertNotNull(promoted.get(10, TimeUnit.SECONDS));
+        awaitRead(reads, 4);
+        assertEquals(List.of(1, 4, 3, 2), reads);
+    }
+
+    // Happy Path - Concurrent Requests For One Image Share A Single Job
+    @Test
+    void testGetThumbnail_Coalesced() throws Exception {
+        ThumbnailGenerator generator = generator(16);
+        generator.scheduleBackfill(1, pointer(1));
+        awaitRead(reads, 1);
+
+        List<CompletableFuture<byte[]>> requests = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            requests.add(generator.getThumbnail(5, pointer(5), i % 2 == 0 ? 128 : 512));
+        }
+        released.countDown();
+
+        for (CompletableFuture<byte[]> request : requests) {
+            assertNotNull(request.get(10, TimeUnit.SECONDS));
+        }
+        assertEquals(List.of(1, 5), reads);
+    }
+
+    // Negative Path - Background Jobs Beyond The Queue Capacity Are Dropped
+    @Test
+    void testScheduleBackfill_QueueFull() throws Exception {
+        ThumbnailGenerator generator = generator(1);
+        generator.scheduleBackfill(1, pointer(1));
+        awaitRead(reads, 1);
+        generator.scheduleBackfill(2, pointer(2));
+        generator.scheduleBackfill(3, pointer(3));
+
+        released.countDown();
+
+        assertNotNull(generator.getThumbnail(2, pointer(2), 128).get(10, TimeUnit.SECONDS));
+        assertEquals(List.of(1, 2), reads);
+    }
+}